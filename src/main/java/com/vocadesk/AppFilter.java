@@ -0,0 +1,140 @@
+package com.vocadesk;
+
+import java.util.Arrays;
+
+/**
+ * AppFilter - Incremental type-ahead filtering of the registry for the GUI's app list
+ * Works on AppMatcher's sorted snapshot. Names starting with the typed text come first (found
+ * by binary search), then names with a later word starting with it, then, from three
+ * characters on, names whose beginning is one edit away from it. Every name that could
+ * still match a longer query is remembered, so each further keystroke only rescans those;
+ * deleting characters or a registry change starts again from the whole snapshot.
+ * Not thread-safe: the GUI runs it on a single background thread.
+ */
+public class AppFilter {
+
+    // Names further than this from the typed text can never match a longer query
+    private static final int MAX_DISTANCE = 1;
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private static final byte PREFIX = 0;
+    private static final byte WORD = 1;
+    private static final byte FUZZY = 2;
+    private static final byte CANDIDATE = 3;
+
+    private final AppMatcher matcher;
+    private String[] snapshot = new String[0];
+    private String lastQuery;
+    // Indices into snapshot, ascending, that may still match; tiers[k] belongs to candidates[k]
+    private int[] candidates = new int[0];
+    private int candidateCount;
+    private int[] next = new int[0];
+    private byte[] tiers = new byte[0];
+
+    /**
+     * Constructor - Filter the names known to the given matcher
+     * @param matcher Matcher whose sorted registry snapshot is filtered
+     */
+    public AppFilter(AppMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Filter the registry by typed text
+     * @param query Typed text (case-insensitive); blank returns the whole registry
+     * @return Matching names, best tier first and in alphabetical order within a tier
+     */
+    public String[] filter(String query) {
+        String typed = query.toLowerCase().trim();
+        String[] names = matcher.getSortedNames();
+        if (typed.isEmpty()) {
+            lastQuery = null;
+            return names;
+        }
+
+        boolean narrowing = names == snapshot && lastQuery != null && typed.startsWith(lastQuery);
+        int sourceCount = narrowing ? candidateCount : names.length;
+        if (names != snapshot) {
+            snapshot = names;
+            candidates = new int[names.length];
+            next = new int[names.length];
+            tiers = new byte[names.length];
+        }
+
+        int from = lowerBound(names, typed);
+        int to = from;
+        while (to < names.length && names[to].startsWith(typed)) {
+            to++;
+        }
+        // Every name is within MAX_DISTANCE of text that short, so the distance is not computed
+        boolean measure = typed.length() > MAX_DISTANCE;
+        String wordStart = " " + typed;
+
+        int kept = 0;
+        int[] counts = new int[3];
+        for (int k = 0; k < sourceCount; k++) {
+            int index = narrowing ? candidates[k] : k;
+            byte tier;
+            if (index >= from && index < to) {
+                tier = PREFIX;
+            } else {
+                String name = names[index];
+                int distance = !measure ? 0
+                        : startsWithinOneEdit(typed, name) ? matcher.prefixDistance(typed, name, MAX_DISTANCE + 1)
+                        : MAX_DISTANCE + 1;
+                if (name.contains(wordStart)) {
+                    tier = WORD;
+                } else if (distance <= MAX_DISTANCE && typed.length() >= MIN_FUZZY_LENGTH) {
+                    tier = FUZZY;
+                } else if (distance <= MAX_DISTANCE) {
+                    tier = CANDIDATE;
+                } else {
+                    continue;
+                }
+            }
+            next[kept] = index;
+            tiers[kept] = tier;
+            kept++;
+            if (tier != CANDIDATE) {
+                counts[tier]++;
+            }
+        }
+        int[] swap = candidates;
+        candidates = next;
+        next = swap;
+        candidateCount = kept;
+        lastQuery = typed;
+
+        String[] matches = new String[counts[PREFIX] + counts[WORD] + counts[FUZZY]];
+        int[] offsets = {0, counts[PREFIX], counts[PREFIX] + counts[WORD]};
+        for (int k = 0; k < kept; k++) {
+            byte tier = tiers[k];
+            if (tier != CANDIDATE) {
+                matches[offsets[tier]++] = names[candidates[k]];
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Quick test of the first two characters that rules out most names before the edit
+     * distance: unless the name starts with the same character, the single edit is used at
+     * the start (a substitution, a dropped or an extra character), and that needs one of
+     * these to line up
+     */
+    private static boolean startsWithinOneEdit(String typed, String name) {
+        char t0 = typed.charAt(0);
+        char t1 = typed.charAt(1);
+        char n0 = name.isEmpty() ? 0 : name.charAt(0);
+        char n1 = name.length() < 2 ? 0 : name.charAt(1);
+        return n0 == t0 || n1 == t1 || n0 == t1 || n1 == t0;
+    }
+
+    /**
+     * First position whose name is not below the key
+     */
+    private static int lowerBound(String[] names, String key) {
+        int index = Arrays.binarySearch(names, key);
+        return index >= 0 ? index : -index - 1;
+    }
+}
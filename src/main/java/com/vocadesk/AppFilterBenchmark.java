@@ -0,0 +1,165 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * AppFilterBenchmark - Measures type-ahead filtering of the GUI's app list per keystroke
+ * Fills a registry with generated multi-word app names for each size, then types queries one
+ * character at a time (names from the registry, later words of names, and misspellings),
+ * timing AppFilter.filter for every keystroke the way the GUI's filter thread calls it. Each
+ * result is also checked against a fresh AppFilter, so incremental narrowing never changes
+ * what is shown. Prints JSON and exits with status 1 if the p99 at the largest size exceeds
+ * the budget or any result differed.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.AppFilterBenchmark [--sizes 1000,10000,100000]
+ *        [--queries 40] [--repeat 20] [--budget-ms 10]
+ */
+public class AppFilterBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "ri", "to", "men", "sa", "lo", "pur", "de", "vin",
+            "ta", "ex", "ban", "or", "qui", "nel", "go", "sty", "lux", "pho", "am"};
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--sizes", "1000,10000,100000",
+                "--queries", "40",
+                "--repeat", "20",
+                "--budget-ms", "10");
+        int queryCount = Integer.parseInt(options.get("--queries"));
+        int repeat = Integer.parseInt(options.get("--repeat"));
+        double budgetMs = Double.parseDouble(options.get("--budget-ms"));
+        PrintStream report = System.out;
+        JSONArray runs = new JSONArray();
+        double lastP99 = 0;
+        int mismatches = 0;
+
+        // Registries start empty and are filled with generated names
+        Path appsFile = Files.createTempFile("vocadesk-filter", ".json");
+        Files.write(appsFile, "[]".getBytes(StandardCharsets.UTF_8));
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (String sizeOption : options.get("--sizes").split(",")) {
+                int size = Integer.parseInt(sizeOption.trim());
+                Random random = new Random(size);
+                RecordingAppLauncher appLauncher = new RecordingAppLauncher(appsFile.toString());
+                while (appLauncher.getAppCount() < size) {
+                    appLauncher.registerApplication(appName(random), "/dev/null/app");
+                }
+                AppMatcher matcher = new AppMatcher(appLauncher);
+                String[] names = matcher.getSortedNames();
+                List<String> queries = queries(names, queryCount, random);
+
+                AppFilter filter = new AppFilter(matcher);
+                List<Double> latencies = new ArrayList<>();
+                long matched = 0;
+                for (int r = -1; r < repeat; r++) {
+                    // Round -1 warms up and checks results against a fresh filter
+                    for (String query : queries) {
+                        filter.filter("");
+                        for (int length = 1; length <= query.length(); length++) {
+                            String typed = query.substring(0, length);
+                            long start = System.nanoTime();
+                            String[] matches = filter.filter(typed);
+                            double millis = (System.nanoTime() - start) / 1e6;
+                            if (r < 0) {
+                                if (!Arrays.equals(matches, new AppFilter(matcher).filter(typed))) {
+                                    mismatches++;
+                                }
+                            } else {
+                                latencies.add(millis);
+                                matched += matches.length;
+                            }
+                        }
+                    }
+                }
+
+                double[] sorted = latencies.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+                lastP99 = ReplayBenchmark.percentile(sorted, 99);
+                JSONObject run = new JSONObject();
+                run.put("apps", size);
+                run.put("keystrokes", sorted.length);
+                run.put("meanMatches", (double) matched / Math.max(1, sorted.length));
+                run.put("keystrokeMsP50", ReplayBenchmark.percentile(sorted, 50));
+                run.put("keystrokeMsP90", ReplayBenchmark.percentile(sorted, 90));
+                run.put("keystrokeMsP99", lastP99);
+                run.put("keystrokeMsMax", sorted[sorted.length - 1]);
+                runs.put(run);
+            }
+        } finally {
+            System.setOut(report);
+            Files.deleteIfExists(appsFile);
+        }
+
+        JSONObject results = new JSONObject();
+        results.put("runs", runs);
+        results.put("resultMismatches", mismatches);
+        results.put("budgetMs", budgetMs);
+        results.put("withinBudget", lastP99 <= budgetMs);
+        report.println(results.toString(2));
+        if (lastP99 > budgetMs || mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * One to three made-up words, like "vinta lux" or "qui deban orsa"
+     */
+    private static String appName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int words = 1 + random.nextInt(3);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                name.append(' ');
+            }
+            int syllables = 1 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Whole names, later words of names, and names with one letter swapped or dropped
+     */
+    private static List<String> queries(String[] names, int count, Random random) {
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String name = names[random.nextInt(names.length)];
+            switch (i % 3) {
+                case 0:
+                    queries.add(name);
+                    break;
+                case 1:
+                    int space = name.lastIndexOf(' ');
+                    queries.add(space > 0 ? name.substring(space + 1) : name);
+                    break;
+                default:
+                    int at = random.nextInt(name.length());
+                    if (at + 1 < name.length() && random.nextBoolean()) {
+                        queries.add(name.substring(0, at) + name.charAt(at + 1) + name.charAt(at) + name.substring(at + 2));
+                    } else {
+                        queries.add(name.substring(0, at) + name.substring(at + 1));
+                    }
+            }
+        }
+        return queries;
+    }
+}
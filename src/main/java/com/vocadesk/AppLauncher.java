@@ -5,34 +5,71 @@ import org.json.JSONObject;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * AppLauncher - Manages loading applications from JSON and launching them
  * This class is fully offline and reads from a local apps.json file
+ * An app whose "instance" is "focus" is brought to the front if it is already running
+ * instead of being started again (see RunningProcesses). An app may list "aliases", other
+ * names it is known by ("chrome" for "google chrome"); AppMatcher matches those too.
+ *
+ * Settings: vocadesk.launch.instance (new or focus, default new) - for apps without "instance",
+ *           vocadesk.focus.command - replaces the platform focus command ({pid} is the process id)
  */
 public class AppLauncher {
     
-    // Store app name -> path mapping
-    private Map<String, String> applications;
+    /**
+     * What a launch request did
+     */
+    public enum LaunchResult {
+        STARTED,
+        FOCUSED,
+        FAILED
+    }
+    
+    // Store app name -> path mapping (replaced wholesale on reload, safe to read from any thread)
+    private volatile Map<String, String> applications;
+    // Names of apps to focus rather than start again while running (replaced with applications)
+    private volatile Set<String> focusApps = new HashSet<>();
+    // Alias -> app name (replaced with applications)
+    private volatile Map<String, String> aliases = new ConcurrentHashMap<>();
+    private final RunningProcesses running = new RunningProcesses();
     private String jsonFilePath;
     
+    // Bumped on every registry change so matchers can rebuild their snapshots
+    private volatile long generation;
+    
     /**
      * Constructor - Initialize the AppLauncher with path to apps.json
      * @param jsonFilePath Path to the apps.json configuration file
      */
     public AppLauncher(String jsonFilePath) {
         this.jsonFilePath = jsonFilePath;
-        this.applications = new HashMap<>();
+        this.applications = new ConcurrentHashMap<>();
         loadApplications();
     }
     
     /**
      * Load applications from the JSON file into memory
      * Format: [{"name": "Calculator", "path": "C:/Windows/System32/calc.exe"}, ...]
+     * with an optional "instance": "focus" or "new" and "aliases": ["chrome", ...] per app
      */
     private void loadApplications() {
+        Map<String, String> loaded = new ConcurrentHashMap<>();
+        Set<String> focus = new HashSet<>();
+        Map<String, String> loadedAliases = new ConcurrentHashMap<>();
+        String defaultInstance = VocadeskConfig.getString("vocadesk.launch.instance", "new");
         try {
             // Read JSON file content
             String jsonContent = new String(Files.readAllBytes(Paths.get(jsonFilePath)));
@@ -43,11 +80,36 @@ public class AppLauncher {
                 JSONObject app = appsArray.getJSONObject(i);
                 String name = app.getString("name").toLowerCase(); // Store in lowercase for easy matching
                 String path = app.getString("path");
-                applications.put(name, path);
-                System.out.println("[INFO] Loaded app: " + name + " -> " + path);
+                loaded.put(name, path);
+                if (app.optString("instance", defaultInstance).equalsIgnoreCase("focus")) {
+                    focus.add(name);
+                }
+                JSONArray appAliases = app.optJSONArray("aliases");
+                List<String> added = new ArrayList<>();
+                for (int j = 0; appAliases != null && j < appAliases.length(); j++) {
+                    String alias = appAliases.getString(j).toLowerCase().trim();
+                    if (!alias.isEmpty() && !alias.equals(name)) {
+                        loadedAliases.put(alias, name);
+                        added.add(alias);
+                    }
+                }
+                System.out.println("[INFO] Loaded app: " + name + " -> " + path
+                        + (added.isEmpty() ? "" : " (also " + String.join(", ", added) + ")"));
             }
             
-            System.out.println("[SUCCESS] Loaded " + applications.size() + " applications from " + jsonFilePath);
+            // A name always means its own app, even if another app lists it as an alias
+            for (String alias : new ArrayList<>(loadedAliases.keySet())) {
+                if (loaded.containsKey(alias)) {
+                    System.err.println("[WARNING] Alias '" + alias + "' of " + loadedAliases.remove(alias)
+                            + " is the name of another app and is ignored");
+                }
+            }
+            
+            focusApps = focus;
+            aliases = loadedAliases;
+            applications = loaded;
+            generation++;
+            System.out.println("[SUCCESS] Loaded " + loaded.size() + " applications from " + jsonFilePath);
             
         } catch (IOException e) {
             System.err.println("[ERROR] Failed to read apps.json: " + e.getMessage());
@@ -60,35 +122,175 @@ public class AppLauncher {
     /**
      * Launch an application by name
      * @param appName Name of the application to launch (case-insensitive)
-     * @return true if launched successfully, false otherwise
+     * @return true if launched (or focused) successfully, false otherwise
      */
     public boolean launchApp(String appName) {
+        return launch(appName) != LaunchResult.FAILED;
+    }
+    
+    /**
+     * Launch an application by name, or bring it to the front if its policy is "focus"
+     * and it is already running
+     * @param appName Name of the application to launch (case-insensitive)
+     * @return Whether it was started, focused, or could not be launched
+     */
+    public LaunchResult launch(String appName) {
         // Normalize the app name to lowercase
         String normalizedName = appName.toLowerCase().trim();
         
         // Check if app exists in our registry
-        if (!applications.containsKey(normalizedName)) {
+        String appPath = applications.get(normalizedName);
+        if (appPath == null) {
             System.err.println("[ERROR] Application '" + appName + "' not found in apps.json");
-            return false;
+            return LaunchResult.FAILED;
         }
         
-        // Get the application path
-        String appPath = applications.get(normalizedName);
+        if (focusApps.contains(normalizedName)) {
+            Optional<ProcessHandle> instance = running.find(appPath);
+            if (instance.isPresent()) {
+                long pid = instance.get().pid();
+                if (focusProcess(pid)) {
+                    System.out.println("[SUCCESS] Switched to running " + appName + " (pid " + pid + ")");
+                } else {
+                    System.out.println("[WARNING] " + appName + " is already running (pid " + pid
+                            + ") but could not be brought to the front");
+                }
+                return LaunchResult.FOCUSED;
+            }
+        }
         
         try {
-            // Launch the application using ProcessBuilder (works offline)
-            ProcessBuilder processBuilder = new ProcessBuilder(appPath);
-            processBuilder.start();
+            startProcess(normalizedName, List.of(appPath));
             System.out.println("[SUCCESS] Launched: " + appName + " (" + appPath + ")");
-            return true;
+            return LaunchResult.STARTED;
             
         } catch (IOException e) {
             System.err.println("[ERROR] Failed to launch " + appName + ": " + e.getMessage());
             System.err.println("[INFO] Check if the path is correct: " + appPath);
+            return LaunchResult.FAILED;
+        }
+    }
+    
+    /**
+     * Bring a running process's window to the front with the platform's own tools:
+     * AppActivate through PowerShell on Windows, System Events on macOS, xdotool on Linux
+     * @param pid Process to focus
+     * @return true if the focus command was started
+     */
+    private boolean focusProcess(long pid) {
+        List<String> command = new ArrayList<>();
+        String custom = VocadeskConfig.getString("vocadesk.focus.command", "").trim();
+        String os = System.getProperty("os.name", "").toLowerCase();
+        if (!custom.isEmpty()) {
+            for (String part : custom.split("\\s+")) {
+                command.add(part.replace("{pid}", String.valueOf(pid)));
+            }
+        } else if (os.contains("win")) {
+            command.addAll(List.of("powershell", "-NoProfile", "-NonInteractive", "-Command",
+                    "(New-Object -ComObject WScript.Shell).AppActivate(" + pid + ")"));
+        } else if (os.contains("mac")) {
+            command.addAll(List.of("osascript", "-e",
+                    "tell application \"System Events\" to set frontmost of (first process whose unix id is "
+                            + pid + ") to true"));
+        } else {
+            command.addAll(List.of("xdotool", "search", "--onlyvisible", "--pid", String.valueOf(pid),
+                    "windowactivate"));
+        }
+        
+        try {
+            startProcess("system-focus", command);
+            return true;
+        } catch (IOException e) {
+            System.err.println("[WARNING] Could not focus process " + pid + ": " + e.getMessage());
             return false;
         }
     }
     
+    /**
+     * Launch several applications at once, each as its own task on the executor
+     * Returns when every launch has finished, so the caller can report them together
+     * @param appNames Names of the applications to launch
+     * @param executor Executor that runs the launches (one that may block, with a thread per task)
+     * @return Whether each application launched, in the order given
+     */
+    public Map<String, Boolean> launchApps(List<String> appNames, Executor executor) {
+        List<CompletableFuture<Boolean>> launches = new ArrayList<>();
+        for (String appName : appNames) {
+            launches.add(CompletableFuture.supplyAsync(() -> launchApp(appName), executor)
+                    .exceptionally(e -> false));
+        }
+        
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        for (int i = 0; i < appNames.size(); i++) {
+            results.put(appNames.get(i), launches.get(i).join());
+        }
+        return results;
+    }
+    
+    /**
+     * Open a URL or file with the system's default handler
+     * Uses the platform opener command rather than java.awt.Desktop, so headless
+     * processes never load AWT
+     * @param target URL or file path to open
+     * @return true if the opener was started, false otherwise
+     */
+    public boolean openWithSystem(String target) {
+        List<String> command = new ArrayList<>();
+        String os = System.getProperty("os.name", "").toLowerCase();
+        if (os.contains("win")) {
+            command.add("rundll32");
+            command.add("url.dll,FileProtocolHandler");
+        } else if (os.contains("mac")) {
+            command.add("open");
+        } else {
+            command.add("xdg-open");
+        }
+        command.add(target);
+        
+        try {
+            startProcess("system-open", command);
+            System.out.println("[SUCCESS] Opened: " + target);
+            return true;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to open " + target + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Start a process on behalf of a registered application or the system opener
+     * Benchmarks override this to record launches instead of spawning processes
+     * @param appName Normalized application name ("system-open" for openWithSystem,
+     *                "system-focus" for bringing a running app to the front)
+     * @param command Executable path followed by its arguments
+     * @throws IOException if the process cannot be started
+     */
+    protected void startProcess(String appName, List<String> command) throws IOException {
+        // Launch the application using ProcessBuilder (works offline)
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.start();
+    }
+    
+    /**
+     * Add an application to the registry without touching apps.json
+     * @param name Name of the application (case-insensitive)
+     * @param path Path to the executable
+     */
+    protected void registerApplication(String name, String path) {
+        applications.put(name.toLowerCase().trim(), path);
+        generation++;
+    }
+    
+    /**
+     * Add an alias for a registered application without touching apps.json
+     * @param name Name of the application (case-insensitive)
+     * @param alias Other name it is known by
+     */
+    protected void registerAlias(String name, String alias) {
+        aliases.put(alias.toLowerCase().trim(), name.toLowerCase().trim());
+        generation++;
+    }
+    
     /**
      * Check if an application exists in the registry
      * @param appName Name of the application
@@ -98,6 +300,42 @@ public class AppLauncher {
         return applications.containsKey(appName.toLowerCase().trim());
     }
     
+    /**
+     * Get the path an application is launched from
+     * @param appName Name of the application (case-insensitive)
+     * @return Path from apps.json, or null if not registered
+     */
+    public String getAppPath(String appName) {
+        return applications.get(appName.toLowerCase().trim());
+    }
+    
+    /**
+     * Get the application an alias stands for
+     * @param alias Name as heard (case-insensitive)
+     * @return The application's name, or null if it is not an alias
+     */
+    public String resolveAlias(String alias) {
+        return aliases.get(alias.toLowerCase().trim());
+    }
+    
+    /**
+     * Get every alias and the application it stands for
+     * @return Snapshot of alias -> application name
+     */
+    public Map<String, String> getAliases() {
+        return new HashMap<>(aliases);
+    }
+    
+    /**
+     * Get every name an application can be asked for by: names and aliases
+     * @return Names followed by aliases
+     */
+    public String[] getSpokenNames() {
+        List<String> spoken = new ArrayList<>(applications.keySet());
+        spoken.addAll(aliases.keySet());
+        return spoken.toArray(new String[0]);
+    }
+    
     /**
      * Get all registered application names
      * @return Array of application names
@@ -108,12 +346,21 @@ public class AppLauncher {
     
     /**
      * Reload applications from JSON file (useful if file is updated)
+     * The new registry replaces the old one only once it has loaded, so lookups
+     * from other threads never see a half-filled map
      */
-    public void reload() {
-        applications.clear();
+    public synchronized void reload() {
         loadApplications();
     }
     
+    /**
+     * Get the registry generation, which changes whenever apps are added or reloaded
+     * @return Current generation number
+     */
+    public long getGeneration() {
+        return generation;
+    }
+    
     /**
      * Get the number of registered applications
      * @return Number of apps
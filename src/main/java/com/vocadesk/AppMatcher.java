@@ -0,0 +1,273 @@
+package com.vocadesk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * AppMatcher - Fuzzy app-name matching over a snapshot of the AppLauncher registry
+ * The snapshot is rebuilt lazily whenever the registry generation changes. It indexes every
+ * name and alias by its PhoneticKey, together with each key minus one sound, so a heard name
+ * finds the names that sound like it, or nearly, with a few hash lookups; those are ranked by
+ * edit distance. Small registries are also scanned in full for plain misspellings.
+ *
+ * Settings: vocadesk.match.scan-limit (default 2000) - largest registry (names plus aliases)
+ *           that is scanned in full when no name sounds alike; larger ones use the index only
+ */
+public class AppMatcher {
+
+    // Maximum edit distance accepted as a match (exclusive)
+    private static final int MAX_DISTANCE = 4;
+    // For names whose key is the same as what was heard: sounding alike is worth more edits
+    private static final int PHONETIC_DISTANCE = 6;
+    // Shorter keys are only looked up whole; their one-sound neighbours are too many
+    private static final int MIN_NEIGHBOUR_KEY = 3;
+
+    private final AppLauncher appLauncher;
+    private final int scanLimit;
+    private volatile String[] sortedNames = new String[0];
+    private volatile Index index = new Index(new HashMap<>());
+    private volatile long generation = -1;
+
+    // Reused DP rows for the calling thread
+    private final ThreadLocal<int[][]> rows = ThreadLocal.withInitial(() -> new int[2][32]);
+
+    /**
+     * Constructor - Match against the given registry
+     * @param appLauncher The application registry
+     */
+    public AppMatcher(AppLauncher appLauncher) {
+        this.appLauncher = appLauncher;
+        this.scanLimit = VocadeskConfig.getInt("vocadesk.match.scan-limit", 2000);
+    }
+
+    /**
+     * Names and aliases by phonetic key, with their compact spellings and the app each means
+     */
+    private static final class Index {
+        final String[] spoken;
+        final String[] apps;
+        final String[] keys;
+        // Key, and each key with one sound removed -> entries
+        final Map<String, int[]> buckets = new HashMap<>();
+
+        Index(Map<String, String> spokenToApp) {
+            int size = spokenToApp.size();
+            spoken = new String[size];
+            apps = new String[size];
+            keys = new String[size];
+            Map<String, List<Integer>> lists = new HashMap<>();
+            int i = 0;
+            for (Map.Entry<String, String> entry : spokenToApp.entrySet()) {
+                spoken[i] = PhoneticKey.compact(entry.getKey());
+                apps[i] = entry.getValue();
+                keys[i] = PhoneticKey.encode(entry.getKey());
+                for (String variant : variants(keys[i])) {
+                    lists.computeIfAbsent(variant, k -> new ArrayList<>()).add(i);
+                }
+                i++;
+            }
+            for (Map.Entry<String, List<Integer>> list : lists.entrySet()) {
+                buckets.put(list.getKey(), list.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+    }
+
+    /**
+     * The key and, for long enough keys, each distinct key with one sound removed
+     * Two keys one sound apart (added, dropped or changed) share at least one of these
+     */
+    private static List<String> variants(String key) {
+        List<String> variants = new ArrayList<>();
+        if (key.isEmpty()) {
+            return variants;
+        }
+        variants.add(key);
+        if (key.length() >= MIN_NEIGHBOUR_KEY) {
+            for (int i = 0; i < key.length(); i++) {
+                String shorter = key.substring(0, i) + key.substring(i + 1);
+                if (!variants.contains(shorter)) {
+                    variants.add(shorter);
+                }
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * Get the sorted registry snapshot, rebuilding it if the registry changed
+     * @return App names in ascending order
+     */
+    public String[] getSortedNames() {
+        long current = appLauncher.getGeneration();
+        if (current != generation) {
+            synchronized (this) {
+                if (current != generation) {
+                    String[] names = appLauncher.getAppNames();
+                    Arrays.sort(names);
+                    // Sorted, so ties go to the first name alphabetically as before
+                    Map<String, String> spokenToApp = new TreeMap<>(appLauncher.getAliases());
+                    for (String name : names) {
+                        spokenToApp.put(name, name);
+                    }
+                    index = new Index(spokenToApp);
+                    sortedNames = names;
+                    generation = current;
+                }
+            }
+        }
+        return sortedNames;
+    }
+
+    /**
+     * Find best matching app name using fuzzy matching
+     * Names and aliases that sound like the input (same phonetic key, or one sound apart) are
+     * ranked by edit distance between spellings without spaces; a name with the same key
+     * counts one edit closer and is accepted up to PHONETIC_DISTANCE - 1 edits away, others
+     * only up to MAX_DISTANCE - 1. In registries up to the scan limit every name is also compared,
+     * so plain misspellings that changed the sound are still found.
+     * @param input The app name as heard
+     * @return Closest registered name within the distance limit, or null
+     */
+    public String findBestMatch(String input) {
+        getSortedNames();
+        Index snapshot = index;
+        String heard = PhoneticKey.compact(input);
+        if (heard.isEmpty()) {
+            return null;
+        }
+        String key = PhoneticKey.encode(input);
+        int best = -1;
+        // Edit distance, less one for a name with the same key; only same-key names can reach
+        // the looser limit, the others are held to MAX_DISTANCE below
+        int bestScore = PHONETIC_DISTANCE - 1;
+
+        for (String variant : variants(key)) {
+            int[] bucket = snapshot.buckets.get(variant);
+            if (bucket == null) {
+                continue;
+            }
+            for (int entry : bucket) {
+                int bonus = snapshot.keys[entry].equals(key) ? 1 : 0;
+                int limit = bonus == 1 ? PHONETIC_DISTANCE : MAX_DISTANCE;
+                limit = Math.min(limit, bestScore + bonus);
+                String candidate = snapshot.spoken[entry];
+                // Length difference is a lower bound on the edit distance
+                if (Math.abs(candidate.length() - heard.length()) >= limit) {
+                    continue;
+                }
+                int distance = levenshteinDistance(heard, candidate, limit);
+                if (distance < limit) {
+                    bestScore = distance - bonus;
+                    best = entry;
+                }
+            }
+        }
+
+        if (bestScore > 0 && snapshot.spoken.length <= scanLimit) {
+            for (int entry = 0; entry < snapshot.spoken.length; entry++) {
+                String candidate = snapshot.spoken[entry];
+                int limit = Math.min(bestScore, MAX_DISTANCE);
+                if (Math.abs(candidate.length() - heard.length()) >= limit) {
+                    continue;
+                }
+                int distance = levenshteinDistance(heard, candidate, limit);
+                if (distance < limit) {
+                    bestScore = distance;
+                    best = entry;
+                }
+            }
+        }
+
+        return best < 0 ? null : snapshot.apps[best];
+    }
+
+    /**
+     * Edit distance between typed text and the closest beginning of a name (the smallest
+     * distance to any prefix of it), used for type-ahead; stops early once every cell in a
+     * row reaches the limit. Never decreases as more characters are typed.
+     * @return The distance, or limit if it is at least limit
+     */
+    int prefixDistance(String typed, String name, int limit) {
+        int columns = Math.min(name.length(), typed.length() + limit);
+        int[][] dp = rows.get();
+        if (dp[0].length <= columns) {
+            dp = new int[2][columns + 1];
+            rows.set(dp);
+        }
+        int[] previous = dp[0];
+        int[] current = dp[1];
+
+        for (int j = 0; j <= columns; j++) {
+            previous[j] = j;
+        }
+
+        int rowMin = 0;
+        for (int i = 1; i <= typed.length(); i++) {
+            current[0] = i;
+            rowMin = i;
+            char c1 = typed.charAt(i - 1);
+            for (int j = 1; j <= columns; j++) {
+                if (c1 == name.charAt(j - 1)) {
+                    current[j] = previous[j - 1];
+                } else {
+                    current[j] = 1 + Math.min(previous[j - 1], Math.min(previous[j], current[j - 1]));
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin >= limit) {
+                return limit;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        // The last row's minimum is the distance to the best-matching prefix
+        return Math.min(rowMin, limit);
+    }
+
+    /**
+     * Calculate Levenshtein distance (edit distance) between two strings
+     * Stops early once every cell in a row reaches the limit
+     * @return The distance, or limit if it is at least limit
+     */
+    int levenshteinDistance(String s1, String s2, int limit) {
+        int[][] dp = rows.get();
+        if (dp[0].length <= s2.length()) {
+            dp = new int[2][s2.length() + 1];
+            rows.set(dp);
+        }
+        int[] previous = dp[0];
+        int[] current = dp[1];
+
+        for (int j = 0; j <= s2.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= s1.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            char c1 = s1.charAt(i - 1);
+            for (int j = 1; j <= s2.length(); j++) {
+                if (c1 == s2.charAt(j - 1)) {
+                    current[j] = previous[j - 1];
+                } else {
+                    current[j] = 1 + Math.min(previous[j - 1], Math.min(previous[j], current[j - 1]));
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin >= limit) {
+                return limit;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return Math.min(previous[s2.length()], limit);
+    }
+}
@@ -0,0 +1,196 @@
+package com.vocadesk;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.TargetDataLine;
+import java.util.Arrays;
+
+/**
+ * AudioCapture - Opens the microphone at its native format and delivers 16 kHz mono PCM
+ * Tries the device's native rates and channel counts first (48/44.1 kHz, stereo or mono)
+ * and converts in-process with PolyphaseResampler, instead of asking the sound system for
+ * 16 kHz mono and relying on its (often slow or missing) software conversion. A read never
+ * returns more than was asked for; samples the resampler produced beyond that are kept for
+ * the next read.
+ *
+ * Settings: vocadesk.capture.rate / vocadesk.capture.channels force a specific format
+ */
+public class AudioCapture {
+
+    public static final int TARGET_RATE = 16000;
+
+    // Candidate formats, most likely native first
+    private static final int[][] CANDIDATES = {
+        {48000, 2}, {48000, 1}, {44100, 2}, {44100, 1},
+        {32000, 1}, {22050, 1}, {16000, 1}
+    };
+
+    private final TargetDataLine line;
+    private final AudioFormat nativeFormat;
+    private final PolyphaseResampler resampler;
+
+    // Conversion buffers, grown only if a caller asks for a larger chunk
+    private byte[] nativeBytes = new byte[0];
+    private short[] nativeSamples = new short[0];
+    private short[] resampled = new short[0];
+    // Resampled samples at the start of resampled not yet returned to a caller
+    private int pending;
+
+    private AudioCapture(TargetDataLine line, AudioFormat nativeFormat) {
+        this.line = line;
+        this.nativeFormat = nativeFormat;
+        int rate = Math.round(nativeFormat.getSampleRate());
+        int channels = nativeFormat.getChannels();
+        this.resampler = (rate == TARGET_RATE && channels == 1)
+                ? null
+                : new PolyphaseResampler(rate, TARGET_RATE, channels);
+    }
+
+    /**
+     * Negotiate a capture format and open the default microphone
+     * @param lineBufferBytes Requested line buffer size in 16 kHz mono bytes, or 0 for the default
+     * @return An opened (not started) capture
+     * @throws LineUnavailableException if no candidate format can be opened
+     */
+    public static AudioCapture open(int lineBufferBytes) throws LineUnavailableException {
+        int forcedRate = VocadeskConfig.getInt("vocadesk.capture.rate", 0);
+        int forcedChannels = VocadeskConfig.getInt("vocadesk.capture.channels", 0);
+        LineUnavailableException lastError = null;
+
+        for (int[] candidate : CANDIDATES) {
+            int rate = forcedRate > 0 ? forcedRate : candidate[0];
+            int channels = forcedChannels > 0 ? forcedChannels : candidate[1];
+            AudioFormat format = new AudioFormat(rate, 16, channels, true, false);
+            DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
+
+            if (!AudioSystem.isLineSupported(info)) {
+                if (forcedRate > 0 || forcedChannels > 0) {
+                    break;
+                }
+                continue;
+            }
+
+            try {
+                TargetDataLine line = (TargetDataLine) AudioSystem.getLine(info);
+                if (lineBufferBytes > 0) {
+                    // Scale the buffer so it holds the same duration at the native format
+                    int scaled = (int) ((long) lineBufferBytes * rate * channels / TARGET_RATE);
+                    line.open(format, scaled - scaled % format.getFrameSize());
+                } else {
+                    line.open(format);
+                }
+                return new AudioCapture(line, format);
+            } catch (LineUnavailableException | IllegalArgumentException e) {
+                lastError = e instanceof LineUnavailableException
+                        ? (LineUnavailableException) e
+                        : new LineUnavailableException(e.getMessage());
+            }
+
+            if (forcedRate > 0 || forcedChannels > 0) {
+                break;
+            }
+        }
+
+        throw lastError != null ? lastError : new LineUnavailableException("No supported capture format found");
+    }
+
+    /**
+     * Read 16 kHz mono 16-bit little-endian PCM, blocking like TargetDataLine.read
+     * @param buffer Destination buffer
+     * @param offset First byte in buffer
+     * @param length Requested bytes; at most length (rounded down to whole samples) is returned
+     * @return Bytes written to buffer
+     */
+    public int read(byte[] buffer, int offset, int length) {
+        if (resampler == null) {
+            return line.read(buffer, offset, length);
+        }
+
+        int outputSamples = length / 2;
+        if (pending < outputSamples) {
+            // Round up so a read is not left a sample short; the extra waits in pending
+            int channels = nativeFormat.getChannels();
+            long needed = (long) (outputSamples - pending) * resampler.getInputRate();
+            int frames = (int) ((needed + TARGET_RATE - 1) / TARGET_RATE);
+            int frameBytes = frames * channels * 2;
+            ensureCapacity(frameBytes, pending + resampler.maxOutputSamples(frames));
+
+            int bytesRead = line.read(nativeBytes, 0, frameBytes);
+            if (bytesRead <= 0 && pending == 0) {
+                return bytesRead;
+            }
+            int samples = Math.max(0, bytesRead) / 2;
+            for (int i = 0; i < samples; i++) {
+                nativeSamples[i] = (short) ((nativeBytes[2 * i] & 0xff) | (nativeBytes[2 * i + 1] << 8));
+            }
+            pending += resampler.process(nativeSamples, 0, samples / channels, resampled, pending);
+        }
+
+        int returned = Math.min(pending, outputSamples);
+        for (int i = 0; i < returned; i++) {
+            short value = resampled[i];
+            buffer[offset + 2 * i] = (byte) value;
+            buffer[offset + 2 * i + 1] = (byte) (value >> 8);
+        }
+        pending -= returned;
+        System.arraycopy(resampled, returned, resampled, 0, pending);
+        return returned * 2;
+    }
+
+    private void ensureCapacity(int bytes, int outputSamples) {
+        if (nativeBytes.length < bytes) {
+            nativeBytes = new byte[bytes];
+            nativeSamples = new short[bytes / 2];
+        }
+        if (resampled.length < outputSamples) {
+            // Keep the pending samples at the front
+            resampled = Arrays.copyOf(resampled, outputSamples);
+        }
+    }
+
+    public void start() {
+        line.start();
+    }
+
+    public void stop() {
+        line.stop();
+    }
+
+    /**
+     * Discard audio captured but not yet read
+     */
+    public void flush() {
+        line.flush();
+        pending = 0;
+        if (resampler != null) {
+            resampler.reset();
+        }
+    }
+
+    public void close() {
+        line.close();
+    }
+
+    public boolean isOpen() {
+        return line.isOpen();
+    }
+
+    /**
+     * Get the format the device was actually opened with
+     * @return Native capture format
+     */
+    public AudioFormat getNativeFormat() {
+        return nativeFormat;
+    }
+
+    /**
+     * Describe the capture path for logs
+     * @return e.g. "48000 Hz, 2 ch -> 16000 Hz mono (in-process)"
+     */
+    public String describe() {
+        return Math.round(nativeFormat.getSampleRate()) + " Hz, " + nativeFormat.getChannels() + " ch"
+                + (resampler == null ? " (native 16 kHz mono)" : " -> 16000 Hz mono (in-process)");
+    }
+}
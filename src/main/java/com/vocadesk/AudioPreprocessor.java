@@ -0,0 +1,129 @@
+package com.vocadesk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AudioPreprocessor - Runs the configured AudioStages on each captured chunk before Vosk sees it
+ * Converts the PCM bytes to samples once, runs every stage in place and writes the result
+ * back into the same byte buffer, so the listening loops need no extra buffers
+ *
+ * Setting: vocadesk.preprocess = comma-separated stages in order, from
+ *          dc, highpass, denoise, agc (default none)
+ */
+public class AudioPreprocessor {
+
+    // An array rather than a list so the per-chunk loop does not allocate an iterator
+    private final AudioStage[] stages;
+    private short[] samples = new short[0];
+
+    /**
+     * Constructor - Run the given stages in order
+     * @param stages Stages, first applied first
+     */
+    public AudioPreprocessor(List<AudioStage> stages) {
+        this.stages = stages.toArray(new AudioStage[0]);
+    }
+
+    /**
+     * Build the chain named by vocadesk.preprocess
+     * @return The chain (possibly empty)
+     */
+    public static AudioPreprocessor fromConfig() {
+        return fromNames(VocadeskConfig.getString("vocadesk.preprocess", "none"));
+    }
+
+    /**
+     * Build a chain from stage names
+     * @param names Comma-separated names, e.g. "dc,highpass,denoise,agc", or "none"
+     * @return The chain (unknown names are skipped with a warning)
+     */
+    public static AudioPreprocessor fromNames(String names) {
+        List<AudioStage> stages = new ArrayList<>();
+        for (String name : names.split(",")) {
+            AudioStage stage = createStage(name.trim().toLowerCase());
+            if (stage != null) {
+                stages.add(stage);
+            }
+        }
+        return new AudioPreprocessor(stages);
+    }
+
+    private static AudioStage createStage(String name) {
+        switch (name) {
+            case "":
+            case "none":
+                return null;
+            case "dc":
+                return new DcRemover();
+            case "highpass":
+                return new HighPassFilter(100);
+            case "denoise":
+                return new NoiseSuppressor();
+            case "agc":
+                return new AutomaticGainControl();
+            default:
+                System.err.println("[WARNING] Unknown preprocessing stage '" + name + "' ignored");
+                return null;
+        }
+    }
+
+    /**
+     * Condition a chunk of 16 kHz mono 16-bit little-endian PCM in place
+     * @param buffer PCM bytes
+     * @param length Number of valid bytes in buffer
+     */
+    public void process(byte[] buffer, int length) {
+        if (stages.length == 0) {
+            return;
+        }
+
+        int count = length / 2;
+        if (samples.length < count) {
+            samples = new short[count];
+        }
+        for (int i = 0; i < count; i++) {
+            samples[i] = (short) ((buffer[2 * i] & 0xff) | (buffer[2 * i + 1] << 8));
+        }
+
+        for (int i = 0; i < stages.length; i++) {
+            stages[i].process(samples, 0, count);
+        }
+
+        for (int i = 0; i < count; i++) {
+            buffer[2 * i] = (byte) samples[i];
+            buffer[2 * i + 1] = (byte) (samples[i] >> 8);
+        }
+    }
+
+    /**
+     * Reset every stage's state
+     */
+    public void reset() {
+        for (AudioStage stage : stages) {
+            stage.reset();
+        }
+    }
+
+    public boolean isEmpty() {
+        return stages.length == 0;
+    }
+
+    /**
+     * Describe the chain for logs
+     * @return e.g. "dc > highpass > agc", or "none"
+     */
+    public String describe() {
+        if (stages.length == 0) {
+            return "none";
+        }
+        StringBuilder description = new StringBuilder();
+        for (AudioStage stage : stages) {
+            if (description.length() > 0) {
+                description.append(" > ");
+            }
+            description.append(stage.getName());
+        }
+        return description.toString();
+    }
+}
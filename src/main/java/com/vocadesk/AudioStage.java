@@ -0,0 +1,28 @@
+package com.vocadesk;
+
+/**
+ * AudioStage - One step of capture-side audio conditioning
+ * Stages work in place on 16 kHz mono 16-bit samples and must not allocate per call,
+ * since they run on the decode thread for every chunk
+ */
+public interface AudioStage {
+
+    /**
+     * Condition a block of samples in place
+     * @param samples 16 kHz mono PCM
+     * @param offset First sample to process
+     * @param length Number of samples
+     */
+    void process(short[] samples, int offset, int length);
+
+    /**
+     * Forget filter state, e.g. between replayed recordings
+     */
+    default void reset() {
+    }
+
+    /**
+     * Short name used in vocadesk.preprocess and logs
+     */
+    String getName();
+}
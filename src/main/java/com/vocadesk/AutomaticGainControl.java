@@ -0,0 +1,74 @@
+package com.vocadesk;
+
+/**
+ * AutomaticGainControl - Brings quiet and loud speakers to a consistent level
+ * Measures each block's RMS and moves the gain towards target / RMS, quickly when it must
+ * come down (to avoid clipping) and slowly when it goes up. Blocks that are not clearly
+ * above the tracked room noise keep the current gain, so the noise between commands is not
+ * pumped up. The gain is ramped across each block to avoid audible steps.
+ */
+public class AutomaticGainControl implements AudioStage {
+
+    // About -20 dBFS
+    private static final double TARGET_RMS = 3300;
+    private static final double NOISE_GATE_RMS = 150;
+    private static final float MAX_GAIN = 8.0f;
+    private static final float MIN_GAIN = 0.25f;
+    private static final float ATTACK = 0.5f;
+    private static final float RELEASE = 0.05f;
+    // Speech must be about 10 dB above the noise floor to move the gain
+    private static final double SPEECH_OVER_NOISE = 3.0;
+    private static final double FLOOR_RISE = 1.02;
+
+    private float gain = 1.0f;
+    private double noiseFloor = -1;
+
+    @Override
+    public void process(short[] samples, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+
+        long sumSquares = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int x = samples[i];
+            sumSquares += x * x;
+        }
+        double rms = Math.sqrt((double) sumSquares / length);
+
+        noiseFloor = noiseFloor < 0 || rms < noiseFloor ? rms : noiseFloor * FLOOR_RISE;
+
+        float target = gain;
+        if (rms >= NOISE_GATE_RMS && rms >= noiseFloor * SPEECH_OVER_NOISE) {
+            target = (float) Math.max(MIN_GAIN, Math.min(MAX_GAIN, TARGET_RMS / rms));
+        }
+        float next = gain + (target < gain ? ATTACK : RELEASE) * (target - gain);
+
+        float step = (next - gain) / length;
+        float start = gain;
+        for (int i = 0; i < length; i++) {
+            float value = samples[offset + i] * (start + step * i);
+            samples[offset + i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        }
+        gain = next;
+    }
+
+    @Override
+    public void reset() {
+        gain = 1.0f;
+        noiseFloor = -1;
+    }
+
+    /**
+     * Get the gain applied at the end of the last block
+     * @return Linear gain
+     */
+    public float getGain() {
+        return gain;
+    }
+
+    @Override
+    public String getName() {
+        return "agc";
+    }
+}
@@ -0,0 +1,204 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BehaviorCheck - Fixed cases for the timing, scheduling, ring and matching logic that the
+ * benchmarks only exercise in bulk
+ * Covers TimerWheel revolution counting and the cached next expiry after a cancel, daily
+ * ScheduleTime repeats across a DST change and the bare-hour rule for daily schedules,
+ * PcmRing wraparound and overrun (published or still being written), AppFilter tiers and
+ * narrowing, PhoneticKey sound-alikes, and AppMatcher's wider limit for same-sounding names.
+ * Prints JSON with every failed case and exits with status 1 if there are any.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.BehaviorCheck
+ */
+public class BehaviorCheck {
+
+    private static final ZoneId ZONE = ZoneId.of("America/New_York");
+
+    private final JSONArray failures = new JSONArray();
+    private int checks;
+
+    /**
+     * Main entry point for the check
+     * @param args None
+     */
+    public static void main(String[] args) throws Exception {
+        BehaviorCheck check = new BehaviorCheck();
+        check.timerWheel();
+        check.scheduleTime();
+        check.pcmRing();
+        check.matching();
+
+        JSONObject results = new JSONObject();
+        results.put("checks", check.checks);
+        results.put("failures", check.failures);
+        results.put("passed", check.failures.isEmpty());
+        System.out.println(results.toString(2));
+        if (!check.failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    private void expect(String name, Object expected, Object actual) {
+        checks++;
+        if (!expected.equals(actual)) {
+            JSONObject failure = new JSONObject();
+            failure.put("check", name);
+            failure.put("expected", String.valueOf(expected));
+            failure.put("actual", String.valueOf(actual));
+            failures.put(failure);
+        }
+    }
+
+    private void timerWheel() {
+        // 8 buckets of 10 ms: one revolution is 80 ms
+        TimerWheel<String> wheel = new TimerWheel<>(10, 8, 0);
+        wheel.schedule("late", 250);
+        wheel.schedule("early", 90);
+        // Ticks 1, 9 and 17 share the late entry's bucket; it must wait out its revolutions
+        expect("wheel.sameBucketEarlierTick", List.of(), wheel.advance(10));
+        expect("wheel.firstRevolution", List.of("early"), wheel.advance(90));
+        expect("wheel.beforeLastRevolution", List.of(), wheel.advance(249));
+        expect("wheel.afterRevolutions", List.of("late"), wheel.advance(250));
+        expect("wheel.empty", Long.MAX_VALUE, wheel.getNextExpiry());
+
+        wheel = new TimerWheel<>(10, 8, 0);
+        TimerWheel.Timeout<String> first = wheel.schedule("first", 105);
+        wheel.schedule("second", 300);
+        expect("wheel.nextRoundsUp", 110L, wheel.getNextExpiry());
+        expect("wheel.cancel", true, wheel.cancel(first));
+        expect("wheel.cancelAgain", false, wheel.cancel(first));
+        // The cached expiry was the cancelled one; the next is more than a revolution ahead
+        expect("wheel.nextAfterCancel", 300L, wheel.getNextExpiry());
+        expect("wheel.cancelledNeverFires", List.of("second"), wheel.advance(300));
+    }
+
+    private void scheduleTime() {
+        ScheduleTime daily = ScheduleTime.parse("every day at 9");
+        long saturday = at(2026, 3, 7, 8, 0);
+        long first = daily.firstDue(saturday, ZONE);
+        expect("schedule.dailyFirst", at(2026, 3, 7, 9, 0), first);
+        // Clocks go forward on 8 March 2026: the repeat keeps 9:00, 23 hours later
+        long second = ScheduleTime.nextDue(first, daily.getRepeatMillis(), first, ZONE);
+        expect("schedule.dailyAcrossDst", at(2026, 3, 8, 9, 0), second);
+        expect("schedule.dailyDstGapHours", 23L, (second - first) / ScheduleTime.HOUR_MILLIS);
+        long third = ScheduleTime.nextDue(second, daily.getRepeatMillis(), second, ZONE);
+        expect("schedule.dailyAfterDst", at(2026, 3, 9, 9, 0), third);
+        // A missed run resumes at the next 9:00, not a multiple of 24 hours
+        expect("schedule.dailyMissed", at(2026, 3, 10, 9, 0),
+                ScheduleTime.nextDue(first, daily.getRepeatMillis(), at(2026, 3, 9, 12, 0), ZONE));
+
+        // A bare hour said after it has passed: a daily schedule keeps the morning
+        long tenAm = at(2026, 6, 1, 10, 0);
+        expect("schedule.dailyBareHourAfter", at(2026, 6, 2, 9, 0), daily.firstDue(tenAm, ZONE));
+        expect("schedule.dailyBareHourLater", at(2026, 6, 3, 9, 0),
+                ScheduleTime.nextDue(at(2026, 6, 2, 9, 0), daily.getRepeatMillis(), at(2026, 6, 2, 9, 0), ZONE));
+        expect("schedule.dailyNoon", at(2026, 6, 1, 12, 0),
+                ScheduleTime.parse("daily at 12").firstDue(tenAm, ZONE));
+        expect("schedule.everyEvening", at(2026, 6, 1, 21, 0),
+                ScheduleTime.parse("every evening at 9").firstDue(tenAm, ZONE));
+        expect("schedule.dailyExplicitPm", at(2026, 6, 1, 21, 0),
+                ScheduleTime.parse("at 9 pm every day").firstDue(tenAm, ZONE));
+        // A single launch still takes whichever 9 comes first
+        expect("schedule.onceBareHour", at(2026, 6, 1, 21, 0), ScheduleTime.parse("at 9").firstDue(tenAm, ZONE));
+    }
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(LocalDateTime.of(year, month, day, hour, minute), ZONE).toInstant().toEpochMilli();
+    }
+
+    private void pcmRing() throws Exception {
+        Path file = Files.createTempFile("vocadesk-check", ".ring");
+        try (PcmRing writer = PcmRing.create(file, 16); PcmRing reader = PcmRing.open(file)) {
+            byte[] data = new byte[10];
+            byte[] target = new byte[16];
+            Arrays.fill(data, (byte) 1);
+            writer.write(data, 0, 10);
+            expect("ring.read", 10, reader.read(0, target, 0, 16));
+            expect("ring.nothingNew", 0, reader.read(10, target, 0, 16));
+
+            // The second write wraps past the end of the data area
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) (i + 2);
+            }
+            writer.write(data, 0, 10);
+            Arrays.fill(target, (byte) 0);
+            expect("ring.wrapRead", 10, reader.read(10, target, 0, 16));
+            expect("ring.wrapBytes", Arrays.toString(data), Arrays.toString(Arrays.copyOf(target, 10)));
+            expect("ring.overrun", -1, reader.read(0, target, 0, 16));
+            expect("ring.oldest", 4L, reader.getOldestPosition());
+
+            // A write announced but not yet published has already overwritten position 4
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, 64);
+                header.order(ByteOrder.nativeOrder());
+                header.putLong(16, 21);
+                expect("ring.writeInProgress", -1, reader.read(4, target, 0, 16));
+                expect("ring.clearOfWriteInProgress", 15, reader.read(5, target, 0, 16));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void matching() throws Exception {
+        Path appsFile = Files.createTempFile("vocadesk-check", ".json");
+        Files.write(appsFile, "[]".getBytes(StandardCharsets.UTF_8));
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            RecordingAppLauncher appLauncher = new RecordingAppLauncher(appsFile.toString());
+            for (String name : new String[] {
+                "google chrome", "chromium", "chrome remote desktop", "calculator", "notepad",
+                "photoshop", "spotify", "whatsapp", "visual studio code"
+            }) {
+                appLauncher.registerApplication(name, "/dev/null/app");
+            }
+            AppMatcher matcher = new AppMatcher(appLauncher);
+
+            AppFilter filter = new AppFilter(matcher);
+            expect("filter.blank", 9, filter.filter(" ").length);
+            expect("filter.tiers", "[chrome remote desktop, chromium, google chrome]",
+                    Arrays.toString(filter.filter("CHR")));
+            String[] narrowed = filter.filter("chromi");
+            expect("filter.narrowing", Arrays.toString(new AppFilter(matcher).filter("chromi")),
+                    Arrays.toString(narrowed));
+            expect("filter.prefixBeforeFuzzy", "chromium", narrowed[0]);
+            expect("filter.fuzzy", "[notepad]", Arrays.toString(filter.filter("notpad")));
+            expect("filter.widened", "[calculator]", Arrays.toString(filter.filter("calc")));
+            expect("filter.none", 0, filter.filter("zzzz").length);
+
+            expect("phonetic.krome", PhoneticKey.encode("chrome"), PhoneticKey.encode("krome"));
+            expect("phonetic.spotify", PhoneticKey.encode("spotify"), PhoneticKey.encode("spot if i"));
+            expect("phonetic.whatsapp", PhoneticKey.encode("whatsapp"), PhoneticKey.encode("watts up"));
+            expect("phonetic.vw", PhoneticKey.encode("visual"), PhoneticKey.encode("wisual"));
+            expect("phonetic.distinct", false, PhoneticKey.encode("chrome").equals(PhoneticKey.encode("calculator")));
+
+            // Same-sounding but three edits away: only the phonetic limit lets it through
+            expect("matcher.sameKeyWiderLimit", "photoshop", matcher.findBestMatch("fottoshoppe"));
+            expect("matcher.noMatch", "null", String.valueOf(matcher.findBestMatch("xylophone")));
+        } finally {
+            System.setOut(report);
+            Files.deleteIfExists(appsFile);
+        }
+    }
+}
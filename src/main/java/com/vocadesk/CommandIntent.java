@@ -0,0 +1,185 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CommandIntent - The outcome of interpreting one recognized utterance
+ * Produced by CommandInterpreter, executed by the controller or console launcher
+ */
+public class CommandIntent {
+
+    /**
+     * What the user asked for
+     */
+    public enum Type {
+        EXIT,
+        BROWSER_SEARCH,
+        FIND,
+        OPEN_RESULT,
+        LAUNCH,
+        // "open outlook in 10 minutes", see getSchedule
+        SCHEDULE,
+        // "cancel outlook" (argument empty: every pending launch)
+        CANCEL_SCHEDULE,
+        LIST_SCHEDULES,
+        LIST_APPS,
+        RELOAD_APPS,
+        SET_PROFILE,
+        HELP,
+        // Several commands in one utterance ("open notepad and calculator"), see getParts
+        COMPOUND,
+        UNKNOWN
+    }
+
+    public final Type type;
+    public final String text;
+    public final String argument;
+    public final String browser;
+
+    // When a SCHEDULE intent should launch
+    ScheduleTime schedule;
+    // Set by CommandInterpreter.resolve for LAUNCH, SCHEDULE and CANCEL_SCHEDULE intents (fuzzy also for COMPOUND: any part fuzzy)
+    String resolvedApp;
+    boolean fuzzy;
+    // Resolved by a learned correction rather than a registry scan (see LearnedCorrections)
+    boolean learned;
+    // The separate commands of a COMPOUND intent, in spoken order
+    final List<CommandIntent> parts = new ArrayList<>();
+
+    CommandIntent(Type type, String text, String argument, String browser) {
+        this.type = type;
+        this.text = text;
+        this.argument = argument;
+        this.browser = browser;
+    }
+
+    /**
+     * Get the registry name this intent resolved to
+     * @return Registered app name, or null if nothing matched
+     */
+    public String getResolvedApp() {
+        return resolvedApp;
+    }
+
+    /**
+     * Check if the app was resolved by fuzzy matching rather than an exact name
+     * @return true for a fuzzy match
+     */
+    public boolean isFuzzy() {
+        return fuzzy;
+    }
+
+    /**
+     * Check if the app was resolved by a correction learned from earlier fuzzy launches
+     * @return true for a learned correction
+     */
+    public boolean isLearned() {
+        return learned;
+    }
+
+    /**
+     * Get when a SCHEDULE intent should launch
+     * @return The schedule, or null for other types
+     */
+    public ScheduleTime getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Get the separate commands of a COMPOUND intent
+     * @return Parts in spoken order (empty for other types)
+     */
+    public List<CommandIntent> getParts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    /**
+     * Check if this intent can be acted on: not UNKNOWN, a LAUNCH or SCHEDULE (or the app of
+     * a CANCEL_SCHEDULE) found in the registry, and for COMPOUND every part resolved
+     * @return true if resolved
+     */
+    public boolean isResolved() {
+        switch (type) {
+            case UNKNOWN:
+                return false;
+            case LAUNCH:
+            case SCHEDULE:
+                return resolvedApp != null;
+            case CANCEL_SCHEDULE:
+                return argument.isEmpty() || resolvedApp != null;
+            case COMPOUND:
+                for (CommandIntent part : parts) {
+                    if (!part.isResolved()) {
+                        return false;
+                    }
+                }
+                return !parts.isEmpty();
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Serialize for the recognition worker protocol (see RecognitionWorker)
+     * @return JSON with every field, including the resolution
+     */
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("type", type.name());
+        json.put("text", text);
+        json.put("argument", argument);
+        json.put("browser", browser == null ? JSONObject.NULL : browser);
+        json.put("resolvedApp", resolvedApp == null ? JSONObject.NULL : resolvedApp);
+        json.put("fuzzy", fuzzy);
+        json.put("learned", learned);
+        if (schedule != null) {
+            json.put("schedule", schedule.toJson());
+        }
+        if (!parts.isEmpty()) {
+            JSONArray array = new JSONArray();
+            for (CommandIntent part : parts) {
+                array.put(part.toJson());
+            }
+            json.put("parts", array);
+        }
+        return json;
+    }
+
+    /**
+     * Rebuild an intent serialized by toJson
+     * @param json Serialized intent
+     * @return The intent
+     */
+    public static CommandIntent fromJson(JSONObject json) {
+        CommandIntent intent = new CommandIntent(Type.valueOf(json.getString("type")), json.getString("text"),
+                json.getString("argument"), json.isNull("browser") ? null : json.getString("browser"));
+        intent.resolvedApp = json.isNull("resolvedApp") ? null : json.getString("resolvedApp");
+        intent.fuzzy = json.getBoolean("fuzzy");
+        intent.learned = json.optBoolean("learned");
+        JSONObject schedule = json.optJSONObject("schedule");
+        if (schedule != null) {
+            intent.schedule = ScheduleTime.fromJson(schedule);
+        }
+        JSONArray array = json.optJSONArray("parts");
+        for (int i = 0; array != null && i < array.length(); i++) {
+            intent.parts.add(fromJson(array.getJSONObject(i)));
+        }
+        return intent;
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.COMPOUND) {
+            return type + parts.toString();
+        }
+        if (type == Type.SCHEDULE) {
+            return type + "(" + argument + ", " + schedule + ")";
+        }
+        return type + (argument.isEmpty() ? "" : "(" + argument + ")");
+    }
+}
@@ -0,0 +1,555 @@
+package com.vocadesk;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * CommandInterpreter - Turns recognized text into a CommandIntent
+ * Stages: normalize -> correct -> route -> resolve (fuzzy match against the registry)
+ * Resolution tries the exact name, then learned corrections (see LearnedCorrections), then
+ * an LRU cache of earlier fuzzy results that is emptied whenever the registry reloads, and
+ * only then scans the registry (vocadesk.resolve.cache-size, default 256, 0 = no cache).
+ * Shared by the GUI controller, the console launcher and the transcript replay harness
+ * Understands romanized Hindi commands ("chrome kholo"); Devanagari results from a Hindi
+ * model are transliterated during normalization.
+ */
+public class CommandInterpreter {
+
+    // Commonly misheard words -> intended words (whole words only)
+    private static final String[][] CORRECTIONS = {
+        {"oh went", "open"},
+        {"oh pen", "open"},
+        {"opened", "open"},
+        {"opening", "open"},
+        {"crome", "chrome"},
+        {"krome", "chrome"},
+        {"spot if i", "spotify"},
+        {"spot if", "spotify"},
+        {"spotty", "spotify"},
+        {"what's up", "whatsapp"},
+        {"watts up", "whatsapp"},
+        {"calc", "calculator"},
+        {"krom", "chrome"},
+        {"such", "search"},
+        {"surge", "search"}
+    };
+
+    private static final Pattern[] CORRECTION_PATTERNS = new Pattern[CORRECTIONS.length];
+
+    static {
+        for (int i = 0; i < CORRECTIONS.length; i++) {
+            CORRECTION_PATTERNS[i] = Pattern.compile("\\b" + Pattern.quote(CORRECTIONS[i][0]) + "\\b");
+        }
+    }
+
+    private static final String[] LAUNCH_VERBS = {"open ", "launch ", "start "};
+    // Hindi puts the verb last: "chrome kholo", "spotify ko chalao"
+    private static final String[] HINDI_LAUNCH_VERBS = {
+        " kholo", " kholiye", " khol do", " chalao", " chala do", " shuru karo", " open karo", " start karo"
+    };
+    private static final String[] HINDI_EXIT = {"band karo", "band kar do", "ruko"};
+    private static final String HINDI_OBJECT_MARKER = " ko";
+    private static final String[] BROWSERS = {"chrome", "edge", "firefox"};
+    private static final Pattern SEARCH_PREFIX = Pattern.compile("search (for )?");
+    // "find budget report", "search files for invoice", "find files named notes"
+    private static final Pattern FIND_COMMAND =
+            Pattern.compile("(?:find|search files for|search for files?)(?: files?)?(?: (?:named|called))? (.+)");
+    // "open result two", "open the second result"
+    private static final Pattern RESULT_COMMAND =
+            Pattern.compile("(?:open|show) (?:the )?(?:result (\\w+)|(\\w+) result)");
+    private static final String[][] RESULT_NUMBERS = {
+        {"one", "first"}, {"two", "second"}, {"three", "third"}, {"four", "fourth"}, {"five", "fifth"},
+        {"six", "sixth"}, {"seven", "seventh"}, {"eight", "eighth"}, {"nine", "ninth"}, {"ten", "tenth"}
+    };
+    // "low latency mode", "switch to balanced profile", "use low power mode"
+    private static final Pattern PROFILE_COMMAND =
+            Pattern.compile("(?:switch to |use )?(low latency|balanced|low power) (?:mode|profile)");
+    // Boundaries between commands: "open notepad and calculator", "open chrome then open spotify",
+    // "open chrome open spotify", "notepad aur calculator kholo"
+    private static final Pattern COMPOUND_SPLIT =
+            Pattern.compile(" (?:and then|and|then|aur|phir) | (?=(?:open|launch) )");
+    // "cancel outlook", "cancel the scheduled chrome launch", "cancel all schedules"
+    private static final Pattern CANCEL_COMMAND = Pattern.compile("(?:cancel|clear) (.+)");
+    private static final Pattern CANCEL_LEADING = Pattern.compile("^(?:(?:the|my|all|every|scheduled|pending) )+");
+    private static final Pattern CANCEL_TRAILING = Pattern.compile("(?: (?:launch|launches|schedule|schedules|timer|timers))+$");
+    private static final Set<String> CANCEL_ALL =
+            Set.of("all", "everything", "schedule", "schedules", "launches", "scheduled launches", "timers");
+    private static final Pattern LIST_SCHEDULES_COMMAND = Pattern.compile(
+            "(?:list|show)(?: (?:my|the|all))? (?:schedules|scheduled launches|scheduled apps|timers)|what(?:'s| is) scheduled");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final AppLauncher appLauncher;
+    private final AppMatcher matcher;
+    private final LearnedCorrections corrections;
+    // Heard name -> fuzzy result (null for no match), least recently used first
+    private final Map<String, String> resolved;
+    private long resolvedGeneration = -1;
+    // Last fuzzy or learned launch, rejected if the user asks again for another app soon after
+    private final long overrideNanos;
+    private CommandIntent lastGuess;
+    private long lastGuessNanos;
+
+    /**
+     * Constructor - Interpret commands against the given registry, without learning
+     * @param appLauncher The application registry
+     */
+    public CommandInterpreter(AppLauncher appLauncher) {
+        this(appLauncher, new LearnedCorrections(null, null, 0));
+    }
+
+    /**
+     * Constructor - Interpret commands against the given registry, applying learned corrections
+     * @param appLauncher The application registry
+     * @param corrections Learned corrections, confirmed through confirm()
+     */
+    public CommandInterpreter(AppLauncher appLauncher, LearnedCorrections corrections) {
+        this.appLauncher = appLauncher;
+        this.matcher = new AppMatcher(appLauncher);
+        this.corrections = corrections;
+        this.overrideNanos = VocadeskConfig.getLong("vocadesk.corrections.override-ms", 30000) * 1_000_000L;
+        int cacheSize = VocadeskConfig.getInt("vocadesk.resolve.cache-size", 256);
+        this.resolved = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Run every stage on a recognized utterance
+     * @param command The recognized text
+     * @return The resolved intent
+     */
+    public CommandIntent interpret(String command) {
+        CommandIntent intent = route(correct(normalize(command)));
+        resolve(intent);
+        return intent;
+    }
+
+    /**
+     * Run every stage on a partial result, without caching fuzzy matches, so fragments such
+     * as "open chro" do not push real names out of the resolution cache
+     * @param command Partial recognized text
+     * @return The resolved intent
+     */
+    public CommandIntent interpretPartial(String command) {
+        CommandIntent intent = route(correct(normalize(command)));
+        resolve(intent, false);
+        return intent;
+    }
+
+    /**
+     * Lowercase, trim and collapse whitespace
+     */
+    public String normalize(String command) {
+        if (DevanagariTransliterator.containsDevanagari(command)) {
+            command = DevanagariTransliterator.toLatin(command);
+        }
+        return WHITESPACE.matcher(command.toLowerCase().trim()).replaceAll(" ");
+    }
+
+    /**
+     * Apply smart corrections for commonly misheard words
+     */
+    public String correct(String command) {
+        for (int i = 0; i < CORRECTIONS.length; i++) {
+            if (command.contains(CORRECTIONS[i][0])) {
+                command = CORRECTION_PATTERNS[i].matcher(command).replaceAll(CORRECTIONS[i][1]);
+            }
+        }
+        return command;
+    }
+
+    /**
+     * Decide which intent a corrected command expresses
+     * An unknown app name that is really several commands becomes a COMPOUND intent; app
+     * names that contain "and" themselves are kept whole.
+     */
+    public CommandIntent route(String command) {
+        CommandIntent single = routeOne(command);
+        boolean splittable = single.type == CommandIntent.Type.UNKNOWN
+                || (single.type == CommandIntent.Type.LAUNCH && !appLauncher.hasApp(single.argument)
+                        && appLauncher.resolveAlias(single.argument) == null);
+        if (splittable) {
+            CommandIntent compound = routeCompound(command);
+            if (compound != null) {
+                return compound;
+            }
+        }
+        return single;
+    }
+
+    /**
+     * Split a command at conjunctions and repeated verbs and route each part
+     * Parts without a verb borrow the launch from the rest ("and calculator", "notepad aur ... kholo"),
+     * but only when they name an app exactly, by alias or by a learned rule; chatter such as
+     * "hello and open chrome" is never guessed into a launch
+     * @return A COMPOUND intent, or null unless there are two or more parts, one is a launch
+     *         and every verbless part names a known app
+     */
+    private CommandIntent routeCompound(String command) {
+        List<CommandIntent> parts = new ArrayList<>();
+        boolean launches = false;
+        for (String segment : COMPOUND_SPLIT.split(command)) {
+            segment = segment.trim();
+            if (!segment.isEmpty()) {
+                CommandIntent part = routeOne(segment);
+                parts.add(part);
+                launches |= part.type == CommandIntent.Type.LAUNCH;
+            }
+        }
+        if (parts.size() < 2 || !launches) {
+            return null;
+        }
+
+        CommandIntent compound = new CommandIntent(CommandIntent.Type.COMPOUND, command, "", null);
+        for (CommandIntent part : parts) {
+            if (part.type == CommandIntent.Type.UNKNOWN) {
+                if (!isKnownApp(part.text)) {
+                    return null;
+                }
+                part = new CommandIntent(CommandIntent.Type.LAUNCH, part.text, part.text, null);
+            }
+            compound.parts.add(part);
+        }
+        return compound;
+    }
+
+    /**
+     * Whether a name resolves without a fuzzy guess (exactly, by alias or by a learned rule)
+     */
+    private boolean isKnownApp(String name) {
+        if (appLauncher.hasApp(name)) {
+            return true;
+        }
+        String aliased = appLauncher.resolveAlias(name);
+        if (aliased != null && appLauncher.hasApp(aliased)) {
+            return true;
+        }
+        String learned = corrections.lookup(name);
+        return learned != null && appLauncher.hasApp(learned);
+    }
+
+    private CommandIntent routeOne(String command) {
+        // Check for exit command
+        if (command.equals("exit") || command.equals("quit") ||
+            command.equals("close") || command.equals("stop") || isAny(command, HINDI_EXIT)) {
+            return new CommandIntent(CommandIntent.Type.EXIT, command, "", null);
+        }
+
+        // Check for "cancel [app]" / "cancel all schedules"
+        Matcher cancel = CANCEL_COMMAND.matcher(command);
+        if (cancel.matches()) {
+            String appName = CANCEL_LEADING.matcher(cancel.group(1)).replaceFirst("");
+            appName = CANCEL_TRAILING.matcher(appName).replaceFirst("").trim();
+            return new CommandIntent(CommandIntent.Type.CANCEL_SCHEDULE, command,
+                    CANCEL_ALL.contains(appName) ? "" : appName, null);
+        }
+
+        // Check for "list schedules" before the generic "list apps"
+        if (LIST_SCHEDULES_COMMAND.matcher(command).matches()) {
+            return new CommandIntent(CommandIntent.Type.LIST_SCHEDULES, command, "", null);
+        }
+
+        // Check for "find [words]" (local file search)
+        Matcher find = FIND_COMMAND.matcher(command);
+        if (find.matches()) {
+            return new CommandIntent(CommandIntent.Type.FIND, command, find.group(1).trim(), null);
+        }
+
+        // Check for "open result [n]" after a file search
+        Matcher result = RESULT_COMMAND.matcher(command);
+        if (result.matches()) {
+            int number = resultNumber(result.group(1) != null ? result.group(1) : result.group(2));
+            if (number > 0) {
+                return new CommandIntent(CommandIntent.Type.OPEN_RESULT, command, String.valueOf(number), null);
+            }
+        }
+
+        // Check for "search [query] in [browser]" or "open [browser] and search [query]"
+        String browser = findBrowser(command);
+        if (browser != null && command.contains("search")) {
+            return new CommandIntent(CommandIntent.Type.BROWSER_SEARCH, command,
+                    extractSearchQuery(command, browser), browser);
+        }
+
+        // Check for latency profile switches
+        Matcher profile = PROFILE_COMMAND.matcher(command);
+        if (profile.matches()) {
+            return new CommandIntent(CommandIntent.Type.SET_PROFILE, command, profile.group(1), null);
+        }
+
+        // Check for "open/launch/start [app]" commands, now or later ("open outlook in 10 minutes")
+        for (String verb : LAUNCH_VERBS) {
+            if (command.startsWith(verb) || command.equals(verb.trim())) {
+                String appName = command.substring(Math.min(verb.length(), command.length())).trim();
+                int when = ScheduleTime.find(appName);
+                if (when > 0) {
+                    CommandIntent intent = new CommandIntent(CommandIntent.Type.SCHEDULE, command,
+                            appName.substring(0, when), null);
+                    intent.schedule = ScheduleTime.parse(appName.substring(when + 1));
+                    return intent;
+                }
+                return new CommandIntent(CommandIntent.Type.LAUNCH, command, appName, null);
+            }
+        }
+
+        // Check for "[app] (ko) kholo/chalao" commands
+        for (String verb : HINDI_LAUNCH_VERBS) {
+            if (command.endsWith(verb)) {
+                String appName = command.substring(0, command.length() - verb.length()).trim();
+                if (appName.endsWith(HINDI_OBJECT_MARKER)) {
+                    appName = appName.substring(0, appName.length() - HINDI_OBJECT_MARKER.length()).trim();
+                }
+                return new CommandIntent(CommandIntent.Type.LAUNCH, command, appName, null);
+            }
+        }
+
+        // Check for "reload apps" command
+        if (command.startsWith("reload") || command.startsWith("refresh")) {
+            return new CommandIntent(CommandIntent.Type.RELOAD_APPS, command, "", null);
+        }
+
+        // Check for "list apps" or "show apps" command
+        if (command.contains("list") || command.contains("show") || command.contains("dikhao")) {
+            return new CommandIntent(CommandIntent.Type.LIST_APPS, command, "", null);
+        }
+
+        // Check for "help" command
+        if (command.contains("help")) {
+            return new CommandIntent(CommandIntent.Type.HELP, command, "", null);
+        }
+
+        return new CommandIntent(CommandIntent.Type.UNKNOWN, command, "", null);
+    }
+
+    /**
+     * Resolve a LAUNCH intent (or the app of a SCHEDULE or CANCEL_SCHEDULE) to a registered
+     * app, exactly, by a learned correction or by fuzzy match (each part of a COMPOUND intent,
+     * dropping repeated apps)
+     */
+    public void resolve(CommandIntent intent) {
+        resolve(intent, true);
+    }
+
+    private void resolve(CommandIntent intent, boolean cache) {
+        if (intent.type == CommandIntent.Type.COMPOUND) {
+            intent.fuzzy = false;
+            // "open chrome and chrome" launches it once
+            Set<String> launched = new HashSet<>();
+            Iterator<CommandIntent> parts = intent.parts.iterator();
+            while (parts.hasNext()) {
+                CommandIntent part = parts.next();
+                resolve(part, cache);
+                if (part.resolvedApp != null && !launched.add(part.resolvedApp)) {
+                    parts.remove();
+                }
+                intent.fuzzy |= part.fuzzy;
+            }
+            return;
+        }
+        boolean named = intent.type == CommandIntent.Type.LAUNCH || intent.type == CommandIntent.Type.SCHEDULE
+                || intent.type == CommandIntent.Type.CANCEL_SCHEDULE;
+        if (!named || intent.argument.isEmpty()) {
+            return;
+        }
+        // Intents from the recognition worker arrive resolved by its interpreter
+        intent.resolvedApp = null;
+        intent.fuzzy = false;
+        intent.learned = false;
+        if (appLauncher.hasApp(intent.argument)) {
+            intent.resolvedApp = intent.argument;
+            return;
+        }
+        String aliased = appLauncher.resolveAlias(intent.argument);
+        if (aliased != null && appLauncher.hasApp(aliased)) {
+            intent.resolvedApp = aliased;
+            return;
+        }
+        String learned = corrections.lookup(intent.argument);
+        if (learned != null && appLauncher.hasApp(learned)) {
+            intent.resolvedApp = learned;
+            intent.learned = true;
+            return;
+        }
+        String match = cache ? findBestMatch(intent.argument) : matcher.findBestMatch(intent.argument);
+        if (match != null) {
+            intent.resolvedApp = match;
+            intent.fuzzy = true;
+        }
+    }
+
+    /**
+     * Fuzzy match through the resolution cache
+     */
+    private String findBestMatch(String heard) {
+        long generation = appLauncher.getGeneration();
+        synchronized (resolved) {
+            if (generation != resolvedGeneration) {
+                resolved.clear();
+                resolvedGeneration = generation;
+            }
+            if (resolved.containsKey(heard)) {
+                return resolved.get(heard);
+            }
+        }
+        String match = matcher.findBestMatch(heard);
+        synchronized (resolved) {
+            if (generation == resolvedGeneration) {
+                resolved.put(heard, match);
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Confirm the fuzzy matches of a launched intent, so repeated mishearings are learned
+     * If the previous launch was a guess (fuzzy or learned) and, within
+     * vocadesk.corrections.override-ms, this one opens a different app for a name that
+     * sounds like the one guessed, the user has overridden it: the guess is rejected
+     * rather than left counting towards a rule
+     * @param intent A LAUNCH intent (or COMPOUND part) whose app was launched
+     * @return true if this confirmation turned the match into a correction rule
+     */
+    public synchronized boolean confirm(CommandIntent intent) {
+        String app = intent.getResolvedApp();
+        if (app == null) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (lastGuess != null && now - lastGuessNanos <= overrideNanos
+                && !app.equals(lastGuess.getResolvedApp()) && isRetry(lastGuess.argument, intent.argument)
+                && corrections.reject(lastGuess.argument, lastGuess.getResolvedApp())) {
+            System.out.println("[INFO] Forgot correction '" + lastGuess.argument + "' -> "
+                    + lastGuess.getResolvedApp() + " (overridden by " + app + ")");
+        }
+        lastGuess = intent.isFuzzy() || intent.isLearned() ? intent : null;
+        lastGuessNanos = now;
+        return intent.isFuzzy() && corrections.confirm(intent.argument, app);
+    }
+
+    /**
+     * Whether a name is the user saying a guessed name again: the same sound, or no more than
+     * half its letters different
+     */
+    private boolean isRetry(String heard, String said) {
+        String first = PhoneticKey.compact(heard);
+        String second = PhoneticKey.compact(said);
+        if (first.isEmpty() || second.isEmpty()) {
+            return false;
+        }
+        if (PhoneticKey.encode(first).equals(PhoneticKey.encode(second))) {
+            return true;
+        }
+        int limit = Math.max(first.length(), second.length()) / 2 + 1;
+        return matcher.levenshteinDistance(first, second, limit) < limit;
+    }
+
+    /**
+     * Every command phrase this interpreter routes for a language, for recognizer grammars
+     * Search queries, file searches and schedule times are free text and cannot be listed, so
+     * they are not included
+     * @param language "en" or "hi" (Hindi speakers also get the English phrases)
+     * @param appNames Registered app names and aliases
+     * @return Phrases such as "open chrome" or "chrome kholo"
+     */
+    public static List<String> commandPhrases(String language, String[] appNames) {
+        List<String> phrases = new ArrayList<>();
+        for (String app : appNames) {
+            for (String verb : LAUNCH_VERBS) {
+                phrases.add(verb + app);
+            }
+        }
+        for (String[] number : RESULT_NUMBERS) {
+            phrases.add("open result " + number[0]);
+        }
+        for (String app : appNames) {
+            phrases.add("cancel " + app);
+        }
+        phrases.add("list schedules");
+        phrases.add("cancel all schedules");
+        phrases.add("list apps");
+        phrases.add("show apps");
+        phrases.add("reload apps");
+        phrases.add("help");
+        phrases.add("exit");
+        for (String profile : new String[] {"low latency", "balanced", "low power"}) {
+            phrases.add(profile + " mode");
+        }
+
+        if (language.equals("hi")) {
+            for (String app : appNames) {
+                for (String verb : HINDI_LAUNCH_VERBS) {
+                    phrases.add(app + verb);
+                    phrases.add(app + HINDI_OBJECT_MARKER + verb);
+                }
+            }
+            phrases.add("apps dikhao");
+            for (String exit : HINDI_EXIT) {
+                phrases.add(exit);
+            }
+        }
+        return phrases;
+    }
+
+    /**
+     * Get the matcher used for fuzzy resolution
+     * @return The shared AppMatcher
+     */
+    public AppMatcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * 1-based position of a spoken result number ("two", "second" or "2"), or 0
+     */
+    private static int resultNumber(String word) {
+        for (int i = 0; i < RESULT_NUMBERS.length; i++) {
+            if (word.equals(RESULT_NUMBERS[i][0]) || word.equals(RESULT_NUMBERS[i][1])) {
+                return i + 1;
+            }
+        }
+        return word.matches("\\d{1,2}") ? Integer.parseInt(word) : 0;
+    }
+
+    private static boolean isAny(String command, String[] phrases) {
+        for (String phrase : phrases) {
+            if (command.equals(phrase)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String findBrowser(String command) {
+        for (String browser : BROWSERS) {
+            if (command.contains(browser)) {
+                return browser;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Extract the search query from "search [query] in [browser]" style commands
+     */
+    private static String extractSearchQuery(String command, String browser) {
+        Matcher matcher = SEARCH_PREFIX.matcher(command);
+        if (!matcher.find()) {
+            return "";
+        }
+        return command.substring(matcher.end())
+                .replace("in " + browser, "")
+                .replace("on " + browser, "")
+                .replace(browser, "")
+                .trim();
+    }
+}
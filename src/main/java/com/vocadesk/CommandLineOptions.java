@@ -0,0 +1,49 @@
+package com.vocadesk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * CommandLineOptions - "--name value" options for the benchmarks and command-line tools
+ * Each tool passes its defaults; arguments override them in order, and an option left
+ * without a value is an error rather than being silently dropped
+ */
+final class CommandLineOptions {
+
+    private CommandLineOptions() {
+    }
+
+    /**
+     * Parse options over a tool's defaults
+     * @param args Arguments as given to main
+     * @param defaults Option names and default values, alternating
+     * @return Options in the order the defaults were given, then any others
+     * @throws IllegalArgumentException if the last option has no value
+     */
+    static Map<String, String> parse(String[] args, String... defaults) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < defaults.length; i += 2) {
+            options.put(defaults[i], defaults[i + 1]);
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException(args[i] + " needs a value");
+            }
+            options.put(args[i], args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Fail unless an option without a default was given
+     * @param options Parsed options
+     * @param name Option name, e.g. "--corpus"
+     * @param value What the value is, for the message, e.g. "<corpus.json>"
+     * @throws IllegalArgumentException if the option is missing
+     */
+    static void require(Map<String, String> options, String name, String value) {
+        if (!options.containsKey(name)) {
+            throw new IllegalArgumentException(name + " " + value + " is required");
+        }
+    }
+}
@@ -0,0 +1,751 @@
+package com.vocadesk;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * CommandPipeline - Decode-and-dispatch path shared by the GUI controller and the console launcher
+ * Conditions captured audio, holds it behind the wake phrase, decodes it (on the recognizer,
+ * through the model cascade or across languages), ranks the hypotheses, and carries out the
+ * winning command: launches, compound launches, schedules, browser and file searches. Each
+ * frontend supplies where feedback goes and runs the commands only it can answer (exit,
+ * profile switches, reloads, help). The frontend owns capture, sessions, the model and the
+ * recognizer it hands in; the pipeline closes only the stages attached to it (closeStages).
+ * Audio is fed from one thread at a time; commands may also arrive from the control socket.
+ */
+final class CommandPipeline {
+
+    private static final int SEARCH_RESULTS = 10;
+
+    private final AppLauncher appLauncher;
+    private final CommandInterpreter interpreter;
+    private final HypothesisRanker ranker;
+    private final ExecutionModel execution;
+    private final LaunchHistory launchHistory;
+    private final LaunchScheduler scheduler;
+    private final Endpointer endpointer;
+    private final AudioPreprocessor preprocessor;
+    private final VoiceFeedback feedback;
+    // Exit, profile, reload, help and unknown commands
+    private final Consumer<CommandIntent> frontend;
+    private SpeechRecognizer recognizer;
+    private LaunchWarmup warmup;
+    private WakeWordGate wakeGate;
+    private byte[] preRoll;
+    private ModelCascade cascade;
+    private MultiLanguageDecoder languages;
+    private UtteranceJournal journal;
+    // Time spent decoding the current utterance, for the journal
+    private long decodeNanos;
+    private int alternatives;
+    private Consumer<CommandIntent> intentSink;
+    private FileIndex fileIndex;
+    private volatile List<Path> searchResults = Collections.emptyList();
+
+    /**
+     * Constructor - A pipeline with no recognizer yet (see setRecognizer)
+     * @param appLauncher The application registry to launch from
+     * @param interpreter Interpreter over the same registry
+     * @param launchHistory Records every successful launch
+     * @param scheduleFile File for scheduled launches, or null to keep them in memory
+     * @param profile Latency profile the endpointer starts with
+     * @param execution Execution model for launches, searches and saves
+     * @param feedback Where log lines, the last command, the app list and search results go
+     * @param frontend Runs the commands the pipeline does not (EXIT, SET_PROFILE, RELOAD_APPS, HELP, UNKNOWN)
+     */
+    CommandPipeline(AppLauncher appLauncher, CommandInterpreter interpreter, LaunchHistory launchHistory,
+                    Path scheduleFile, LatencyProfile profile, ExecutionModel execution,
+                    VoiceFeedback feedback, Consumer<CommandIntent> frontend) {
+        this.appLauncher = appLauncher;
+        this.interpreter = interpreter;
+        this.ranker = new HypothesisRanker(interpreter);
+        this.execution = execution;
+        this.launchHistory = launchHistory;
+        this.scheduler = new LaunchScheduler(scheduleFile, execution, this::launchScheduled);
+        this.endpointer = new Endpointer(profile);
+        this.preprocessor = AudioPreprocessor.fromConfig();
+        this.feedback = feedback;
+        this.frontend = frontend;
+    }
+
+    /**
+     * Decode with this recognizer from now on, asking it for the current number of alternatives
+     * @param recognizer Recognizer built on the frontend's model, or null while it is unloaded
+     */
+    void setRecognizer(SpeechRecognizer recognizer) {
+        this.recognizer = recognizer;
+        if (recognizer != null) {
+            recognizer.setMaxAlternatives(alternatives);
+            recognizer.setWords(true);
+        }
+    }
+
+    SpeechRecognizer getRecognizer() {
+        return recognizer;
+    }
+
+    /**
+     * Ask the recognizer for N-best alternatives (0 = top result with word confidences)
+     * @param alternatives Number of alternatives
+     */
+    void configureRecognizer(int alternatives) {
+        this.alternatives = alternatives;
+        if (languages != null) {
+            languages.configure(alternatives);
+        }
+        if (recognizer != null) {
+            recognizer.setMaxAlternatives(alternatives);
+            recognizer.setWords(true);
+        }
+    }
+
+    /**
+     * Start reading an app's files while its name is still being spoken, or pass null
+     * @param warmup Warm-up fed with partial results (closed by the frontend)
+     */
+    void setWarmup(LaunchWarmup warmup) {
+        this.warmup = warmup;
+    }
+
+    /**
+     * Gate the main recognizer behind a wake phrase, or pass null for continuous decoding
+     * @param gate Wake-word gate built on the same model (closed by closeStages)
+     */
+    void setWakeWordGate(WakeWordGate gate) {
+        this.wakeGate = gate;
+        this.preRoll = gate == null ? null : new byte[gate.getPreRollCapacity()];
+    }
+
+    /**
+     * Re-decode poor results with a large model, or pass null to use this model alone
+     * @param cascade Cascade fed with every chunk this recognizer sees (closed by closeStages)
+     */
+    void setCascade(ModelCascade cascade) {
+        this.cascade = cascade;
+    }
+
+    /**
+     * Journal every utterance, or pass null to keep nothing
+     * @param journal Journal fed from the recognition thread (closed by closeStages)
+     */
+    void setJournal(UtteranceJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Decode several languages in parallel instead of the single recognizer, or pass null
+     * @param languages Decoder over the configured language models (closed by closeStages)
+     */
+    void setLanguages(MultiLanguageDecoder languages) {
+        this.languages = languages;
+        if (languages != null) {
+            languages.configure(alternatives);
+        }
+    }
+
+    /**
+     * Hand interpreted commands to a consumer instead of running them (the worker process
+     * sends them back to the GUI this way)
+     * @param sink Receives every command that would have been run
+     */
+    void setIntentSink(Consumer<CommandIntent> sink) {
+        this.intentSink = sink;
+    }
+
+    /**
+     * Answer "find" commands from this index, or pass null to report that search is not set up
+     * @param fileIndex Started index (closed by the frontend)
+     */
+    void setFileIndex(FileIndex fileIndex) {
+        this.fileIndex = fileIndex;
+    }
+
+    /**
+     * Attach the optional decoding stages named in vocadesk.properties (wake phrase,
+     * model cascade, parallel languages, utterance journal) to a loaded model
+     * @param model The model the recognizer was built on
+     */
+    void applyConfiguredDecoding(SpeechModel model) throws IOException {
+        attachModelStages(model);
+        if (wakeGate != null) {
+            feedback.appendLog("[INFO] Wake phrase mode: say '" + wakeGate.getPhrase() + "' before a command");
+        }
+        setCascade(ModelCascade.fromConfig(execution));
+        if (languages != null) {
+            feedback.appendLog("[INFO] Decoding languages in parallel: " + languages.describe());
+        }
+        if (cascade != null) {
+            feedback.appendLog("[INFO] Cascade mode: poor results are re-decoded by the large model");
+        }
+        setJournal(UtteranceJournal.fromConfig());
+        if (journal != null) {
+            feedback.appendLog("[INFO] Journaling utterances to " + journal.getDirectory());
+        }
+    }
+
+    /**
+     * The stages built on the main model, created again after an idle unload
+     * @param model The model the recognizer was built on
+     */
+    void attachModelStages(SpeechModel model) throws IOException {
+        setWakeWordGate(WakeWordGate.fromConfig(model));
+        setLanguages(MultiLanguageDecoder.fromConfig(model, appLauncher, execution,
+                result -> ranker.evaluate(parseHypotheses(result))));
+    }
+
+    /**
+     * Close the stages built on the main model so it can be unloaded; the cascade lets go
+     * of its large model. The recognizer is the frontend's to close first.
+     */
+    void releaseModelStages() {
+        if (wakeGate != null) {
+            wakeGate.close();
+            setWakeWordGate(null);
+        }
+        if (languages != null) {
+            languages.close();
+            setLanguages(null);
+        }
+        if (cascade != null) {
+            cascade.releaseLargeModel();
+        }
+    }
+
+    /**
+     * Switch endpointing to a latency profile (takes effect with the next chunk)
+     */
+    void setProfile(LatencyProfile profile) {
+        endpointer.configure(profile);
+    }
+
+    AudioPreprocessor getPreprocessor() {
+        return preprocessor;
+    }
+
+    HypothesisRanker getRanker() {
+        return ranker;
+    }
+
+    LaunchScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Feed captured 16 kHz mono PCM to the recognizer and dispatch any completed utterance
+     * The audio is conditioned in place first (see AudioPreprocessor); with a wake-word
+     * gate, only the keyword recognizer runs until the phrase is heard
+     * @param buffer PCM bytes (16-bit little-endian)
+     * @param length Number of valid bytes in buffer
+     * @return true if a non-empty utterance was completed and dispatched
+     */
+    boolean processAudio(byte[] buffer, int length) {
+        preprocessor.process(buffer, length);
+
+        if (wakeGate == null) {
+            return decode(buffer, length);
+        }
+
+        boolean dispatched;
+        if (!wakeGate.isAwake()) {
+            if (!wakeGate.listen(buffer, length)) {
+                return false;
+            }
+            feedback.appendLog("[WAKE] Listening for a command...");
+            // Start the main recognizer on the phrase and whatever followed it
+            if (languages != null) {
+                languages.reset();
+            } else {
+                recognizer.reset();
+            }
+            endpointer.reset();
+            dispatched = decode(preRoll, wakeGate.drainPreRoll(preRoll));
+        } else {
+            dispatched = decode(buffer, length);
+            boolean windowOver = wakeGate.consumeWindow(length);
+            if (!dispatched && windowOver) {
+                // Take whatever was said before the window closed
+                dispatched = dispatchResult(languages != null ? languages.finish() : recognizer.getFinalResult());
+                wakeGate.sleep();
+            }
+        }
+
+        if (dispatched) {
+            wakeGate.sleep();
+        }
+        return dispatched;
+    }
+
+    private boolean decode(byte[] buffer, int length) {
+        if (journal != null) {
+            journal.captureAudio(buffer, length);
+        }
+        long start = System.nanoTime();
+        String result = recognize(buffer, length);
+        decodeNanos += System.nanoTime() - start;
+        if (result == null) {
+            return false;
+        }
+        boolean dispatched = dispatchResult(result);
+        if (wakeGate != null) {
+            // Only the utterance that woke the gate starts with the phrase
+            wakeGate.endUtterance();
+        }
+        return dispatched;
+    }
+
+    /**
+     * Feed audio to the recognizer
+     * @return Result JSON once an utterance has ended, otherwise null
+     */
+    private String recognize(byte[] buffer, int length) {
+        boolean endpoint = endpointer.accept(buffer, length);
+
+        if (languages != null) {
+            String result = languages.accept(buffer, length, endpoint);
+            if (result != null) {
+                endpointer.reset();
+            }
+            return result;
+        }
+
+        boolean complete = cascade == null
+                ? recognizer.acceptWaveForm(buffer, length)
+                : cascade.accept(recognizer, buffer, length);
+        if (complete) {
+            endpointer.reset();
+            if (warmup != null) {
+                warmup.endUtterance();
+            }
+            return recognizer.getResult();
+        }
+        if (endpoint) {
+            if (warmup != null) {
+                warmup.endUtterance();
+            }
+            // Trailing silence reached the profile's timeout before Vosk's own endpointer fired
+            return recognizer.getFinalResult();
+        }
+        if (warmup != null) {
+            // "open chro..." starts reading chrome's files while the user is still speaking
+            warmup.onAudio(length, recognizer::getPartialResult);
+        }
+        return null;
+    }
+
+    /**
+     * Rank the hypotheses in a Vosk result against the registry and run the winner
+     * In cascade mode a poor result is replaced by the large model's reading of the same audio
+     * @param result Result JSON from the recognizer
+     * @return true if an utterance was heard (run or rejected)
+     */
+    private boolean dispatchResult(String result) {
+        long start = System.nanoTime();
+        List<HypothesisRanker.Hypothesis> hypotheses = parseHypotheses(result);
+        String raw = hypotheses.isEmpty() ? "" : hypotheses.get(0).text;
+        HypothesisRanker.Ranking ranking = ranker.evaluate(hypotheses);
+        long ranked = System.nanoTime();
+
+        if (cascade != null) {
+            if (cascade.isPoor(ranking)) {
+                String second = cascade.redecode(alternatives);
+                List<HypothesisRanker.Hypothesis> larger = second == null ? null : parseHypotheses(second);
+                HypothesisRanker.Ranking escalated = larger == null ? null : ranker.evaluate(larger);
+                if (escalated != null) {
+                    feedback.appendLog("[CASCADE] Large model heard '" + escalated.text + "' (small model: '"
+                            + (ranking == null ? "" : ranking.text) + "')");
+                    hypotheses = larger;
+                    ranking = escalated;
+                }
+            }
+            cascade.endUtterance();
+        }
+        long escalated = System.nanoTime();
+
+        ranker.record(ranking);
+        long decoded = decodeNanos;
+        decodeNanos = 0;
+        if (ranking == null) {
+            if (journal != null) {
+                journal.discardAudio();
+            }
+            return false;
+        }
+
+        feedback.updateLastCommand(ranking.text);
+        feedback.appendLog("[HEARD] " + ranking.text);
+        if (ranking.rescued) {
+            feedback.appendLog("[N-BEST] Chose '" + ranking.text + "' over '" + hypotheses.get(0).text + "'");
+        }
+        if (ranking.rejected) {
+            feedback.appendLog(String.format("[REJECTED] Not confident enough (%.2f) - please repeat", ranking.confidence));
+        } else {
+            execute(ranking.intent);
+        }
+        if (journal != null) {
+            journal.record(raw, ranking, decoded, ranked - start, escalated - ranked, System.nanoTime() - escalated);
+        }
+        return true;
+    }
+
+    /**
+     * Parse a Vosk result, dropping the wake phrase if one is in use
+     */
+    private List<HypothesisRanker.Hypothesis> parseHypotheses(String result) {
+        List<HypothesisRanker.Hypothesis> hypotheses = new ArrayList<>();
+        for (HypothesisRanker.Hypothesis hypothesis : HypothesisRanker.parse(result)) {
+            String text = wakeGate == null ? hypothesis.text : wakeGate.stripWakePhrase(hypothesis.text);
+            if (!text.isEmpty()) {
+                hypotheses.add(new HypothesisRanker.Hypothesis(text, hypothesis.confidence));
+            }
+        }
+        return hypotheses;
+    }
+
+    /**
+     * Reset the recognizer and every per-utterance stage (between replayed utterances)
+     */
+    void resetRecognizer() {
+        recognizer.reset();
+        resetSession();
+    }
+
+    /**
+     * Clear the endpointer, preprocessor, wake-phrase, cascade and journal state left from the
+     * last session; the frontend has already reset or swapped the recognizer
+     */
+    void resetSession() {
+        if (languages != null) {
+            languages.reset();
+        }
+        endpointer.reset();
+        preprocessor.reset();
+        if (wakeGate != null) {
+            wakeGate.sleep();
+        }
+        if (cascade != null) {
+            cascade.endUtterance();
+        }
+        if (journal != null) {
+            journal.discardAudio();
+        }
+        decodeNanos = 0;
+    }
+
+    /**
+     * Carry out an interpreted command
+     * @param intent The command, already resolved against the registry
+     */
+    void execute(CommandIntent intent) {
+        if (intentSink != null) {
+            intentSink.accept(intent);
+            return;
+        }
+        switch (intent.type) {
+            case BROWSER_SEARCH:
+                handleBrowserSearch(intent);
+                return;
+
+            case FIND:
+                handleFind(intent);
+                return;
+
+            case OPEN_RESULT:
+                openSearchResult(Integer.parseInt(intent.argument) - 1);
+                return;
+
+            case LAUNCH:
+                handleLaunch(intent);
+                return;
+
+            case COMPOUND:
+                handleCompound(intent);
+                return;
+
+            case SCHEDULE:
+                handleSchedule(intent);
+                return;
+
+            case CANCEL_SCHEDULE:
+                handleCancelSchedule(intent);
+                return;
+
+            case LIST_SCHEDULES:
+                List<LaunchScheduler.Entry> pending = scheduler.getPending();
+                feedback.appendLog("[INFO] " + (pending.isEmpty() ? "No launches scheduled" : "Scheduled launches:"));
+                for (LaunchScheduler.Entry entry : pending) {
+                    feedback.appendLog("  • " + scheduler.describe(entry));
+                }
+                return;
+
+            case LIST_APPS:
+                feedback.appendLog("[INFO] Available applications:");
+                for (String appName : appLauncher.getAppNames()) {
+                    feedback.appendLog("  • " + appName);
+                }
+                return;
+
+            default:
+                frontend.accept(intent);
+        }
+    }
+
+    private void handleLaunch(CommandIntent intent) {
+        String appName = intent.argument;
+
+        if (appName.isEmpty()) {
+            feedback.appendLog("[ERROR] No application name specified");
+            return;
+        }
+
+        if (intent.getResolvedApp() == null) {
+            feedback.appendLog("[ERROR] Failed to launch: " + appName);
+            feedback.appendLog("[HINT] Available apps: " + String.join(", ", appLauncher.getAppNames()));
+            return;
+        }
+
+        if (intent.isFuzzy()) {
+            feedback.appendLog("[SMART MATCH] Did you mean: " + intent.getResolvedApp() + "?");
+        } else if (intent.isLearned()) {
+            feedback.appendLog("[CORRECTION] " + appName + " -> " + intent.getResolvedApp());
+        }
+
+        String resolvedApp = intent.getResolvedApp();
+        feedback.appendLog("[ACTION] Attempting to open: " + resolvedApp);
+        execution.runBlocking(() -> {
+            AppLauncher.LaunchResult result = appLauncher.launch(resolvedApp);
+            if (result == AppLauncher.LaunchResult.FAILED) {
+                feedback.appendLog("[ERROR] Failed to launch: " + resolvedApp);
+                return;
+            }
+            launchHistory.recordLaunch(resolvedApp);
+            if (interpreter.confirm(intent)) {
+                feedback.appendLog("[LEARNED] '" + appName + "' will open " + resolvedApp + " from now on");
+            }
+            if (result == AppLauncher.LaunchResult.FOCUSED) {
+                feedback.appendLog("[SUCCESS] Switched to " + resolvedApp + " (already running)");
+            } else {
+                feedback.appendLog("[SUCCESS] Launched: " + resolvedApp);
+            }
+        });
+    }
+
+    /**
+     * Add the launch a SCHEDULE intent asks for to the scheduler
+     */
+    private void handleSchedule(CommandIntent intent) {
+        if (intent.argument.isEmpty()) {
+            feedback.appendLog("[ERROR] No application name specified");
+            return;
+        }
+        if (intent.getResolvedApp() == null) {
+            feedback.appendLog("[ERROR] Cannot schedule unknown app: " + intent.argument);
+            feedback.appendLog("[HINT] Available apps: " + String.join(", ", appLauncher.getAppNames()));
+            return;
+        }
+        if (intent.isFuzzy()) {
+            feedback.appendLog("[SMART MATCH] Did you mean: " + intent.getResolvedApp() + "?");
+        } else if (intent.isLearned()) {
+            feedback.appendLog("[CORRECTION] " + intent.argument + " -> " + intent.getResolvedApp());
+        }
+        LaunchScheduler.Entry entry = scheduler.schedule(intent.getResolvedApp(), intent.text, intent.getSchedule());
+        feedback.appendLog("[SCHEDULED] " + scheduler.describe(entry));
+    }
+
+    /**
+     * Cancel the pending launches a CANCEL_SCHEDULE intent names (all of them without an app)
+     */
+    private void handleCancelSchedule(CommandIntent intent) {
+        if (!intent.argument.isEmpty() && intent.getResolvedApp() == null) {
+            feedback.appendLog("[ERROR] Nothing scheduled for unknown app: " + intent.argument);
+            return;
+        }
+        List<LaunchScheduler.Entry> cancelled = scheduler.cancel(intent.getResolvedApp());
+        if (cancelled.isEmpty()) {
+            feedback.appendLog("[INFO] No scheduled launches" + (intent.argument.isEmpty() ? "" : " of " + intent.getResolvedApp()));
+            return;
+        }
+        for (LaunchScheduler.Entry entry : cancelled) {
+            feedback.appendLog("[CANCELLED] " + scheduler.describe(entry));
+        }
+    }
+
+    /**
+     * Launch a scheduled app (called on the scheduler thread)
+     */
+    private void launchScheduled(LaunchScheduler.Entry entry) {
+        feedback.appendLog("[SCHEDULE] Time to open " + entry.app + " ('" + entry.text + "')");
+        execution.runBlocking(() -> {
+            if (!appLauncher.hasApp(entry.app)) {
+                feedback.appendLog("[ERROR] Scheduled app is no longer in apps.json: " + entry.app);
+                return;
+            }
+            AppLauncher.LaunchResult result = appLauncher.launch(entry.app);
+            if (result == AppLauncher.LaunchResult.FAILED) {
+                feedback.appendLog("[ERROR] Failed to launch: " + entry.app);
+                return;
+            }
+            launchHistory.recordLaunch(entry.app);
+            feedback.appendLog("[SUCCESS] " + (result == AppLauncher.LaunchResult.FOCUSED ? "Switched to " : "Launched: ")
+                    + entry.app);
+        });
+    }
+
+    /**
+     * Carry out each part of a compound command; its launches start together and are
+     * reported in one line once they have all finished
+     */
+    private void handleCompound(CommandIntent intent) {
+        List<String> apps = new ArrayList<>();
+        for (CommandIntent part : intent.getParts()) {
+            if (part.type != CommandIntent.Type.LAUNCH) {
+                execute(part);
+            } else if (part.getResolvedApp() == null) {
+                feedback.appendLog("[ERROR] Failed to launch: " + part.argument);
+            } else {
+                if (part.isFuzzy()) {
+                    feedback.appendLog("[SMART MATCH] Did you mean: " + part.getResolvedApp() + "?");
+                } else if (part.isLearned()) {
+                    feedback.appendLog("[CORRECTION] " + part.argument + " -> " + part.getResolvedApp());
+                }
+                apps.add(part.getResolvedApp());
+            }
+        }
+        if (apps.isEmpty()) {
+            feedback.appendLog("[HINT] Available apps: " + String.join(", ", appLauncher.getAppNames()));
+            return;
+        }
+
+        feedback.appendLog("[ACTION] Attempting to open: " + String.join(", ", apps));
+        execution.runBlocking(() -> {
+            long start = System.nanoTime();
+            Map<String, Boolean> results = appLauncher.launchApps(apps, execution.getBlockingExecutor());
+            double millis = (System.nanoTime() - start) / 1e6;
+            List<String> failed = new ArrayList<>();
+            for (Map.Entry<String, Boolean> result : results.entrySet()) {
+                if (result.getValue()) {
+                    launchHistory.recordLaunch(result.getKey());
+                } else {
+                    failed.add(result.getKey());
+                }
+            }
+            for (CommandIntent part : intent.getParts()) {
+                if (Boolean.TRUE.equals(results.get(part.getResolvedApp())) && interpreter.confirm(part)) {
+                    feedback.appendLog("[LEARNED] '" + part.argument + "' will open " + part.getResolvedApp() + " from now on");
+                }
+            }
+            if (failed.isEmpty()) {
+                feedback.appendLog(String.format("[SUCCESS] Launched %d apps in %.0f ms: %s",
+                        apps.size(), millis, String.join(", ", apps)));
+            } else {
+                feedback.appendLog(String.format("[ERROR] Launched %d of %d apps in %.0f ms - failed: %s",
+                        apps.size() - failed.size(), apps.size(), millis, String.join(", ", failed)));
+            }
+        });
+    }
+
+    private void handleBrowserSearch(CommandIntent intent) {
+        String browser = intent.browser;
+        String searchQuery = intent.argument;
+
+        if (searchQuery.isEmpty()) {
+            feedback.appendLog("[ERROR] No search query specified");
+            return;
+        }
+
+        String encodedQuery = searchQuery.replace(" ", "+");
+        String searchUrl = "https://www.google.com/search?q=" + encodedQuery;
+
+        feedback.appendLog("[ACTION] Opening " + browser.toUpperCase() + " and searching for: " + searchQuery);
+
+        execution.runBlocking(() -> {
+            if (appLauncher.openWithSystem(searchUrl)) {
+                feedback.appendLog("[SUCCESS] Opened " + browser.toUpperCase() + " with search results");
+            } else {
+                feedback.appendLog("[ERROR] Failed to open browser");
+            }
+        });
+    }
+
+    private void handleFind(CommandIntent intent) {
+        String query = intent.argument;
+
+        if (fileIndex == null) {
+            feedback.appendLog("[ERROR] File search is not set up - list folders in vocadesk.index.dirs");
+            return;
+        }
+
+        feedback.appendLog("[ACTION] Finding files: " + query);
+        execution.runBlocking(() -> {
+            long start = System.nanoTime();
+            List<FileIndex.Result> results = fileIndex.search(query, SEARCH_RESULTS);
+            double millis = (System.nanoTime() - start) / 1e6;
+            List<Path> paths = new ArrayList<>();
+            for (FileIndex.Result result : results) {
+                paths.add(result.path);
+            }
+            searchResults = paths;
+            if (paths.isEmpty()) {
+                feedback.appendLog("[INFO] No files match '" + query + "'"
+                        + (fileIndex.isReady() ? "" : " (the index is still being built)"));
+                return;
+            }
+            feedback.appendLog(String.format("[SUCCESS] %d files match '%s' (%.1f ms) - say 'open result one'",
+                    paths.size(), query, millis));
+            feedback.showSearchResults(query, paths);
+        });
+    }
+
+    /**
+     * Open one of the files found by the last "find" command with its default application
+     * @param index Position in the results, from 0
+     */
+    void openSearchResult(int index) {
+        List<Path> results = searchResults;
+        if (index < 0 || index >= results.size()) {
+            feedback.appendLog("[ERROR] There is no result " + (index + 1) + " - say 'find' and a few words first");
+            return;
+        }
+
+        String target = results.get(index).toString();
+        feedback.appendLog("[ACTION] Opening: " + target);
+        execution.runBlocking(() -> {
+            if (appLauncher.openWithSystem(target)) {
+                feedback.appendLog("[SUCCESS] Opened: " + target);
+            } else {
+                feedback.appendLog("[ERROR] Failed to open: " + target);
+            }
+        });
+    }
+
+    /**
+     * Report what the optional stages did and close them (wake phrase, cascade, languages,
+     * journal); the recognizer, model and scheduler are closed by the frontend
+     */
+    void closeStages() {
+        if (wakeGate != null) {
+            feedback.appendLog(String.format("[INFO] Wake phrase heard %d times; full decoding ran on %.1f%% of audio",
+                    wakeGate.getWakeCount(), wakeGate.getDecodedFraction() * 100));
+            wakeGate.close();
+        }
+
+        if (cascade != null) {
+            feedback.appendLog("[INFO] Cascade: " + cascade.describe());
+            cascade.close();
+        }
+
+        if (languages != null) {
+            feedback.appendLog("[INFO] Utterances won per language: " + languages.describeUsage());
+            languages.close();
+        }
+
+        if (journal != null) {
+            journal.close();
+            feedback.appendLog("[INFO] Utterances journaled to " + journal.getDirectory());
+        }
+    }
+}
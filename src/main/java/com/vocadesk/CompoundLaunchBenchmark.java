@@ -0,0 +1,148 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CompoundLaunchBenchmark - Compares launching N apps in parallel with launching them one by one
+ * Registers a set of apps in a temporary apps.json, then for each size speaks "open alpha and
+ * bravo and ..." through the controller (which launches the apps together) and, for comparison,
+ * calls AppLauncher.launchApp for the same apps in turn on one thread. By default every launch
+ * is a simulated process spawn that blocks for --launch-delay-ms; with --spawn the apps point
+ * at a real executable (such as /bin/true) and ProcessBuilder starts it for each launch.
+ * Prints JSON with the median time per size and the speedup. Also checks that chatter joined
+ * to a command ("hello and open alpha") is not split into a compound that guesses an app for
+ * the chatter, and exits with status 1 if it is.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.CompoundLaunchBenchmark [--sizes 2,3,5,8]
+ *        [--repeat 20] [--launch-delay-ms 30] [--spawn /bin/true]
+ */
+public class CompoundLaunchBenchmark {
+
+    private static final String[] NAMES = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot",
+            "golf", "hotel", "india", "juliett", "kilo", "lima", "mike", "november", "oscar", "papa"};
+    // Talk around a command that must not become a compound launch
+    private static final String[] CHATTER = {"hello and open alpha", "thanks then open bravo",
+            "can you open charlie", "okay and open delta and echo"};
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--sizes", "2,3,5,8",
+                "--repeat", "20",
+                "--launch-delay-ms", "30");
+        int repeat = Integer.parseInt(options.get("--repeat"));
+        String spawn = options.get("--spawn");
+        PrintStream report = System.out;
+
+        JSONArray apps = new JSONArray();
+        for (String name : NAMES) {
+            apps.put(new JSONObject().put("name", name).put("path", spawn != null ? spawn : "/dev/null/" + name));
+        }
+        Path appsFile = Files.createTempFile("vocadesk-compound", ".json");
+        Files.write(appsFile, apps.toString(2).getBytes(StandardCharsets.UTF_8));
+
+        JSONArray runs = new JSONArray();
+        JSONArray chatterLaunched = new JSONArray();
+        // Both AppLauncher and the controller report every launch on System.out
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ExecutionModel execution = new ExecutionModel();
+        try {
+            AppLauncher appLauncher;
+            if (spawn != null) {
+                appLauncher = new AppLauncher(appsFile.toString());
+            } else {
+                RecordingAppLauncher recording = new RecordingAppLauncher(appsFile.toString());
+                recording.setLaunchDelayMillis(Long.parseLong(options.get("--launch-delay-ms")));
+                appLauncher = recording;
+            }
+            VoiceRecognitionController controller = new VoiceRecognitionController(
+                    appLauncher, ReplayBenchmark.silentFeedback(), null, execution);
+
+            for (String sizeOption : options.get("--sizes").split(",")) {
+                int size = Math.min(Integer.parseInt(sizeOption.trim()), NAMES.length);
+                List<String> names = Arrays.asList(NAMES).subList(0, size);
+                String command = "open " + String.join(" and ", names);
+
+                double[] parallel = new double[repeat];
+                double[] sequential = new double[repeat];
+                for (int r = -1; r < repeat; r++) {
+                    // Round -1 warms up both paths and is not counted
+                    long start = System.nanoTime();
+                    controller.dispatch(command);
+                    execution.awaitIdle(60_000);
+                    double parallelMs = (System.nanoTime() - start) / 1e6;
+
+                    start = System.nanoTime();
+                    for (String name : names) {
+                        appLauncher.launchApp(name);
+                    }
+                    double sequentialMs = (System.nanoTime() - start) / 1e6;
+                    if (r >= 0) {
+                        parallel[r] = parallelMs;
+                        sequential[r] = sequentialMs;
+                    }
+                }
+                int launched = size;
+                if (appLauncher instanceof RecordingAppLauncher) {
+                    // Every round issued each app once per path
+                    launched = ((RecordingAppLauncher) appLauncher).drainLaunches().size() / (repeat + 1) / 2;
+                }
+                Arrays.sort(parallel);
+                Arrays.sort(sequential);
+
+                JSONObject run = new JSONObject();
+                run.put("apps", size);
+                run.put("launchedPerCommand", launched);
+                run.put("parallelMsP50", ReplayBenchmark.percentile(parallel, 50));
+                run.put("parallelMsP90", ReplayBenchmark.percentile(parallel, 90));
+                run.put("sequentialMsP50", ReplayBenchmark.percentile(sequential, 50));
+                run.put("sequentialMsP90", ReplayBenchmark.percentile(sequential, 90));
+                run.put("speedup", ReplayBenchmark.percentile(sequential, 50)
+                        / Math.max(1e-6, ReplayBenchmark.percentile(parallel, 50)));
+                runs.put(run);
+            }
+
+            CommandInterpreter interpreter = new CommandInterpreter(appLauncher);
+            for (String chatter : CHATTER) {
+                CommandIntent intent = interpreter.interpret(chatter);
+                if (intent.type == CommandIntent.Type.COMPOUND) {
+                    chatterLaunched.put(chatter);
+                }
+            }
+        } finally {
+            execution.shutdown(1000);
+            System.setOut(report);
+            Files.deleteIfExists(appsFile);
+        }
+
+        JSONObject results = new JSONObject();
+        results.put("executionMode", execution.getMode());
+        if (spawn != null) {
+            results.put("spawn", spawn);
+        } else {
+            results.put("launchDelayMs", Long.parseLong(options.get("--launch-delay-ms")));
+        }
+        results.put("runs", runs);
+        results.put("chatterPhrases", CHATTER.length);
+        results.put("chatterLaunched", chatterLaunched);
+        report.println(results.toString(2));
+        if (chatterLaunched.length() > 0) {
+            System.exit(1);
+        }
+    }
+}
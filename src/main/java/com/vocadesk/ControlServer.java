@@ -0,0 +1,350 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * ControlServer - Lets scripts and later launches drive a running instance over a Unix domain socket
+ * One JSON object per line in each direction, so any client that can write to a socket works:
+ *   {"op": "command", "text": "open chrome"} -> {"ok": true, "intent": {...}}
+ *   {"op": "status"}                          -> {"ok": true, "pid": ..., "state": ..., "apps": ...}
+ *   {"op": "reload"}                          -> {"ok": true, "apps": ...}
+ *   {"op": "show"}                            -> {"ok": true}   (bring the window to the front)
+ * Errors answer {"ok": false, "error": "..."}. A connection may send any number of requests;
+ * up to 8 connections are served at once and further ones wait until one closes.
+ *
+ * The instance that holds the lock file next to the socket owns it for its lifetime, so a
+ * stale socket left by a crash is replaced and a second launch can tell that an instance is
+ * running (see VocadeskCtl.handOff). The socket is bound before the model loads; requests
+ * arriving before the frontend is ready wait for it, and are answered with "starting" if
+ * it takes longer than 30 s.
+ *
+ * The socket lives in a directory only its user can write to: $XDG_RUNTIME_DIR, or else a
+ * vocadesk-[user] directory in the temp directory created with mode 0700. Before the server
+ * binds or a client connects, the directory, lock file and socket must belong to the current
+ * user and the directory must not be writable by anyone else, so another local user cannot
+ * plant a lock or socket that a launch would hand its commands to (see checkOwnership).
+ *
+ * Settings: vocadesk.control.enabled (default true),
+ *           vocadesk.control.socket (default vocadesk.sock in the directory above)
+ */
+public class ControlServer implements AutoCloseable {
+
+    /**
+     * What a frontend offers to control clients
+     */
+    public interface Target {
+
+        /**
+         * Interpret and run a command as if it had been spoken
+         * @param text Command text
+         * @return The interpreted intent (it may still be launching)
+         */
+        CommandIntent command(String text);
+
+        /**
+         * Describe the instance for a status request
+         * @param status Object to add fields to
+         */
+        void status(JSONObject status);
+
+        /**
+         * Reload apps.json
+         */
+        void reload();
+
+        /**
+         * Bring the window to the front (a second launch of the GUI)
+         */
+        default void show() {
+        }
+    }
+
+    private static final long STARTUP_WAIT_MS = 30000;
+    private static final int MAX_CONNECTIONS = 8;
+
+    private final Path socketFile;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final ServerSocketChannel server;
+    private final long started = System.currentTimeMillis();
+    // Connections beyond this many wait until one closes
+    private final ExecutorService handlers =
+            ExecutionModel.newBoundedPool("vocadesk-control-", MAX_CONNECTIONS, Thread.NORM_PRIORITY);
+    private final CompletableFuture<Target> target = new CompletableFuture<>();
+    private volatile boolean closed;
+
+    private ControlServer(Path socketFile, FileChannel lockChannel, FileLock lock) throws IOException {
+        this.socketFile = socketFile;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+        Files.deleteIfExists(socketFile);
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketFile));
+    }
+
+    /**
+     * Path of the control socket from vocadesk.control.socket
+     */
+    public static Path configuredSocket() {
+        String runtime = System.getenv("XDG_RUNTIME_DIR");
+        Path directory = runtime != null && !runtime.isEmpty()
+                ? Paths.get(runtime)
+                : Paths.get(System.getProperty("java.io.tmpdir"), "vocadesk-" + System.getProperty("user.name", "user"));
+        String fallback = directory.resolve("vocadesk.sock").toString();
+        return Paths.get(VocadeskConfig.getString("vocadesk.control.socket", fallback));
+    }
+
+    /**
+     * Refuse a socket path another user could have prepared
+     * The socket's directory must be a real directory owned by this user and not writable by
+     * group or others; the lock file and socket, where they exist, must be owned by this user.
+     * Only checked where the file system has POSIX permissions (Windows temp directories are
+     * already per user).
+     * @param socketFile Socket path
+     * @param create Create a missing directory with mode 0700 (the server), or accept it as
+     *               unused (clients)
+     * @throws IOException If the path is not safe to use, with the reason
+     */
+    public static void checkOwnership(Path socketFile, boolean create) throws IOException {
+        Path directory = socketFile.toAbsolutePath().getParent();
+        if (Files.getFileAttributeView(directory.getRoot(), PosixFileAttributeView.class) == null) {
+            return;
+        }
+        if (Files.notExists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            if (!create) {
+                // Nothing can have been planted there
+                return;
+            }
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        }
+        UserPrincipal user = directory.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+        if (!attributes.isDirectory() || !attributes.owner().equals(user)) {
+            throw new IOException(directory + " is not a directory owned by " + user.getName());
+        }
+        if (attributes.permissions().contains(PosixFilePermission.GROUP_WRITE)
+                || attributes.permissions().contains(PosixFilePermission.OTHERS_WRITE)) {
+            throw new IOException(directory + " is writable by other users; use a private directory");
+        }
+        for (Path file : new Path[] {socketFile, lockFileFor(socketFile)}) {
+            if (Files.exists(file, LinkOption.NOFOLLOW_LINKS)
+                    && !Files.getOwner(file, LinkOption.NOFOLLOW_LINKS).equals(user)) {
+                throw new IOException(file + " belongs to another user");
+            }
+        }
+    }
+
+    /**
+     * The lock file kept next to a socket
+     */
+    static Path lockFileFor(Path socketFile) {
+        return socketFile.resolveSibling(socketFile.getFileName() + ".lock");
+    }
+
+    /**
+     * Take ownership of the configured socket and start accepting connections
+     * @return The server, or null if control is disabled, another instance owns the socket,
+     *         or the socket could not be created (the app runs without it)
+     */
+    public static ControlServer startFromConfig() {
+        if (!VocadeskConfig.getBoolean("vocadesk.control.enabled", true)) {
+            return null;
+        }
+        try {
+            return start(configuredSocket());
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("[WARNING] Control socket unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Take ownership of a socket path and start accepting connections
+     * @param socketFile Socket path; the lock file is the same path with ".lock" appended
+     * @return The server, or null if another live instance holds the lock
+     * @throws IOException If the path fails checkOwnership or the socket cannot be bound
+     */
+    public static ControlServer start(Path socketFile) throws IOException {
+        checkOwnership(socketFile, true);
+        Path lockFile = lockFileFor(socketFile);
+        FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Already owned by this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            return null;
+        }
+        ControlServer control;
+        try {
+            control = new ControlServer(socketFile, channel, lock);
+        } catch (IOException e) {
+            lock.release();
+            channel.close();
+            throw e;
+        }
+        ExecutionModel.newServiceThread("vocadesk-control", control::acceptLoop).start();
+        return control;
+    }
+
+    /**
+     * Set the frontend that handles requests (until then requests wait for it)
+     * @param target The frontend
+     */
+    public void setTarget(Target target) {
+        this.target.complete(target);
+    }
+
+    /**
+     * Get the socket this server listens on
+     */
+    public Path getSocketFile() {
+        return socketFile;
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                SocketChannel client = server.accept();
+                handlers.execute(() -> serve(client));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("[WARNING] Control socket accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answer requests on one connection until the client closes it
+     */
+    private void serve(SocketChannel client) {
+        try (SocketChannel connection = client) {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(connection), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(handle(line) + "\n");
+                while (bytes.hasRemaining()) {
+                    connection.write(bytes);
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    /**
+     * Answer one request line
+     * @param line JSON request
+     * @return JSON response
+     */
+    JSONObject handle(String line) {
+        JSONObject response = new JSONObject();
+        try {
+            JSONObject request = new JSONObject(line);
+            String op = request.optString("op");
+            Target current;
+            try {
+                current = target.get(STARTUP_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                return error(response, "starting");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return error(response, "starting");
+            }
+            switch (op) {
+                case "command":
+                    String text = request.optString("text").trim();
+                    if (text.isEmpty()) {
+                        return error(response, "no command text");
+                    }
+                    CommandIntent intent = current.command(text);
+                    response.put("ok", intent.isResolved());
+                    response.put("intent", intent.toJson());
+                    return response;
+                case "status":
+                    response.put("ok", true);
+                    response.put("pid", ProcessHandle.current().pid());
+                    response.put("uptimeMs", System.currentTimeMillis() - started);
+                    current.status(response);
+                    return response;
+                case "reload":
+                    current.reload();
+                    response.put("ok", true);
+                    current.status(response);
+                    return response;
+                case "show":
+                    current.show();
+                    response.put("ok", true);
+                    return response;
+                default:
+                    return error(response, "unknown op '" + op + "'");
+            }
+        } catch (RuntimeException e) {
+            return error(response, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static JSONObject error(JSONObject response, String message) {
+        response.put("ok", false);
+        response.put("error", message);
+        return response;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        handlers.shutdownNow();
+        try {
+            server.close();
+            Files.deleteIfExists(socketFile);
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            // Shutting down
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * ControlSocketBenchmark - Measures how fast a running instance answers its control socket
+ * Starts a ControlServer in front of a text-only controller (no model, simulated launches),
+ * then times status and "open ..." requests on one kept-open connection, the same requests
+ * with a new connection each, and a few runs of the VocadeskCtl client as a new JVM, which
+ * is what a hotkey pays when it cannot write to the socket itself. Also checks that a second
+ * server on the same socket is refused while the first holds it. Prints JSON and exits with
+ * status 1 if the median command on a kept-open connection exceeds the budget.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.ControlSocketBenchmark [--requests 2000] [--cold-runs 3]
+ *        [--budget-ms 1]
+ */
+public class ControlSocketBenchmark {
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--requests", "2000",
+                "--cold-runs", "3",
+                "--budget-ms", "1");
+        int requests = Integer.parseInt(options.get("--requests"));
+        int coldRuns = Integer.parseInt(options.get("--cold-runs"));
+        double budgetMs = Double.parseDouble(options.get("--budget-ms"));
+        PrintStream report = System.out;
+        JSONObject results = new JSONObject();
+        double commandP50;
+
+        Path directory = Files.createTempDirectory("vocadesk-control");
+        Path socket = directory.resolve("control.sock");
+        Path appsFile = directory.resolve("apps.json");
+        Files.write(appsFile, new JSONArray().put(new JSONObject().put("name", "alpha").put("path", "/dev/null/alpha"))
+                .toString().getBytes(StandardCharsets.UTF_8));
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ExecutionModel execution = new ExecutionModel();
+        ControlServer control = ControlServer.start(socket);
+        try {
+            RecordingAppLauncher appLauncher = new RecordingAppLauncher(appsFile.toString());
+            VoiceRecognitionController controller = new VoiceRecognitionController(
+                    appLauncher, ReplayBenchmark.silentFeedback(), null, execution);
+            controller.attachControl(control, () -> { });
+            results.put("secondServerRefused", ControlServer.start(socket) == null);
+
+            JSONObject status = new JSONObject().put("op", "status");
+            JSONObject command = new JSONObject().put("op", "command").put("text", "open alpha");
+            try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                channel.connect(UnixDomainSocketAddress.of(socket));
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+                double[] statusMs = new double[requests];
+                double[] commandMs = new double[requests];
+                boolean resolved = true;
+                for (int i = 0; i < requests; i++) {
+                    long start = System.nanoTime();
+                    roundTrip(channel, reader, status);
+                    statusMs[i] = (System.nanoTime() - start) / 1e6;
+                    start = System.nanoTime();
+                    resolved &= roundTrip(channel, reader, command).optBoolean("ok");
+                    commandMs[i] = (System.nanoTime() - start) / 1e6;
+                }
+                Arrays.sort(statusMs);
+                Arrays.sort(commandMs);
+                commandP50 = ReplayBenchmark.percentile(commandMs, 50);
+                results.put("statusMsP50", ReplayBenchmark.percentile(statusMs, 50));
+                results.put("statusMsP99", ReplayBenchmark.percentile(statusMs, 99));
+                results.put("commandMsP50", commandP50);
+                results.put("commandMsP99", ReplayBenchmark.percentile(commandMs, 99));
+                results.put("commandsResolved", resolved);
+            }
+
+            double[] connectMs = new double[Math.max(1, requests / 10)];
+            for (int i = 0; i < connectMs.length; i++) {
+                long start = System.nanoTime();
+                VocadeskCtl.send(socket, command);
+                connectMs[i] = (System.nanoTime() - start) / 1e6;
+            }
+            Arrays.sort(connectMs);
+            results.put("newConnectionMsP50", ReplayBenchmark.percentile(connectMs, 50));
+            results.put("newConnectionMsP99", ReplayBenchmark.percentile(connectMs, 99));
+
+            // What a script pays when it starts the client JVM for every command
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            double[] coldMs = new double[coldRuns];
+            for (int i = 0; i < coldRuns; i++) {
+                long start = System.nanoTime();
+                Process client = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        VocadeskCtl.class.getName(), "--socket", socket.toString(), "open", "alpha")
+                        .redirectOutput(ProcessBuilder.Redirect.to(new File("/dev/null")))
+                        .redirectErrorStream(true)
+                        .start();
+                client.waitFor();
+                coldMs[i] = (System.nanoTime() - start) / 1e6;
+            }
+            Arrays.sort(coldMs);
+            if (coldRuns > 0) {
+                results.put("clientJvmMsP50", ReplayBenchmark.percentile(coldMs, 50));
+            }
+
+            execution.awaitIdle(5000);
+            results.put("launchesRecorded", appLauncher.drainLaunches().size());
+        } finally {
+            control.close();
+            execution.shutdown(1000);
+            System.setOut(report);
+            Files.deleteIfExists(appsFile);
+            Files.deleteIfExists(socket.resolveSibling(socket.getFileName() + ".lock"));
+            Files.deleteIfExists(directory);
+        }
+
+        results.put("budgetMs", budgetMs);
+        results.put("withinBudget", commandP50 <= budgetMs);
+        report.println(results.toString(2));
+        if (commandP50 > budgetMs) {
+            System.exit(1);
+        }
+    }
+
+    private static JSONObject roundTrip(SocketChannel channel, BufferedReader reader, JSONObject request)
+            throws Exception {
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(request + "\n");
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        return new JSONObject(reader.readLine());
+    }
+}
@@ -0,0 +1,47 @@
+package com.vocadesk;
+
+/**
+ * DcRemover - Subtracts a slowly tracked DC offset (common on cheap USB microphones)
+ * Uses a per-block mean rather than a recursive filter so both loops vectorize
+ */
+public class DcRemover implements AudioStage {
+
+    private static final double TRACKING = 0.1;
+
+    private double mean;
+    private boolean primed;
+
+    @Override
+    public void process(short[] samples, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+
+        long sum = 0;
+        for (int i = offset; i < offset + length; i++) {
+            sum += samples[i];
+        }
+        double blockMean = (double) sum / length;
+        mean = primed ? mean + TRACKING * (blockMean - mean) : blockMean;
+        primed = true;
+
+        int dc = (int) Math.round(mean);
+        if (dc == 0) {
+            return;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            samples[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, samples[i] - dc));
+        }
+    }
+
+    @Override
+    public void reset() {
+        mean = 0;
+        primed = false;
+    }
+
+    @Override
+    public String getName() {
+        return "dc";
+    }
+}
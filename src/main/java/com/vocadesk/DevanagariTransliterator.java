@@ -0,0 +1,151 @@
+package com.vocadesk;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DevanagariTransliterator - Writes Hindi recognizer output in the casual Latin spelling users type
+ * Hindi Vosk models produce Devanagari ("क्रोम खोलो"); the interpreter, the corrections and
+ * the registry all work in Latin script, so results are mapped to "krom kholo" first.
+ * Long and short vowels share a spelling (आ and अ are both "a") and the inherent vowel is
+ * dropped at the end of a word, which is how app names and commands are usually romanized.
+ */
+public class DevanagariTransliterator {
+
+    private static final char VIRAMA = '्';
+    private static final char NUKTA = '़';
+
+    private static final Map<Character, String> CONSONANTS = new HashMap<>();
+    private static final Map<Character, String> VOWELS = new HashMap<>();
+    private static final Map<Character, String> SIGNS = new HashMap<>();
+    private static final Map<Character, String> MARKS = new HashMap<>();
+    // Consonant + nukta (as a separate mark) for the Persian and English sounds
+    private static final Map<Character, String> NUKTA_FORMS = new HashMap<>();
+
+    static {
+        String[][] consonants = {
+            {"क", "k"}, {"ख", "kh"}, {"ग", "g"}, {"घ", "gh"}, {"ङ", "n"},
+            {"च", "ch"}, {"छ", "chh"}, {"ज", "j"}, {"झ", "jh"}, {"ञ", "n"},
+            {"ट", "t"}, {"ठ", "th"}, {"ड", "d"}, {"ढ", "dh"}, {"ण", "n"},
+            {"त", "t"}, {"थ", "th"}, {"द", "d"}, {"ध", "dh"}, {"न", "n"},
+            {"प", "p"}, {"फ", "ph"}, {"ब", "b"}, {"भ", "bh"}, {"म", "m"},
+            {"य", "y"}, {"र", "r"}, {"ल", "l"}, {"व", "v"},
+            {"श", "sh"}, {"ष", "sh"}, {"स", "s"}, {"ह", "h"},
+            // Precomposed nukta forms
+            {"\u0958", "q"}, {"\u0959", "kh"}, {"\u095A", "g"}, {"\u095B", "z"},
+            {"\u095C", "r"}, {"\u095D", "rh"}, {"\u095E", "f"}
+        };
+        for (String[] entry : consonants) {
+            CONSONANTS.put(entry[0].charAt(0), entry[1]);
+        }
+
+        String[][] vowels = {
+            {"अ", "a"}, {"आ", "a"}, {"इ", "i"}, {"ई", "i"}, {"उ", "u"}, {"ऊ", "u"},
+            {"ऋ", "ri"}, {"ए", "e"}, {"ऐ", "ai"}, {"ओ", "o"}, {"औ", "au"}, {"ऑ", "o"}
+        };
+        for (String[] entry : vowels) {
+            VOWELS.put(entry[0].charAt(0), entry[1]);
+        }
+
+        String[][] signs = {
+            {"ा", "a"}, {"ि", "i"}, {"ी", "i"}, {"ु", "u"}, {"ू", "u"}, {"ृ", "ri"},
+            {"े", "e"}, {"ै", "ai"}, {"ो", "o"}, {"ौ", "au"}, {"ॉ", "o"}
+        };
+        for (String[] entry : signs) {
+            SIGNS.put(entry[0].charAt(0), entry[1]);
+        }
+
+        // Anusvara, chandrabindu and visarga follow a vowel rather than replacing it
+        MARKS.put('ं', "n");
+        MARKS.put('ँ', "n");
+        MARKS.put('ः', "h");
+
+        NUKTA_FORMS.put('क', "q");
+        NUKTA_FORMS.put('ज', "z");
+        NUKTA_FORMS.put('ड', "r");
+        NUKTA_FORMS.put('ढ', "rh");
+        NUKTA_FORMS.put('फ', "f");
+    }
+
+    /**
+     * Check whether text contains any Devanagari
+     * @param text Recognized text
+     * @return true if at least one character is in the Devanagari block
+     */
+    public static boolean containsDevanagari(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (isDevanagari(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Transliterate Devanagari to Latin, leaving everything else untouched
+     * @param text Recognized text, possibly mixed script ("chrome खोलो")
+     * @return Latin text ("chrome kholo")
+     */
+    public static String toLatin(String text) {
+        StringBuilder out = new StringBuilder(text.length() * 2);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String consonant = CONSONANTS.get(c);
+            if (consonant != null) {
+                if (i + 1 < text.length() && text.charAt(i + 1) == NUKTA) {
+                    consonant = NUKTA_FORMS.getOrDefault(c, consonant);
+                    i++;
+                }
+                out.append(consonant);
+                if (hasInherentVowel(text, i)) {
+                    out.append('a');
+                }
+                continue;
+            }
+            String vowel = VOWELS.get(c);
+            if (vowel == null) {
+                vowel = SIGNS.get(c);
+            }
+            if (vowel == null) {
+                vowel = MARKS.get(c);
+            }
+            if (vowel != null) {
+                out.append(vowel);
+            } else if (c == '।' || c == '॥') {
+                // Danda / double danda
+                out.append(' ');
+            } else if (c != VIRAMA && c != NUKTA) {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Whether the consonant at index is pronounced with its inherent "a"
+     * Not before a vowel sign or virama, not at the end of a word, and not between a vowel
+     * and a consonant that carries its own vowel sign (schwa deletion: "notapaid" -> "notpaid")
+     */
+    private static boolean hasInherentVowel(String text, int index) {
+        char next = charAt(text, index + 1);
+        if (next == VIRAMA || SIGNS.containsKey(next) || !isDevanagariLetter(next)) {
+            return false;
+        }
+        char previous = charAt(text, index - 1);
+        boolean afterVowel = SIGNS.containsKey(previous) || VOWELS.containsKey(previous);
+        boolean beforeVowelSign = CONSONANTS.containsKey(next) && SIGNS.containsKey(charAt(text, index + 2));
+        return !(afterVowel && beforeVowelSign);
+    }
+
+    private static char charAt(String text, int index) {
+        return index >= 0 && index < text.length() ? text.charAt(index) : ' ';
+    }
+
+    private static boolean isDevanagari(char c) {
+        return c >= 'ऀ' && c <= 'ॿ';
+    }
+
+    private static boolean isDevanagariLetter(char c) {
+        return isDevanagari(c) && c != '।' && c != '॥';
+    }
+}
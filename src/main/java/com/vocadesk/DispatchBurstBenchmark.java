@@ -0,0 +1,99 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DispatchBurstBenchmark - Measures thread count and latency under bursts of commands
+ * Fires bursts of recognized "open ..." commands at the controller from a single thread
+ * (as the decode thread would) with a simulated process spawn time, for each execution
+ * mode, and prints JSON
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.DispatchBurstBenchmark [--apps apps.json]
+ *        [--bursts 1,10,100,1000] [--launch-delay-ms 20] [--modes platform,virtual]
+ */
+public class DispatchBurstBenchmark {
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--apps", "apps.json",
+                "--bursts", "1,10,100,1000",
+                "--launch-delay-ms", "20",
+                "--modes", "platform,virtual");
+        PrintStream report = System.out;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        JSONArray runs = new JSONArray();
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        RecordingAppLauncher appLauncher = new RecordingAppLauncher(options.get("--apps"));
+        appLauncher.setLaunchDelayMillis(Long.parseLong(options.get("--launch-delay-ms")));
+        String[] appNames = appLauncher.getAppNames();
+
+        try {
+            for (String mode : options.get("--modes").split(",")) {
+                ExecutionModel execution = new ExecutionModel(mode.trim());
+                if (!execution.getMode().equals(mode.trim())) {
+                    execution.shutdown(0);
+                    continue;
+                }
+                VoiceRecognitionController controller = new VoiceRecognitionController(
+                        appLauncher, ReplayBenchmark.silentFeedback(), null, execution);
+
+                for (String burstOption : options.get("--bursts").split(",")) {
+                    int burst = Integer.parseInt(burstOption.trim());
+                    appLauncher.drainLaunches();
+                    int baselineThreads = threadBean.getThreadCount();
+                    threadBean.resetPeakThreadCount();
+
+                    long start = System.nanoTime();
+                    for (int i = 0; i < burst; i++) {
+                        controller.dispatch("open " + appNames[i % appNames.length]);
+                    }
+                    long dispatchDone = System.nanoTime();
+                    execution.awaitIdle(60_000);
+                    long allDone = System.nanoTime();
+
+                    List<RecordingAppLauncher.Launch> launches = appLauncher.drainLaunches();
+                    double[] latencies = new double[launches.size()];
+                    for (int i = 0; i < latencies.length; i++) {
+                        latencies[i] = (launches.get(i).nanoTime - start) / 1e6;
+                    }
+                    Arrays.sort(latencies);
+
+                    JSONObject run = new JSONObject();
+                    run.put("mode", execution.getMode());
+                    run.put("burst", burst);
+                    run.put("launches", launches.size());
+                    run.put("callerBlockedMs", (dispatchDone - start) / 1e6);
+                    run.put("totalMs", (allDone - start) / 1e6);
+                    run.put("latencyMsP50", ReplayBenchmark.percentile(latencies, 50));
+                    run.put("latencyMsP99", ReplayBenchmark.percentile(latencies, 99));
+                    run.put("baselineThreads", baselineThreads);
+                    run.put("peakThreads", threadBean.getPeakThreadCount());
+                    runs.put(run);
+                }
+                execution.shutdown(1000);
+            }
+        } finally {
+            System.setOut(report);
+        }
+
+        JSONObject results = new JSONObject();
+        results.put("launchDelayMs", Long.parseLong(options.get("--launch-delay-ms")));
+        results.put("runs", runs);
+        report.println(results.toString(2));
+    }
+}
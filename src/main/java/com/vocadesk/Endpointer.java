@@ -0,0 +1,124 @@
+package com.vocadesk;
+
+/**
+ * Endpointer - Energy-based end-of-utterance detection for 16 kHz mono PCM
+ * The Vosk Java API does not expose its endpointer settings, so the listening loops run
+ * this alongside the recognizer and ask for the final result as soon as the profile's
+ * trailing silence has passed. Works on 10 ms frames against an adaptive noise floor.
+ */
+public class Endpointer {
+
+    private static final int FRAME_SAMPLES = 160;
+    private static final int FRAME_MS = 10;
+    // Speech must be this many times the noise floor's power (about 6 dB) ...
+    private static final double SPEECH_RATIO = 4.0;
+    // ... and above an absolute floor (RMS of roughly 300 on a 16-bit scale)
+    private static final double MIN_SPEECH_ENERGY = 300.0 * 300.0;
+    private static final double FLOOR_ADAPT = 0.05;
+
+    private volatile int silenceMs;
+    private volatile int maxUtteranceMs;
+
+    private double noiseFloor = -1;
+    private boolean inSpeech;
+    private int trailingSilenceMs;
+    private int utteranceMs;
+
+    // Partial frame carried between calls
+    private double pendingEnergy;
+    private int pendingSamples;
+
+    /**
+     * Constructor - Use a profile's timeouts
+     * @param profile Latency profile
+     */
+    public Endpointer(LatencyProfile profile) {
+        configure(profile);
+    }
+
+    /**
+     * Change timeouts (safe to call from another thread while audio is flowing)
+     * @param profile Latency profile
+     */
+    public void configure(LatencyProfile profile) {
+        this.silenceMs = profile.getEndpointSilenceMs();
+        this.maxUtteranceMs = profile.getMaxUtteranceMs();
+    }
+
+    /**
+     * Check if this endpointer can fire at all under the current profile
+     * @return false when the profile leaves endpointing to Vosk
+     */
+    public boolean isEnabled() {
+        return silenceMs > 0;
+    }
+
+    /**
+     * Analyse a chunk of audio
+     * @param buffer PCM bytes (16-bit little-endian)
+     * @param length Number of valid bytes in buffer
+     * @return true if the current utterance ended inside this chunk
+     */
+    public boolean accept(byte[] buffer, int length) {
+        int timeout = silenceMs;
+        if (timeout <= 0) {
+            return false;
+        }
+
+        boolean ended = false;
+        for (int i = 0; i + 1 < length; i += 2) {
+            int sample = (short) ((buffer[i] & 0xff) | (buffer[i + 1] << 8));
+            pendingEnergy += (double) sample * sample;
+            if (++pendingSamples == FRAME_SAMPLES) {
+                ended |= frame(pendingEnergy / FRAME_SAMPLES, timeout);
+                pendingEnergy = 0;
+                pendingSamples = 0;
+            }
+        }
+        return ended;
+    }
+
+    private boolean frame(double energy, int timeout) {
+        if (noiseFloor < 0) {
+            noiseFloor = energy;
+        }
+
+        boolean speech = energy > MIN_SPEECH_ENERGY && energy > noiseFloor * SPEECH_RATIO;
+        if (!speech) {
+            noiseFloor += FLOOR_ADAPT * (energy - noiseFloor);
+        }
+
+        if (speech) {
+            inSpeech = true;
+            trailingSilenceMs = 0;
+        } else if (inSpeech) {
+            trailingSilenceMs += FRAME_MS;
+        }
+        if (inSpeech) {
+            utteranceMs += FRAME_MS;
+        }
+
+        if (inSpeech && (trailingSilenceMs >= timeout || utteranceMs >= maxUtteranceMs)) {
+            reset();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Forget the current utterance (the noise floor is kept)
+     */
+    public void reset() {
+        inSpeech = false;
+        trailingSilenceMs = 0;
+        utteranceMs = 0;
+    }
+
+    /**
+     * Check if speech has been heard since the last endpoint
+     * @return true while inside an utterance
+     */
+    public boolean isInSpeech() {
+        return inSpeech;
+    }
+}
@@ -0,0 +1,216 @@
+package com.vocadesk;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ExecutionModel - The one place VOcadesk creates threads
+ * Decode runs on a dedicated, named platform thread. Blocking work (launches, browser
+ * opens, registry reloads, stats persistence) runs on virtual threads when the JVM has
+ * them (Java 21+), otherwise on a cached pool of named daemon platform threads. Long-lived
+ * service loops (scheduler, journal writer, control socket, watchers), delayed work and
+ * bounded pools for parallel CPU work are created through the static factories below, so
+ * every thread is a named daemon and no pool grows without bound.
+ *
+ * Setting: vocadesk.execution = auto | virtual | platform (default auto)
+ */
+public class ExecutionModel {
+
+    // Bounded pool threads exit after this long without work
+    private static final long POOL_IDLE_SECONDS = 30;
+
+    private final String mode;
+    private final ExecutorService blockingExecutor;
+    private final AtomicInteger decodeThreads = new AtomicInteger();
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+
+    /**
+     * Constructor - Use the configured execution mode
+     */
+    public ExecutionModel() {
+        this(VocadeskConfig.getString("vocadesk.execution", "auto"));
+    }
+
+    /**
+     * Constructor - Use an explicit execution mode
+     * @param requestedMode auto, virtual or platform
+     */
+    public ExecutionModel(String requestedMode) {
+        ExecutorService virtualExecutor = null;
+        if (!requestedMode.equals("platform")) {
+            virtualExecutor = createVirtualExecutor("vocadesk-io-");
+            if (virtualExecutor == null && requestedMode.equals("virtual")) {
+                System.err.println("[WARNING] Virtual threads need Java 21+, using platform threads");
+            }
+        }
+
+        if (virtualExecutor != null) {
+            this.mode = "virtual";
+            this.blockingExecutor = virtualExecutor;
+        } else {
+            this.mode = "platform";
+            this.blockingExecutor = Executors.newCachedThreadPool(namedDaemonFactory("vocadesk-io-"));
+        }
+    }
+
+    /**
+     * Create a thread-per-task executor of virtual threads through reflection,
+     * so the project still compiles and runs on Java 17
+     * @return The executor, or null if virtual threads are unavailable
+     */
+    private static ExecutorService createVirtualExecutor(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory namedDaemonFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> newServiceThread(namePrefix + counter.getAndIncrement(), runnable);
+    }
+
+    /**
+     * Create a long-lived service thread (accept loop, scheduler, journal writer, watcher)
+     * @param name Thread name, such as "vocadesk-scheduler"
+     * @param task The thread's loop
+     * @return A named, unstarted daemon thread
+     */
+    public static Thread newServiceThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Create a single daemon thread that runs delayed work (idle timers)
+     * @param name Thread name
+     * @return The scheduled executor; cancelled tasks are removed from its queue
+     */
+    public static ScheduledExecutorService newScheduledExecutor(String name) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> newServiceThread(name, task));
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Create a pool of at most the given number of threads (parallel decoding, indexing,
+     * control connections); work beyond that waits in its queue
+     * Threads start on demand and exit when idle, so a pool kept for the app's lifetime
+     * costs nothing between bursts.
+     * @param namePrefix Thread name prefix, such as "vocadesk-lang-"
+     * @param threads Maximum threads (at least 1)
+     * @param priority Thread priority
+     * @return The pool
+     */
+    public static ExecutorService newBoundedPool(String namePrefix, int threads, int priority) {
+        ThreadFactory named = namedDaemonFactory(namePrefix);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+                POOL_IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = named.newThread(task);
+                    thread.setPriority(priority);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Create the platform thread that reads the microphone and feeds the decoder
+     * @param task The decode loop
+     * @return A named, unstarted daemon thread
+     */
+    public Thread newDecodeThread(Runnable task) {
+        Thread thread = newServiceThread("vocadesk-decode-" + decodeThreads.getAndIncrement(), task);
+        thread.setPriority(Thread.NORM_PRIORITY + 1);
+        return thread;
+    }
+
+    /**
+     * Run blocking work (process launches, browser opens, file I/O) off the decode thread
+     * @param task The blocking task
+     * @return Future completing when the task finishes
+     */
+    public CompletableFuture<Void> runBlocking(Runnable task) {
+        pendingTasks.incrementAndGet();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } finally {
+                pendingTasks.decrementAndGet();
+            }
+        }, blockingExecutor);
+    }
+
+    /**
+     * Wait until no blocking tasks are in flight (benchmarks use this to time dispatch)
+     * @param timeoutMillis Maximum time to wait
+     * @return true if idle, false on timeout
+     */
+    public boolean awaitIdle(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (pendingTasks.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(20_000);
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of blocking tasks submitted but not yet finished
+     * @return In-flight task count
+     */
+    public int getPendingTasks() {
+        return pendingTasks.get();
+    }
+
+    /**
+     * Get the executor used for blocking work
+     * @return The blocking executor
+     */
+    public ExecutorService getBlockingExecutor() {
+        return blockingExecutor;
+    }
+
+    /**
+     * Get the active mode
+     * @return "virtual" or "platform"
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * Stop accepting work and wait briefly for in-flight tasks
+     * @param timeoutMillis Maximum time to wait
+     */
+    public void shutdown(long timeoutMillis) {
+        blockingExecutor.shutdown();
+        try {
+            if (!blockingExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                blockingExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            blockingExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
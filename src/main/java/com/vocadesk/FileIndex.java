@@ -0,0 +1,831 @@
+package com.vocadesk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * FileIndex - Local inverted index over file names, paths and plain-text contents
+ * Backs the "find [words]" command on machines without network access. Every indexed file
+ * is a document; each term maps to a posting list of (document, weight) pairs kept in
+ * ascending document order, where the weight counts name hits most, folder names less
+ * and content occurrences least. A search scores documents by term rarity and weight,
+ * documents matching every term first.
+ *
+ * The first scan tokenizes files on a pool sized to the CPU; after that a WatchService
+ * re-indexes files as they change. The index is saved next to the app (varint and delta
+ * encoded) and on the next start only files whose size or modification time changed are
+ * read again. Updates replace a document with a new one and tombstone the old one;
+ * tombstones are compacted away once they make up a quarter of the index. Saves copy the
+ * arrays under the lock and encode and write outside it, so searches do not wait for the
+ * disk; documents are keyed by path in sorted order, so a deleted folder's files are one
+ * range lookup away.
+ *
+ * Settings: vocadesk.index.dirs (comma separated, empty = off), vocadesk.index.file
+ *           (default file-index.bin), vocadesk.index.max-content-kb (default 256),
+ *           vocadesk.index.text-extensions, vocadesk.index.watch (default true)
+ */
+public class FileIndex implements AutoCloseable {
+
+    private static final int MAGIC = 0x56445831;
+    private static final int NAME_WEIGHT = 8;
+    private static final int PATH_WEIGHT = 2;
+    private static final int CONTENT_WEIGHT = 1;
+    private static final int MAX_WEIGHT = 255;
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final long SETTLE_MS = 300;
+    private static final String DEFAULT_TEXT_EXTENSIONS =
+            "txt,md,csv,log,json,xml,html,htm,java,py,js,ts,c,cpp,h,cs,properties,yaml,yml,ini,cfg,conf,sql,sh,bat,ps1,tex,rtf";
+
+    /**
+     * One search hit
+     */
+    public static class Result {
+        public final Path path;
+        public final double score;
+        public final int matchedTerms;
+
+        Result(Path path, double score, int matchedTerms) {
+            this.path = path;
+            this.score = score;
+            this.matchedTerms = matchedTerms;
+        }
+    }
+
+    /**
+     * Growable posting list: entries are (document << 8) | weight
+     */
+    private static class Postings {
+        int[] entries = new int[2];
+        int size;
+
+        void add(int document, int weight) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = (document << 8) | Math.min(weight, MAX_WEIGHT);
+        }
+    }
+
+    private final List<Path> roots;
+    private final Path indexFile;
+    private final Set<String> textExtensions;
+    private final int maxContentBytes;
+    private final ExecutionModel execution;
+    // Reads files during scans; threads exit between scans
+    private final ExecutorService scanPool = ExecutionModel.newBoundedPool("vocadesk-index-",
+            Runtime.getRuntime().availableProcessors() - 1, Thread.MIN_PRIORITY);
+    private final AtomicBoolean savePending = new AtomicBoolean();
+    // Keeps a background save and the one in close from writing the same file
+    private final Object saveLock = new Object();
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile boolean closed;
+    private volatile boolean watchLimitReported;
+    private WatchService watcher;
+    private Thread watchThread;
+
+    // Documents and postings (guarded by this)
+    private String[] paths = new String[1024];
+    private long[] modified = new long[1024];
+    private long[] sizes = new long[1024];
+    private int documentCount;
+    private int deletedCount;
+    private final NavigableMap<String, Integer> documentIds = new TreeMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    // Search accumulators, reused between queries
+    private float[] scores = new float[0];
+    private byte[] matches = new byte[0];
+
+    /**
+     * Constructor - Index the given folders (call start to load, scan and watch)
+     * @param roots Folders to index, recursively
+     * @param indexFile Where the index is saved, or null to keep it in memory only
+     * @param textExtensions Extensions whose contents are indexed (lowercase, no dot)
+     * @param maxContentBytes Contents beyond this many bytes of a file are not indexed
+     * @param execution Execution model used for background saves
+     */
+    public FileIndex(List<Path> roots, Path indexFile, Set<String> textExtensions, int maxContentBytes,
+                     ExecutionModel execution) {
+        this.roots = roots;
+        this.indexFile = indexFile;
+        this.textExtensions = textExtensions;
+        this.maxContentBytes = maxContentBytes;
+        this.execution = execution;
+    }
+
+    /**
+     * Create the index described by vocadesk.index.* settings
+     * @return The index (not started), or null when no folders are configured
+     */
+    public static FileIndex fromConfig(ExecutionModel execution) {
+        List<Path> roots = new ArrayList<>();
+        for (String dir : VocadeskConfig.getString("vocadesk.index.dirs", "").split(",")) {
+            if (!dir.trim().isEmpty()) {
+                roots.add(Paths.get(dir.trim()).toAbsolutePath().normalize());
+            }
+        }
+        if (roots.isEmpty()) {
+            return null;
+        }
+        Set<String> extensions = new HashSet<>();
+        for (String extension : VocadeskConfig.getString("vocadesk.index.text-extensions", DEFAULT_TEXT_EXTENSIONS).split(",")) {
+            extensions.add(extension.trim().toLowerCase());
+        }
+        return new FileIndex(roots,
+                Paths.get(VocadeskConfig.getString("vocadesk.index.file", "file-index.bin")),
+                extensions,
+                VocadeskConfig.getInt("vocadesk.index.max-content-kb", 256) * 1024,
+                execution);
+    }
+
+    /**
+     * Load the saved index, bring it up to date in the background and keep watching
+     * @param watch Whether to follow changes with a WatchService
+     * @param log Receives progress lines
+     */
+    public void start(boolean watch, Consumer<String> log) {
+        Thread builder = ExecutionModel.newServiceThread("vocadesk-index-build", () -> {
+            try {
+                long begin = System.nanoTime();
+                int read = open(watch);
+                log.accept(String.format("[SUCCESS] File index ready: %d files (%d read) in %.1f s",
+                        getDocumentCount(), read, (System.nanoTime() - begin) / 1e9));
+            } catch (IOException e) {
+                log.accept("[ERROR] File index: " + e.getMessage());
+            }
+        });
+        builder.setPriority(Thread.MIN_PRIORITY);
+        builder.start();
+    }
+
+    /**
+     * Load the saved index and bring it up to date on the calling thread (FileIndexBenchmark)
+     * @param watch Whether to follow changes with a WatchService afterwards
+     * @return Number of files read
+     */
+    int open(boolean watch) throws IOException {
+        load();
+        if (watch) {
+            watcher = FileSystems.getDefault().newWatchService();
+        }
+        int read = scan(roots);
+        ready = true;
+        scheduleSave();
+        if (watch) {
+            watchThread = ExecutionModel.newServiceThread("vocadesk-index-watch", this::watch);
+            watchThread.start();
+        }
+        return read;
+    }
+
+    /**
+     * Walk folders and (re)index every file that is new or changed, in parallel
+     * Files under the folders that no longer exist are dropped.
+     * @return Number of files read
+     */
+    int scan(List<Path> directories) throws IOException {
+        List<Future<?>> reads = new ArrayList<>();
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger read = new AtomicInteger();
+
+        try {
+            for (Path directory : directories) {
+                if (!Files.isDirectory(directory)) {
+                    continue;
+                }
+                Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        if (!dir.equals(directory) && dir.getFileName().toString().startsWith(".")) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        register(dir);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (!attrs.isRegularFile() || isIndexFile(file)) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                        String path = file.toString();
+                        seen.add(path);
+                        if (!isCurrent(path, attrs)) {
+                            reads.add(scanPool.submit(() -> {
+                                index(file, attrs);
+                                read.incrementAndGet();
+                            }));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        // Unreadable entries are simply not indexed
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+        } finally {
+            awaitAll(reads);
+        }
+
+        synchronized (this) {
+            for (Path directory : directories) {
+                for (String path : pathsUnder(directory.toString())) {
+                    if (!seen.contains(path)) {
+                        remove(path);
+                    }
+                }
+            }
+        }
+        return read.get();
+    }
+
+    private static void awaitAll(List<Future<?>> tasks) {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException | CancellationException e) {
+                // A file that fails to index is skipped
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private synchronized boolean isCurrent(String path, BasicFileAttributes attrs) {
+        Integer document = documentIds.get(path);
+        return document != null && modified[document] == attrs.lastModifiedTime().toMillis()
+                && sizes[document] == attrs.size();
+    }
+
+    /**
+     * The saved index and its temporary file, in case they sit inside an indexed folder
+     */
+    private boolean isIndexFile(Path file) {
+        if (indexFile == null) {
+            return false;
+        }
+        Path saved = indexFile.toAbsolutePath().normalize();
+        Path candidate = file.toAbsolutePath().normalize();
+        return candidate.startsWith(saved.getParent())
+                && candidate.getFileName().toString().startsWith(saved.getFileName().toString());
+    }
+
+    /**
+     * Indexed paths equal to a path or inside it, from the sorted document map
+     */
+    private synchronized List<String> pathsUnder(String directory) {
+        List<String> found = new ArrayList<>();
+        if (documentIds.containsKey(directory)) {
+            found.add(directory);
+        }
+        char separator = java.io.File.separatorChar;
+        found.addAll(documentIds.subMap(directory + separator, directory + (char) (separator + 1)).keySet());
+        return found;
+    }
+
+    /**
+     * Tokenize one file (outside the lock) and replace its document
+     */
+    private void index(Path file, BasicFileAttributes attrs) {
+        Map<String, Integer> terms = new HashMap<>();
+        String name = file.getFileName().toString();
+        addTerms(terms, name, NAME_WEIGHT, true);
+        Path parent = file.getParent();
+        for (Path root : roots) {
+            if (parent != null && parent.startsWith(root)) {
+                addTerms(terms, root.relativize(parent).toString(), PATH_WEIGHT, true);
+                break;
+            }
+        }
+        int dot = name.lastIndexOf('.');
+        if (dot > 0 && textExtensions.contains(name.substring(dot + 1).toLowerCase())) {
+            addContentTerms(terms, file);
+        }
+
+        synchronized (this) {
+            remove(file.toString());
+            int document = documentCount++;
+            if (document == paths.length) {
+                int capacity = paths.length * 2;
+                paths = Arrays.copyOf(paths, capacity);
+                modified = Arrays.copyOf(modified, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            paths[document] = file.toString();
+            modified[document] = attrs.lastModifiedTime().toMillis();
+            sizes[document] = attrs.size();
+            documentIds.put(paths[document], document);
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), key -> new Postings()).add(document, term.getValue());
+            }
+        }
+    }
+
+    private void addContentTerms(Map<String, Integer> terms, Path file) {
+        byte[] bytes;
+        try (InputStream in = Files.newInputStream(file)) {
+            bytes = in.readNBytes(maxContentBytes);
+        } catch (IOException e) {
+            return;
+        }
+        // Binary files that happen to carry a text extension
+        for (int i = 0; i < Math.min(bytes.length, 1024); i++) {
+            if (bytes[i] == 0) {
+                return;
+            }
+        }
+        addTerms(terms, new String(bytes, StandardCharsets.UTF_8), CONTENT_WEIGHT, false);
+    }
+
+    /**
+     * Add the words of a text; names also split at case and digit changes ("BudgetQ3" -> budget, q, 3)
+     */
+    private static void addTerms(Map<String, Integer> terms, String text, int weight, boolean splitWords) {
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addTerm(terms, text.substring(start, i), weight);
+                if (splitWords) {
+                    int part = start;
+                    for (int j = start + 1; j < i; j++) {
+                        char previous = text.charAt(j - 1);
+                        char current = text.charAt(j);
+                        boolean boundary = (Character.isLowerCase(previous) && Character.isUpperCase(current))
+                                || (Character.isLetter(previous) != Character.isLetter(current));
+                        if (boundary) {
+                            addTerm(terms, text.substring(part, j), weight);
+                            part = j;
+                        }
+                    }
+                    if (part > start) {
+                        addTerm(terms, text.substring(part, i), weight);
+                    }
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private static void addTerm(Map<String, Integer> terms, String word, int weight) {
+        if (word.length() > MAX_TERM_LENGTH) {
+            return;
+        }
+        terms.merge(word.toLowerCase(), weight, (a, b) -> Math.min(MAX_WEIGHT, a + b));
+    }
+
+    /**
+     * Drop a file's document, if it has one
+     */
+    private synchronized void remove(String path) {
+        Integer document = documentIds.remove(path);
+        if (document != null) {
+            deletedCount++;
+            paths[document] = null;
+        }
+    }
+
+    /**
+     * Find the files that best match some words
+     * @param query Words as spoken ("budget report")
+     * @param limit Maximum number of results
+     * @return Results, best first (files matching every word before partial matches)
+     */
+    public synchronized List<Result> search(String query, int limit) {
+        Map<String, Integer> queryTerms = new HashMap<>();
+        addTerms(queryTerms, query, 1, false);
+        if (queryTerms.isEmpty() || documentCount == 0) {
+            return new ArrayList<>();
+        }
+        if (scores.length < documentCount) {
+            scores = new float[paths.length];
+            matches = new byte[paths.length];
+        }
+
+        int live = documentCount - deletedCount;
+        int[] touched = new int[0];
+        int touchedCount = 0;
+        for (String term : queryTerms.keySet()) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            float idf = (float) Math.log(1 + (double) live / list.size);
+            for (int i = 0; i < list.size; i++) {
+                int entry = list.entries[i];
+                int document = entry >>> 8;
+                if (paths[document] == null) {
+                    continue;
+                }
+                int weight = entry & 0xFF;
+                if (matches[document] == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, Math.max(64, touchedCount * 2));
+                    }
+                    touched[touchedCount++] = document;
+                }
+                scores[document] += idf * weight / (weight + 2f);
+                matches[document]++;
+            }
+        }
+
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1,
+                (a, b) -> matches[a] != matches[b] ? matches[a] - matches[b] : Float.compare(scores[a], scores[b]));
+        for (int i = 0; i < touchedCount; i++) {
+            best.add(touched[i]);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        Result[] results = new Result[best.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            int document = best.poll();
+            results[i] = new Result(Paths.get(paths[document]), scores[document], matches[document]);
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            scores[touched[i]] = 0;
+            matches[touched[i]] = 0;
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * Renumber documents without the tombstoned ones
+     */
+    private synchronized void compact() {
+        if (deletedCount == 0) {
+            return;
+        }
+        int[] remap = new int[documentCount];
+        int next = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (paths[document] == null) {
+                remap[document] = -1;
+            } else {
+                remap[document] = next;
+                paths[next] = paths[document];
+                modified[next] = modified[document];
+                sizes[next] = sizes[document];
+                documentIds.put(paths[next], next);
+                next++;
+            }
+        }
+        Arrays.fill(paths, next, documentCount, null);
+        documentCount = next;
+        deletedCount = 0;
+        postings.values().removeIf(list -> {
+            int kept = 0;
+            for (int i = 0; i < list.size; i++) {
+                int document = remap[list.entries[i] >>> 8];
+                if (document >= 0) {
+                    list.entries[kept++] = (document << 8) | (list.entries[i] & 0xFF);
+                }
+            }
+            list.size = kept;
+            return kept == 0;
+        });
+    }
+
+    private void scheduleSave() {
+        if (indexFile != null && savePending.compareAndSet(false, true)) {
+            try {
+                execution.runBlocking(this::save);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; close saves
+                savePending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Write the index now (atomic replace)
+     * Only copying the arrays holds the index lock; tombstones are skipped while encoding
+     */
+    public void save() {
+        savePending.set(false);
+        if (indexFile == null) {
+            return;
+        }
+        String[] savedPaths;
+        long[] savedModified;
+        long[] savedSizes;
+        String[] terms;
+        int[][] lists;
+        synchronized (this) {
+            savedPaths = Arrays.copyOf(paths, documentCount);
+            savedModified = Arrays.copyOf(modified, documentCount);
+            savedSizes = Arrays.copyOf(sizes, documentCount);
+            terms = new String[postings.size()];
+            lists = new int[postings.size()][];
+            int t = 0;
+            for (Map.Entry<String, Postings> term : postings.entrySet()) {
+                terms[t] = term.getKey();
+                lists[t++] = Arrays.copyOf(term.getValue().entries, term.getValue().size);
+            }
+        }
+
+        synchronized (saveLock) {
+            int[] remap = new int[savedPaths.length];
+            int live = 0;
+            for (int document = 0; document < savedPaths.length; document++) {
+                remap[document] = savedPaths[document] == null ? -1 : live++;
+            }
+            Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                writeVarLong(out, live);
+                for (int document = 0; document < savedPaths.length; document++) {
+                    if (remap[document] >= 0) {
+                        writeString(out, savedPaths[document]);
+                        writeVarLong(out, savedModified[document]);
+                        writeVarLong(out, savedSizes[document]);
+                    }
+                }
+                int termCount = 0;
+                for (int t = 0; t < terms.length; t++) {
+                    int kept = 0;
+                    for (int entry : lists[t]) {
+                        if (remap[entry >>> 8] >= 0) {
+                            lists[t][kept++] = (remap[entry >>> 8] << 8) | (entry & 0xFF);
+                        }
+                    }
+                    lists[t] = Arrays.copyOf(lists[t], kept);
+                    if (kept > 0) {
+                        termCount++;
+                    }
+                }
+                writeVarLong(out, termCount);
+                for (int t = 0; t < terms.length; t++) {
+                    if (lists[t].length == 0) {
+                        continue;
+                    }
+                    writeString(out, terms[t]);
+                    writeVarLong(out, lists[t].length);
+                    int previous = 0;
+                    for (int entry : lists[t]) {
+                        int document = entry >>> 8;
+                        writeVarLong(out, document - previous);
+                        out.writeByte(entry & 0xFF);
+                        previous = document;
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("[WARNING] Could not save " + indexFile + ": " + e.getMessage());
+                return;
+            }
+            try {
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.err.println("[WARNING] Could not save " + indexFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void load() {
+        if (indexFile == null || !Files.exists(indexFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a Vocadesk file index");
+            }
+            int count = (int) readVarLong(in);
+            int capacity = Math.max(1024, Integer.highestOneBit(Math.max(1, count)) * 2);
+            paths = new String[capacity];
+            modified = new long[capacity];
+            sizes = new long[capacity];
+            for (int document = 0; document < count; document++) {
+                paths[document] = readString(in);
+                modified[document] = readVarLong(in);
+                sizes[document] = readVarLong(in);
+                documentIds.put(paths[document], document);
+            }
+            documentCount = count;
+            long terms = readVarLong(in);
+            for (long t = 0; t < terms; t++) {
+                String term = readString(in);
+                Postings list = new Postings();
+                int size = (int) readVarLong(in);
+                list.entries = new int[Math.max(2, size)];
+                int document = 0;
+                for (int i = 0; i < size; i++) {
+                    document += (int) readVarLong(in);
+                    list.entries[i] = (document << 8) | in.readUnsignedByte();
+                }
+                list.size = size;
+                postings.put(term, list);
+            }
+        } catch (IOException e) {
+            // Start over; the scan rebuilds it
+            System.err.println("[WARNING] Could not read " + indexFile + " (" + e.getMessage() + "); rebuilding");
+            paths = new String[1024];
+            modified = new long[1024];
+            sizes = new long[1024];
+            documentCount = 0;
+            documentIds.clear();
+            postings.clear();
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void register(Path directory) {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            WatchKey key = directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirectories.put(key, directory);
+        } catch (IOException e) {
+            // Typically the inotify watch limit (fs.inotify.max_user_watches); still indexed, just not followed
+            if (!watchLimitReported) {
+                watchLimitReported = true;
+                System.err.println("[WARNING] Not watching " + directory + " and possibly others: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Follow changes, batching events until the folders have been quiet for a moment
+     */
+    private void watch() {
+        try {
+            while (!closed) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = watcher.take();
+                while (key != null) {
+                    Path directory = watchedDirectories.get(key);
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (directory == null) {
+                            continue;
+                        }
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            changed.add(directory);
+                        } else {
+                            changed.add(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) {
+                        watchedDirectories.remove(key);
+                    }
+                    key = watcher.poll(SETTLE_MS, TimeUnit.MILLISECONDS);
+                }
+                apply(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closing
+        }
+    }
+
+    private void apply(Set<Path> changed) {
+        List<Path> directories = new ArrayList<>();
+        for (Path path : changed) {
+            if ((path.getFileName() != null && path.getFileName().toString().startsWith(".")) || isIndexFile(path)) {
+                continue;
+            }
+            try {
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    directories.add(path);
+                } else if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+                    BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (!isCurrent(path.toString(), attrs)) {
+                        index(path, attrs);
+                    }
+                } else {
+                    synchronized (this) {
+                        for (String indexed : pathsUnder(path.toString())) {
+                            remove(indexed);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Gone again before we got to it
+            }
+        }
+        try {
+            if (!directories.isEmpty()) {
+                scan(directories);
+            }
+        } catch (IOException e) {
+            System.err.println("[WARNING] File index update failed: " + e.getMessage());
+        }
+        synchronized (this) {
+            if (deletedCount > documentCount / 4) {
+                compact();
+            }
+        }
+        scheduleSave();
+    }
+
+    /**
+     * Check if the first scan has finished
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized int getDocumentCount() {
+        return documentCount - deletedCount;
+    }
+
+    public synchronized int getTermCount() {
+        return postings.size();
+    }
+
+    public List<Path> getRoots() {
+        return roots;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        scanPool.shutdownNow();
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+        if (ready) {
+            save();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * FileIndexBenchmark - Measures building, reloading, searching and updating the file index
+ * Indexes the given folders (or a generated tree of synthetic documents), then reports the
+ * build time, the saved index size, the time to reload it and confirm nothing changed,
+ * search latency percentiles over the queries, the slowest search while a save is being
+ * written (only copying the index holds the lock), and how long a new file takes to become
+ * findable through the WatchService. Prints JSON and exits with status 1 if the search p99
+ * exceeds the budget.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.FileIndexBenchmark
+ *        [--dirs ~/Documents,~/projects | --generate 200000] [--queries "budget report,notes"]
+ *        [--repeat 200] [--budget-ms 10]
+ * Generated trees are written to a temporary folder and deleted afterwards.
+ */
+public class FileIndexBenchmark {
+
+    private static final String[] EXTENSIONS = {"txt", "md", "csv", "pdf", "docx", "xlsx", "png"};
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--generate", "0",
+                "--repeat", "200",
+                "--budget-ms", "10");
+        if (!options.containsKey("--dirs") && options.get("--generate").equals("0")) {
+            throw new IllegalArgumentException("--dirs <folders> or --generate <files> is required");
+        }
+        int generate = Integer.parseInt(options.get("--generate"));
+        int repeat = Integer.parseInt(options.get("--repeat"));
+        double budgetMs = Double.parseDouble(options.get("--budget-ms"));
+        String[] words = vocabulary(3000, new Random(7));
+
+        Path generated = null;
+        List<Path> roots = new ArrayList<>();
+        if (generate > 0) {
+            generated = Files.createTempDirectory("vocadesk-index-bench");
+            generateTree(generated, generate, words, new Random(42));
+            roots.add(generated.toAbsolutePath());
+        } else {
+            for (String dir : options.get("--dirs").split(",")) {
+                roots.add(Paths.get(dir.trim().replaceFirst("^~", System.getProperty("user.home"))).toAbsolutePath());
+            }
+        }
+        List<String> queries = new ArrayList<>();
+        if (options.containsKey("--queries")) {
+            queries.addAll(Arrays.asList(options.get("--queries").split(",")));
+        } else {
+            Random random = new Random(11);
+            for (int i = 0; i < 50; i++) {
+                queries.add(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]);
+            }
+        }
+
+        Path indexFile = Files.createTempFile("vocadesk-index", ".bin");
+        Files.delete(indexFile);
+        Set<String> textExtensions = new HashSet<>(Arrays.asList("txt", "md", "csv", "log", "json", "xml", "java", "py"));
+        ExecutionModel execution = new ExecutionModel();
+        JSONObject results = new JSONObject();
+        try {
+            // Cold build
+            FileIndex index = new FileIndex(roots, indexFile, textExtensions, 256 * 1024, execution);
+            long start = System.nanoTime();
+            int read = index.open(false);
+            results.put("buildSeconds", (System.nanoTime() - start) / 1e9);
+            results.put("files", index.getDocumentCount());
+            results.put("filesRead", read);
+            results.put("terms", index.getTermCount());
+            index.save();
+            results.put("indexBytes", Files.size(indexFile));
+            results.put("indexBytesPerFile", (double) Files.size(indexFile) / Math.max(1, index.getDocumentCount()));
+
+            // Warm start: load the saved index and confirm every file is unchanged
+            index = new FileIndex(roots, indexFile, textExtensions, 256 * 1024, execution);
+            start = System.nanoTime();
+            read = index.open(true);
+            results.put("reloadSeconds", (System.nanoTime() - start) / 1e9);
+            results.put("reloadFilesRead", read);
+
+            // Search latency
+            for (String query : queries) {
+                index.search(query, 10);
+            }
+            double[] latencies = new double[queries.size() * repeat];
+            int n = 0;
+            int empty = 0;
+            for (int r = 0; r < repeat; r++) {
+                for (String query : queries) {
+                    long begin = System.nanoTime();
+                    List<FileIndex.Result> found = index.search(query, 10);
+                    latencies[n++] = (System.nanoTime() - begin) / 1e6;
+                    if (r == 0 && found.isEmpty()) {
+                        empty++;
+                    }
+                }
+            }
+            Arrays.sort(latencies);
+            double p99 = ReplayBenchmark.percentile(latencies, 99);
+            results.put("queries", queries.size());
+            results.put("queriesWithoutResults", empty);
+            results.put("searchMsP50", ReplayBenchmark.percentile(latencies, 50));
+            results.put("searchMsP90", ReplayBenchmark.percentile(latencies, 90));
+            results.put("searchMsP99", p99);
+            results.put("searchMsMax", latencies[latencies.length - 1]);
+
+            // Searches while a save is written
+            Thread saver = new Thread(index::save, "vocadesk-index-save");
+            double duringSaveMax = 0;
+            int duringSave = 0;
+            start = System.nanoTime();
+            saver.start();
+            while (saver.isAlive()) {
+                long begin = System.nanoTime();
+                index.search(queries.get(duringSave++ % queries.size()), 10);
+                duringSaveMax = Math.max(duringSaveMax, (System.nanoTime() - begin) / 1e6);
+            }
+            saver.join();
+            results.put("saveMs", (System.nanoTime() - start) / 1e6);
+            results.put("searchesDuringSave", duringSave);
+            results.put("searchDuringSaveMsMax", duringSaveMax);
+
+            // Incremental update through the WatchService
+            Path fresh = roots.get(0).resolve("vocadesk-benchmark-probe-zyxwv.txt");
+            start = System.nanoTime();
+            Files.write(fresh, "quarterly zyxwvprobe figures".getBytes(StandardCharsets.UTF_8));
+            double visibleMs = -1;
+            while (System.nanoTime() - start < 10_000_000_000L) {
+                if (!index.search("zyxwvprobe", 1).isEmpty()) {
+                    visibleMs = (System.nanoTime() - start) / 1e6;
+                    break;
+                }
+                Thread.sleep(5);
+            }
+            Files.delete(fresh);
+            results.put("newFileSearchableMs", visibleMs);
+            index.close();
+
+            results.put("budgetMs", budgetMs);
+            results.put("withinBudget", p99 <= budgetMs);
+            System.out.println(results.toString(2));
+            if (p99 > budgetMs) {
+                System.exit(1);
+            }
+        } finally {
+            execution.shutdown(1000);
+            Files.deleteIfExists(indexFile);
+            if (generated != null) {
+                deleteTree(generated);
+            }
+        }
+    }
+
+    /**
+     * Pronounceable made-up words, so generated names and contents tokenize like real ones
+     */
+    private static String[] vocabulary(int size, Random random) {
+        String[] syllables = {"ka", "ri", "to", "men", "sa", "lo", "pur", "de", "vin", "ta", "ex", "ban", "or", "qui", "nel"};
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int count = 2 + random.nextInt(2);
+            for (int j = 0; j < count; j++) {
+                word.append(syllables[random.nextInt(syllables.length)]);
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private static void generateTree(Path root, int files, String[] words, Random random) throws IOException {
+        int perFolder = 200;
+        for (int i = 0; i < files; i++) {
+            Path folder = root.resolve(words[(i / perFolder) % words.length] + "-" + (i / perFolder / 50))
+                    .resolve(words[(i / perFolder + 7) % words.length]);
+            if (i % perFolder == 0) {
+                Files.createDirectories(folder);
+            }
+            String extension = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            String name = capitalize(words[random.nextInt(words.length)]) + capitalize(words[random.nextInt(words.length)])
+                    + "_" + i + "." + extension;
+            StringBuilder content = new StringBuilder();
+            if (extension.equals("txt") || extension.equals("md") || extension.equals("csv")) {
+                int count = 20 + random.nextInt(200);
+                for (int w = 0; w < count; w++) {
+                    content.append(words[random.nextInt(words.length)]).append(w % 12 == 11 ? '\n' : ' ');
+                }
+            }
+            Files.write(folder.resolve(name), content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.vocadesk;
+
+/**
+ * HighPassFilter - Second-order Butterworth high-pass that removes rumble, fan hum and handling noise
+ * Nothing useful for speech recognition lives below ~100 Hz. Being recursive, this one loop
+ * cannot vectorize; at 5 multiply-adds per sample it is still the cheapest stage.
+ */
+public class HighPassFilter implements AudioStage {
+
+    private static final int SAMPLE_RATE = 16000;
+
+    private final double b0;
+    private final double b1;
+    private final double b2;
+    private final double a1;
+    private final double a2;
+
+    // Transposed direct form II state
+    private double z1;
+    private double z2;
+
+    /**
+     * Constructor - High-pass at the given corner frequency
+     * @param cutoffHz Corner frequency, e.g. 100
+     */
+    public HighPassFilter(double cutoffHz) {
+        double w0 = 2 * Math.PI * cutoffHz / SAMPLE_RATE;
+        double alpha = Math.sin(w0) / (2 * Math.sqrt(0.5));
+        double cos = Math.cos(w0);
+        double a0 = 1 + alpha;
+        this.b0 = (1 + cos) / 2 / a0;
+        this.b1 = -(1 + cos) / a0;
+        this.b2 = (1 + cos) / 2 / a0;
+        this.a1 = -2 * cos / a0;
+        this.a2 = (1 - alpha) / a0;
+    }
+
+    @Override
+    public void process(short[] samples, int offset, int length) {
+        double s1 = z1;
+        double s2 = z2;
+        for (int i = offset; i < offset + length; i++) {
+            double x = samples[i];
+            double y = b0 * x + s1;
+            s1 = b1 * x - a1 * y + s2;
+            s2 = b2 * x - a2 * y;
+            samples[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(y)));
+        }
+        z1 = s1;
+        z2 = s2;
+    }
+
+    @Override
+    public void reset() {
+        z1 = 0;
+        z2 = 0;
+    }
+
+    @Override
+    public String getName() {
+        return "highpass";
+    }
+}
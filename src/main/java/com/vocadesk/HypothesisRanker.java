@@ -0,0 +1,302 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HypothesisRanker - Picks the interpretation of an utterance best supported by the registry
+ * Vosk's N-best alternatives are turned into posteriors (softmax over their scores), each
+ * alternative is interpreted, and alternatives that lead to the same action (e.g. "open
+ * crome" and "open chrome" both launching chrome) pool their probability. Each action is
+ * weighted by how well it is supported: an exact registry hit beats a fuzzy one, a known
+ * intent beats an unrecognized command. Results whose chosen action holds too little of
+ * the probability mass are rejected before anything runs.
+ *
+ * Settings: vocadesk.nbest.alternatives (default 5, 0 = top result with word confidences),
+ *           vocadesk.nbest.min-confidence (default 0.35)
+ */
+public class HypothesisRanker {
+
+    private static final double SUPPORT_EXACT = 1.0;
+    private static final double SUPPORT_INTENT = 0.9;
+    private static final double SUPPORT_FUZZY = 0.5;
+    private static final double SUPPORT_NONE = 0.05;
+
+    /**
+     * One recognizer hypothesis
+     */
+    public static class Hypothesis {
+        public final String text;
+        public final double confidence;
+
+        public Hypothesis(String text, double confidence) {
+            this.text = text;
+            this.confidence = confidence;
+        }
+    }
+
+    /**
+     * The chosen interpretation of an utterance
+     */
+    public static class Ranking {
+        public final String text;
+        public final CommandIntent intent;
+        public final double confidence;
+        public final int alternatives;
+        // True when a lower-ranked alternative replaced the recognizer's top choice
+        public final boolean rescued;
+        public final boolean rejected;
+
+        Ranking(String text, CommandIntent intent, double confidence, int alternatives,
+                boolean rescued, boolean rejected) {
+            this.text = text;
+            this.intent = intent;
+            this.confidence = confidence;
+            this.alternatives = alternatives;
+            this.rescued = rescued;
+            this.rejected = rejected;
+        }
+    }
+
+    private final CommandInterpreter interpreter;
+    private final double minConfidence;
+
+    // Counters for the replay reports
+    private int ranked;
+    private int rescuedCount;
+    private int rejectedCount;
+    private int fuzzyCount;
+
+    /**
+     * Constructor - Rank against the interpreter's registry with the configured threshold
+     * @param interpreter Interpreter used for every alternative
+     */
+    public HypothesisRanker(CommandInterpreter interpreter) {
+        this(interpreter, VocadeskConfig.getDouble("vocadesk.nbest.min-confidence", 0.35));
+    }
+
+    /**
+     * Constructor - Rank with an explicit rejection threshold
+     * @param interpreter Interpreter used for every alternative
+     * @param minConfidence Minimum probability mass for the chosen interpretation
+     */
+    public HypothesisRanker(CommandInterpreter interpreter, double minConfidence) {
+        this.interpreter = interpreter;
+        this.minConfidence = minConfidence;
+    }
+
+    /**
+     * Get the configured number of alternatives to ask the recognizer for
+     * @return Alternatives, or 0 for a single result with word confidences
+     */
+    public static int configuredAlternatives() {
+        return VocadeskConfig.getInt("vocadesk.nbest.alternatives", 5);
+    }
+
+    /**
+     * Parse a Vosk result in either format
+     * With alternatives: {"alternatives": [{"text": ..., "confidence": score}, ...]},
+     * confidences become posteriors. Without: {"text": ..., "result": [{"conf": ...}]},
+     * confidence is the mean word confidence (1.0 if words were not requested).
+     * @param resultJson Output of getResult/getFinalResult
+     * @return Non-empty hypotheses, best first
+     */
+    public static List<Hypothesis> parse(String resultJson) {
+        JSONObject json = new JSONObject(resultJson);
+        List<Hypothesis> hypotheses = new ArrayList<>();
+
+        JSONArray alternatives = json.optJSONArray("alternatives");
+        if (alternatives != null) {
+            double best = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < alternatives.length(); i++) {
+                best = Math.max(best, alternatives.getJSONObject(i).optDouble("confidence", 0));
+            }
+            double total = 0;
+            double[] weights = new double[alternatives.length()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = Math.exp(alternatives.getJSONObject(i).optDouble("confidence", 0) - best);
+                total += weights[i];
+            }
+            for (int i = 0; i < weights.length; i++) {
+                String text = alternatives.getJSONObject(i).optString("text", "").trim();
+                if (!text.isEmpty()) {
+                    hypotheses.add(new Hypothesis(text, weights[i] / total));
+                }
+            }
+            return hypotheses;
+        }
+
+        String text = json.optString("text", "").trim();
+        if (text.isEmpty()) {
+            return hypotheses;
+        }
+        double confidence = 1.0;
+        JSONArray words = json.optJSONArray("result");
+        if (words != null && words.length() > 0) {
+            double sum = 0;
+            for (int i = 0; i < words.length(); i++) {
+                sum += words.getJSONObject(i).optDouble("conf", 1.0);
+            }
+            confidence = sum / words.length();
+        }
+        hypotheses.add(new Hypothesis(text, confidence));
+        return hypotheses;
+    }
+
+    /**
+     * Choose the best-supported interpretation and count it in the statistics
+     * @param hypotheses Hypotheses, best first (see parse)
+     * @return The ranking, or null if there is nothing to interpret
+     */
+    public Ranking rank(List<Hypothesis> hypotheses) {
+        return record(evaluate(hypotheses));
+    }
+
+    /**
+     * Choose the best-supported interpretation without counting it, for callers that may
+     * still replace it (see ModelCascade); pass the final choice to record
+     * @param hypotheses Hypotheses, best first (see parse)
+     * @return The ranking, or null if there is nothing to interpret
+     */
+    public Ranking evaluate(List<Hypothesis> hypotheses) {
+        if (hypotheses.isEmpty()) {
+            return null;
+        }
+
+        // Pool alternatives that lead to the same action
+        Map<String, double[]> pooled = new LinkedHashMap<>();
+        Map<String, Integer> representative = new LinkedHashMap<>();
+        List<CommandIntent> intents = new ArrayList<>();
+        for (int i = 0; i < hypotheses.size(); i++) {
+            Hypothesis hypothesis = hypotheses.get(i);
+            CommandIntent intent = interpreter.interpret(hypothesis.text);
+            intents.add(intent);
+            String key = actionKey(intent);
+            double support = support(intent);
+
+            double[] totals = pooled.computeIfAbsent(key, k -> new double[2]);
+            totals[0] += hypothesis.confidence * support;
+            totals[1] += hypothesis.confidence;
+
+            // Within an action, speak for it with its best-supported wording
+            Integer current = representative.get(key);
+            if (current == null || support > support(intents.get(current))) {
+                representative.put(key, i);
+            }
+        }
+
+        String bestKey = null;
+        for (Map.Entry<String, double[]> entry : pooled.entrySet()) {
+            if (bestKey == null || entry.getValue()[0] > pooled.get(bestKey)[0]) {
+                bestKey = entry.getKey();
+            }
+        }
+
+        int chosen = representative.get(bestKey);
+        CommandIntent intent = intents.get(chosen);
+        double confidence = pooled.get(bestKey)[1];
+        boolean rescued = chosen != 0 && !actionKey(intents.get(0)).equals(bestKey);
+        boolean rejected = confidence < minConfidence;
+        return new Ranking(hypotheses.get(chosen).text, intent, confidence, hypotheses.size(), rescued, rejected);
+    }
+
+    /**
+     * Count the interpretation that was finally acted on
+     * @param ranking The ranking (null is ignored)
+     * @return The same ranking
+     */
+    public Ranking record(Ranking ranking) {
+        if (ranking == null) {
+            return null;
+        }
+        ranked++;
+        if (ranking.rescued) {
+            rescuedCount++;
+        }
+        if (ranking.rejected) {
+            rejectedCount++;
+        } else if (ranking.intent.isFuzzy()) {
+            fuzzyCount++;
+        }
+        return ranking;
+    }
+
+    private static String actionKey(CommandIntent intent) {
+        switch (intent.type) {
+            case LAUNCH:
+                return intent.getResolvedApp() != null
+                        ? "launch:" + intent.getResolvedApp()
+                        : "unresolved:" + intent.argument;
+            case SCHEDULE:
+                return "schedule:" + (intent.getResolvedApp() != null ? intent.getResolvedApp() : intent.argument)
+                        + ":" + intent.getSchedule();
+            case BROWSER_SEARCH:
+                return "search:" + intent.browser + ":" + intent.argument;
+            case COMPOUND:
+                StringBuilder key = new StringBuilder("compound");
+                for (CommandIntent part : intent.getParts()) {
+                    key.append('|').append(actionKey(part));
+                }
+                return key.toString();
+            case UNKNOWN:
+                return "unknown:" + intent.text;
+            default:
+                return intent.type + ":" + intent.argument;
+        }
+    }
+
+    private static double support(CommandIntent intent) {
+        switch (intent.type) {
+            case LAUNCH:
+            case SCHEDULE:
+                if (intent.getResolvedApp() == null) {
+                    return SUPPORT_NONE;
+                }
+                return intent.isFuzzy() ? SUPPORT_FUZZY : SUPPORT_EXACT;
+            case BROWSER_SEARCH:
+            case FIND:
+                return intent.argument.isEmpty() ? SUPPORT_NONE : SUPPORT_INTENT;
+            case COMPOUND:
+                // As strong as its weakest part
+                double weakest = intent.getParts().isEmpty() ? SUPPORT_NONE : SUPPORT_EXACT;
+                for (CommandIntent part : intent.getParts()) {
+                    weakest = Math.min(weakest, support(part));
+                }
+                return weakest;
+            case UNKNOWN:
+                return SUPPORT_NONE;
+            default:
+                return SUPPORT_INTENT;
+        }
+    }
+
+    public int getRankedCount() {
+        return ranked;
+    }
+
+    /**
+     * Utterances where a lower-ranked alternative replaced the top hypothesis
+     */
+    public int getRescuedCount() {
+        return rescuedCount;
+    }
+
+    /**
+     * Utterances rejected for low confidence
+     */
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Accepted utterances that still needed a fuzzy registry match
+     */
+    public int getFuzzyCount() {
+        return fuzzyCount;
+    }
+}
@@ -0,0 +1,186 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JournalReader - Lists an utterance journal and replays its audio through the pipeline
+ * Without --replay, prints one line per record: time, what was heard, what it was corrected
+ * to, the intent and the per-stage latencies. With --replay, every record that kept its PCM
+ * (vocadesk.journal.audio=true) is decoded again by a VoiceRecognitionController on the
+ * given model and registry, nothing is launched, and a JSON report lists the utterances
+ * whose outcome differs from what was journaled - the way to reproduce a field problem.
+ * The journal keeps audio as the recognizer got it, after capture preprocessing, so the
+ * replay runs with vocadesk.preprocess=none rather than conditioning it a second time.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.JournalReader [--dir journal] [--limit 50]
+ *        [--replay true] [--model model] [--apps apps.json] [--trailing-silence-ms 1500]
+ */
+public class JournalReader {
+
+    private static final int BYTES_PER_SECOND = 16000 * 2;
+
+    /**
+     * Main entry point for the reader
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--dir", "journal",
+                "--limit", "0",
+                "--replay", "false",
+                "--model", "model",
+                "--apps", "apps.json",
+                "--trailing-silence-ms", "1500");
+        Path directory = Paths.get(options.get("--dir"));
+
+        List<UtteranceJournal.Entry> entries = new ArrayList<>();
+        for (Path segment : UtteranceJournal.listSegments(directory)) {
+            entries.addAll(UtteranceJournal.readSegment(segment));
+        }
+        int limit = Integer.parseInt(options.get("--limit"));
+        if (limit > 0 && entries.size() > limit) {
+            entries = entries.subList(entries.size() - limit, entries.size());
+        }
+
+        if (Boolean.parseBoolean(options.get("--replay"))) {
+            replay(entries, options);
+        } else {
+            for (UtteranceJournal.Entry entry : entries) {
+                System.out.println(format(entry));
+            }
+            System.out.println("[INFO] " + entries.size() + " records in " + directory);
+        }
+    }
+
+    /**
+     * One listing line for a record
+     */
+    static String format(UtteranceJournal.Entry entry) {
+        StringBuilder line = new StringBuilder();
+        line.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(entry.timestamp)));
+        line.append("  '").append(entry.raw).append("'");
+        if (!entry.raw.equals(entry.corrected)) {
+            line.append(" -> '").append(entry.corrected).append("'");
+        }
+        line.append("  ").append(outcome(entry));
+        line.append(String.format("  conf %.2f ", entry.confidence));
+        for (int i = 0; i < UtteranceJournal.STAGES.length; i++) {
+            line.append(String.format(" %s %.1f ms", UtteranceJournal.STAGES[i], entry.stageMicros[i] / 1000.0));
+        }
+        if (entry.pcm != null) {
+            line.append(String.format("  [audio %.1f s]", (double) entry.pcm.length / BYTES_PER_SECOND));
+        }
+        return line.toString();
+    }
+
+    /**
+     * What an utterance amounted to: "rejected", or the intent type and its target
+     */
+    private static String outcome(UtteranceJournal.Entry entry) {
+        if (entry.rejected) {
+            return "rejected";
+        }
+        return outcome(entry.intentType, entry.resolvedApp, entry.argument) + (entry.fuzzy ? " (fuzzy)" : "");
+    }
+
+    private static String outcome(String type, String resolvedApp, String argument) {
+        if (resolvedApp != null && !resolvedApp.isEmpty()) {
+            return type + " " + resolvedApp;
+        }
+        if (argument != null && !argument.isEmpty()) {
+            return type + " " + argument;
+        }
+        return type;
+    }
+
+    /**
+     * Decode each journaled utterance again and report the ones that come out differently
+     */
+    private static void replay(List<UtteranceJournal.Entry> entries, Map<String, String> options) throws Exception {
+        PrintStream report = System.out;
+        int trailingSilenceMs = Integer.parseInt(options.get("--trailing-silence-ms"));
+        int chunkSize = LatencyProfile.BALANCED.getChunkBytes();
+        JSONArray changed = new JSONArray();
+        int replayed = 0;
+
+        // Keep the controller's console chatter out of the machine-readable output
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        // Journaled PCM is already preprocessed, as the worker's ring is (see RemoteRecognizer)
+        System.setProperty("vocadesk.preprocess", "none");
+        ExecutionModel execution = new ExecutionModel();
+        try (SpeechModel model = SpeechEngine.fromConfig().loadModel(options.get("--model"))) {
+            AppLauncher appLauncher = new AppLauncher(options.get("--apps"));
+            VoiceRecognitionController controller = new VoiceRecognitionController(appLauncher,
+                    ReplayBenchmark.silentFeedback(), model, execution);
+            List<CommandIntent> intents = new ArrayList<>();
+            // Interpret only: nothing journaled is launched again
+            controller.setIntentSink(intents::add);
+            HypothesisRanker ranker = controller.getRanker();
+
+            for (UtteranceJournal.Entry entry : entries) {
+                if (entry.pcm == null) {
+                    continue;
+                }
+                replayed++;
+                controller.resetRecognizer();
+                intents.clear();
+                int rejectedBefore = ranker.getRejectedCount();
+                boolean dispatched = false;
+                byte[] buffer = new byte[chunkSize];
+                for (int offset = 0; offset < entry.pcm.length && !dispatched; offset += chunkSize) {
+                    int length = Math.min(chunkSize, entry.pcm.length - offset);
+                    System.arraycopy(entry.pcm, offset, buffer, 0, length);
+                    dispatched = controller.processAudio(buffer, length);
+                }
+                byte[] silence = new byte[chunkSize];
+                long maxTrailingBytes = (long) trailingSilenceMs * BYTES_PER_SECOND / 1000;
+                for (long trailing = 0; !dispatched && trailing < maxTrailingBytes; trailing += chunkSize) {
+                    dispatched = controller.processAudio(silence, chunkSize);
+                }
+
+                String now;
+                if (!intents.isEmpty()) {
+                    CommandIntent intent = intents.get(0);
+                    now = outcome(intent.type.name(), intent.getResolvedApp(), intent.argument)
+                            + (intent.isFuzzy() ? " (fuzzy)" : "");
+                } else if (ranker.getRejectedCount() > rejectedBefore) {
+                    now = "rejected";
+                } else {
+                    now = "nothing heard";
+                }
+                String then = outcome(entry);
+                if (!now.equals(then)) {
+                    JSONObject difference = new JSONObject();
+                    difference.put("timestamp", entry.timestamp);
+                    difference.put("heard", entry.raw);
+                    difference.put("journaled", then);
+                    difference.put("replayed", now);
+                    changed.put(difference);
+                }
+            }
+        } finally {
+            execution.shutdown(1000);
+            System.setOut(report);
+        }
+
+        JSONObject results = new JSONObject();
+        results.put("records", entries.size());
+        results.put("replayed", replayed);
+        results.put("withoutAudio", entries.size() - replayed);
+        results.put("unchanged", replayed - changed.length());
+        results.put("changed", changed);
+        report.println(results.toString(2));
+    }
+}
@@ -0,0 +1,97 @@
+package com.vocadesk;
+
+/**
+ * LatencyProfile - Named trade-offs between response time and CPU for the listening loop
+ * Each profile sets the read chunk, the capture line buffer and the endpointer together.
+ * Profiles can be switched while listening; only the capture line is reopened, never the model.
+ *
+ * Setting: vocadesk.profile = low-latency | balanced | low-power (default balanced)
+ */
+public enum LatencyProfile {
+
+    // 32 ms reads, 128 ms line buffer, finalize after 300 ms of trailing silence
+    LOW_LATENCY("low-latency", 1024, 4096, 300, 6000),
+
+    // 128 ms reads, 512 ms line buffer, finalize after 600 ms of trailing silence
+    BALANCED("balanced", 4096, 16384, 600, 8000),
+
+    // 256 ms reads, 2 s line buffer, no energy endpointer (Vosk's own endpointing only)
+    LOW_POWER("low-power", 8192, 65536, 0, 10000);
+
+    private final String name;
+    private final int chunkBytes;
+    private final int lineBufferBytes;
+    private final int endpointSilenceMs;
+    private final int maxUtteranceMs;
+
+    LatencyProfile(String name, int chunkBytes, int lineBufferBytes,
+                   int endpointSilenceMs, int maxUtteranceMs) {
+        this.name = name;
+        this.chunkBytes = chunkBytes;
+        this.lineBufferBytes = lineBufferBytes;
+        this.endpointSilenceMs = endpointSilenceMs;
+        this.maxUtteranceMs = maxUtteranceMs;
+    }
+
+    /**
+     * Get the configured profile
+     * @return The profile named by vocadesk.profile, or BALANCED
+     */
+    public static LatencyProfile fromConfig() {
+        String configured = VocadeskConfig.getString("vocadesk.profile", BALANCED.name);
+        LatencyProfile profile = fromName(configured);
+        if (profile == null) {
+            System.err.println("[WARNING] Unknown latency profile '" + configured + "', using balanced");
+            return BALANCED;
+        }
+        return profile;
+    }
+
+    /**
+     * Look up a profile by name ("low-latency", "low latency" and "LOW_LATENCY" all match)
+     * @param name Profile name
+     * @return The profile, or null if the name is unknown
+     */
+    public static LatencyProfile fromName(String name) {
+        String key = name.trim().toLowerCase().replace('_', '-').replace(' ', '-');
+        for (LatencyProfile profile : values()) {
+            if (profile.name.equals(key)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Bytes of 16 kHz mono PCM read and fed to the recognizer per iteration
+     */
+    public int getChunkBytes() {
+        return chunkBytes;
+    }
+
+    /**
+     * Capture line buffer, in 16 kHz mono bytes (AudioCapture scales it to the native format)
+     */
+    public int getLineBufferBytes() {
+        return lineBufferBytes;
+    }
+
+    /**
+     * Trailing silence after speech that finalizes an utterance, or 0 to leave it to Vosk
+     */
+    public int getEndpointSilenceMs() {
+        return endpointSilenceMs;
+    }
+
+    /**
+     * Longest utterance before a result is forced
+     */
+    public int getMaxUtteranceMs() {
+        return maxUtteranceMs;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,122 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LaunchHistory - Per-app launch counts, persisted to launch_history.json
+ * Saves run on the ExecutionModel's blocking executor and are coalesced, so recording
+ * a launch never touches the disk on the calling thread
+ */
+public class LaunchHistory {
+
+    private final Path file;
+    private final ExecutionModel execution;
+    private final Map<String, Long> counts = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastLaunched = new ConcurrentHashMap<>();
+    private final AtomicBoolean savePending = new AtomicBoolean();
+
+    /**
+     * Constructor - Load history from the configured file
+     * @param execution Execution model used for background saves
+     */
+    public LaunchHistory(ExecutionModel execution) {
+        this(Paths.get(VocadeskConfig.getString("vocadesk.history.file", "launch_history.json")), execution);
+    }
+
+    /**
+     * Constructor - Keep history in the given file, or only in memory when file is null
+     * @param file History file, or null for benchmarks and tools
+     * @param execution Execution model used for background saves
+     */
+    public LaunchHistory(Path file, ExecutionModel execution) {
+        this.file = file;
+        this.execution = execution;
+        load();
+    }
+
+    private void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            JSONObject json = new JSONObject(new String(Files.readAllBytes(file)));
+            for (String app : json.keySet()) {
+                JSONObject entry = json.getJSONObject(app);
+                counts.put(app, entry.optLong("count"));
+                lastLaunched.put(app, entry.optLong("last"));
+            }
+        } catch (Exception e) {
+            System.err.println("[WARNING] Could not read " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Record a successful launch and schedule a save
+     * @param appName Registered app name
+     */
+    public void recordLaunch(String appName) {
+        counts.merge(appName, 1L, Long::sum);
+        lastLaunched.put(appName, System.currentTimeMillis());
+        if (file != null && savePending.compareAndSet(false, true)) {
+            execution.runBlocking(this::save);
+        }
+    }
+
+    /**
+     * Get how often an app has been launched
+     * @param appName Registered app name
+     * @return Launch count
+     */
+    public long getCount(String appName) {
+        return counts.getOrDefault(appName, 0L);
+    }
+
+    /**
+     * Get the most frequently launched apps
+     * @param limit Maximum number of apps
+     * @return App names, most launched first
+     */
+    public List<String> getTopApps(int limit) {
+        Map<String, Long> snapshot = new HashMap<>(counts);
+        List<String> apps = new ArrayList<>(snapshot.keySet());
+        apps.sort(Comparator.comparingLong((String app) -> snapshot.get(app)).reversed());
+        return apps.subList(0, Math.min(limit, apps.size()));
+    }
+
+    /**
+     * Write the history now (atomic replace)
+     */
+    public void save() {
+        savePending.set(false);
+        if (file == null) {
+            return;
+        }
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            JSONObject app = new JSONObject();
+            app.put("count", entry.getValue());
+            app.put("last", lastLaunched.getOrDefault(entry.getKey(), 0L));
+            json.put(entry.getKey(), app);
+        }
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, json.toString(2).getBytes());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[WARNING] Could not save " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * LaunchScheduler - Pending "open X in 10 minutes" / "open X at 9" launches, persisted to scheduled_launches.json
+ * Deadlines live in a TimerWheel (1 s ticks), so scheduling and cancelling stay O(1) with
+ * thousands pending. One daemon thread sleeps until the next deadline and is not woken at
+ * all while nothing is scheduled. Due launches are handed to the frontend's callback, which
+ * launches through AppLauncher on the blocking executor; repeating launches are then put back
+ * for their next occurrence.
+ *
+ * Launches that fell due while VOcadesk was not running are started on the next start if
+ * they are less than vocadesk.schedule.missed-grace-ms late (default 300000), otherwise a
+ * single launch is dropped with a warning and a repeating one moves to its next occurrence.
+ *
+ * Settings: vocadesk.schedule.file (default scheduled_launches.json),
+ *           vocadesk.schedule.missed-grace-ms
+ */
+public class LaunchScheduler implements AutoCloseable {
+
+    private static final long TICK_MILLIS = 1000;
+    // One revolution is about 68 minutes; later deadlines wait out whole revolutions
+    private static final int WHEEL_BUCKETS = 4096;
+
+    /**
+     * One pending launch
+     */
+    public static final class Entry {
+        public final long id;
+        public final String app;
+        public final String text;
+        public final long repeatMillis;
+        private volatile long due;
+        private TimerWheel.Timeout<Entry> timeout;
+
+        Entry(long id, String app, String text, long due, long repeatMillis) {
+            this.id = id;
+            this.app = app;
+            this.text = text;
+            this.due = due;
+            this.repeatMillis = repeatMillis;
+        }
+
+        /**
+         * Get when this launch is next due
+         * @return Epoch milliseconds
+         */
+        public long getDue() {
+            return due;
+        }
+    }
+
+    private final Path file;
+    private final ExecutionModel execution;
+    private final Consumer<Entry> onDue;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Object lock = new Object();
+    private final TimerWheel<Entry> wheel = new TimerWheel<>(TICK_MILLIS, WHEEL_BUCKETS, System.currentTimeMillis());
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Set<Entry>> byApp = new HashMap<>();
+    private final AtomicBoolean savePending = new AtomicBoolean();
+    private long nextId = 1;
+    private long wakeups;
+    private long fired;
+    private Thread thread;
+    private boolean closed;
+
+    /**
+     * Constructor - Load pending launches from the configured file
+     * @param execution Execution model used for background saves
+     * @param onDue Called on the scheduler thread when a launch is due; must not block
+     */
+    public LaunchScheduler(ExecutionModel execution, Consumer<Entry> onDue) {
+        this(configuredFile(), execution, onDue);
+    }
+
+    /**
+     * Constructor - Keep pending launches in the given file, or only in memory when file is null
+     * @param file Schedule file, or null for benchmarks and tools
+     * @param execution Execution model used for background saves
+     * @param onDue Called on the scheduler thread when a launch is due (a repeating entry already
+     *              shows its next occurrence); must not block
+     */
+    public LaunchScheduler(Path file, ExecutionModel execution, Consumer<Entry> onDue) {
+        this.file = file;
+        this.execution = execution;
+        this.onDue = onDue;
+        load();
+    }
+
+    /**
+     * Schedule file named by vocadesk.schedule.file
+     */
+    static Path configuredFile() {
+        return Paths.get(VocadeskConfig.getString("vocadesk.schedule.file", "scheduled_launches.json"));
+    }
+
+    private void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long grace = VocadeskConfig.getLong("vocadesk.schedule.missed-grace-ms", 300000);
+        boolean changed = false;
+        try {
+            JSONArray json = new JSONArray(new String(Files.readAllBytes(file)));
+            synchronized (lock) {
+                for (int i = 0; i < json.length(); i++) {
+                    JSONObject saved = json.getJSONObject(i);
+                    long id = saved.getLong("id");
+                    long due = saved.getLong("due");
+                    long repeat = saved.optLong("repeatMs");
+                    nextId = Math.max(nextId, id + 1);
+                    if (due < now - grace) {
+                        changed = true;
+                        if (repeat == 0) {
+                            System.err.println("[WARNING] Missed scheduled launch of " + saved.getString("app")
+                                    + " ('" + saved.optString("text") + "') while VOcadesk was not running");
+                            continue;
+                        }
+                        due = ScheduleTime.nextDue(due, repeat, now, zone);
+                    }
+                    add(new Entry(id, saved.getString("app"), saved.optString("text"), due, repeat));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("[WARNING] Could not read " + file + ": " + e.getMessage());
+        }
+        if (changed) {
+            save();
+        }
+    }
+
+    /**
+     * Start the scheduler thread; launches loaded from the file may fire right away
+     */
+    public void start() {
+        synchronized (lock) {
+            if (thread != null || closed) {
+                return;
+            }
+            thread = ExecutionModel.newServiceThread("vocadesk-scheduler", this::run);
+            thread.start();
+        }
+    }
+
+    /**
+     * Schedule a launch
+     * @param app Registered app name
+     * @param text The command that asked for it, for logs
+     * @param when When to launch
+     * @return The pending launch
+     */
+    public Entry schedule(String app, String text, ScheduleTime when) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (lock) {
+            entry = new Entry(nextId++, app, text, when.firstDue(now, zone), when.getRepeatMillis());
+            boolean sooner = entry.due < wheel.getNextExpiry();
+            add(entry);
+            // The thread only needs to hear about it if it is sleeping past the new deadline
+            if (sooner) {
+                lock.notifyAll();
+            }
+        }
+        scheduleSave();
+        return entry;
+    }
+
+    private void add(Entry entry) {
+        entry.timeout = wheel.schedule(entry, entry.due);
+        entries.put(entry.id, entry);
+        byApp.computeIfAbsent(entry.app, app -> new LinkedHashSet<>()).add(entry);
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.id);
+        Set<Entry> pending = byApp.get(entry.app);
+        if (pending != null) {
+            pending.remove(entry);
+            if (pending.isEmpty()) {
+                byApp.remove(entry.app);
+            }
+        }
+    }
+
+    /**
+     * Cancel the pending launches of one app, or all of them
+     * @param app Registered app name, or null for every pending launch
+     * @return The cancelled launches
+     */
+    public List<Entry> cancel(String app) {
+        List<Entry> cancelled;
+        synchronized (lock) {
+            cancelled = new ArrayList<>(app == null ? entries.values() : byApp.getOrDefault(app, Set.of()));
+            for (Entry entry : cancelled) {
+                wheel.cancel(entry.timeout);
+                remove(entry);
+            }
+        }
+        if (!cancelled.isEmpty()) {
+            scheduleSave();
+        }
+        return cancelled;
+    }
+
+    /**
+     * Get the pending launches
+     * @return Soonest first
+     */
+    public List<Entry> getPending() {
+        List<Entry> pending;
+        synchronized (lock) {
+            pending = new ArrayList<>(entries.values());
+        }
+        pending.sort(Comparator.comparingLong(Entry::getDue));
+        return pending;
+    }
+
+    /**
+     * Get the number of pending launches
+     */
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<Entry> due;
+            synchronized (lock) {
+                if (closed) {
+                    return;
+                }
+                due = wheel.advance(System.currentTimeMillis());
+                if (due.isEmpty()) {
+                    long next = wheel.getNextExpiry();
+                    try {
+                        if (next == Long.MAX_VALUE) {
+                            lock.wait();
+                        } else {
+                            lock.wait(Math.max(1, next - System.currentTimeMillis()));
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    wakeups++;
+                    continue;
+                }
+                long now = System.currentTimeMillis();
+                for (Entry entry : due) {
+                    if (entry.repeatMillis == 0) {
+                        remove(entry);
+                    } else {
+                        entry.due = ScheduleTime.nextDue(entry.due, entry.repeatMillis, now, zone);
+                        entry.timeout = wheel.schedule(entry, entry.due);
+                    }
+                }
+                fired += due.size();
+            }
+            for (Entry entry : due) {
+                try {
+                    onDue.accept(entry);
+                } catch (RuntimeException e) {
+                    System.err.println("[ERROR] Scheduled launch of " + entry.app + " failed: " + e.getMessage());
+                }
+            }
+            scheduleSave();
+        }
+    }
+
+    private void scheduleSave() {
+        if (file != null && savePending.compareAndSet(false, true)) {
+            execution.runBlocking(this::save);
+        }
+    }
+
+    /**
+     * Write the pending launches now (atomic replace)
+     */
+    public void save() {
+        savePending.set(false);
+        if (file == null) {
+            return;
+        }
+        JSONArray json = new JSONArray();
+        for (Entry entry : getPending()) {
+            JSONObject saved = new JSONObject();
+            saved.put("id", entry.id);
+            saved.put("app", entry.app);
+            saved.put("text", entry.text);
+            saved.put("due", entry.due);
+            saved.put("repeatMs", entry.repeatMillis);
+            json.put(saved);
+        }
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, json.toString(2).getBytes());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[WARNING] Could not save " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get how often the scheduler thread has woken up (for ScheduleBenchmark)
+     */
+    public long getWakeups() {
+        synchronized (lock) {
+            return wakeups;
+        }
+    }
+
+    /**
+     * Get how many launches have fallen due
+     */
+    public long getFiredCount() {
+        synchronized (lock) {
+            return fired;
+        }
+    }
+
+    /**
+     * Describe a pending launch for logs ("outlook at 09:00 tomorrow, every day")
+     * @param entry The launch
+     * @return Description
+     */
+    public String describe(Entry entry) {
+        ZonedDateTime due = Instant.ofEpochMilli(entry.due).atZone(zone);
+        LocalDate today = LocalDate.now(zone);
+        String day = due.toLocalDate().equals(today) ? ""
+                : due.toLocalDate().equals(today.plusDays(1)) ? " tomorrow"
+                : " on " + due.toLocalDate();
+        String text = String.format("%s at %02d:%02d%s", entry.app, due.getHour(), due.getMinute(), day);
+        return entry.repeatMillis == 0 ? text : text + ", " + ScheduleTime.describeRepeat(entry.repeatMillis);
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        save();
+    }
+}
@@ -0,0 +1,573 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * LaunchWarmup - Reads the files of apps that are likely to be launched into the page cache ahead of time
+ * A cold start of a large app mostly waits on the disk for its executable and libraries.
+ * This service reads, for each app: the executable, the shared libraries it links against
+ * (ELF DT_NEEDED, followed transitively through RUNPATH/RPATH, LD_LIBRARY_PATH and the
+ * ld.so.conf directories), the programs a wrapper script starts, and the libraries next to
+ * an executable in its own directory (chrome.dll, libxul.so; not System32 or /usr/bin).
+ * For a macOS .app bundle it reads Contents/MacOS and Contents/Frameworks.
+ *
+ * The most launched apps (LaunchHistory) are warmed at startup and when listening starts.
+ * An app named in a partial recognition result ("open chro...") jumps the queue, so its
+ * files are on their way in while the user is still speaking. Everything runs on one
+ * daemon thread at idle I/O priority (Linux ioprio, Windows background mode) that blocks
+ * while there is nothing to do. A file read within the refresh interval is not read again.
+ *
+ * Settings: vocadesk.warmup.enabled (default false), vocadesk.warmup.top (default 5),
+ *           vocadesk.warmup.max-mb (per app, default 512),
+ *           vocadesk.warmup.refresh-ms (default 900000)
+ */
+public class LaunchWarmup implements AutoCloseable {
+
+    private static final int READ_BUFFER = 1 << 20;
+    // Libraries followed per app; a desktop app rarely links more than about a hundred
+    private static final int MAX_LIBRARIES = 256;
+    private static final int SCRIPT_SCAN_BYTES = 64 * 1024;
+    // Audio between partial-result checks (16 kHz, 16-bit mono: 250 ms)
+    static final int PARTIAL_INTERVAL_BYTES = 8000;
+
+    private static final int PT_LOAD = 1;
+    private static final int PT_DYNAMIC = 2;
+    private static final int DT_NEEDED = 1;
+    private static final int DT_STRTAB = 5;
+    private static final int DT_RPATH = 15;
+    private static final int DT_RUNPATH = 29;
+
+    private static final Pattern LIBRARY_NAME = Pattern.compile(".*\\.(?:so(?:\\.\\d+)*|dll|dylib)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SCRIPT_PATH = Pattern.compile("(/[A-Za-z0-9._+-]+)+");
+
+    private final AppLauncher appLauncher;
+    private final LaunchHistory history;
+    private final CommandInterpreter interpreter;
+    private final int top;
+    private final long maxBytes;
+    private final long refreshMillis;
+    private final BlockingDeque<Runnable> tasks = new LinkedBlockingDeque<>();
+    // One read buffer for every file: direct memory is only freed by a GC, and the daemon's heap is small
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER);
+    // File -> when it was last read
+    private final Map<Path, Long> warmedAt = new ConcurrentHashMap<>();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong appsWarmed = new AtomicLong();
+    private final AtomicLong partialHints = new AtomicLong();
+    private final Thread thread;
+    private volatile String lastPartial = "";
+    private volatile boolean closed;
+    private int partialBytes;
+
+    /**
+     * Constructor - Start the warm-up thread
+     * @param appLauncher Registry to find app executables in
+     * @param history Launch counts that decide which apps are warmed
+     * @param interpreter Resolves partial results to apps (on the warm-up thread)
+     * @param top Number of most launched apps to warm
+     * @param maxBytes Most bytes read per app
+     * @param refreshMillis Do not read a file again within this time
+     */
+    public LaunchWarmup(AppLauncher appLauncher, LaunchHistory history, CommandInterpreter interpreter,
+                        int top, long maxBytes, long refreshMillis) {
+        this.appLauncher = appLauncher;
+        this.history = history;
+        this.interpreter = interpreter;
+        this.top = top;
+        this.maxBytes = maxBytes;
+        this.refreshMillis = refreshMillis;
+        this.thread = ExecutionModel.newServiceThread("vocadesk-warmup", this::run);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Create the service from vocadesk.warmup.* settings
+     * @return The service, or null if warm-up is disabled
+     */
+    public static LaunchWarmup fromConfig(AppLauncher appLauncher, LaunchHistory history,
+                                          CommandInterpreter interpreter) {
+        if (!VocadeskConfig.getBoolean("vocadesk.warmup.enabled", false)) {
+            return null;
+        }
+        return new LaunchWarmup(appLauncher, history, interpreter,
+                VocadeskConfig.getInt("vocadesk.warmup.top", 5),
+                VocadeskConfig.getLong("vocadesk.warmup.max-mb", 512) << 20,
+                VocadeskConfig.getLong("vocadesk.warmup.refresh-ms", 900000));
+    }
+
+    /**
+     * Queue the most launched apps (skipped quickly if they were warmed recently)
+     */
+    public void warmTop() {
+        for (String app : history.getTopApps(top)) {
+            tasks.offerLast(() -> warm(app));
+        }
+    }
+
+    /**
+     * Warm one app ahead of everything already queued
+     * @param app Registered app name
+     */
+    public void hint(String app) {
+        tasks.offerFirst(() -> warm(app));
+    }
+
+    /**
+     * Called from the decode loop with every chunk that did not complete an utterance;
+     * every 250 ms of audio it reads the recognizer's partial result and, if it changed,
+     * hands it to the warm-up thread to resolve
+     * @param length Bytes of audio just decoded
+     * @param partial Supplies the recognizer's partial result JSON
+     */
+    public void onAudio(int length, Supplier<String> partial) {
+        partialBytes += length;
+        if (partialBytes < PARTIAL_INTERVAL_BYTES) {
+            return;
+        }
+        partialBytes = 0;
+        String text = new JSONObject(partial.get()).optString("partial");
+        if (text.isEmpty() || text.equals(lastPartial)) {
+            return;
+        }
+        lastPartial = text;
+        tasks.offerFirst(() -> warmPartial(text));
+    }
+
+    /**
+     * Forget the partial result of the utterance that just ended
+     */
+    public void endUtterance() {
+        partialBytes = 0;
+        lastPartial = "";
+    }
+
+    private void warmPartial(String text) {
+        CommandIntent intent = interpreter.interpretPartial(text);
+        List<CommandIntent> named = intent.type == CommandIntent.Type.COMPOUND ? intent.getParts() : List.of(intent);
+        for (CommandIntent part : named) {
+            boolean launches = part.type == CommandIntent.Type.LAUNCH || part.type == CommandIntent.Type.SCHEDULE;
+            if (launches && part.getResolvedApp() != null) {
+                partialHints.incrementAndGet();
+                warm(part.getResolvedApp());
+            }
+        }
+    }
+
+    private void run() {
+        lowerIoPriority();
+        while (!closed) {
+            try {
+                tasks.takeFirst().run();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("[WARNING] Warm-up failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Read an app's files now, on the calling thread (the service thread, or a benchmark)
+     * @param app Registered app name
+     * @return Bytes read (0 if everything was read recently)
+     */
+    public long warm(String app) {
+        String appPath = appLauncher.getAppPath(app);
+        if (appPath == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        long budget = maxBytes;
+        long read = 0;
+        for (Path file : filesFor(appPath)) {
+            Long last = warmedAt.get(file);
+            if (last != null && now - last < refreshMillis) {
+                continue;
+            }
+            long bytes = readFile(file, budget);
+            warmedAt.put(file, now);
+            read += bytes;
+            budget -= bytes;
+            if (budget <= 0 || closed) {
+                break;
+            }
+        }
+        if (read > 0) {
+            appsWarmed.incrementAndGet();
+            bytesRead.addAndGet(read);
+        }
+        return read;
+    }
+
+    /**
+     * Forget which files were read, so the next warm reads them again (for benchmarks)
+     */
+    void forget() {
+        warmedAt.clear();
+    }
+
+    private long readFile(Path file, long budget) {
+        long bytes = 0;
+        synchronized (readBuffer) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                int read;
+                readBuffer.clear();
+                while (bytes < budget && (read = channel.read(readBuffer)) >= 0) {
+                    bytes += read;
+                    readBuffer.clear();
+                }
+            } catch (IOException e) {
+                // Unreadable; the launch will report it if it matters
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * The files a launch of this executable will read: itself first, then its libraries
+     * @param appPath Path from apps.json
+     * @return Existing regular files, without duplicates
+     */
+    static List<Path> filesFor(String appPath) {
+        Set<Path> files = new LinkedHashSet<>();
+        Path executable;
+        try {
+            executable = Paths.get(appPath).toRealPath();
+        } catch (IOException | RuntimeException e) {
+            return new ArrayList<>();
+        }
+
+        if (Files.isDirectory(executable)) {
+            // macOS application bundle
+            for (String part : new String[] {"Contents/MacOS", "Contents/Frameworks"}) {
+                try (Stream<Path> walk = Files.walk(executable.resolve(part))) {
+                    walk.filter(Files::isRegularFile).limit(MAX_LIBRARIES).forEach(files::add);
+                } catch (IOException e) {
+                    // Not a bundle, or not this part
+                }
+            }
+            return new ArrayList<>(files);
+        }
+
+        Deque<Path> pending = new ArrayDeque<>();
+        pending.add(executable);
+        for (Path program : scriptTargets(executable)) {
+            pending.add(program);
+        }
+        addPrivateLibraries(executable.getParent(), pending);
+        while (!pending.isEmpty() && files.size() < MAX_LIBRARIES) {
+            Path file = pending.poll();
+            if (files.add(file)) {
+                pending.addAll(neededLibraries(file));
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Programs a wrapper script starts (absolute paths to ELF files in its text)
+     */
+    private static List<Path> scriptTargets(Path script) {
+        List<Path> targets = new ArrayList<>();
+        byte[] head = readHead(script, SCRIPT_SCAN_BYTES);
+        if (head.length < 2 || head[0] != '#' || head[1] != '!') {
+            return targets;
+        }
+        Matcher paths = SCRIPT_PATH.matcher(new String(head, StandardCharsets.ISO_8859_1));
+        while (paths.find() && targets.size() < 16) {
+            try {
+                Path candidate = Paths.get(paths.group()).toRealPath();
+                if (Files.isRegularFile(candidate) && isElf(candidate)) {
+                    targets.add(candidate);
+                    addPrivateLibraries(candidate.getParent(), targets);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Not a path to a program
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Libraries in an app's own directory; shared program directories are skipped
+     */
+    private static void addPrivateLibraries(Path directory, Collection<Path> into) {
+        if (directory == null || isSharedDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                if (LIBRARY_NAME.matcher(entry.getFileName().toString()).matches() && Files.isRegularFile(entry)) {
+                    into.add(entry.toRealPath());
+                }
+            }
+        } catch (IOException e) {
+            // Unreadable directory
+        }
+    }
+
+    private static boolean isSharedDirectory(Path directory) {
+        String name = directory.toString();
+        boolean windows = File.separatorChar == '\\';
+        for (String entry : System.getenv().getOrDefault("PATH", "").split(File.pathSeparator)) {
+            if (!entry.isEmpty() && (windows ? entry.equalsIgnoreCase(name) : entry.equals(name))) {
+                return true;
+            }
+        }
+        return libraryDirectories().contains(directory);
+    }
+
+    private static boolean isElf(Path file) {
+        byte[] head = readHead(file, 4);
+        return head.length == 4 && head[0] == 0x7f && head[1] == 'E' && head[2] == 'L' && head[3] == 'F';
+    }
+
+    private static byte[] readHead(Path file, int length) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate((int) Math.min(length, channel.size()));
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // Fill the buffer
+            }
+            return head.array();
+        } catch (IOException e) {
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Resolve an ELF file's DT_NEEDED entries to library paths
+     */
+    static List<Path> neededLibraries(Path file) {
+        List<Path> libraries = new ArrayList<>();
+        if (!isElf(file)) {
+            return libraries;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer elf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            boolean wide = elf.get(4) == 2;
+            elf.order(elf.get(5) == 2 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+            long phoff = wide ? elf.getLong(0x20) : elf.getInt(0x1c) & 0xffffffffL;
+            int phentsize = elf.getShort(wide ? 0x36 : 0x2a) & 0xffff;
+            int phnum = elf.getShort(wide ? 0x38 : 0x2c) & 0xffff;
+
+            List<long[]> loads = new ArrayList<>();
+            long dynamicOffset = -1;
+            long dynamicSize = 0;
+            for (int i = 0; i < phnum; i++) {
+                int header = (int) (phoff + (long) i * phentsize);
+                int type = elf.getInt(header);
+                long offset = wide ? elf.getLong(header + 8) : elf.getInt(header + 4) & 0xffffffffL;
+                long vaddr = wide ? elf.getLong(header + 16) : elf.getInt(header + 8) & 0xffffffffL;
+                long fileSize = wide ? elf.getLong(header + 32) : elf.getInt(header + 16) & 0xffffffffL;
+                if (type == PT_LOAD) {
+                    loads.add(new long[] {vaddr, offset, fileSize});
+                } else if (type == PT_DYNAMIC) {
+                    dynamicOffset = offset;
+                    dynamicSize = fileSize;
+                }
+            }
+            if (dynamicOffset < 0) {
+                return libraries;
+            }
+
+            int entrySize = wide ? 16 : 8;
+            long stringTable = -1;
+            List<Long> needed = new ArrayList<>();
+            List<Long> searchPaths = new ArrayList<>();
+            for (long entry = dynamicOffset; entry + entrySize <= dynamicOffset + dynamicSize; entry += entrySize) {
+                long tag = wide ? elf.getLong((int) entry) : elf.getInt((int) entry);
+                long value = wide ? elf.getLong((int) entry + 8) : elf.getInt((int) entry + 4) & 0xffffffffL;
+                if (tag == 0) {
+                    break;
+                } else if (tag == DT_NEEDED) {
+                    needed.add(value);
+                } else if (tag == DT_STRTAB) {
+                    stringTable = value;
+                } else if (tag == DT_RPATH || tag == DT_RUNPATH) {
+                    searchPaths.add(value);
+                }
+            }
+            long strings = toOffset(loads, stringTable);
+            if (strings < 0) {
+                return libraries;
+            }
+
+            String origin = file.getParent().toString();
+            List<Path> directories = new ArrayList<>();
+            for (long index : searchPaths) {
+                for (String directory : readString(elf, strings + index).split(":")) {
+                    if (!directory.isEmpty()) {
+                        directories.add(Paths.get(directory.replace("${ORIGIN}", origin).replace("$ORIGIN", origin)));
+                    }
+                }
+            }
+            for (String directory : System.getenv().getOrDefault("LD_LIBRARY_PATH", "").split(":")) {
+                if (!directory.isEmpty()) {
+                    directories.add(Paths.get(directory));
+                }
+            }
+            directories.addAll(libraryDirectories());
+
+            for (long index : needed) {
+                Path library = findLibrary(readString(elf, strings + index), directories);
+                if (library != null) {
+                    libraries.add(library);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not a dynamic ELF we can read; warm the file itself only
+        }
+        return libraries;
+    }
+
+    private static long toOffset(List<long[]> loads, long address) {
+        for (long[] load : loads) {
+            if (address >= load[0] && address < load[0] + load[2]) {
+                return address - load[0] + load[1];
+            }
+        }
+        return -1;
+    }
+
+    private static String readString(ByteBuffer elf, long offset) {
+        StringBuilder text = new StringBuilder();
+        for (int i = (int) offset; i < elf.limit() && elf.get(i) != 0; i++) {
+            text.append((char) (elf.get(i) & 0xff));
+        }
+        return text.toString();
+    }
+
+    private static Path findLibrary(String name, List<Path> directories) {
+        try {
+            if (name.contains("/")) {
+                Path direct = Paths.get(name);
+                return Files.isRegularFile(direct) ? direct.toRealPath() : null;
+            }
+            for (Path directory : directories) {
+                Path candidate = directory.resolve(name);
+                if (Files.isRegularFile(candidate)) {
+                    return candidate.toRealPath();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Unresolvable; the dynamic loader would fail too
+        }
+        return null;
+    }
+
+    private static volatile List<Path> libraryDirectories;
+
+    /**
+     * The dynamic loader's default directories: ld.so.conf.d entries and the standard ones
+     */
+    private static List<Path> libraryDirectories() {
+        List<Path> directories = libraryDirectories;
+        if (directories != null) {
+            return directories;
+        }
+        Set<Path> found = new LinkedHashSet<>();
+        try (DirectoryStream<Path> confs = Files.newDirectoryStream(Paths.get("/etc/ld.so.conf.d"), "*.conf")) {
+            for (Path conf : confs) {
+                for (String line : Files.readAllLines(conf)) {
+                    line = line.trim();
+                    if (line.startsWith("/")) {
+                        found.add(Paths.get(line));
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or no ld.so.conf.d
+        }
+        for (String directory : new String[] {"/lib64", "/usr/lib64", "/lib", "/usr/lib"}) {
+            found.add(Paths.get(directory));
+        }
+        libraryDirectories = directories = new ArrayList<>(found);
+        return directories;
+    }
+
+    /**
+     * Put this thread in the idle I/O class (and lowest CPU priority) so warm-up reads
+     * only use the disk when nothing else wants it
+     */
+    private static void lowerIoPriority() {
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        String arch = System.getProperty("os.arch", "");
+        try {
+            if (os.contains("linux")) {
+                com.sun.jna.Function syscall = com.sun.jna.NativeLibrary.getInstance("c").getFunction("syscall");
+                int ioprioSet = arch.equals("aarch64") ? 30 : arch.equals("amd64") || arch.equals("x86_64") ? 251 : -1;
+                if (ioprioSet > 0) {
+                    // ioprio_set(IOPRIO_WHO_PROCESS, this thread, IOPRIO_CLASS_IDLE)
+                    syscall.invokeInt(new Object[] {ioprioSet, 1, 0, 3 << 13});
+                }
+                // setpriority(PRIO_PROCESS, this thread, 19): nice is per thread on Linux
+                com.sun.jna.NativeLibrary.getInstance("c").getFunction("setpriority").invokeInt(new Object[] {0, 0, 19});
+            } else if (os.contains("windows")) {
+                com.sun.jna.NativeLibrary kernel32 = com.sun.jna.NativeLibrary.getInstance("kernel32");
+                com.sun.jna.Pointer self = kernel32.getFunction("GetCurrentThread").invokePointer(new Object[0]);
+                // THREAD_MODE_BACKGROUND_BEGIN: low I/O and memory priority
+                kernel32.getFunction("SetThreadPriority").invokeInt(new Object[] {self, 0x00010000});
+            }
+        } catch (Throwable e) {
+            // JNA unavailable; the thread still runs at minimum Java priority
+        }
+    }
+
+    /**
+     * Get the total bytes read into the page cache
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Get how many app warm-ups read anything
+     */
+    public long getAppsWarmed() {
+        return appsWarmed.get();
+    }
+
+    /**
+     * Get how many partial results named an app to warm
+     */
+    public long getPartialHints() {
+        return partialHints.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+    }
+}
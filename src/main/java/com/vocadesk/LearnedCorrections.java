@@ -0,0 +1,199 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LearnedCorrections - Misheard app names learned from fuzzy launches, persisted to learned_corrections.json
+ * Every fuzzy launch that succeeds confirms "heard -> app" once; after enough confirmations
+ * (vocadesk.corrections.promote-after, default 2) the pair becomes a rule that the interpreter
+ * applies with one map lookup instead of a fuzzy scan. A confirmation for a different app
+ * starts the count again. When the user overrides a guess by asking again for another app
+ * (see CommandInterpreter.confirm), the pair is rejected: its count and any rule are dropped.
+ * At most vocadesk.corrections.max-entries (default 500) names are kept; the one used least
+ * recently goes first. Saves are coalesced on the blocking executor, as for LaunchHistory.
+ */
+public class LearnedCorrections {
+
+    /**
+     * What has been confirmed for one heard name
+     */
+    private static final class Entry {
+        final String app;
+        final int confirmations;
+        // Last confirmation or rule hit, for eviction
+        volatile long lastUsed;
+
+        Entry(String app, int confirmations, long lastUsed) {
+            this.app = app;
+            this.confirmations = confirmations;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private final Path file;
+    private final ExecutionModel execution;
+    private final int promoteAfter;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean savePending = new AtomicBoolean();
+
+    /**
+     * Constructor - Load learned corrections from the configured file
+     * @param execution Execution model used for background saves
+     */
+    public LearnedCorrections(ExecutionModel execution) {
+        this(Paths.get(VocadeskConfig.getString("vocadesk.corrections.file", "learned_corrections.json")),
+                execution, VocadeskConfig.getInt("vocadesk.corrections.promote-after", 2));
+    }
+
+    /**
+     * Constructor - Keep corrections in the given file, or only in memory when file is null
+     * @param file Corrections file, or null for benchmarks and tools
+     * @param execution Execution model used for background saves
+     * @param promoteAfter Confirmations needed before a pair is applied (0 disables learning)
+     */
+    public LearnedCorrections(Path file, ExecutionModel execution, int promoteAfter) {
+        this.file = file;
+        this.execution = execution;
+        this.promoteAfter = promoteAfter;
+        this.maxEntries = Math.max(1, VocadeskConfig.getInt("vocadesk.corrections.max-entries", 500));
+        load();
+        trim();
+    }
+
+    private void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            JSONObject json = new JSONObject(new String(Files.readAllBytes(file)));
+            for (String heard : json.keySet()) {
+                JSONObject entry = json.getJSONObject(heard);
+                entries.put(heard, new Entry(entry.getString("app"), entry.optInt("confirmations"),
+                        entry.optLong("lastUsed")));
+            }
+        } catch (Exception e) {
+            System.err.println("[WARNING] Could not read " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the app a heard name has been promoted to
+     * @param heard App name as heard (normalized)
+     * @return The learned app, or null if there is no rule yet
+     */
+    public String lookup(String heard) {
+        Entry entry = entries.get(heard);
+        if (entry == null || promoteAfter <= 0 || entry.confirmations < promoteAfter) {
+            return null;
+        }
+        entry.lastUsed = System.currentTimeMillis();
+        return entry.app;
+    }
+
+    /**
+     * Record that a fuzzy match was launched, and schedule a save
+     * @param heard App name as heard (normalized)
+     * @param app Registered app it resolved to
+     * @return true if this confirmation promoted the pair to a rule
+     */
+    public boolean confirm(String heard, String app) {
+        if (promoteAfter <= 0) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        Entry updated = entries.compute(heard, (key, entry) -> entry != null && entry.app.equals(app)
+                ? new Entry(app, entry.confirmations + 1, now) : new Entry(app, 1, now));
+        trim();
+        scheduleSave();
+        return updated.confirmations == promoteAfter;
+    }
+
+    /**
+     * Forget that a heard name meant an app, because the user overrode the launch
+     * @param heard App name as heard (normalized)
+     * @param app App it was resolved to
+     * @return true if a rule was dropped (not just an unpromoted count)
+     */
+    public boolean reject(String heard, String app) {
+        Entry entry = entries.get(heard);
+        if (entry == null || !entry.app.equals(app) || !entries.remove(heard, entry)) {
+            return false;
+        }
+        scheduleSave();
+        return promoteAfter > 0 && entry.confirmations >= promoteAfter;
+    }
+
+    /**
+     * Drop the least recently used names above the cap
+     */
+    private void trim() {
+        while (entries.size() > maxEntries) {
+            String oldest = null;
+            long oldestUse = Long.MAX_VALUE;
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                if (entry.getValue().lastUsed < oldestUse) {
+                    oldest = entry.getKey();
+                    oldestUse = entry.getValue().lastUsed;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            entries.remove(oldest);
+        }
+    }
+
+    private void scheduleSave() {
+        if (file != null && savePending.compareAndSet(false, true)) {
+            execution.runBlocking(this::save);
+        }
+    }
+
+    /**
+     * Number of heard names that are applied as rules
+     */
+    public int getRuleCount() {
+        int rules = 0;
+        for (Entry entry : entries.values()) {
+            if (promoteAfter > 0 && entry.confirmations >= promoteAfter) {
+                rules++;
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Write the corrections now (atomic replace)
+     */
+    public void save() {
+        savePending.set(false);
+        if (file == null) {
+            return;
+        }
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            JSONObject pair = new JSONObject();
+            pair.put("app", entry.getValue().app);
+            pair.put("confirmations", entry.getValue().confirmations);
+            pair.put("lastUsed", entry.getValue().lastUsed);
+            json.put(entry.getKey(), pair);
+        }
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, json.toString(2).getBytes());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[WARNING] Could not save " + file + ": " + e.getMessage());
+        }
+    }
+}
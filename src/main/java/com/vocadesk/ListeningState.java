@@ -0,0 +1,26 @@
+package com.vocadesk;
+
+/**
+ * ListeningState - Lifecycle of the voice recognition session
+ * IDLE -> STARTING -> LISTENING -> DRAINING -> IDLE, with STOPPED once the controller has
+ * been cleaned up. DRAINING means stop was requested and the decode thread is finishing
+ * the chunk it is reading; Start is accepted in that state and the new session's thread
+ * waits for the old one to exit before it touches the recognizer or the capture line.
+ */
+public enum ListeningState {
+
+    // Not listening; Start is accepted
+    IDLE,
+
+    // Start accepted; the decode thread is taking over the recognizer and microphone
+    STARTING,
+
+    // Reading and decoding audio
+    LISTENING,
+
+    // Stop requested; the decode thread exits after its current chunk
+    DRAINING,
+
+    // Cleaned up; Start is refused
+    STOPPED
+}
@@ -0,0 +1,328 @@
+package com.vocadesk;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+/**
+ * ModelCascade - Small model for every utterance, large model only when the result is poor
+ * The small recognizer's input is buffered per utterance. When its best interpretation is
+ * rejected, low-confidence, fuzzy or unresolved, the buffered audio is decoded again with
+ * a large model. The large model is loaded lazily in the background the first time it is
+ * needed, only if its estimated footprint fits the memory limit and the free physical
+ * memory, and an escalation is skipped when its predicted decode time would exceed the
+ * latency budget.
+ *
+ * Settings: vocadesk.cascade.enabled (default false), vocadesk.cascade.large-model
+ *           (default "model-large"), vocadesk.cascade.escalate-below (default 0.6),
+ *           vocadesk.cascade.memory-limit-mb (default 0 = free memory only),
+ *           vocadesk.cascade.latency-budget-ms (default 1500),
+ *           vocadesk.cascade.max-utterance-ms (default 10000)
+ */
+public class ModelCascade implements AutoCloseable {
+
+    private static final int BYTES_PER_SECOND = 32000;
+    private static final int REDECODE_CHUNK = 8192;
+    // Assumed large-model real-time factor until one escalation has been measured
+    private static final double INITIAL_LARGE_RTF = 0.5;
+
+    private final String largeModelPath;
+    private final ExecutionModel execution;
+    private final double escalateBelow;
+    private final long memoryLimitBytes;
+    private final long latencyBudgetMs;
+    private final boolean ownsLargeModel;
+
+    private volatile SpeechModel largeModel;
+    private volatile boolean loading;
+    private volatile boolean unavailable;
+    private SpeechRecognizer largeRecognizer;
+    private int alternatives;
+
+    // Current utterance as fed to the small model
+    private final byte[] utterance;
+    private int utteranceLength;
+    private boolean overflowed;
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private double largeRealTimeFactor = INITIAL_LARGE_RTF;
+
+    // Counters for reports
+    private int utterances;
+    private int escalations;
+    private int skippedForLatency;
+    private int skippedNotLoaded;
+    private long smallCpuNanos;
+    private long largeCpuNanos;
+    private long smallAudioBytes;
+    private long largeAudioBytes;
+
+    /**
+     * Constructor - Load the large model lazily from a directory
+     * @param largeModelPath Path to the large Vosk model
+     * @param execution Executor for the background load
+     */
+    public ModelCascade(String largeModelPath, ExecutionModel execution) {
+        this(largeModelPath, null, execution);
+    }
+
+    /**
+     * Constructor - Use an already loaded large model (replay benchmarks; not closed here)
+     * @param largeModel Loaded large speech model
+     * @param execution Executor (unused while the model is already loaded)
+     */
+    ModelCascade(SpeechModel largeModel, ExecutionModel execution) {
+        this(null, largeModel, execution);
+    }
+
+    private ModelCascade(String largeModelPath, SpeechModel largeModel, ExecutionModel execution) {
+        this.largeModelPath = largeModelPath;
+        this.largeModel = largeModel;
+        this.ownsLargeModel = largeModel == null;
+        this.execution = execution;
+        this.escalateBelow = VocadeskConfig.getDouble("vocadesk.cascade.escalate-below", 0.6);
+        this.memoryLimitBytes = VocadeskConfig.getLong("vocadesk.cascade.memory-limit-mb", 0) << 20;
+        this.latencyBudgetMs = VocadeskConfig.getLong("vocadesk.cascade.latency-budget-ms", 1500);
+        int maxUtteranceMs = VocadeskConfig.getInt("vocadesk.cascade.max-utterance-ms", 10000);
+        this.utterance = new byte[(int) ((long) maxUtteranceMs * BYTES_PER_SECOND / 1000)];
+    }
+
+    /**
+     * Create the cascade described by vocadesk.cascade.* settings
+     * @param execution Executor for the background load
+     * @return The cascade, or null when cascade mode is disabled
+     */
+    public static ModelCascade fromConfig(ExecutionModel execution) {
+        if (!VocadeskConfig.getBoolean("vocadesk.cascade.enabled", false)) {
+            return null;
+        }
+        return new ModelCascade(VocadeskConfig.getString("vocadesk.cascade.large-model", "model-large"), execution);
+    }
+
+    /**
+     * Feed a chunk to the small recognizer, keeping a copy for a possible re-decode
+     * @return The small recognizer's acceptWaveForm result
+     */
+    public boolean accept(SpeechRecognizer small, byte[] buffer, int length) {
+        if (utteranceLength + length <= utterance.length) {
+            System.arraycopy(buffer, 0, utterance, utteranceLength, length);
+            utteranceLength += length;
+        } else {
+            overflowed = true;
+        }
+        smallAudioBytes += length;
+
+        long cpuStart = threadBean.getCurrentThreadCpuTime();
+        boolean result = small.acceptWaveForm(buffer, length);
+        smallCpuNanos += threadBean.getCurrentThreadCpuTime() - cpuStart;
+        return result;
+    }
+
+    /**
+     * Decide whether a ranked small-model result deserves a second opinion
+     * @param ranking The small model's best interpretation (may be null)
+     * @return true if the result is poor enough to escalate
+     */
+    public boolean isPoor(HypothesisRanker.Ranking ranking) {
+        if (ranking == null) {
+            return false;
+        }
+        CommandIntent intent = ranking.intent;
+        return ranking.rejected
+                || ranking.confidence < escalateBelow
+                || !intent.isResolved()
+                || ((intent.type == CommandIntent.Type.LAUNCH || intent.type == CommandIntent.Type.SCHEDULE
+                    || intent.type == CommandIntent.Type.COMPOUND) && intent.isFuzzy());
+    }
+
+    /**
+     * Decode the buffered utterance with the large model, if allowed right now
+     * @param alternatives N-best alternatives to request (as for the small recognizer)
+     * @return Large-model result JSON, or null if the escalation was skipped
+     */
+    public String redecode(int alternatives) {
+        if (utteranceLength == 0 || overflowed) {
+            return null;
+        }
+
+        SpeechModel model = largeModel;
+        if (model == null) {
+            skippedNotLoaded++;
+            loadInBackground();
+            return null;
+        }
+
+        double audioMs = utteranceLength * 1000.0 / BYTES_PER_SECOND;
+        if (audioMs * largeRealTimeFactor > latencyBudgetMs) {
+            skippedForLatency++;
+            return null;
+        }
+
+        try {
+            if (largeRecognizer == null) {
+                largeRecognizer = model.createRecognizer(16000);
+                largeRecognizer.setWords(true);
+            }
+            if (this.alternatives != alternatives) {
+                largeRecognizer.setMaxAlternatives(alternatives);
+                this.alternatives = alternatives;
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Could not create large-model recognizer: " + e.getMessage());
+            unavailable = true;
+            return null;
+        }
+
+        long wallStart = System.nanoTime();
+        long cpuStart = threadBean.getCurrentThreadCpuTime();
+        byte[] chunk = new byte[REDECODE_CHUNK];
+        for (int offset = 0; offset < utteranceLength; offset += REDECODE_CHUNK) {
+            int length = Math.min(REDECODE_CHUNK, utteranceLength - offset);
+            System.arraycopy(utterance, offset, chunk, 0, length);
+            largeRecognizer.acceptWaveForm(chunk, length);
+        }
+        String result = largeRecognizer.getFinalResult();
+        largeCpuNanos += threadBean.getCurrentThreadCpuTime() - cpuStart;
+        largeAudioBytes += utteranceLength;
+
+        double wallMs = (System.nanoTime() - wallStart) / 1e6;
+        largeRealTimeFactor = 0.7 * largeRealTimeFactor + 0.3 * (wallMs / audioMs);
+        escalations++;
+        return result;
+    }
+
+    /**
+     * Mark the end of an utterance (the small recognizer produced a result or was reset)
+     */
+    public void endUtterance() {
+        if (utteranceLength > 0) {
+            utterances++;
+        }
+        utteranceLength = 0;
+        overflowed = false;
+    }
+
+    /**
+     * Load the large model on the blocking executor, once, if memory allows
+     */
+    private void loadInBackground() {
+        if (loading || unavailable || largeModelPath == null) {
+            return;
+        }
+        loading = true;
+        execution.runBlocking(() -> {
+            try {
+                long footprint = directorySize(Paths.get(largeModelPath));
+                long free = freePhysicalMemory();
+                if ((memoryLimitBytes > 0 && footprint > memoryLimitBytes) || (free > 0 && footprint > free)) {
+                    System.err.println("[WARNING] Large model needs ~" + (footprint >> 20) + " MB; limit "
+                            + (memoryLimitBytes >> 20) + " MB, free " + (free >> 20) + " MB - cascade disabled");
+                    unavailable = true;
+                    return;
+                }
+                long start = System.nanoTime();
+                largeModel = SpeechEngine.fromConfig().loadModel(largeModelPath);
+                System.out.println("[INFO] Large model loaded in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to load large model: " + e.getMessage());
+                unavailable = true;
+            } finally {
+                loading = false;
+            }
+        });
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static long freePhysicalMemory() {
+        java.lang.management.OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) bean).getFreeMemorySize();
+        }
+        return 0;
+    }
+
+    public boolean isLargeModelLoaded() {
+        return largeModel != null;
+    }
+
+    public int getUtterances() {
+        return utterances;
+    }
+
+    public int getEscalations() {
+        return escalations;
+    }
+
+    public int getSkippedForLatency() {
+        return skippedForLatency;
+    }
+
+    public int getSkippedNotLoaded() {
+        return skippedNotLoaded;
+    }
+
+    /**
+     * CPU spent by the cascade (small model on everything plus large-model re-decodes)
+     * @return CPU ms per second of captured audio
+     */
+    public double getCpuMsPerAudioSecond() {
+        return smallAudioBytes == 0 ? 0
+                : (smallCpuNanos + largeCpuNanos) / 1e6 / ((double) smallAudioBytes / BYTES_PER_SECOND);
+    }
+
+    /**
+     * Estimated CPU had the large model decoded all audio, from the measured re-decodes
+     * @return CPU ms per second of captured audio, or 0 before any escalation
+     */
+    public double getLargeOnlyCpuMsPerAudioSecond() {
+        return largeAudioBytes == 0 ? 0 : largeCpuNanos / 1e6 / ((double) largeAudioBytes / BYTES_PER_SECOND);
+    }
+
+    /**
+     * One-line summary for logs
+     */
+    public String describe() {
+        double largeOnly = getLargeOnlyCpuMsPerAudioSecond();
+        double cascade = getCpuMsPerAudioSecond();
+        return String.format("%d of %d utterances escalated (%d skipped: latency %d, model not loaded %d); "
+                        + "%.1f CPU ms/s vs ~%.1f large-only",
+                escalations, utterances, skippedForLatency + skippedNotLoaded, skippedForLatency,
+                skippedNotLoaded, cascade, largeOnly);
+    }
+
+    /**
+     * Close the large model while nothing is being decoded; the next escalation loads it again
+     */
+    public void releaseLargeModel() {
+        if (largeRecognizer != null) {
+            largeRecognizer.close();
+            largeRecognizer = null;
+            alternatives = 0;
+        }
+        SpeechModel model = largeModel;
+        if (ownsLargeModel && model != null) {
+            largeModel = null;
+            model.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (largeRecognizer != null) {
+            largeRecognizer.close();
+        }
+        SpeechModel model = largeModel;
+        if (ownsLargeModel && model != null) {
+            model.close();
+        }
+    }
+}
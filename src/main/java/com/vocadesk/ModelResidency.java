@@ -0,0 +1,334 @@
+package com.vocadesk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * ModelResidency - Keeps the main Vosk model loaded only while it is likely to be used
+ * Once nothing has listened for the idle time the owner is asked to release everything built
+ * on the model, and the model itself is closed; the resident memory before and after is
+ * logged. The next acquire (Start, or a wake signal such as the window gaining focus) loads
+ * it again on the blocking executor. Loading reads the model files into the page cache on a
+ * second thread, largest first, while Vosk parses them, so the load does not wait on the disk
+ * one small read at a time.
+ *
+ * Settings: vocadesk.model.idle-unload-ms (default 1800000, 0 = keep loaded),
+ *           vocadesk.model.prefetch (default true)
+ */
+public class ModelResidency implements AutoCloseable {
+
+    private static final int PREFETCH_BUFFER = 1 << 20;
+    private static final long PAGE_SIZE = 4096;
+
+    private final String modelPath;
+    private final ExecutionModel execution;
+    private final long idleMillis;
+    private final boolean prefetch;
+    private final VoiceFeedback feedback;
+    private final ScheduledExecutorService timer;
+
+    private SpeechModel model;
+    private CompletableFuture<SpeechModel> loading;
+    private ScheduledFuture<?> pendingUnload;
+    private Runnable onIdle;
+
+    // Last load and unload, for the log and the benchmark
+    private volatile long lastLoadMillis = -1;
+    private volatile long lastPrefetchMillis = -1;
+    private volatile long lastPrefetchBytes;
+    private volatile long lastReclaimedBytes = -1;
+    private int unloads;
+
+    /**
+     * Constructor - Manage the model in a directory
+     * @param modelPath Vosk model directory
+     * @param execution Executor for loads and prefetch reads
+     * @param idleMillis Unload after this long without listening (0 = never)
+     * @param prefetch Read the model files ahead of Vosk while loading
+     * @param feedback Where loads and unloads are reported
+     */
+    public ModelResidency(String modelPath, ExecutionModel execution, long idleMillis, boolean prefetch,
+                          VoiceFeedback feedback) {
+        this.modelPath = modelPath;
+        this.execution = execution;
+        this.idleMillis = idleMillis;
+        this.prefetch = prefetch;
+        this.feedback = feedback;
+        this.timer = idleMillis <= 0 ? null : ExecutionModel.newScheduledExecutor("vocadesk-model-idle");
+    }
+
+    /**
+     * Create the residency described by vocadesk.model.* settings
+     */
+    public static ModelResidency fromConfig(String modelPath, ExecutionModel execution, VoiceFeedback feedback) {
+        return new ModelResidency(modelPath, execution,
+                VocadeskConfig.getLong("vocadesk.model.idle-unload-ms", 1800000),
+                VocadeskConfig.getBoolean("vocadesk.model.prefetch", true), feedback);
+    }
+
+    /**
+     * Load the model on the calling thread (startup)
+     * @return The loaded model
+     */
+    public SpeechModel loadNow() throws IOException {
+        try {
+            return acquire().join();
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /**
+     * Get the model, starting a background load if it was unloaded
+     * @return Future completing with the loaded model
+     */
+    public synchronized CompletableFuture<SpeechModel> acquire() {
+        if (model != null) {
+            return CompletableFuture.completedFuture(model);
+        }
+        if (loading == null) {
+            CompletableFuture<SpeechModel> load = new CompletableFuture<>();
+            loading = load;
+            try {
+                execution.getBlockingExecutor().execute(() -> load(load));
+            } catch (RejectedExecutionException e) {
+                load(load);
+            }
+        }
+        return loading;
+    }
+
+    private void load(CompletableFuture<SpeechModel> load) {
+        long start = System.nanoTime();
+        AtomicBoolean loaded = new AtomicBoolean();
+        if (prefetch) {
+            try {
+                execution.getBlockingExecutor().execute(() -> prefetchFiles(loaded));
+            } catch (RejectedExecutionException e) {
+                // Shutting down; load without it
+            }
+        }
+        try {
+            SpeechModel created = SpeechEngine.fromConfig().loadModel(modelPath);
+            lastLoadMillis = (System.nanoTime() - start) / 1_000_000;
+            int unloaded;
+            synchronized (this) {
+                model = created;
+                loading = null;
+                unloaded = unloads;
+            }
+            if (unloaded > 0) {
+                feedback.appendLog("[SUCCESS] Speech model reloaded in " + lastLoadMillis + " ms");
+            }
+            load.complete(created);
+        } catch (Exception e) {
+            synchronized (this) {
+                loading = null;
+            }
+            load.completeExceptionally(e);
+        } finally {
+            loaded.set(true);
+        }
+    }
+
+    /**
+     * Read every model file once, largest first, so Vosk's reads hit the page cache
+     * @param done Set once the load has finished; the rest is not worth reading then
+     */
+    private void prefetchFiles(AtomicBoolean done) {
+        long start = System.nanoTime();
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(Paths.get(modelPath))) {
+            walk.filter(Files::isRegularFile).forEach(files::add);
+        } catch (IOException e) {
+            return;
+        }
+        files.sort(Comparator.comparingLong((Path file) -> file.toFile().length()).reversed());
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(PREFETCH_BUFFER);
+        long bytes = 0;
+        for (Path file : files) {
+            if (done.get()) {
+                break;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                int read;
+                while (!done.get() && (read = channel.read(buffer)) >= 0) {
+                    bytes += read;
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                // A file Vosk cannot read either; the load reports it
+            }
+        }
+        lastPrefetchBytes = bytes;
+        lastPrefetchMillis = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Start counting idle time; when it runs out, onIdle is called (see setOnIdle)
+     */
+    public synchronized void markIdle() {
+        if (timer == null || pendingUnload != null) {
+            return;
+        }
+        pendingUnload = timer.schedule(() -> {
+            Runnable idle;
+            synchronized (this) {
+                pendingUnload = null;
+                idle = onIdle;
+            }
+            if (idle != null) {
+                idle.run();
+            }
+        }, idleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop counting idle time (listening started)
+     */
+    public synchronized void markBusy() {
+        if (pendingUnload != null) {
+            pendingUnload.cancel(false);
+            pendingUnload = null;
+        }
+    }
+
+    /**
+     * Set what releases the recognizers built on the model before unload is called
+     * @param onIdle Called on the idle timer's thread
+     */
+    public synchronized void setOnIdle(Runnable onIdle) {
+        this.onIdle = onIdle;
+    }
+
+    /**
+     * Close the model; everything created from it must already be closed
+     * @return Resident memory reclaimed in bytes, or -1 if it cannot be measured here
+     */
+    public long unload() {
+        SpeechModel released;
+        synchronized (this) {
+            released = model;
+            model = null;
+        }
+        if (released == null) {
+            return 0;
+        }
+        long before = residentBytes();
+        released.close();
+        trimNativeHeap();
+        long after = residentBytes();
+        lastReclaimedBytes = before < 0 || after < 0 ? -1 : before - after;
+        unloads++;
+        if (lastReclaimedBytes >= 0) {
+            feedback.appendLog(String.format("[INFO] Speech model unloaded after %d min idle: resident memory "
+                    + "%,d -> %,d MB (%,d MB reclaimed)", idleMillis / 60000, before >> 20, after >> 20,
+                    lastReclaimedBytes >> 20));
+        } else {
+            feedback.appendLog("[INFO] Speech model unloaded after " + idleMillis / 60000 + " min idle");
+        }
+        return lastReclaimedBytes;
+    }
+
+    /**
+     * Check if the model is loaded right now
+     */
+    public synchronized boolean isLoaded() {
+        return model != null;
+    }
+
+    /**
+     * Milliseconds the last load took (including prefetch overlap), or -1 before the first load
+     */
+    public long getLastLoadMillis() {
+        return lastLoadMillis;
+    }
+
+    /**
+     * Milliseconds the last prefetch pass took, or -1 if none finished
+     */
+    public long getLastPrefetchMillis() {
+        return lastPrefetchMillis;
+    }
+
+    /**
+     * Bytes read by the last prefetch pass
+     */
+    public long getLastPrefetchBytes() {
+        return lastPrefetchBytes;
+    }
+
+    /**
+     * Resident memory the last unload gave back, or -1 if it could not be measured
+     */
+    public long getLastReclaimedBytes() {
+        return lastReclaimedBytes;
+    }
+
+    /**
+     * Number of idle unloads so far
+     */
+    public synchronized int getUnloads() {
+        return unloads;
+    }
+
+    /**
+     * Resident set size of this process from /proc/self/statm
+     * @return Bytes, or -1 where /proc is not available (Windows, macOS)
+     */
+    public static long residentBytes() {
+        try {
+            String[] fields = new String(Files.readAllBytes(Paths.get("/proc/self/statm"))).trim().split("\\s+");
+            return Long.parseLong(fields[1]) * PAGE_SIZE;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Hand memory the model freed back to the OS; glibc keeps small freed blocks in its
+     * arenas otherwise, and the resident size would hardly drop
+     */
+    private static void trimNativeHeap() {
+        if (!System.getProperty("os.name", "").toLowerCase().contains("linux")) {
+            return;
+        }
+        try {
+            com.sun.jna.NativeLibrary.getInstance("c").getFunction("malloc_trim").invokeInt(new Object[] {0});
+        } catch (Throwable e) {
+            // Not glibc (musl) or JNA unavailable; the memory is still free for this process
+        }
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        SpeechModel released;
+        synchronized (this) {
+            released = model;
+            model = null;
+        }
+        if (released != null) {
+            released.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * ModelResidencyBenchmark - Measures what an idle unload gives back and what the reload costs
+ * Loads a model through ModelResidency, creates a recognizer on it (ready to listen), then
+ * repeatedly unloads and reloads it, with and without the page-cache prefetch. Reports the
+ * process's resident memory with the model loaded and after each unload, and the time from
+ * acquire to a usable recognizer. With --drop-caches (Linux, root) the page cache is dropped
+ * before every reload, as after a long idle period on a busy machine; otherwise the files
+ * are still cached and the reload is CPU bound. Prints JSON and exits with status 1 if the
+ * mean prefetched reload exceeds the budget.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.ModelResidencyBenchmark [--model model] [--cycles 3]
+ *        [--drop-caches false] [--budget-ms 3000]
+ */
+public class ModelResidencyBenchmark {
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--model", "model",
+                "--cycles", "3",
+                "--drop-caches", "false",
+                "--budget-ms", "3000");
+        String modelPath = options.get("--model");
+        int cycles = Integer.parseInt(options.get("--cycles"));
+        boolean dropCaches = Boolean.parseBoolean(options.get("--drop-caches"));
+        double budgetMs = Double.parseDouble(options.get("--budget-ms"));
+        PrintStream report = System.out;
+        JSONObject results = new JSONObject();
+        JSONArray runs = new JSONArray();
+        double prefetchedTotal = 0;
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ExecutionModel execution = new ExecutionModel();
+        try {
+            results.put("residentMbBefore", ModelResidency.residentBytes() >> 20);
+            long start = System.nanoTime();
+            ModelResidency first = new ModelResidency(modelPath, execution, 0, true, ReplayBenchmark.silentFeedback());
+            first.loadNow().createRecognizer(16000).close();
+            results.put("initialLoadMs", (System.nanoTime() - start) / 1e6);
+            results.put("residentMbLoaded", ModelResidency.residentBytes() >> 20);
+            first.unload();
+            first.close();
+
+            for (int cycle = 0; cycle < cycles; cycle++) {
+                for (boolean prefetch : new boolean[] {false, true}) {
+                    ModelResidency residency = new ModelResidency(modelPath, execution, 0, prefetch,
+                            ReplayBenchmark.silentFeedback());
+                    if (dropCaches) {
+                        dropPageCache();
+                    }
+                    start = System.nanoTime();
+                    SpeechModel model = residency.acquire().join();
+                    SpeechRecognizer recognizer = model.createRecognizer(16000);
+                    double readyMs = (System.nanoTime() - start) / 1e6;
+                    long loaded = ModelResidency.residentBytes();
+                    recognizer.close();
+                    long reclaimed = residency.unload();
+
+                    JSONObject run = new JSONObject();
+                    run.put("cycle", cycle);
+                    run.put("prefetch", prefetch);
+                    run.put("reloadToRecognizerMs", readyMs);
+                    run.put("prefetchMs", residency.getLastPrefetchMillis());
+                    run.put("prefetchMb", residency.getLastPrefetchBytes() >> 20);
+                    run.put("residentMbLoaded", loaded >> 20);
+                    run.put("reclaimedMb", reclaimed < 0 ? reclaimed : reclaimed >> 20);
+                    runs.put(run);
+                    residency.close();
+                    if (prefetch) {
+                        prefetchedTotal += readyMs;
+                    }
+                }
+            }
+            results.put("residentMbAfterUnload", ModelResidency.residentBytes() >> 20);
+        } finally {
+            execution.shutdown(1000);
+            System.setOut(report);
+        }
+
+        double prefetchedMean = prefetchedTotal / Math.max(1, cycles);
+        results.put("runs", runs);
+        results.put("droppedPageCache", dropCaches);
+        results.put("meanPrefetchedReloadMs", prefetchedMean);
+        results.put("budgetMs", budgetMs);
+        results.put("withinBudget", prefetchedMean <= budgetMs);
+        report.println(results.toString(2));
+        if (prefetchedMean > budgetMs) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Write back dirty pages and drop the page cache (needs root on Linux)
+     */
+    private static void dropPageCache() throws Exception {
+        new ProcessBuilder("sync").inheritIO().start().waitFor();
+        Files.write(Paths.get("/proc/sys/vm/drop_caches"), "3".getBytes());
+    }
+}
@@ -0,0 +1,386 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * MultiLanguageDecoder - Feeds the same audio to one recognizer per language in parallel
+ * For speakers who mix English and Hindi app and command words. Each language has its own
+ * model and a grammar built from the registry (see CommandInterpreter.commandPhrases); the
+ * first language decodes on the calling thread and the others on a pool sized to the
+ * cores. When any recognizer ends an utterance, all of them are flushed and the first
+ * confident result that resolves to an intent wins, preferring recognizers that ended
+ * the utterance themselves, then configuration order.
+ *
+ * Languages other than the first are unloaded once they have not won for the idle time,
+ * to bound memory, and are reloaded in the background when no loaded language produces
+ * a confident result.
+ *
+ * Grammars only apply to the other languages. commandPhrases leaves out free text, so a
+ * grammar-limited recognizer cannot hear "find ...", "search X in chrome" or "open X in 10
+ * minutes"; the first language therefore decodes without one and keeps every command the
+ * single-language pipeline understands. The others trade those commands for accuracy on
+ * app names in their language.
+ *
+ * Settings: vocadesk.languages (e.g. "en,hi:model-hi"; a language without a path uses the
+ *           main model; default none), vocadesk.languages.grammar (other languages only; default true),
+ *           vocadesk.languages.min-confidence (default 0.6),
+ *           vocadesk.languages.idle-ms (default 600000)
+ */
+public class MultiLanguageDecoder implements AutoCloseable {
+
+    private static final float SAMPLE_RATE = 16000f;
+
+    /**
+     * One language: its model, recognizer and the chunk it is currently decoding
+     */
+    private static class Lane {
+        final String language;
+        final String modelPath;
+        final boolean shared;
+        volatile SpeechModel model;
+        volatile boolean loading;
+        SpeechRecognizer recognizer;
+        long grammarGeneration = -1;
+        long lastWinNanos = System.nanoTime();
+        int wins;
+
+        // Chunk handed to the pool
+        byte[] buffer;
+        int length;
+        boolean ended;
+
+        Lane(String language, String modelPath, SpeechModel sharedModel) {
+            this.language = language;
+            this.modelPath = modelPath;
+            this.shared = sharedModel != null;
+            this.model = sharedModel;
+        }
+    }
+
+    private final List<Lane> lanes = new ArrayList<>();
+    private final AppLauncher appLauncher;
+    private final ExecutionModel execution;
+    private final ExecutorService pool;
+    private final Function<String, HypothesisRanker.Ranking> evaluator;
+    private final boolean useGrammar;
+    private final double minConfidence;
+    private final long idleNanos;
+    private int alternatives;
+
+    private final List<Future<Boolean>> pending = new ArrayList<>();
+    private int unloads;
+    private final AtomicInteger reloads = new AtomicInteger();
+
+    /**
+     * Constructor - Load every configured language
+     * @param languages Entries "code" or "code:modelPath", first is the primary language
+     * @param mainModel Model already loaded from the main model directory
+     * @param appLauncher Registry the grammars are built from
+     * @param execution Executor for background reloads
+     * @param evaluator Ranks one result JSON (as the frontend would) to judge confidence
+     */
+    public MultiLanguageDecoder(String[] languages, SpeechModel mainModel, AppLauncher appLauncher,
+                                ExecutionModel execution,
+                                Function<String, HypothesisRanker.Ranking> evaluator) throws IOException {
+        this.appLauncher = appLauncher;
+        this.execution = execution;
+        this.evaluator = evaluator;
+        this.useGrammar = VocadeskConfig.getBoolean("vocadesk.languages.grammar", true);
+        this.minConfidence = VocadeskConfig.getDouble("vocadesk.languages.min-confidence", 0.6);
+        this.idleNanos = VocadeskConfig.getLong("vocadesk.languages.idle-ms", 600000) * 1_000_000L;
+
+        for (String entry : languages) {
+            String[] parts = entry.trim().split(":", 2);
+            SpeechModel shared = parts.length == 1 ? mainModel : null;
+            Lane lane = new Lane(parts[0].trim(), parts.length == 1 ? null : parts[1].trim(), shared);
+            if (lane.model == null) {
+                lane.model = SpeechEngine.fromConfig().loadModel(lane.modelPath);
+            }
+            lanes.add(lane);
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        if (lanes.size() > cores) {
+            System.err.println("[WARNING] " + lanes.size() + " languages on " + cores
+                    + " cores; some will share a core");
+        }
+        this.pool = ExecutionModel.newBoundedPool("vocadesk-lang-", Math.min(lanes.size() - 1, cores - 1),
+                Thread.NORM_PRIORITY);
+        prepareLanes();
+    }
+
+    /**
+     * Create the decoder described by vocadesk.languages
+     * @return The decoder, or null when only one language is configured
+     */
+    public static MultiLanguageDecoder fromConfig(SpeechModel mainModel, AppLauncher appLauncher, ExecutionModel execution,
+                                                  Function<String, HypothesisRanker.Ranking> evaluator)
+            throws IOException {
+        String languages = VocadeskConfig.getString("vocadesk.languages", "").trim();
+        if (languages.isEmpty() || !languages.contains(",")) {
+            return null;
+        }
+        return new MultiLanguageDecoder(languages.split(","), mainModel, appLauncher, execution, evaluator);
+    }
+
+    /**
+     * Ask every recognizer for N-best alternatives (0 = top result with word confidences)
+     */
+    public void configure(int alternatives) {
+        this.alternatives = alternatives;
+        for (Lane lane : lanes) {
+            if (lane.recognizer != null) {
+                lane.recognizer.setMaxAlternatives(alternatives);
+                lane.recognizer.setWords(true);
+            }
+        }
+    }
+
+    /**
+     * Decode one chunk in every loaded language
+     * @param buffer 16 kHz mono PCM bytes (not modified, not retained)
+     * @param length Number of valid bytes in buffer
+     * @param endpoint true if the caller's endpointer ended the utterance
+     * @return The winning result JSON when the utterance ended, otherwise null
+     */
+    public String accept(byte[] buffer, int length, boolean endpoint) {
+        Lane primary = null;
+        boolean anyEnded = false;
+        for (Lane lane : lanes) {
+            lane.ended = false;
+            if (lane.recognizer == null) {
+                continue;
+            }
+            if (primary == null) {
+                primary = lane;
+                continue;
+            }
+            lane.buffer = buffer;
+            lane.length = length;
+            pending.add(pool.submit(() -> lane.recognizer.acceptWaveForm(lane.buffer, lane.length)));
+        }
+        if (primary != null) {
+            primary.ended = primary.recognizer.acceptWaveForm(buffer, length);
+            anyEnded = primary.ended;
+        }
+
+        int index = 0;
+        for (Lane lane : lanes) {
+            if (lane.recognizer == null || lane == primary) {
+                continue;
+            }
+            try {
+                lane.ended = pending.get(index++).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("[ERROR] " + lane.language + " recognizer failed: " + e.getCause());
+            }
+            lane.buffer = null;
+            anyEnded |= lane.ended;
+        }
+        pending.clear();
+
+        if (!anyEnded && !endpoint) {
+            return null;
+        }
+        return select();
+    }
+
+    /**
+     * End the current utterance in every language and pick the winner
+     * @return The winning result JSON (possibly empty)
+     */
+    public String finish() {
+        for (Lane lane : lanes) {
+            lane.ended = false;
+        }
+        return select();
+    }
+
+    /**
+     * Discard the current utterance in every language
+     */
+    public void reset() {
+        for (Lane lane : lanes) {
+            if (lane.recognizer != null) {
+                lane.recognizer.reset();
+            }
+        }
+        prepareLanes();
+    }
+
+    /**
+     * Flush every recognizer and choose: lanes that ended the utterance first, then the rest
+     */
+    private String select() {
+        List<String> results = new ArrayList<>();
+        List<Lane> order = new ArrayList<>();
+        for (int pass = 0; pass < 2; pass++) {
+            for (Lane lane : lanes) {
+                if (lane.recognizer != null && lane.ended == (pass == 0)) {
+                    results.add(lane.ended ? lane.recognizer.getResult() : lane.recognizer.getFinalResult());
+                    order.add(lane);
+                }
+            }
+        }
+
+        String chosen = null;
+        String fallback = null;
+        for (int i = 0; i < results.size() && chosen == null; i++) {
+            HypothesisRanker.Ranking ranking = evaluator.apply(results.get(i));
+            if (ranking == null) {
+                continue;
+            }
+            if (fallback == null) {
+                fallback = results.get(i);
+            }
+            if (isConfident(ranking)) {
+                chosen = results.get(i);
+                Lane winner = order.get(i);
+                winner.wins++;
+                winner.lastWinNanos = System.nanoTime();
+            }
+        }
+
+        if (chosen == null) {
+            // Nothing loaded understood it; bring back any unloaded language for next time
+            for (Lane lane : lanes) {
+                if (lane.model == null) {
+                    reload(lane);
+                }
+            }
+            chosen = fallback != null ? fallback : results.isEmpty() ? "{}" : results.get(0);
+        }
+        prepareLanes();
+        return chosen;
+    }
+
+    private boolean isConfident(HypothesisRanker.Ranking ranking) {
+        CommandIntent intent = ranking.intent;
+        return !ranking.rejected
+                && ranking.confidence >= minConfidence
+                && intent.isResolved();
+    }
+
+    /**
+     * Between utterances: unload idle languages, create recognizers for newly loaded models
+     * and rebuild grammars when the registry changed
+     */
+    private void prepareLanes() {
+        long now = System.nanoTime();
+        long generation = appLauncher.getGeneration();
+        for (int i = 0; i < lanes.size(); i++) {
+            Lane lane = lanes.get(i);
+            if (i > 0 && lane.model != null && !lane.shared && now - lane.lastWinNanos > idleNanos) {
+                unload(lane);
+                continue;
+            }
+            if (lane.model == null || (lane.recognizer != null && lane.grammarGeneration == generation)) {
+                continue;
+            }
+            try {
+                SpeechRecognizer recognizer = useGrammar && i > 0
+                        ? lane.model.createRecognizer(SAMPLE_RATE, grammar(lane.language))
+                        : lane.model.createRecognizer(SAMPLE_RATE);
+                recognizer.setMaxAlternatives(alternatives);
+                recognizer.setWords(true);
+                if (lane.recognizer != null) {
+                    lane.recognizer.close();
+                }
+                lane.recognizer = recognizer;
+                lane.grammarGeneration = generation;
+            } catch (IOException e) {
+                System.err.println("[ERROR] Could not create " + lane.language + " recognizer: " + e.getMessage());
+            }
+        }
+    }
+
+    private String grammar(String language) {
+        JSONArray phrases = new JSONArray(CommandInterpreter.commandPhrases(language, appLauncher.getSpokenNames()));
+        phrases.put("[unk]");
+        return phrases.toString();
+    }
+
+    private void unload(Lane lane) {
+        if (lane.recognizer != null) {
+            lane.recognizer.close();
+            lane.recognizer = null;
+        }
+        SpeechModel model = lane.model;
+        lane.model = null;
+        model.close();
+        unloads++;
+        System.out.println("[INFO] Unloaded idle " + lane.language + " recognizer");
+    }
+
+    private void reload(Lane lane) {
+        if (lane.loading) {
+            return;
+        }
+        lane.loading = true;
+        execution.runBlocking(() -> {
+            try {
+                lane.lastWinNanos = System.nanoTime();
+                lane.model = SpeechEngine.fromConfig().loadModel(lane.modelPath);
+                reloads.incrementAndGet();
+                System.out.println("[INFO] Reloaded " + lane.language + " model");
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to reload " + lane.language + " model: " + e.getMessage());
+            } finally {
+                lane.loading = false;
+            }
+        });
+    }
+
+    /**
+     * Languages with a loaded model, e.g. "en, hi"
+     */
+    public String describe() {
+        StringBuilder description = new StringBuilder();
+        for (Lane lane : lanes) {
+            if (description.length() > 0) {
+                description.append(", ");
+            }
+            description.append(lane.language);
+            if (lane.model == null) {
+                description.append(" (unloaded)");
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * Wins per language plus unload/reload counts for the shutdown log
+     */
+    public String describeUsage() {
+        StringBuilder description = new StringBuilder();
+        for (Lane lane : lanes) {
+            description.append(lane.language).append('=').append(lane.wins).append(' ');
+        }
+        return description + "(unloaded " + unloads + ", reloaded " + reloads + ")";
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        for (Lane lane : lanes) {
+            if (lane.recognizer != null) {
+                lane.recognizer.close();
+            }
+            SpeechModel model = lane.model;
+            if (model != null && !lane.shared) {
+                model.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.vocadesk;
+
+import java.util.Arrays;
+
+/**
+ * NoiseSuppressor - Streaming spectral subtraction for steady background noise (fans, hum, hiss)
+ * 32 ms frames with 50% overlap and square-root Hann windows (so analysis x synthesis sums
+ * to one). The noise spectrum follows the quietest recent frames: it drops quickly when the
+ * room gets quieter and creeps up slowly while someone is speaking. Each bin keeps at least
+ * GAIN_FLOOR of its energy, which avoids the warbling "musical noise" of full subtraction.
+ * Adds two hops (32 ms) of delay: a sample is finished only after the frame that follows it,
+ * and that output is handed back a hop later. Per-bin loops are plain array loops that C2 vectorizes.
+ */
+public class NoiseSuppressor implements AudioStage {
+
+    private static final int FRAME = 512;
+    private static final int HOP = FRAME / 2;
+    private static final int BINS = FRAME / 2 + 1;
+
+    private static final float OVER_SUBTRACTION = 2.0f;
+    private static final float GAIN_FLOOR = 0.1f;
+    private static final float SMOOTHING = 0.6f;
+    private static final float NOISE_FALL = 0.3f;
+    private static final float NOISE_RISE = 1.01f;
+    // The minimum of a smoothed periodogram underestimates the mean noise power
+    private static final float MINIMUM_BIAS = 1.8f;
+    private static final int INIT_FRAMES = 8;
+    // Keeps the estimate able to rise again after digital silence
+    private static final float MIN_NOISE = 1.0f;
+
+    private final float[] window = new float[FRAME];
+    private final float[] cos = new float[FRAME / 2];
+    private final float[] sin = new float[FRAME / 2];
+    private final int[] bitReverse = new int[FRAME];
+
+    private final float[] input = new float[FRAME];
+    private final float[] re = new float[FRAME];
+    private final float[] im = new float[FRAME];
+    private final float[] power = new float[BINS];
+    private final float[] smoothed = new float[BINS];
+    private final float[] noise = new float[BINS];
+    private final float[] gains = new float[BINS];
+    private final float[] overlap = new float[HOP];
+    private final float[] output = new float[HOP];
+
+    private int filled;
+    private int frames;
+
+    public NoiseSuppressor() {
+        for (int n = 0; n < FRAME; n++) {
+            window[n] = (float) Math.sqrt(0.5 - 0.5 * Math.cos(2 * Math.PI * n / FRAME));
+        }
+        for (int k = 0; k < FRAME / 2; k++) {
+            cos[k] = (float) Math.cos(2 * Math.PI * k / FRAME);
+            sin[k] = (float) -Math.sin(2 * Math.PI * k / FRAME);
+        }
+        int bits = Integer.numberOfTrailingZeros(FRAME);
+        for (int i = 0; i < FRAME; i++) {
+            bitReverse[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+    }
+
+    @Override
+    public void process(short[] samples, int offset, int length) {
+        int index = offset;
+        int end = offset + length;
+        while (index < end) {
+            int count = Math.min(HOP - filled, end - index);
+            for (int i = 0; i < count; i++) {
+                input[FRAME - HOP + filled + i] = samples[index + i];
+                float value = output[filled + i];
+                samples[index + i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+            }
+            filled += count;
+            index += count;
+            if (filled == HOP) {
+                processFrame();
+                filled = 0;
+            }
+        }
+    }
+
+    private void processFrame() {
+        for (int n = 0; n < FRAME; n++) {
+            re[n] = input[n] * window[n];
+        }
+        Arrays.fill(im, 0);
+        fft(re, im);
+
+        for (int k = 0; k < BINS; k++) {
+            power[k] = re[k] * re[k] + im[k] * im[k];
+        }
+        updateNoise();
+
+        for (int k = 0; k < BINS; k++) {
+            float p = power[k];
+            float keep = p > 0 ? 1 - OVER_SUBTRACTION * MINIMUM_BIAS * noise[k] / p : 0;
+            gains[k] = (float) Math.sqrt(Math.max(GAIN_FLOOR, keep));
+        }
+        for (int k = 0; k < BINS; k++) {
+            re[k] *= gains[k];
+            im[k] *= gains[k];
+        }
+        // Mirror onto the negative frequencies so the inverse stays real
+        for (int k = 1; k < FRAME / 2; k++) {
+            re[FRAME - k] = re[k];
+            im[FRAME - k] = -im[k];
+        }
+
+        // Inverse FFT via conjugation
+        for (int n = 0; n < FRAME; n++) {
+            im[n] = -im[n];
+        }
+        fft(re, im);
+        float scale = 1.0f / FRAME;
+        for (int n = 0; n < HOP; n++) {
+            output[n] = overlap[n] + re[n] * scale * window[n];
+            overlap[n] = re[HOP + n] * scale * window[HOP + n];
+        }
+
+        System.arraycopy(input, HOP, input, 0, FRAME - HOP);
+    }
+
+    private void updateNoise() {
+        for (int k = 0; k < BINS; k++) {
+            smoothed[k] = SMOOTHING * smoothed[k] + (1 - SMOOTHING) * power[k];
+        }
+        if (frames < INIT_FRAMES) {
+            // Average the first frames as the starting estimate
+            for (int k = 0; k < BINS; k++) {
+                noise[k] += power[k] / (INIT_FRAMES * MINIMUM_BIAS);
+            }
+            frames++;
+            return;
+        }
+        for (int k = 0; k < BINS; k++) {
+            float p = smoothed[k];
+            float n = noise[k];
+            noise[k] = p < n ? n + NOISE_FALL * (p - n) : Math.max(MIN_NOISE, n * NOISE_RISE);
+        }
+    }
+
+    /**
+     * In-place iterative radix-2 complex FFT of size FRAME
+     */
+    private void fft(float[] real, float[] imag) {
+        for (int i = 0; i < FRAME; i++) {
+            int j = bitReverse[i];
+            if (j > i) {
+                float t = real[i];
+                real[i] = real[j];
+                real[j] = t;
+                t = imag[i];
+                imag[i] = imag[j];
+                imag[j] = t;
+            }
+        }
+        for (int size = 2; size <= FRAME; size <<= 1) {
+            int half = size >> 1;
+            int step = FRAME / size;
+            for (int start = 0; start < FRAME; start += size) {
+                for (int k = 0; k < half; k++) {
+                    float wr = cos[k * step];
+                    float wi = sin[k * step];
+                    int a = start + k;
+                    int b = a + half;
+                    float tr = wr * real[b] - wi * imag[b];
+                    float ti = wr * imag[b] + wi * real[b];
+                    real[b] = real[a] - tr;
+                    imag[b] = imag[a] - ti;
+                    real[a] += tr;
+                    imag[a] += ti;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(input, 0);
+        Arrays.fill(smoothed, 0);
+        Arrays.fill(noise, 0);
+        Arrays.fill(overlap, 0);
+        Arrays.fill(output, 0);
+        filled = 0;
+        frames = 0;
+    }
+
+    @Override
+    public String getName() {
+        return "denoise";
+    }
+}
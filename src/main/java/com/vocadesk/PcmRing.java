@@ -0,0 +1,148 @@
+package com.vocadesk;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PcmRing - Single-producer, single-consumer ring of PCM bytes in a memory-mapped file
+ * Carries captured audio from the GUI process to the recognition worker without copying
+ * it through a socket. The header holds the total number of bytes ever written (published
+ * with release semantics after the data) and the capacity; the reader keeps its own
+ * position and detects when the writer has lapped it. Before copying, the writer also
+ * announces the position it is writing up to, so a reader can tell that a write still in
+ * progress has overwritten what it just copied (as in a seqlock).
+ *
+ * Layout: [0] long written, [8] int capacity, [16] long writing up to, [64..] data
+ */
+public class PcmRing implements AutoCloseable {
+
+    private static final int HEADER = 64;
+    private static final int WRITTEN = 0;
+    private static final int CAPACITY = 8;
+    private static final int WRITING = 16;
+    private static final VarHandle LONG =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    // Producer-side copy of the published position
+    private long written;
+
+    private PcmRing(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.written = (long) LONG.getAcquire(buffer, WRITTEN);
+    }
+
+    /**
+     * Create (or truncate) the ring file, as the writer
+     * @param file Ring file
+     * @param capacity Data capacity in bytes
+     */
+    public static PcmRing create(Path file, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + capacity);
+        buffer.order(ByteOrder.nativeOrder());
+        buffer.putInt(CAPACITY, capacity);
+        LONG.setRelease(buffer, WRITING, 0L);
+        LONG.setRelease(buffer, WRITTEN, 0L);
+        return new PcmRing(channel, buffer, capacity);
+    }
+
+    /**
+     * Map an existing ring file, as the reader
+     * @param file Ring file created by the writer
+     */
+    public static PcmRing open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+        header.order(ByteOrder.nativeOrder());
+        int capacity = header.getInt(CAPACITY);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + capacity);
+        buffer.order(ByteOrder.nativeOrder());
+        return new PcmRing(channel, buffer, capacity);
+    }
+
+    /**
+     * Append PCM and publish it (writer only)
+     * @param source PCM bytes
+     * @param offset Start in source
+     * @param length Number of bytes; at most the capacity
+     */
+    public void write(byte[] source, int offset, int length) {
+        int start = (int) (written % capacity);
+        int first = Math.min(length, capacity - start);
+        // Announce the slots about to be overwritten before touching them
+        LONG.setOpaque(buffer, WRITING, written + length);
+        VarHandle.releaseFence();
+        buffer.put(HEADER + start, source, offset, first);
+        if (first < length) {
+            buffer.put(HEADER, source, offset + first, length - first);
+        }
+        written += length;
+        LONG.setRelease(buffer, WRITTEN, written);
+    }
+
+    /**
+     * Total bytes published so far
+     */
+    public long getWritePosition() {
+        return (long) LONG.getAcquire(buffer, WRITTEN);
+    }
+
+    /**
+     * Oldest position still in the ring; a reader behind it has been overrun
+     */
+    public long getOldestPosition() {
+        return Math.max(0, getWritePosition() - capacity);
+    }
+
+    /**
+     * Copy published bytes starting at a position (reader only)
+     * @param position Stream position to read from (at least getOldestPosition)
+     * @param target Destination
+     * @param offset Start in target
+     * @param length Maximum number of bytes
+     * @return Bytes copied (0 if nothing new), or -1 if the writer overran the position
+     */
+    public int read(long position, byte[] target, int offset, int length) {
+        long published = getWritePosition();
+        if (published - position > capacity) {
+            return -1;
+        }
+        int available = (int) Math.min(length, published - position);
+        if (available <= 0) {
+            return 0;
+        }
+        int start = (int) (position % capacity);
+        int first = Math.min(available, capacity - start);
+        buffer.get(HEADER + start, target, offset, first);
+        if (first < available) {
+            buffer.get(HEADER, target, offset + first, available - first);
+        }
+        // The writer may have lapped us while copying, including a write not yet published
+        VarHandle.acquireFence();
+        if ((long) LONG.getOpaque(buffer, WRITING) - position > capacity) {
+            return -1;
+        }
+        return available;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,169 @@
+package com.vocadesk;
+
+/**
+ * PhoneticKey - Encodes an app name as it sounds, so names that are heard differently but
+ * sound alike get the same key ("krome" and "chrome", "spot if i" and "spotify",
+ * "watts up" and "whatsapp")
+ * A Metaphone-style consonant skeleton: spaces and vowels are dropped (a leading vowel
+ * becomes A), doubled letters count once, and letter groups are reduced to the sound they
+ * make. Tuned for Indian English, where v and w, s and sh, z and j, and plain and aspirated
+ * consonants (t/th, d/dh, b/bh, k/kh, g/gh) are easily swapped, so each of those pairs
+ * shares one code.
+ */
+public final class PhoneticKey {
+
+    private PhoneticKey() {
+    }
+
+    /**
+     * Encode a name
+     * @param name Lowercase name as registered or heard
+     * @return Key such as "KRM"; empty if the name has no letters or digits
+     */
+    public static String encode(String name) {
+        String word = compact(name);
+        StringBuilder key = new StringBuilder(word.length());
+        // Code of the previous sound, 0 after a vowel so "pop" keeps both Ps
+        char last = 0;
+        int length = word.length();
+        for (int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            char next = i + 1 < length ? word.charAt(i + 1) : 0;
+            char after = i + 2 < length ? word.charAt(i + 2) : 0;
+            char code;
+            switch (c) {
+                case 'a': case 'e': case 'i': case 'o': case 'u': case 'y':
+                    code = i == 0 ? 'A' : 0;
+                    last = 0;
+                    break;
+                case 'b':
+                    // "bh"; silent in a final "mb"
+                    code = i > 0 && word.charAt(i - 1) == 'm' && next == 0 ? 0 : 'B';
+                    if (next == 'h') {
+                        i++;
+                    }
+                    break;
+                case 'c':
+                    if (next == 'h') {
+                        // "chr" and "sch" are hard ("chrome", "schedule"), otherwise as in "chat"
+                        code = after == 'r' || (i > 0 && word.charAt(i - 1) == 's') ? 'K' : 'J';
+                        i++;
+                    } else if (next == 'e' || next == 'i' || next == 'y') {
+                        code = 'S';
+                    } else {
+                        code = 'K';
+                        if (next == 'k' || next == 'q') {
+                            i++;
+                        }
+                    }
+                    break;
+                case 'd':
+                    if (next == 'g' && (after == 'e' || after == 'i' || after == 'y')) {
+                        code = 'J';
+                        i++;
+                    } else {
+                        code = 'T';
+                        if (next == 'h') {
+                            i++;
+                        }
+                    }
+                    break;
+                case 'g':
+                    if (next == 'h') {
+                        code = 'G';
+                        i++;
+                    } else if (next == 'n' && (after == 0 || i == 0)) {
+                        // "gnome", "sign"
+                        code = 0;
+                    } else {
+                        code = next == 'e' || next == 'i' || next == 'y' ? 'J' : 'G';
+                    }
+                    break;
+                case 'h':
+                    // Sounded only before a vowel and not after a consonant it softens
+                    code = isVowel(next) && (i == 0 || isVowel(word.charAt(i - 1))) ? 'H' : 0;
+                    break;
+                case 'k':
+                    code = next == 'n' && i == 0 ? 0 : 'K';
+                    if (next == 'h') {
+                        i++;
+                    }
+                    break;
+                case 'p':
+                    code = next == 'h' ? 'F' : 'P';
+                    if (next == 'h') {
+                        i++;
+                    }
+                    break;
+                case 'q':
+                    code = 'K';
+                    break;
+                case 's':
+                    code = 'S';
+                    if (next == 'h') {
+                        i++;
+                    }
+                    break;
+                case 't':
+                    if (next == 'i' && (after == 'a' || after == 'o')) {
+                        // "-tion", "-tial"
+                        code = 'S';
+                    } else {
+                        code = 'T';
+                        if (next == 'h') {
+                            i++;
+                        }
+                    }
+                    break;
+                case 'v':
+                case 'w':
+                    code = 'W';
+                    if (next == 'h') {
+                        i++;
+                    }
+                    break;
+                case 'x':
+                    code = i == 0 ? 'S' : 'X';
+                    break;
+                case 'z':
+                case 'j':
+                    code = 'J';
+                    break;
+                default:
+                    code = Character.toUpperCase(c);
+                    break;
+            }
+            if (code == 'X') {
+                key.append("KS");
+                last = 'S';
+            } else if (code != 0 && code != last) {
+                key.append(code);
+                last = code;
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * The letters and digits of a name, without spaces or punctuation
+     * Misheard names split words differently ("spot if i"), so matching compares these
+     * @param name Lowercase name
+     * @return Such as "spotifi"
+     */
+    public static String compact(String name) {
+        StringBuilder letters = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                letters.append(c);
+            } else if (c >= 'A' && c <= 'Z') {
+                letters.append(Character.toLowerCase(c));
+            }
+        }
+        return letters.toString();
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || c == 'y';
+    }
+}
@@ -0,0 +1,211 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * PhoneticMatchBenchmark - Measures misheard-name lookup through the phonetic index against a plain scan
+ * Fills a registry with generated, pronounceable names for each size, gives some of them an
+ * alias, and makes sound-alike mishearings of random names and aliases: letters swapped for
+ * ones that sound the same ("c" for "k", "ph" for "f", "v" for "w", "z" for "j", "th" for
+ * "t"), a vowel changed, and the name split into words. Times AppMatcher.findBestMatch and,
+ * for comparison, the edit-distance scan of every name it replaced, and counts how often
+ * each found the app that was meant. Prints JSON and exits with status 1 if a lookup at the
+ * largest size takes longer than the budget (p99).
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.PhoneticMatchBenchmark [--sizes 1000,10000,100000]
+ *        [--queries 500] [--alias-percent 20] [--budget-ms 1]
+ */
+public class PhoneticMatchBenchmark {
+
+    private static final String[] ONSETS = {
+        "b", "ch", "d", "f", "g", "j", "k", "l", "m", "n", "p", "r", "s", "sh", "t", "th", "v", "w", "z",
+        "br", "kr", "pl", "st", "tr"
+    };
+    private static final String[] VOWELS = {"a", "e", "i", "o", "u", "ee", "oo", "ai"};
+    private static final String[] CODAS = {"", "", "n", "r", "s", "t", "x", "k", "m"};
+    // Spellings a listener could equally have heard, applied one way or the other
+    private static final String[][] SOUND_ALIKE = {
+        {"k", "c"}, {"ph", "f"}, {"f", "ph"}, {"v", "w"}, {"w", "v"}, {"z", "j"},
+        {"j", "z"}, {"th", "t"}, {"t", "th"}, {"sh", "s"}, {"ee", "i"}, {"oo", "u"}, {"x", "ks"}
+    };
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--sizes", "1000,10000,100000",
+                "--queries", "500",
+                "--alias-percent", "20",
+                "--budget-ms", "1");
+        int queryCount = Integer.parseInt(options.get("--queries"));
+        int aliasPercent = Integer.parseInt(options.get("--alias-percent"));
+        double budgetMs = Double.parseDouble(options.get("--budget-ms"));
+        PrintStream report = System.out;
+        JSONArray runs = new JSONArray();
+        double lastP99 = 0;
+
+        Path appsFile = Files.createTempFile("vocadesk-phonetic", ".json");
+        Files.write(appsFile, "[]".getBytes(StandardCharsets.UTF_8));
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (String sizeOption : options.get("--sizes").split(",")) {
+                int size = Integer.parseInt(sizeOption.trim());
+                Random random = new Random(size);
+                RecordingAppLauncher appLauncher = new RecordingAppLauncher(appsFile.toString());
+                while (appLauncher.getAppCount() < size) {
+                    appLauncher.registerApplication(name(random), "/dev/null/app");
+                }
+                String[] names = appLauncher.getAppNames();
+                Arrays.sort(names);
+                for (String name : names) {
+                    if (random.nextInt(100) < aliasPercent) {
+                        String alias = name(random);
+                        if (!appLauncher.hasApp(alias) && appLauncher.resolveAlias(alias) == null) {
+                            appLauncher.registerAlias(name, alias);
+                        }
+                    }
+                }
+                Map<String, String> aliases = appLauncher.getAliases();
+                String[] spoken = appLauncher.getSpokenNames();
+
+                String[] heard = new String[queryCount];
+                String[] meant = new String[queryCount];
+                for (int q = 0; q < queryCount; q++) {
+                    String said = spoken[random.nextInt(spoken.length)];
+                    meant[q] = aliases.getOrDefault(said, said);
+                    heard[q] = mishear(said, random);
+                }
+
+                AppMatcher matcher = new AppMatcher(appLauncher);
+                String[] sorted = matcher.getSortedNames();
+                // Warm up the JIT on the same work before measuring
+                for (int q = 0; q < queryCount; q++) {
+                    matcher.findBestMatch(heard[q]);
+                    scan(matcher, sorted, heard[q]);
+                }
+
+                double[] indexed = new double[queryCount];
+                double[] scanned = new double[queryCount];
+                int indexedFound = 0;
+                int scanFound = 0;
+                for (int q = 0; q < queryCount; q++) {
+                    long start = System.nanoTime();
+                    String match = matcher.findBestMatch(heard[q]);
+                    indexed[q] = (System.nanoTime() - start) / 1e6;
+                    if (meant[q].equals(match)) {
+                        indexedFound++;
+                    }
+                    start = System.nanoTime();
+                    match = scan(matcher, sorted, heard[q]);
+                    scanned[q] = (System.nanoTime() - start) / 1e6;
+                    if (meant[q].equals(match)) {
+                        scanFound++;
+                    }
+                }
+                Arrays.sort(indexed);
+                Arrays.sort(scanned);
+                lastP99 = ReplayBenchmark.percentile(indexed, 99);
+
+                JSONObject run = new JSONObject();
+                run.put("apps", size);
+                run.put("aliases", aliases.size());
+                run.put("queries", queryCount);
+                run.put("indexMsP50", ReplayBenchmark.percentile(indexed, 50));
+                run.put("indexMsP99", lastP99);
+                run.put("indexFound", indexedFound);
+                run.put("scanMsP50", ReplayBenchmark.percentile(scanned, 50));
+                run.put("scanMsP99", ReplayBenchmark.percentile(scanned, 99));
+                run.put("scanFound", scanFound);
+                runs.put(run);
+            }
+        } finally {
+            System.setOut(report);
+            Files.deleteIfExists(appsFile);
+        }
+
+        JSONObject results = new JSONObject();
+        results.put("runs", runs);
+        results.put("budgetMs", budgetMs);
+        results.put("withinBudget", lastP99 <= budgetMs);
+        report.println(results.toString(2));
+        if (lastP99 > budgetMs) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The edit-distance scan of every name that findBestMatch used before the index
+     */
+    private static String scan(AppMatcher matcher, String[] sortedNames, String input) {
+        String bestMatch = null;
+        int bestScore = 4;
+        for (String appName : sortedNames) {
+            if (Math.abs(appName.length() - input.length()) >= bestScore) {
+                continue;
+            }
+            int distance = matcher.levenshteinDistance(input, appName, bestScore);
+            if (distance < bestScore) {
+                bestScore = distance;
+                bestMatch = appName;
+            }
+        }
+        return bestMatch;
+    }
+
+    /**
+     * A pronounceable name of two to four syllables, sometimes two words
+     */
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            if (i > 0 && random.nextInt(6) == 0) {
+                name.append(' ');
+            }
+            name.append(ONSETS[random.nextInt(ONSETS.length)]);
+            name.append(VOWELS[random.nextInt(VOWELS.length)]);
+            name.append(CODAS[random.nextInt(CODAS.length)]);
+        }
+        return name.toString();
+    }
+
+    /**
+     * Spell a name the way a recognizer might write what it heard
+     */
+    private static String mishear(String name, Random random) {
+        String heard = name;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            String[] swap = SOUND_ALIKE[random.nextInt(SOUND_ALIKE.length)];
+            int at = heard.indexOf(swap[0]);
+            if (at >= 0) {
+                heard = heard.substring(0, at) + swap[1] + heard.substring(at + swap[0].length());
+            }
+        }
+        // A vowel heard differently
+        for (int i = 1; i < heard.length(); i++) {
+            if ("aeiou".indexOf(heard.charAt(i)) >= 0 && random.nextBoolean()) {
+                heard = heard.substring(0, i) + "aeiou".charAt(random.nextInt(5)) + heard.substring(i + 1);
+                break;
+            }
+        }
+        // Words split where the recognizer heard a gap
+        if (heard.length() > 6 && random.nextBoolean()) {
+            int at = 3 + random.nextInt(heard.length() - 5);
+            heard = heard.substring(0, at) + " " + heard.substring(at);
+        }
+        return heard.trim().replaceAll(" +", " ");
+    }
+}
@@ -0,0 +1,190 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * PipelineLoadBenchmark - Load-tests the whole recognition pipeline with the scripted speech engine
+ * Writes a script of launch commands over the registry (every fourth one misheard by a letter,
+ * so fuzzy matching runs too) and loads it with ScriptedSpeechEngine, so neither a model nor
+ * the native library is needed. Then streams silence through each pipeline's processAudio in
+ * microphone-sized chunks, as the decode thread would, until every utterance has been heard:
+ * endpointing, recognizer results, N-best ranking, interpretation and launches (recorded by
+ * RecordingAppLauncher) all run for real. Reports utterances per second, per-utterance
+ * latency from its last chunk to dispatch, decode-thread CPU, and whether every app that
+ * should have launched did. Prints JSON and exits with status 1 if a pipeline handled fewer
+ * utterances per second than --min-rate or launched the wrong apps.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.PipelineLoadBenchmark [--apps apps.json]
+ *        [--utterances 20000] [--utterance-ms 600] [--chunk-ms 100] [--decode-us 0]
+ *        [--paths controller,console] [--min-rate 1000]
+ */
+public class PipelineLoadBenchmark {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int BYTES_PER_MS = SAMPLE_RATE * 2 / 1000;
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--apps", "apps.json",
+                "--utterances", "20000",
+                "--utterance-ms", "600",
+                "--chunk-ms", "100",
+                "--decode-us", "0",
+                "--paths", "controller,console",
+                "--min-rate", "1000");
+        int utteranceCount = Integer.parseInt(options.get("--utterances"));
+        int utteranceMs = Integer.parseInt(options.get("--utterance-ms"));
+        int chunkBytes = Integer.parseInt(options.get("--chunk-ms")) * BYTES_PER_MS;
+        double minRate = Double.parseDouble(options.get("--min-rate"));
+        PrintStream report = System.out;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        JSONArray runs = new JSONArray();
+        boolean withinBudget = true;
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        RecordingAppLauncher appLauncher = new RecordingAppLauncher(options.get("--apps"));
+        String[] appNames = appLauncher.getAppNames();
+        Arrays.sort(appNames);
+
+        // One pass of the script launches every app; it loops for as long as it is fed
+        Random random = new Random(1);
+        JSONArray utterances = new JSONArray();
+        Map<String, Integer> expectedPerPass = new HashMap<>();
+        for (int i = 0; i < appNames.length; i++) {
+            String heard = appNames[i];
+            if (i % 4 == 3 && heard.length() > 5) {
+                int drop = 1 + random.nextInt(heard.length() - 2);
+                heard = heard.substring(0, drop) + heard.substring(drop + 1);
+            }
+            utterances.put(new JSONObject().put("text", "open " + heard).put("ms", utteranceMs).put("confidence", 0.9));
+            expectedPerPass.merge(appNames[i], 1, Integer::sum);
+        }
+        Path scriptFile = Files.createTempFile("vocadesk-script", ".json");
+        Files.write(scriptFile, new JSONObject()
+                .put("loop", true)
+                .put("decodeMicros", Long.parseLong(options.get("--decode-us")))
+                .put("utterances", utterances)
+                .toString().getBytes(StandardCharsets.UTF_8));
+
+        ExecutionModel execution = new ExecutionModel();
+        try (SpeechModel model = SpeechEngine.named("scripted").loadModel(scriptFile.toString())) {
+            for (String path : options.get("--paths").split(",")) {
+                Pipeline pipeline = createPipeline(path.trim(), appLauncher, model, execution);
+                // Warm up the JIT on one pass of the script
+                feed(pipeline, appNames.length, chunkBytes, null);
+                execution.awaitIdle(10_000);
+                appLauncher.drainLaunches();
+
+                double[] latencies = new double[utteranceCount];
+                long cpuStart = threadBean.getCurrentThreadCpuTime();
+                long start = System.nanoTime();
+                int dispatched = feed(pipeline, utteranceCount, chunkBytes, latencies);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                double cpuSeconds = (threadBean.getCurrentThreadCpuTime() - cpuStart) / 1e9;
+                execution.awaitIdle(60_000);
+
+                List<RecordingAppLauncher.Launch> launches = appLauncher.drainLaunches();
+                Map<String, Integer> launched = new HashMap<>();
+                for (RecordingAppLauncher.Launch launch : launches) {
+                    launched.merge(launch.appName, 1, Integer::sum);
+                }
+                // The warm-up pass ended on a pass boundary, so this run starts at the top
+                Map<String, Integer> expected = new HashMap<>();
+                for (int i = 0; i < utteranceCount; i++) {
+                    expected.merge(appNames[i % appNames.length], 1, Integer::sum);
+                }
+                boolean allLaunched = launched.equals(expected);
+                double rate = dispatched / seconds;
+                withinBudget &= allLaunched && rate >= minRate;
+
+                Arrays.sort(latencies);
+                JSONObject run = new JSONObject();
+                run.put("path", path.trim());
+                run.put("utterances", utteranceCount);
+                run.put("dispatched", dispatched);
+                run.put("launches", launches.size());
+                run.put("allLaunched", allLaunched);
+                run.put("utterancesPerSecond", rate);
+                run.put("audioSecondsPerSecond", dispatched * utteranceMs / 1000.0 / seconds);
+                run.put("latencyMsP50", ReplayBenchmark.percentile(latencies, 50));
+                run.put("latencyMsP99", ReplayBenchmark.percentile(latencies, 99));
+                run.put("decodeCpuUsPerUtterance", cpuSeconds * 1e6 / Math.max(1, dispatched));
+                runs.put(run);
+            }
+        } finally {
+            execution.shutdown(1000);
+            System.setOut(report);
+            Files.deleteIfExists(scriptFile);
+        }
+
+        JSONObject results = new JSONObject();
+        results.put("apps", appNames.length);
+        results.put("utteranceMs", utteranceMs);
+        results.put("chunkBytes", chunkBytes);
+        results.put("runs", runs);
+        results.put("minRate", minRate);
+        results.put("withinBudget", withinBudget);
+        report.println(results.toString(2));
+        if (!withinBudget) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The two frontends' audio entry points
+     */
+    private interface Pipeline {
+        boolean processAudio(byte[] buffer, int length);
+    }
+
+    private static Pipeline createPipeline(String name, AppLauncher appLauncher, SpeechModel model,
+                                           ExecutionModel execution) throws Exception {
+        if (name.equals("controller")) {
+            return new VoiceRecognitionController(appLauncher, ReplayBenchmark.silentFeedback(), model,
+                    execution)::processAudio;
+        }
+        if (name.equals("console")) {
+            return new VoiceLauncher(appLauncher, model, execution)::processAudio;
+        }
+        throw new IllegalArgumentException("Unknown pipeline path: " + name + " (use controller or console)");
+    }
+
+    /**
+     * Feed silence until the given number of utterances has been dispatched
+     * @param latencies Filled with each utterance's time from its last chunk to dispatch, or null
+     * @return Utterances dispatched
+     */
+    private static int feed(Pipeline pipeline, int utterances, int chunkBytes, double[] latencies) {
+        byte[] silence = new byte[chunkBytes];
+        int dispatched = 0;
+        while (dispatched < utterances) {
+            long chunkStart = System.nanoTime();
+            if (pipeline.processAudio(silence, chunkBytes)) {
+                if (latencies != null) {
+                    latencies[dispatched] = (System.nanoTime() - chunkStart) / 1e6;
+                }
+                dispatched++;
+            }
+        }
+        return dispatched;
+    }
+}
@@ -0,0 +1,184 @@
+package com.vocadesk;
+
+import java.util.Arrays;
+
+/**
+ * PolyphaseResampler - Streaming rational-ratio resampler with built-in downmix to mono
+ * Converts interleaved 16-bit PCM at the capture device's native rate (e.g. 44.1/48 kHz
+ * stereo) to 16 kHz mono for Vosk. Filter taps are Q15 fixed point; the inner loop is a
+ * branch-free dot product over two contiguous arrays, which C2 vectorizes. No allocation
+ * happens after construction.
+ */
+public class PolyphaseResampler {
+
+    // Filter length in input samples per unit of decimation ratio
+    private static final int TAPS_PER_RATIO = 20;
+    private static final int Q = 15;
+
+    private final int inputRate;
+    private final int outputRate;
+    private final int channels;
+    private final int upFactor;
+    private final int downFactor;
+    private final int tapsPerPhase;
+
+    // coefficients[phase * tapsPerPhase + k], each phase reversed for a forward dot product
+    private final int[] coefficients;
+
+    // Delay line written twice (at i and i + tapsPerPhase) so the newest window is contiguous
+    private final int[] history;
+    private int historyPos;
+    private int phase;
+
+    /**
+     * Constructor - Design the polyphase filter for a conversion
+     * @param inputRate Native capture rate in Hz
+     * @param outputRate Target rate in Hz (16000 for Vosk)
+     * @param channels Interleaved channels in the input (mixed down to mono)
+     */
+    public PolyphaseResampler(int inputRate, int outputRate, int channels) {
+        this.inputRate = inputRate;
+        this.outputRate = outputRate;
+        this.channels = channels;
+        int divisor = gcd(inputRate, outputRate);
+        this.upFactor = outputRate / divisor;
+        this.downFactor = inputRate / divisor;
+        // Longer filters for steeper decimation; a multiple of 8 keeps the dot product unrolled
+        int taps = (int) Math.ceil(TAPS_PER_RATIO * Math.max(1.0, (double) inputRate / outputRate));
+        this.tapsPerPhase = (taps + 7) & ~7;
+        this.history = new int[tapsPerPhase * 2];
+        this.coefficients = designFilter(upFactor, tapsPerPhase, inputRate, outputRate);
+    }
+
+    /**
+     * Windowed-sinc low-pass at the upsampled rate, split into upFactor phases
+     */
+    private static int[] designFilter(int up, int tapsPerPhase, int inputRate, int outputRate) {
+        int length = up * tapsPerPhase;
+        double upsampledRate = (double) inputRate * up;
+        // Cut off a little below the lower Nyquist frequency to leave room for the transition band
+        double cutoff = 0.45 * Math.min(inputRate, outputRate) / upsampledRate;
+        double center = (length - 1) / 2.0;
+        double[] prototype = new double[length];
+
+        for (int n = 0; n < length; n++) {
+            double x = n - center;
+            double sinc = x == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+            // Blackman window
+            double window = 0.42 - 0.5 * Math.cos(2 * Math.PI * n / (length - 1))
+                    + 0.08 * Math.cos(4 * Math.PI * n / (length - 1));
+            prototype[n] = sinc * window * up;
+        }
+
+        int[] taps = new int[length];
+        for (int p = 0; p < up; p++) {
+            for (int k = 0; k < tapsPerPhase; k++) {
+                // Tap k of phase p multiplies the sample k steps in the past; store it reversed
+                // so the dot product walks the history window oldest -> newest
+                double value = prototype[p + k * up];
+                taps[p * tapsPerPhase + (tapsPerPhase - 1 - k)] = (int) Math.round(value * (1 << Q));
+            }
+        }
+        return taps;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Resample a block of interleaved frames
+     * @param input Interleaved 16-bit samples
+     * @param offset First sample in input
+     * @param frames Number of frames (samples per channel) to consume
+     * @param output Destination for mono samples at the output rate
+     * @param outputOffset First slot in output
+     * @return Number of output samples written
+     */
+    public int process(short[] input, int offset, int frames, short[] output, int outputOffset) {
+        int written = 0;
+        int index = offset;
+
+        for (int f = 0; f < frames; f++) {
+            // Downmix
+            int sample = 0;
+            for (int c = 0; c < channels; c++) {
+                sample += input[index++];
+            }
+            sample /= channels;
+
+            // Push into the doubled delay line
+            history[historyPos] = sample;
+            history[historyPos + tapsPerPhase] = sample;
+            historyPos++;
+            if (historyPos == tapsPerPhase) {
+                historyPos = 0;
+            }
+
+            // Emit every output sample that falls before the next input sample
+            while (phase < upFactor) {
+                output[outputOffset + written++] = dot(phase * tapsPerPhase, historyPos);
+                phase += downFactor;
+            }
+            phase -= upFactor;
+        }
+        return written;
+    }
+
+    /**
+     * Q15 dot product of one filter phase with the newest tapsPerPhase samples
+     */
+    private short dot(int tapOffset, int windowStart) {
+        long acc = 0;
+        for (int k = 0; k < tapsPerPhase; k++) {
+            acc += (long) coefficients[tapOffset + k] * history[windowStart + k];
+        }
+        long value = (acc + (1L << (Q - 1))) >> Q;
+        if (value > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (value < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return (short) value;
+    }
+
+    /**
+     * Upper bound on output samples produced from a number of input frames
+     * @param frames Input frames
+     * @return Maximum output samples
+     */
+    public int maxOutputSamples(int frames) {
+        return (int) ((long) frames * upFactor / downFactor) + 2;
+    }
+
+    /**
+     * Clear filter state (e.g. between recordings)
+     */
+    public void reset() {
+        Arrays.fill(history, 0);
+        historyPos = 0;
+        phase = 0;
+    }
+
+    public int getInputRate() {
+        return inputRate;
+    }
+
+    public int getOutputRate() {
+        return outputRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getTapsPerPhase() {
+        return tapsPerPhase;
+    }
+}
@@ -0,0 +1,168 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * PreprocessorBenchmark - Checks the capture preprocessing chain against a CPU budget
+ * Streams synthetic noisy audio (speech-like bursts over hiss, hum and a DC offset) through
+ * each stage alone and through the full chain in capture-sized chunks, and prints CPU ms per
+ * audio second, bytes allocated per chunk and the signal-to-noise ratio of the output as JSON.
+ * Exits with status 1 if a chain exceeds the budget.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.PreprocessorBenchmark
+ *        [--chains none,dc,highpass,denoise,agc,dc+highpass+denoise+agc] [--seconds 60]
+ *        [--chunk 4096] [--budget-ms 5]
+ */
+public class PreprocessorBenchmark {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final double NOISE_RMS = 400;
+    // Samples this close to a burst edge are left out of the SNR (covers the denoiser's delay)
+    private static final int EDGE_SAMPLES = SAMPLE_RATE / 25;
+
+    private static final byte NOISE = 0;
+    private static final byte SPEECH = 1;
+    private static final byte EDGE = 2;
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--chains", "none,dc,highpass,denoise,agc,dc+highpass+denoise+agc",
+                "--seconds", "60",
+                "--chunk", "4096",
+                "--budget-ms", "5");
+        int seconds = Integer.parseInt(options.get("--seconds"));
+        int chunkBytes = Integer.parseInt(options.get("--chunk"));
+        double budgetMs = Double.parseDouble(options.get("--budget-ms"));
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // First calls of the MXBean methods allocate; keep that out of the first measurement
+        threadBean.getThreadAllocatedBytes(threadId);
+        threadBean.getCurrentThreadCpuTime();
+
+        // Ten seconds of test audio, replayed as often as needed
+        byte[] segments = new byte[SAMPLE_RATE * 10];
+        byte[] audio = synthesize(segments);
+        byte[] chunk = new byte[chunkBytes];
+        int chunks = (int) ((long) seconds * SAMPLE_RATE * 2 / chunkBytes);
+        JSONArray runs = new JSONArray();
+        boolean withinBudget = true;
+
+        for (String chain : options.get("--chains").split(",")) {
+            AudioPreprocessor preprocessor = AudioPreprocessor.fromNames(chain.replace('+', ','));
+
+            // Warm up so C2 has compiled every stage before measuring
+            for (int i = 0; i < 3000; i++) {
+                feed(preprocessor, audio, chunk, i, null, null);
+            }
+            preprocessor.reset();
+
+            long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+            long cpuBefore = threadBean.getCurrentThreadCpuTime();
+            for (int i = 0; i < chunks; i++) {
+                feed(preprocessor, audio, chunk, i, null, null);
+            }
+            long cpu = threadBean.getCurrentThreadCpuTime() - cpuBefore;
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            // Separate untimed pass over the test audio for the output SNR
+            preprocessor.reset();
+            double[] energy = new double[4];
+            for (int i = 0; i < audio.length / chunkBytes; i++) {
+                feed(preprocessor, audio, chunk, i, segments, energy);
+            }
+            double speechPower = energy[0] / Math.max(1, energy[1]);
+            double noisePower = energy[2] / Math.max(1, energy[3]);
+
+            double audioSeconds = (double) chunks * chunkBytes / (SAMPLE_RATE * 2);
+            double cpuMsPerSecond = cpu / 1e6 / audioSeconds;
+            withinBudget &= cpuMsPerSecond <= budgetMs;
+
+            JSONObject run = new JSONObject();
+            run.put("chain", preprocessor.describe());
+            run.put("cpuMsPerAudioSecond", cpuMsPerSecond);
+            run.put("bytesAllocatedPerChunk", (double) allocated / chunks);
+            run.put("snrDb", 10 * Math.log10(speechPower / Math.max(1e-9, noisePower)));
+            run.put("withinBudget", cpuMsPerSecond <= budgetMs);
+            runs.put(run);
+        }
+
+        JSONObject results = new JSONObject();
+        results.put("chunkBytes", chunkBytes);
+        results.put("budgetMsPerAudioSecond", budgetMs);
+        results.put("runs", runs);
+        System.out.println(results.toString(2));
+        if (!withinBudget) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Copy the next chunk of the looped test audio, process it and, when asked, accumulate
+     * speech and noise energy (energy[0..1] inside bursts, energy[2..3] between them)
+     */
+    private static void feed(AudioPreprocessor preprocessor, byte[] audio, byte[] chunk, int index,
+                             byte[] segments, double[] energy) {
+        int start = (int) ((long) index * chunk.length % audio.length);
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = audio[(start + i) % audio.length];
+        }
+        preprocessor.process(chunk, chunk.length);
+
+        if (energy != null) {
+            for (int i = 0; i + 1 < chunk.length; i += 2) {
+                int segment = segments[((start + i) % audio.length) / 2];
+                if (segment != EDGE) {
+                    int sample = (short) ((chunk[i] & 0xff) | (chunk[i + 1] << 8));
+                    int slot = segment == SPEECH ? 0 : 2;
+                    energy[slot] += (double) sample * sample;
+                    energy[slot + 1]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Speech-like bursts (harmonics of a wandering pitch, 0.8 s on, 0.7 s off) over white
+     * noise, 50 Hz hum and a DC offset
+     * @param segments Filled with NOISE, SPEECH or EDGE per sample
+     */
+    private static byte[] synthesize(byte[] segments) {
+        Random random = new Random(7);
+        byte[] audio = new byte[segments.length * 2];
+        int period = SAMPLE_RATE * 3 / 2;
+        int burst = SAMPLE_RATE * 4 / 5;
+        double phase = 0;
+        for (int n = 0; n < segments.length; n++) {
+            double t = (double) n / SAMPLE_RATE;
+            int position = n % period;
+            boolean speech = position < burst;
+            boolean edge = position < EDGE_SAMPLES || Math.abs(position - burst) < EDGE_SAMPLES
+                    || period - position < EDGE_SAMPLES;
+            segments[n] = edge ? EDGE : speech ? SPEECH : NOISE;
+
+            double value = 300 + 600 * Math.sin(2 * Math.PI * 50 * t) + random.nextGaussian() * NOISE_RMS;
+            if (speech) {
+                double pitch = 140 + 30 * Math.sin(2 * Math.PI * 3 * t);
+                phase += 2 * Math.PI * pitch / SAMPLE_RATE;
+                for (int harmonic = 1; harmonic <= 12; harmonic++) {
+                    value += 4000.0 / harmonic * Math.sin(harmonic * phase);
+                }
+            }
+            short sample = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+            audio[2 * n] = (byte) sample;
+            audio[2 * n + 1] = (byte) (sample >> 8);
+        }
+        return audio;
+    }
+}
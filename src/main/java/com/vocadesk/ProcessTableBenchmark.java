@@ -0,0 +1,126 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * ProcessTableBenchmark - Measures the running-process cache that launch requests consult
+ * Optionally starts extra idle processes to grow the process table, then times a cold
+ * refresh (every command read), warm refreshes (only new processes read), a naive listing
+ * that reads every process's command each time, and a find for this JVM's own executable.
+ * Also checks that a process started between refreshes is read and found, and is gone once
+ * it exits. Prints JSON and exits with status 1 if the median warm refresh exceeds the budget
+ * (the cost added to a typical launch).
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.ProcessTableBenchmark [--repeat 200] [--spawn 0]
+ *        [--idle-command "sleep 600"] [--budget-ms 5]
+ */
+public class ProcessTableBenchmark {
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--repeat", "200",
+                "--spawn", "0",
+                "--idle-command", "sleep 600",
+                "--budget-ms", "5");
+        int repeat = Integer.parseInt(options.get("--repeat"));
+        int spawn = Integer.parseInt(options.get("--spawn"));
+        double budgetMs = Double.parseDouble(options.get("--budget-ms"));
+        List<String> idleCommand = Arrays.asList(options.get("--idle-command").trim().split("\\s+"));
+        List<Process> idle = new ArrayList<>();
+        JSONObject results = new JSONObject();
+        double p50;
+
+        try {
+            for (int i = 0; i < spawn; i++) {
+                idle.add(new ProcessBuilder(idleCommand).start());
+            }
+
+            RunningProcesses running = new RunningProcesses();
+            long start = System.nanoTime();
+            int read = running.refresh();
+            results.put("processes", running.size());
+            results.put("coldRefreshMs", (System.nanoTime() - start) / 1e6);
+            results.put("coldRefreshRead", read);
+
+            double[] warm = new double[repeat];
+            int warmRead = 0;
+            for (int r = 0; r < repeat; r++) {
+                start = System.nanoTime();
+                warmRead += running.refresh();
+                warm[r] = (System.nanoTime() - start) / 1e6;
+            }
+            Arrays.sort(warm);
+            p50 = ReplayBenchmark.percentile(warm, 50);
+            results.put("warmRefreshMsP50", p50);
+            results.put("warmRefreshMsP99", ReplayBenchmark.percentile(warm, 99));
+            results.put("warmRefreshMeanRead", (double) warmRead / repeat);
+
+            // Without the cache: every command read on every launch
+            double[] naive = new double[Math.max(1, repeat / 10)];
+            for (int r = 0; r < naive.length; r++) {
+                start = System.nanoTime();
+                int commands = 0;
+                for (Iterator<ProcessHandle> it = ProcessHandle.allProcesses().iterator(); it.hasNext(); ) {
+                    if (it.next().info().command().isPresent()) {
+                        commands++;
+                    }
+                }
+                naive[r] = (System.nanoTime() - start) / 1e6;
+                results.put("naiveCommandsRead", commands);
+            }
+            Arrays.sort(naive);
+            results.put("naiveListingMsP50", ReplayBenchmark.percentile(naive, 50));
+
+            // Lookup by executable, as AppLauncher does for "focus" apps
+            String java = ProcessHandle.current().info().command().orElse("");
+            double[] finds = new double[repeat];
+            boolean foundSelf = false;
+            for (int r = 0; r < repeat; r++) {
+                start = System.nanoTime();
+                foundSelf = running.find(java).isPresent();
+                finds[r] = (System.nanoTime() - start) / 1e6;
+            }
+            Arrays.sort(finds);
+            results.put("findMsP50", ReplayBenchmark.percentile(finds, 50));
+            results.put("findMsP99", ReplayBenchmark.percentile(finds, 99));
+            results.put("foundOwnJvm", foundSelf);
+
+            // A process started between refreshes is read once, found, and dropped after it exits
+            Process probe = new ProcessBuilder(idleCommand).start();
+            String probeCommand = probe.info().command().orElse(idleCommand.get(0));
+            int probeRead = running.refresh();
+            Optional<ProcessHandle> found = running.find(probeCommand);
+            probe.destroy();
+            probe.waitFor();
+            running.refresh();
+            results.put("newProcessRead", probeRead);
+            results.put("newProcessFound", found.isPresent());
+            results.put("exitedProcessDropped", !running.find(probeCommand).isPresent()
+                    || running.find(probeCommand).get().pid() != probe.pid());
+
+        } finally {
+            for (Process process : idle) {
+                process.destroy();
+            }
+        }
+
+        results.put("budgetMs", budgetMs);
+        results.put("withinBudget", p50 <= budgetMs);
+        System.out.println(results.toString(2));
+        if (p50 > budgetMs) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * RecognitionWorker - Worker process that decodes audio for the GUI (see RemoteRecognizer)
+ * Loads the model and a VoiceRecognitionController, opens the Unix domain socket once ready,
+ * then decodes whatever the GUI has put in the PcmRing each time a doorbell line arrives.
+ * Commands are sent back instead of run; the GUI owns launching, history and the window.
+ *
+ * Protocol (one line per message)
+ *   GUI -> worker: "a" (new audio), "reset", "profile <name>", "reload", "quit"
+ *   worker -> GUI: {"intent": {...}}, {"log": "..."}, {"heard": "..."}, {"ack": position}
+ *
+ * Usage (started by RemoteRecognizer):
+ *   java -cp vocadesk.jar com.vocadesk.RecognitionWorker <ring-file> <socket> [--echo]
+ * --echo skips recognition and acknowledges every chunk read, for transport measurements.
+ */
+public class RecognitionWorker {
+
+    private static final String MODEL_PATH = "model";
+
+    private final SocketChannel client;
+    private final Object sendLock = new Object();
+
+    private RecognitionWorker(SocketChannel client) {
+        this.client = client;
+    }
+
+    /**
+     * Main entry point for the worker process
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("[ERROR] Usage: RecognitionWorker <ring-file> <socket> [--echo]");
+            System.exit(2);
+        }
+        Path ringFile = Paths.get(args[0]);
+        Path socketFile = Paths.get(args[1]);
+        boolean echo = args.length > 2 && args[2].equals("--echo");
+
+        // Load everything before opening the socket: a connection means "ready"
+        SpeechModel model = echo ? null : SpeechEngine.fromConfig().loadModel(MODEL_PATH);
+        AppLauncher appLauncher = new AppLauncher("apps.json");
+        ExecutionModel execution = new ExecutionModel();
+
+        Files.deleteIfExists(socketFile);
+        try (PcmRing ring = PcmRing.open(ringFile);
+             ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketFile));
+            RecognitionWorker worker = new RecognitionWorker(server.accept());
+
+            VoiceRecognitionController controller = null;
+            if (!echo) {
+                controller = new VoiceRecognitionController(appLauncher, worker.feedback(), model, execution);
+                controller.applyConfiguredDecoding();
+                controller.setIntentSink(intent -> {
+                    JSONObject message = new JSONObject();
+                    message.put("intent", intent.toJson());
+                    worker.send(message);
+                });
+            }
+            worker.serve(ring, controller, appLauncher);
+
+            if (controller != null) {
+                controller.cleanup();
+            } else {
+                execution.shutdown(1000);
+            }
+        } finally {
+            Files.deleteIfExists(socketFile);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Handle GUI messages until "quit" or the connection closes
+     * @param controller Decoder, or null in echo mode
+     */
+    private void serve(PcmRing ring, VoiceRecognitionController controller, AppLauncher appLauncher)
+            throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+        // Audio written before this worker was ready is stale
+        long position = ring.getWritePosition();
+        byte[] chunk = new byte[LatencyProfile.BALANCED.getChunkBytes()];
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (line.equals("a")) {
+                int read;
+                while ((read = ring.read(position, chunk, 0, chunk.length)) != 0) {
+                    if (read < 0) {
+                        System.err.println("[WARNING] Worker fell behind the capture ring; skipping ahead");
+                        position = ring.getWritePosition();
+                        continue;
+                    }
+                    position += read;
+                    if (controller == null) {
+                        JSONObject ack = new JSONObject();
+                        ack.put("ack", position);
+                        send(ack);
+                    } else {
+                        controller.processAudio(chunk, read);
+                    }
+                }
+            } else if (line.startsWith("profile ")) {
+                LatencyProfile profile = LatencyProfile.fromName(line.substring("profile ".length()));
+                if (profile != null) {
+                    chunk = new byte[profile.getChunkBytes()];
+                    if (controller != null) {
+                        controller.setProfile(profile);
+                    }
+                }
+            } else if (line.equals("reset")) {
+                if (controller != null) {
+                    controller.resetRecognizer();
+                }
+            } else if (line.equals("reload")) {
+                appLauncher.reload();
+            } else if (line.equals("quit")) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forwards the controller's log and heard text to the GUI
+     */
+    private VoiceFeedback feedback() {
+        return new VoiceFeedback() {
+            @Override
+            public void appendLog(String message) {
+                send(new JSONObject().put("log", message));
+            }
+
+            @Override
+            public void updateLastCommand(String command) {
+                send(new JSONObject().put("heard", command));
+            }
+
+            @Override
+            public void updateAppList(String[] appNames) {
+            }
+        };
+    }
+
+    private void send(JSONObject message) {
+        synchronized (sendLock) {
+            try {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(message + "\n");
+                while (bytes.hasRemaining()) {
+                    client.write(bytes);
+                }
+            } catch (IOException e) {
+                // GUI went away; the read loop ends on its own
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.vocadesk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RecordingAppLauncher - AppLauncher stand-in that records launches instead of spawning processes
+ * Used by the replay benchmarks so the real registry and matching logic run without side effects
+ */
+public class RecordingAppLauncher extends AppLauncher {
+
+    /**
+     * A single recorded launch
+     */
+    public static class Launch {
+        public final String appName;
+        public final String appPath;
+        public final long nanoTime;
+
+        Launch(String appName, String appPath, long nanoTime) {
+            this.appName = appName;
+            this.appPath = appPath;
+            this.nanoTime = nanoTime;
+        }
+    }
+
+    private final List<Launch> launches = new ArrayList<>();
+    private volatile long launchDelayMillis;
+
+    /**
+     * Constructor - Load the registry from apps.json
+     * @param jsonFilePath Path to the apps.json configuration file
+     */
+    public RecordingAppLauncher(String jsonFilePath) {
+        super(jsonFilePath);
+    }
+
+    @Override
+    protected void startProcess(String appName, List<String> command) throws IOException {
+        if (launchDelayMillis > 0) {
+            try {
+                // Stand-in for the time ProcessBuilder.start blocks the caller
+                Thread.sleep(launchDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Launch interrupted", e);
+            }
+        }
+        synchronized (this) {
+            launches.add(new Launch(appName, command.get(command.size() - 1), System.nanoTime()));
+        }
+    }
+
+    /**
+     * Simulate process spawn time so blocking behaviour can be measured
+     * @param launchDelayMillis Time each launch blocks its calling thread
+     */
+    public void setLaunchDelayMillis(long launchDelayMillis) {
+        this.launchDelayMillis = launchDelayMillis;
+    }
+
+    /**
+     * Pad the registry with synthetic entries so matching can be measured at larger sizes
+     * @param targetSize Desired number of registered applications
+     */
+    public void padRegistry(int targetSize) {
+        int index = 0;
+        while (getAppCount() < targetSize) {
+            registerApplication("synthetic app " + index, "/dev/null/synthetic-" + index);
+            index++;
+        }
+    }
+
+    /**
+     * Get and clear the launches recorded since the last call
+     * @return Recorded launches in order
+     */
+    public synchronized List<Launch> drainLaunches() {
+        List<Launch> drained = new ArrayList<>(launches);
+        launches.clear();
+        return drained;
+    }
+}
@@ -0,0 +1,357 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * RemoteRecognizer - Runs speech recognition in a separate worker JVM (see RecognitionWorker)
+ * Keeps the native Vosk model out of the GUI process, so its memory does not count against
+ * the Swing JVM and a native crash only takes down the worker. Captured PCM is written to
+ * a memory-mapped PcmRing; a one-line doorbell on a Unix domain socket tells the worker
+ * new audio is there, and the worker answers on the same socket with JSON lines (intents,
+ * log lines, heard text). A supervisor thread restarts the worker whenever it exits, with
+ * a backoff that doubles up to 30 s and resets once a worker has stayed up for a minute.
+ *
+ * Settings: vocadesk.recognizer (in-process or worker, default in-process),
+ *           vocadesk.worker.jvm-options (default "-Xmx256m"),
+ *           vocadesk.worker.ring-kb (default 1024, about 32 s of audio)
+ */
+public class RemoteRecognizer implements AutoCloseable {
+
+    private static final long CONNECT_TIMEOUT_MS = 120000;
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30000;
+    private static final long STABLE_MS = 60000;
+
+    private final VoiceFeedback feedback;
+    private final Consumer<CommandIntent> intents;
+    private final String[] workerArgs;
+    private final Path directory;
+    private final Path ringFile;
+    private final Path socketFile;
+    private final PcmRing ring;
+    private final Object sendLock = new Object();
+    private final ByteBuffer doorbell = ByteBuffer.wrap("a\n".getBytes(StandardCharsets.US_ASCII));
+
+    private volatile LatencyProfile profile;
+    private volatile SocketChannel channel;
+    private volatile Process process;
+    private volatile boolean closed;
+    private volatile LongConsumer ackListener;
+    private Thread supervisor;
+    private int restarts;
+
+    /**
+     * Constructor - Prepare the ring file and socket path; call start to launch the worker
+     * @param profile Latency profile for the worker's endpointing
+     * @param feedback Receives the worker's log lines and heard text
+     * @param intents Receives the worker's commands (called on the supervisor thread)
+     */
+    public RemoteRecognizer(LatencyProfile profile, VoiceFeedback feedback,
+                            Consumer<CommandIntent> intents) throws IOException {
+        this(profile, feedback, intents, new String[0]);
+    }
+
+    /**
+     * Constructor - With extra worker arguments (WorkerTransportBenchmark passes --echo)
+     */
+    RemoteRecognizer(LatencyProfile profile, VoiceFeedback feedback, Consumer<CommandIntent> intents,
+                     String... workerArgs) throws IOException {
+        this.profile = profile;
+        this.feedback = feedback;
+        this.intents = intents;
+        this.workerArgs = workerArgs;
+        this.directory = Files.createTempDirectory("vocadesk-worker");
+        this.ringFile = directory.resolve("pcm.ring");
+        this.socketFile = directory.resolve("worker.sock");
+        this.ring = PcmRing.create(ringFile, VocadeskConfig.getInt("vocadesk.worker.ring-kb", 1024) * 1024);
+    }
+
+    /**
+     * Launch the worker and keep it running until close
+     */
+    public void start() {
+        supervisor = ExecutionModel.newServiceThread("vocadesk-worker-supervisor", this::supervise);
+        supervisor.start();
+    }
+
+    private void supervise() {
+        long backoff = INITIAL_BACKOFF_MS;
+        while (!closed) {
+            long started = System.currentTimeMillis();
+            try {
+                process = launch();
+                SocketChannel connected = connect(process);
+                channel = connected;
+                send("profile " + profile);
+                feedback.appendLog("[SUCCESS] Recognition worker ready (pid " + process.pid() + ")");
+                readMessages(connected);
+            } catch (IOException e) {
+                if (!closed) {
+                    feedback.appendLog("[ERROR] Recognition worker: " + e.getMessage());
+                }
+            } finally {
+                disconnect();
+            }
+            if (closed) {
+                break;
+            }
+
+            int code = process == null ? -1 : awaitExit(process);
+            restarts++;
+            if (System.currentTimeMillis() - started > STABLE_MS) {
+                backoff = INITIAL_BACKOFF_MS;
+            }
+            feedback.appendLog("[WARNING] Recognition worker exited (code " + code + ") - restarting in "
+                    + backoff / 1000 + " s");
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    private Process launch() throws IOException {
+        Files.deleteIfExists(socketFile);
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        String jvmOptions = VocadeskConfig.getString("vocadesk.worker.jvm-options", "-Xmx256m");
+        for (String option : jvmOptions.trim().split("\\s+")) {
+            if (!option.isEmpty()) {
+                command.add(option);
+            }
+        }
+        // Same settings as this process, except that the ring already carries preprocessed audio
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("vocadesk.")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add("-Dvocadesk.preprocess=none");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(RecognitionWorker.class.getName());
+        command.add(ringFile.toString());
+        command.add(socketFile.toString());
+        command.addAll(Arrays.asList(workerArgs));
+        // Its log reaches the GUI over the socket; errors still go to this process's stderr
+        return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /**
+     * Wait for the worker to load its model and open its socket
+     */
+    private SocketChannel connect(Process worker) throws IOException {
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socketFile);
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MS;
+        while (!closed) {
+            if (!worker.isAlive()) {
+                throw new IOException("worker exited during startup");
+            }
+            if (System.currentTimeMillis() > deadline) {
+                worker.destroyForcibly();
+                throw new IOException("worker did not start within " + CONNECT_TIMEOUT_MS / 1000 + " s");
+            }
+            if (Files.exists(socketFile)) {
+                SocketChannel attempt = SocketChannel.open(StandardProtocolFamily.UNIX);
+                try {
+                    attempt.connect(address);
+                    return attempt;
+                } catch (IOException e) {
+                    // Bound but not accepting yet
+                    attempt.close();
+                }
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted while starting worker");
+            }
+        }
+        throw new IOException("closed");
+    }
+
+    private void readMessages(SocketChannel connected) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Channels.newInputStream(connected), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            JSONObject message = new JSONObject(line);
+            if (message.has("intent")) {
+                intents.accept(CommandIntent.fromJson(message.getJSONObject("intent")));
+            } else if (message.has("log")) {
+                feedback.appendLog(message.getString("log"));
+            } else if (message.has("heard")) {
+                feedback.updateLastCommand(message.getString("heard"));
+            } else if (message.has("ack")) {
+                LongConsumer listener = ackListener;
+                if (listener != null) {
+                    listener.accept(message.getLong("ack"));
+                }
+            }
+        }
+    }
+
+    private void disconnect() {
+        SocketChannel connected = channel;
+        channel = null;
+        if (connected != null) {
+            try {
+                connected.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+
+    private static int awaitExit(Process worker) {
+        try {
+            if (!worker.waitFor(2, TimeUnit.SECONDS)) {
+                worker.destroyForcibly();
+                worker.waitFor();
+            }
+            return worker.exitValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    /**
+     * Hand captured audio to the worker (audio is dropped while no worker is connected)
+     * @param buffer 16 kHz mono PCM bytes, already preprocessed
+     * @param length Number of valid bytes in buffer
+     */
+    public void write(byte[] buffer, int length) {
+        ring.write(buffer, 0, length);
+        synchronized (sendLock) {
+            SocketChannel connected = channel;
+            if (connected == null) {
+                return;
+            }
+            try {
+                doorbell.rewind();
+                while (doorbell.hasRemaining()) {
+                    connected.write(doorbell);
+                }
+            } catch (IOException e) {
+                // The reader notices the broken connection and restarts the worker
+            }
+        }
+    }
+
+    private void send(String line) {
+        synchronized (sendLock) {
+            SocketChannel connected = channel;
+            if (connected == null) {
+                return;
+            }
+            try {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(line + "\n");
+                while (bytes.hasRemaining()) {
+                    connected.write(bytes);
+                }
+            } catch (IOException e) {
+                // The reader notices the broken connection and restarts the worker
+            }
+        }
+    }
+
+    /**
+     * Switch the worker's latency profile (also sent to every restarted worker)
+     */
+    public void setProfile(LatencyProfile newProfile) {
+        profile = newProfile;
+        send("profile " + newProfile);
+    }
+
+    /**
+     * Discard the utterance the worker is decoding
+     */
+    public void reset() {
+        send("reset");
+    }
+
+    /**
+     * Make the worker reload apps.json after the GUI did
+     */
+    public void reloadApps() {
+        send("reload");
+    }
+
+    /**
+     * Receive ring positions acknowledged by an echo worker (see WorkerTransportBenchmark)
+     */
+    void setAckListener(LongConsumer listener) {
+        this.ackListener = listener;
+    }
+
+    /**
+     * Wait until a worker is connected
+     * @param timeoutMillis Maximum wait
+     * @return true if connected
+     */
+    boolean awaitConnected(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (channel == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return channel != null;
+    }
+
+    /**
+     * Get the worker process (null before the first launch)
+     */
+    Process getProcess() {
+        return process;
+    }
+
+    public int getRestarts() {
+        return restarts;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        send("quit");
+        Process worker = process;
+        if (worker != null) {
+            awaitExit(worker);
+        }
+        disconnect();
+        if (supervisor != null) {
+            supervisor.interrupt();
+        }
+        try {
+            ring.close();
+            Files.deleteIfExists(socketFile);
+            Files.deleteIfExists(ringFile);
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            System.err.println("[WARNING] Could not remove worker files in " + directory);
+        }
+    }
+}
@@ -0,0 +1,573 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReplayBenchmark - Streams recorded command WAVs through the real recognition pipeline
+ * Covers both the GUI controller path and the console VoiceLauncher path, with
+ * RecordingAppLauncher standing in for process spawning, and prints JSON results
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.ReplayBenchmark --corpus corpus.json
+ *        [--model model] [--apps apps.json] [--registry-sizes 24,1000,10000]
+ *        [--paths controller,console] [--profiles low-latency,balanced,low-power]
+ *        [--alternatives 0,5] [--large-model model-large] [--decoders small,large,cascade]
+ *        [--trailing-silence-ms 1500] [--out results.json]
+ *
+ * corpus.json: [{"wav": "wavs/open_chrome_01.wav", "expected": "chrome",
+ *                "accent": "indian", "noise": "cafe"}, ...]
+ * "expected" is the app that should launch, or "none" for commands that launch nothing.
+ * WAV paths are resolved relative to the corpus file.
+ * Each latency profile is replayed with its own chunk size and endpointer settings.
+ * --alternatives compares N-best re-ranking (e.g. 5) with the single top result (0);
+ * runs report how many launches still needed a fuzzy match and how many were rejected.
+ * With --large-model, each run is repeated with the large model alone and with the cascade
+ * (small model, poor results re-decoded by the large one; see ModelCascade). Cascade runs
+ * report the escalation count and the CPU saved against the large-model run.
+ * CPU is the whole process's (the language lanes, launch threads and GC included);
+ * decodeThreadCpuMsPerAudioSecond is the calling thread's share alone. Each run's pipeline
+ * is closed before the next one is built.
+ */
+public class ReplayBenchmark {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int BYTES_PER_SECOND = SAMPLE_RATE * 2;
+
+    /**
+     * One recorded utterance from the corpus
+     */
+    private static class Utterance {
+        String wavPath;
+        String expected;
+        String accent;
+        String noise;
+        byte[] pcm;
+    }
+
+    /**
+     * Measurements for one replayed utterance
+     */
+    private static class Sample {
+        boolean dispatched;
+        boolean correct;
+        boolean fuzzy;
+        boolean rejected;
+        boolean rescued;
+        boolean escalated;
+        double latencyMs;
+        double audioSeconds;
+        double wallSeconds;
+        double cpuSeconds;
+        double decodeCpuSeconds;
+    }
+
+    /**
+     * Common view over the two pipelines under test
+     */
+    private interface Pipeline {
+        boolean processAudio(byte[] buffer, int length);
+        void reset();
+        void setProfile(LatencyProfile profile);
+        void setAlternatives(int alternatives);
+        void setCascade(ModelCascade cascade);
+        ModelCascade getCascade();
+        HypothesisRanker getRanker();
+        // Release the recognizer and scheduler thread (the models and executor are shared)
+        void close();
+    }
+
+    private final RecordingAppLauncher appLauncher;
+    private final ExecutionModel execution;
+    private final int chunkSize;
+    private final int trailingSilenceMs;
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private ReplayBenchmark(RecordingAppLauncher appLauncher, ExecutionModel execution,
+                            int chunkSize, int trailingSilenceMs) {
+        this.appLauncher = appLauncher;
+        this.execution = execution;
+        this.chunkSize = chunkSize;
+        this.trailingSilenceMs = trailingSilenceMs;
+    }
+
+    /**
+     * Replay one utterance: speech, then silence until the endpointer fires
+     * Latency is the trailing audio fed after speech end plus the wall time spent on the
+     * chunk that produced the dispatch, i.e. what a live microphone user would wait
+     */
+    private Sample replay(Pipeline pipeline, Utterance utterance) {
+        pipeline.reset();
+        appLauncher.drainLaunches();
+
+        Sample sample = new Sample();
+        HypothesisRanker ranker = pipeline.getRanker();
+        int fuzzyBefore = ranker.getFuzzyCount();
+        int rejectedBefore = ranker.getRejectedCount();
+        int rescuedBefore = ranker.getRescuedCount();
+        ModelCascade cascade = pipeline.getCascade();
+        int escalationsBefore = cascade == null ? 0 : cascade.getEscalations();
+        byte[] buffer = new byte[chunkSize];
+        byte[] silence = new byte[chunkSize];
+        long cpuStart = threadBean.getCurrentThreadCpuTime();
+        long processCpuStart = processCpuNanos();
+        long wallStart = System.nanoTime();
+        long dispatchedAt = 0;
+        long chunkStart = 0;
+        long trailingBytes = 0;
+        long fedBytes = 0;
+
+        for (int offset = 0; offset < utterance.pcm.length && dispatchedAt == 0; offset += chunkSize) {
+            int length = Math.min(chunkSize, utterance.pcm.length - offset);
+            System.arraycopy(utterance.pcm, offset, buffer, 0, length);
+            chunkStart = System.nanoTime();
+            fedBytes += length;
+            if (pipeline.processAudio(buffer, length)) {
+                dispatchedAt = System.nanoTime();
+            }
+        }
+
+        long maxTrailingBytes = (long) trailingSilenceMs * BYTES_PER_SECOND / 1000;
+        while (dispatchedAt == 0 && trailingBytes < maxTrailingBytes) {
+            chunkStart = System.nanoTime();
+            trailingBytes += chunkSize;
+            fedBytes += chunkSize;
+            if (pipeline.processAudio(silence, chunkSize)) {
+                dispatchedAt = System.nanoTime();
+            }
+        }
+
+        sample.decodeCpuSeconds = (threadBean.getCurrentThreadCpuTime() - cpuStart) / 1e9;
+        // Launches run on the blocking executor; wait for them before reading the record
+        execution.awaitIdle(5000);
+        long processCpu = processCpuNanos() - processCpuStart;
+        sample.cpuSeconds = processCpu >= 0 ? processCpu / 1e9 : sample.decodeCpuSeconds;
+        sample.wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        sample.audioSeconds = (double) fedBytes / BYTES_PER_SECOND;
+        sample.fuzzy = ranker.getFuzzyCount() > fuzzyBefore;
+        sample.rejected = ranker.getRejectedCount() > rejectedBefore;
+        sample.rescued = ranker.getRescuedCount() > rescuedBefore;
+        sample.escalated = cascade != null && cascade.getEscalations() > escalationsBefore;
+
+        List<RecordingAppLauncher.Launch> launches = appLauncher.drainLaunches();
+        if (dispatchedAt != 0) {
+            sample.dispatched = true;
+            long dispatchNanos = launches.isEmpty() ? dispatchedAt : launches.get(0).nanoTime;
+            sample.latencyMs = trailingBytes * 1000.0 / BYTES_PER_SECOND
+                    + Math.max(0, dispatchNanos - chunkStart) / 1e6;
+        }
+
+        if ("none".equals(utterance.expected)) {
+            sample.correct = sample.dispatched && launches.isEmpty();
+        } else {
+            for (RecordingAppLauncher.Launch launch : launches) {
+                if (launch.appName.equals(utterance.expected)) {
+                    sample.correct = true;
+                }
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * Replay the whole corpus through one pipeline and summarize it per group
+     */
+    private JSONObject runCorpus(Pipeline pipeline, List<Utterance> corpus) {
+        Map<String, List<Sample>> groups = new LinkedHashMap<>();
+
+        // Warm up JIT and the decoder on the first utterance
+        if (!corpus.isEmpty()) {
+            replay(pipeline, corpus.get(0));
+        }
+
+        for (Utterance utterance : corpus) {
+            Sample sample = replay(pipeline, utterance);
+            groups.computeIfAbsent("all", k -> new ArrayList<>()).add(sample);
+            groups.computeIfAbsent("accent=" + utterance.accent, k -> new ArrayList<>()).add(sample);
+            groups.computeIfAbsent("noise=" + utterance.noise, k -> new ArrayList<>()).add(sample);
+        }
+
+        JSONObject groupResults = new JSONObject();
+        for (Map.Entry<String, List<Sample>> group : groups.entrySet()) {
+            groupResults.put(group.getKey(), summarize(group.getValue()));
+        }
+        JSONObject run = new JSONObject();
+        run.put("groups", groupResults);
+        return run;
+    }
+
+    /**
+     * Summarize a group of samples as JSON
+     */
+    private static JSONObject summarize(List<Sample> samples) {
+        JSONObject summary = new JSONObject();
+        int correct = 0;
+        int dispatched = 0;
+        int fuzzy = 0;
+        int rejected = 0;
+        int rescued = 0;
+        int escalated = 0;
+        double audio = 0;
+        double wall = 0;
+        double cpu = 0;
+        double decodeCpu = 0;
+        List<Double> latencies = new ArrayList<>();
+
+        for (Sample sample : samples) {
+            if (sample.correct) correct++;
+            if (sample.fuzzy) fuzzy++;
+            if (sample.rejected) rejected++;
+            if (sample.rescued) rescued++;
+            if (sample.escalated) escalated++;
+            if (sample.dispatched) {
+                dispatched++;
+                latencies.add(sample.latencyMs);
+            }
+            audio += sample.audioSeconds;
+            wall += sample.wallSeconds;
+            cpu += sample.cpuSeconds;
+            decodeCpu += sample.decodeCpuSeconds;
+        }
+
+        double[] sorted = latencies.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        summary.put("utterances", samples.size());
+        summary.put("dispatched", dispatched);
+        summary.put("accuracy", samples.isEmpty() ? 0 : (double) correct / samples.size());
+        summary.put("fuzzyFallbacks", fuzzy);
+        summary.put("rejected", rejected);
+        summary.put("rescuedByAlternatives", rescued);
+        summary.put("escalations", escalated);
+        summary.put("escalationRate", samples.isEmpty() ? 0 : (double) escalated / samples.size());
+        summary.put("latencyMsP50", percentile(sorted, 50));
+        summary.put("latencyMsP90", percentile(sorted, 90));
+        summary.put("latencyMsP99", percentile(sorted, 99));
+        summary.put("latencyMsMax", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        summary.put("realTimeFactor", audio == 0 ? 0 : wall / audio);
+        summary.put("cpuMsPerAudioSecond", audio == 0 ? 0 : cpu * 1000 / audio);
+        summary.put("decodeThreadCpuMsPerAudioSecond", audio == 0 ? 0 : decodeCpu * 1000 / audio);
+        return summary;
+    }
+
+    /**
+     * CPU time of every thread in this process
+     * @return Nanoseconds, or -1 where the JVM does not report it
+     */
+    static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * Nearest-rank percentile of an ascending array
+     */
+    static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Load the corpus manifest and decode every WAV to 16 kHz mono 16-bit PCM
+     */
+    private static List<Utterance> loadCorpus(Path corpusFile) throws Exception {
+        JSONArray entries = new JSONArray(new String(Files.readAllBytes(corpusFile)));
+        Path baseDir = corpusFile.toAbsolutePath().getParent();
+        List<Utterance> corpus = new ArrayList<>();
+
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.getJSONObject(i);
+            Utterance utterance = new Utterance();
+            utterance.wavPath = entry.getString("wav");
+            utterance.expected = entry.optString("expected", "none").toLowerCase().trim();
+            utterance.accent = entry.optString("accent", "unknown");
+            utterance.noise = entry.optString("noise", "unknown");
+            utterance.pcm = readPcm(baseDir.resolve(utterance.wavPath).toFile());
+            corpus.add(utterance);
+        }
+        return corpus;
+    }
+
+    /**
+     * Read a WAV file as 16 kHz mono signed 16-bit little-endian PCM
+     * Other rates and channel counts go through the same PolyphaseResampler as live capture
+     */
+    static byte[] readPcm(File wavFile) throws Exception {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(wavFile)) {
+            AudioFormat sourceFormat = source.getFormat();
+            int channels = sourceFormat.getChannels();
+            int rate = Math.round(sourceFormat.getSampleRate());
+            AudioFormat pcm16 = new AudioFormat(rate, 16, channels, true, false);
+            AudioInputStream stream = sourceFormat.matches(pcm16)
+                    ? source
+                    : AudioSystem.getAudioInputStream(pcm16, source);
+            byte[] bytes = stream.readAllBytes();
+            if (rate == SAMPLE_RATE && channels == 1) {
+                return bytes;
+            }
+
+            short[] samples = new short[bytes.length / 2];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = (short) ((bytes[2 * i] & 0xff) | (bytes[2 * i + 1] << 8));
+            }
+            PolyphaseResampler resampler = new PolyphaseResampler(rate, SAMPLE_RATE, channels);
+            int frames = samples.length / channels;
+            short[] resampled = new short[resampler.maxOutputSamples(frames)];
+            int produced = resampler.process(samples, 0, frames, resampled, 0);
+
+            byte[] out = new byte[produced * 2];
+            for (int i = 0; i < produced; i++) {
+                out[2 * i] = (byte) resampled[i];
+                out[2 * i + 1] = (byte) (resampled[i] >> 8);
+            }
+            return out;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unsupported WAV format in " + wavFile, e);
+        }
+    }
+
+    /**
+     * Headless feedback sink for the controller path
+     */
+    static VoiceFeedback silentFeedback() {
+        return new VoiceFeedback() {
+            @Override
+            public void appendLog(String message) {
+            }
+
+            @Override
+            public void updateLastCommand(String command) {
+            }
+
+            @Override
+            public void updateAppList(String[] appNames) {
+            }
+        };
+    }
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--model", "model",
+                "--apps", "apps.json",
+                "--registry-sizes", "0",
+                "--paths", "controller,console",
+                "--profiles", "balanced",
+                "--alternatives", "0,5",
+                "--decoders", "small,large,cascade",
+                "--trailing-silence-ms", "1500");
+        CommandLineOptions.require(options, "--corpus", "<corpus.json>");
+        PrintStream report = System.out;
+
+        List<Utterance> corpus = loadCorpus(Paths.get(options.get("--corpus")));
+        int trailingSilenceMs = Integer.parseInt(options.get("--trailing-silence-ms"));
+        List<String> paths = Arrays.asList(options.get("--paths").split(","));
+
+        JSONObject results = new JSONObject();
+        results.put("corpus", options.get("--corpus"));
+        results.put("model", options.get("--model"));
+        String largeModelPath = options.get("--large-model");
+        List<String> decoders = largeModelPath == null
+                ? Arrays.asList("small")
+                : Arrays.asList(options.get("--decoders").split(","));
+        if (largeModelPath != null) {
+            results.put("largeModel", largeModelPath);
+        }
+        results.put("trailingSilenceMs", trailingSilenceMs);
+        JSONArray runs = new JSONArray();
+
+        // Keep the pipelines' console chatter out of the machine-readable output
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        ExecutionModel execution = new ExecutionModel();
+        try (SpeechModel model = SpeechEngine.fromConfig().loadModel(options.get("--model"));
+             SpeechModel largeModel = largeModelPath == null ? null : SpeechEngine.fromConfig().loadModel(largeModelPath)) {
+            for (String sizeOption : options.get("--registry-sizes").split(",")) {
+                RecordingAppLauncher appLauncher = new RecordingAppLauncher(options.get("--apps"));
+                appLauncher.padRegistry(Integer.parseInt(sizeOption.trim()));
+
+                for (String profileName : options.get("--profiles").split(",")) {
+                    LatencyProfile profile = LatencyProfile.fromName(profileName);
+                    if (profile == null) {
+                        throw new IllegalArgumentException("Unknown latency profile: " + profileName);
+                    }
+                    ReplayBenchmark benchmark = new ReplayBenchmark(appLauncher, execution,
+                            profile.getChunkBytes(), trailingSilenceMs);
+
+                    for (String alternativesOption : options.get("--alternatives").split(",")) {
+                        int alternatives = Integer.parseInt(alternativesOption.trim());
+                        for (String pathName : paths) {
+                            double largeCpuMs = 0;
+                            for (String decoderOption : decoders) {
+                                String decoder = decoderOption.trim();
+                                Pipeline pipeline = createPipeline(pathName.trim(), appLauncher,
+                                        decoder.equals("large") ? largeModel : model, execution);
+                                pipeline.setProfile(profile);
+                                pipeline.setAlternatives(alternatives);
+                                if (decoder.equals("cascade")) {
+                                    pipeline.setCascade(new ModelCascade(largeModel, execution));
+                                }
+
+                                JSONObject run = benchmark.runCorpus(pipeline, corpus);
+                                double cpuMs = run.getJSONObject("groups").getJSONObject("all")
+                                        .getDouble("cpuMsPerAudioSecond");
+                                if (decoder.equals("large")) {
+                                    largeCpuMs = cpuMs;
+                                } else if (decoder.equals("cascade") && largeCpuMs > 0) {
+                                    run.put("cpuSavedVsLargePercent", 100 * (1 - cpuMs / largeCpuMs));
+                                }
+                                if (pipeline.getCascade() != null) {
+                                    run.put("cascadeSkipped", pipeline.getCascade().getSkippedForLatency());
+                                    pipeline.getCascade().close();
+                                }
+                                pipeline.close();
+                                run.put("path", pathName.trim());
+                                run.put("decoder", decoder);
+                                run.put("profile", profile.toString());
+                                run.put("chunkBytes", profile.getChunkBytes());
+                                run.put("endpointSilenceMs", profile.getEndpointSilenceMs());
+                                run.put("alternatives", alternatives);
+                                run.put("registrySize", appLauncher.getAppCount());
+                                runs.put(run);
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            execution.shutdown(1000);
+            System.setOut(report);
+        }
+
+        results.put("runs", runs);
+        String json = results.toString(2);
+        if (options.containsKey("--out")) {
+            Files.write(Paths.get(options.get("--out")), json.getBytes());
+        }
+        report.println(json);
+    }
+
+    private static Pipeline createPipeline(String name, AppLauncher appLauncher, SpeechModel model,
+                                           ExecutionModel execution) throws IOException {
+        if (name.equals("controller")) {
+            VoiceRecognitionController controller = new VoiceRecognitionController(appLauncher, silentFeedback(), model, execution);
+            return new Pipeline() {
+                private ModelCascade cascade;
+
+                @Override
+                public boolean processAudio(byte[] buffer, int length) {
+                    return controller.processAudio(buffer, length);
+                }
+
+                @Override
+                public void reset() {
+                    controller.resetRecognizer();
+                }
+
+                @Override
+                public void setProfile(LatencyProfile profile) {
+                    controller.setProfile(profile);
+                }
+
+                @Override
+                public void setAlternatives(int alternatives) {
+                    controller.configureRecognizer(alternatives);
+                }
+
+                @Override
+                public void setCascade(ModelCascade cascade) {
+                    this.cascade = cascade;
+                    controller.setCascade(cascade);
+                }
+
+                @Override
+                public ModelCascade getCascade() {
+                    return cascade;
+                }
+
+                @Override
+                public HypothesisRanker getRanker() {
+                    return controller.getRanker();
+                }
+
+                @Override
+                public void close() {
+                    controller.closeReplay();
+                }
+            };
+        }
+        if (name.equals("console")) {
+            VoiceLauncher launcher = new VoiceLauncher(appLauncher, model, execution);
+            return new Pipeline() {
+                private ModelCascade cascade;
+
+                @Override
+                public boolean processAudio(byte[] buffer, int length) {
+                    return launcher.processAudio(buffer, length);
+                }
+
+                @Override
+                public void reset() {
+                    launcher.resetRecognizer();
+                }
+
+                @Override
+                public void setProfile(LatencyProfile profile) {
+                    launcher.setProfile(profile);
+                }
+
+                @Override
+                public void setAlternatives(int alternatives) {
+                    launcher.configureRecognizer(alternatives);
+                }
+
+                @Override
+                public void setCascade(ModelCascade cascade) {
+                    this.cascade = cascade;
+                    launcher.setCascade(cascade);
+                }
+
+                @Override
+                public ModelCascade getCascade() {
+                    return cascade;
+                }
+
+                @Override
+                public HypothesisRanker getRanker() {
+                    return launcher.getRanker();
+                }
+
+                @Override
+                public void close() {
+                    launcher.closeReplay();
+                }
+            };
+        }
+        throw new IllegalArgumentException("Unknown pipeline path: " + name + " (use controller or console)");
+    }
+}
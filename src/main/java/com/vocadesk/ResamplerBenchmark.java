@@ -0,0 +1,103 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * ResamplerBenchmark - Measures the CPU cost of converting native capture formats to 16 kHz mono
+ * Streams synthetic speech-band audio through PolyphaseResampler in capture-sized chunks
+ * and prints CPU ms per audio second and bytes allocated per chunk as JSON
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.ResamplerBenchmark [--formats 48000x2,48000x1,44100x2,44100x1]
+ *        [--seconds 60] [--chunk 4096]
+ */
+public class ResamplerBenchmark {
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--formats", "48000x2,48000x1,44100x2,44100x1",
+                "--seconds", "60",
+                "--chunk", "4096");
+        int seconds = Integer.parseInt(options.get("--seconds"));
+        // Chunk size is given in 16 kHz mono bytes, like the recognizer's read buffer
+        int chunkBytes = Integer.parseInt(options.get("--chunk"));
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        JSONArray runs = new JSONArray();
+
+        for (String format : options.get("--formats").split(",")) {
+            String[] parts = format.trim().split("x");
+            int rate = Integer.parseInt(parts[0]);
+            int channels = Integer.parseInt(parts[1]);
+
+            PolyphaseResampler resampler = new PolyphaseResampler(rate, AudioCapture.TARGET_RATE, channels);
+            int frames = (int) ((long) chunkBytes / 2 * rate / AudioCapture.TARGET_RATE);
+            short[] input = synthesize(rate, channels, frames);
+            short[] output = new short[resampler.maxOutputSamples(frames)];
+            int chunks = (int) ((long) seconds * rate / frames);
+
+            // Warm up so C2 has compiled the dot product before measuring
+            for (int i = 0; i < 2000; i++) {
+                resampler.process(input, 0, frames, output, 0);
+            }
+            resampler.reset();
+
+            long produced = 0;
+            long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+            long cpuBefore = threadBean.getCurrentThreadCpuTime();
+            long wallBefore = System.nanoTime();
+            for (int i = 0; i < chunks; i++) {
+                produced += resampler.process(input, 0, frames, output, 0);
+            }
+            long wall = System.nanoTime() - wallBefore;
+            long cpu = threadBean.getCurrentThreadCpuTime() - cpuBefore;
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            double audioSeconds = (double) chunks * frames / rate;
+            JSONObject run = new JSONObject();
+            run.put("inputRate", rate);
+            run.put("channels", channels);
+            run.put("tapsPerPhase", resampler.getTapsPerPhase());
+            run.put("audioSeconds", audioSeconds);
+            run.put("outputSamples", produced);
+            run.put("cpuMsPerAudioSecond", cpu / 1e6 / audioSeconds);
+            run.put("realTimeFactor", wall / 1e9 / audioSeconds);
+            run.put("bytesAllocatedPerChunk", (double) allocated / chunks);
+            runs.put(run);
+        }
+
+        JSONObject results = new JSONObject();
+        results.put("chunkBytes", chunkBytes);
+        results.put("runs", runs);
+        System.out.println(results.toString(2));
+    }
+
+    /**
+     * A chunk of interleaved test audio: a few voice-band tones plus a tone above 8 kHz
+     * that the low-pass must remove
+     */
+    private static short[] synthesize(int rate, int channels, int frames) {
+        short[] samples = new short[frames * channels];
+        double[] tones = {220, 1200, 3100, 9500};
+        for (int f = 0; f < frames; f++) {
+            double value = 0;
+            for (double tone : tones) {
+                value += Math.sin(2 * Math.PI * tone * f / rate);
+            }
+            short sample = (short) (value / tones.length * 12000);
+            for (int c = 0; c < channels; c++) {
+                samples[f * channels + c] = sample;
+            }
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,205 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * ResolutionCacheBenchmark - Measures how misheard app names resolve: registry scan, resolution cache, learned rule
+ * Fills a registry with generated names for each size and makes two-letter misspellings of
+ * some of them. Times a fuzzy search (AppMatcher.findBestMatch), a repeat resolution served
+ * by the interpreter's cache, and a resolution by a learned correction after the misspelling
+ * was confirmed enough times. Then registers a one-letter misspelling of each original, which
+ * is closer to what was heard, and checks that every cached answer was replaced by a fresh
+ * scan. Last, launches each learned rule and then the closer name straight after, as a user
+ * correcting it would, and checks that every rule was forgotten. Prints JSON and exits with
+ * status 1 if a cache hit at the largest size takes longer than the budget (p50), any answer
+ * differed from a fresh scan, or an overridden rule was kept.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.ResolutionCacheBenchmark [--sizes 100,1000,10000]
+ *        [--queries 100] [--repeat 50] [--budget-ms 0.05]
+ */
+public class ResolutionCacheBenchmark {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--sizes", "100,1000,10000",
+                "--queries", "100",
+                "--repeat", "50",
+                "--budget-ms", "0.05");
+        int queryCount = Integer.parseInt(options.get("--queries"));
+        int repeat = Integer.parseInt(options.get("--repeat"));
+        double budgetMs = Double.parseDouble(options.get("--budget-ms"));
+        PrintStream report = System.out;
+        JSONArray runs = new JSONArray();
+        double lastCachedP50 = 0;
+        int mismatches = 0;
+
+        Path appsFile = Files.createTempFile("vocadesk-resolve", ".json");
+        Files.write(appsFile, "[]".getBytes(StandardCharsets.UTF_8));
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (String sizeOption : options.get("--sizes").split(",")) {
+                int size = Integer.parseInt(sizeOption.trim());
+                Random random = new Random(size);
+                RecordingAppLauncher appLauncher = new RecordingAppLauncher(appsFile.toString());
+                while (appLauncher.getAppCount() < size) {
+                    appLauncher.registerApplication(word(random, 6 + random.nextInt(8)), "/dev/null/app");
+                }
+                String[] names = appLauncher.getAppNames();
+                String[] originals = new String[queryCount];
+                String[] closer = new String[queryCount];
+                String[] heard = new String[queryCount];
+                for (int q = 0; q < queryCount; q++) {
+                    originals[q] = names[random.nextInt(names.length)];
+                    closer[q] = misspell(originals[q], random);
+                    heard[q] = misspell(closer[q], random);
+                }
+
+                AppMatcher matcher = new AppMatcher(appLauncher);
+                CommandInterpreter cached = new CommandInterpreter(appLauncher);
+                LearnedCorrections corrections = new LearnedCorrections(null, null, 2);
+                CommandInterpreter learning = new CommandInterpreter(appLauncher, corrections);
+
+                // Fill the cache, confirm each match twice, and check both against a scan
+                for (int q = 0; q < queryCount; q++) {
+                    String expected = matcher.findBestMatch(heard[q]);
+                    CommandIntent first = resolve(cached, heard[q]);
+                    CommandIntent again = resolve(cached, heard[q]);
+                    learning.confirm(resolve(learning, heard[q]));
+                    learning.confirm(resolve(learning, heard[q]));
+                    CommandIntent rule = resolve(learning, heard[q]);
+                    if (!same(expected, first.getResolvedApp()) || !same(expected, again.getResolvedApp())
+                            || (expected != null && !appLauncher.hasApp(heard[q])
+                                && (!rule.isLearned() || !expected.equals(rule.getResolvedApp())))) {
+                        mismatches++;
+                    }
+                }
+
+                double[] scan = new double[queryCount * repeat];
+                double[] hit = new double[queryCount * repeat];
+                double[] learned = new double[queryCount * repeat];
+                for (int r = 0; r < repeat; r++) {
+                    for (int q = 0; q < queryCount; q++) {
+                        int at = r * queryCount + q;
+                        long start = System.nanoTime();
+                        matcher.findBestMatch(heard[q]);
+                        scan[at] = (System.nanoTime() - start) / 1e6;
+                        start = System.nanoTime();
+                        resolve(cached, heard[q]);
+                        hit[at] = (System.nanoTime() - start) / 1e6;
+                        start = System.nanoTime();
+                        resolve(learning, heard[q]);
+                        learned[at] = (System.nanoTime() - start) / 1e6;
+                    }
+                }
+
+                // A registry change must empty the cache: the one-letter misspellings are closer
+                int changed = 0;
+                for (int q = 0; q < queryCount; q++) {
+                    appLauncher.registerApplication(closer[q], "/dev/null/closer");
+                }
+                for (int q = 0; q < queryCount; q++) {
+                    String expected = matcher.findBestMatch(heard[q]);
+                    String before = resolve(learning, heard[q]).getResolvedApp();
+                    String after = resolve(cached, heard[q]).getResolvedApp();
+                    if (!same(expected, after)) {
+                        mismatches++;
+                    }
+                    if (!same(before, after)) {
+                        changed++;
+                    }
+                }
+
+                // Saying the closer name right after a rule's launch overrides it
+                int rules = corrections.getRuleCount();
+                for (int q = 0; q < queryCount; q++) {
+                    CommandIntent rule = resolve(learning, heard[q]);
+                    if (rule.isLearned()) {
+                        learning.confirm(rule);
+                        learning.confirm(resolve(learning, closer[q]));
+                    }
+                }
+                int kept = corrections.getRuleCount();
+                mismatches += kept;
+
+                Arrays.sort(scan);
+                Arrays.sort(hit);
+                Arrays.sort(learned);
+                lastCachedP50 = ReplayBenchmark.percentile(hit, 50);
+                JSONObject run = new JSONObject();
+                run.put("apps", size);
+                run.put("resolutions", hit.length);
+                run.put("scanMsP50", ReplayBenchmark.percentile(scan, 50));
+                run.put("scanMsP99", ReplayBenchmark.percentile(scan, 99));
+                run.put("cachedMsP50", lastCachedP50);
+                run.put("cachedMsP99", ReplayBenchmark.percentile(hit, 99));
+                run.put("learnedMsP50", ReplayBenchmark.percentile(learned, 50));
+                run.put("learnedMsP99", ReplayBenchmark.percentile(learned, 99));
+                run.put("rules", rules);
+                run.put("rulesKeptAfterOverride", kept);
+                // Learned rules keep the confirmed app; the cache picks up the closer names
+                run.put("answersChangedByReload", changed);
+                runs.put(run);
+            }
+        } finally {
+            System.setOut(report);
+            Files.deleteIfExists(appsFile);
+        }
+
+        JSONObject results = new JSONObject();
+        results.put("runs", runs);
+        results.put("resultMismatches", mismatches);
+        results.put("budgetMs", budgetMs);
+        results.put("withinBudget", lastCachedP50 <= budgetMs);
+        report.println(results.toString(2));
+        if (lastCachedP50 > budgetMs || mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static CommandIntent resolve(CommandInterpreter interpreter, String heard) {
+        CommandIntent intent = new CommandIntent(CommandIntent.Type.LAUNCH, "open " + heard, heard, null);
+        interpreter.resolve(intent);
+        return intent;
+    }
+
+    private static boolean same(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static String word(Random random, int length) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+
+    /**
+     * One letter replaced, at a position away from the ends
+     */
+    private static String misspell(String name, Random random) {
+        int at = 1 + random.nextInt(name.length() - 2);
+        char replacement = LETTERS.charAt(random.nextInt(LETTERS.length()));
+        if (replacement == name.charAt(at)) {
+            replacement = replacement == 'z' ? 'a' : (char) (replacement + 1);
+        }
+        return name.substring(0, at) + replacement + name.substring(at + 1);
+    }
+}
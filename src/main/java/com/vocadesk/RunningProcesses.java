@@ -0,0 +1,126 @@
+package com.vocadesk;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * RunningProcesses - Cached view of running processes, keyed by executable path
+ * Listing processes (ProcessHandle.allProcesses) is cheap, but reading a process's command
+ * line is a system call per process, so each process's executable is read once and kept
+ * until the process exits. A refresh therefore only reads processes started since the
+ * last one, which keeps it cheap enough to run before every launch. ProcessHandle equality
+ * includes the start time, so a reused pid is read again.
+ */
+public class RunningProcesses {
+
+    /**
+     * What was read for one process ("" if its command could not be read)
+     */
+    private static final class Entry {
+        final String executable;
+        final long started;
+
+        Entry(String executable, long started) {
+            this.executable = executable;
+            this.started = started;
+        }
+    }
+
+    private static final boolean WINDOWS = System.getProperty("os.name", "").toLowerCase().contains("win");
+
+    private final Map<ProcessHandle, Entry> entries = new HashMap<>();
+    // Oldest running process per executable, rebuilt on each refresh
+    private Map<String, ProcessHandle> oldest = new HashMap<>();
+    private final Map<String, String> appKeys = new HashMap<>();
+    private int lastRead;
+
+    /**
+     * Re-list processes, reading only those not seen before and dropping those that exited
+     * @return Number of processes whose command had to be read
+     */
+    public synchronized int refresh() {
+        Map<ProcessHandle, Entry> current = new HashMap<>(entries.size() * 2);
+        int read = 0;
+        for (Iterator<ProcessHandle> it = ProcessHandle.allProcesses().iterator(); it.hasNext(); ) {
+            ProcessHandle handle = it.next();
+            Entry entry = entries.get(handle);
+            if (entry == null) {
+                ProcessHandle.Info info = handle.info();
+                entry = new Entry(info.command().map(RunningProcesses::normalize).orElse(""),
+                        info.startInstant().map(Instant::toEpochMilli).orElse(Long.MAX_VALUE));
+                read++;
+            }
+            current.put(handle, entry);
+        }
+        entries.clear();
+        entries.putAll(current);
+
+        Map<String, ProcessHandle> index = new HashMap<>();
+        Map<String, Long> started = new HashMap<>();
+        for (Map.Entry<ProcessHandle, Entry> process : entries.entrySet()) {
+            Entry entry = process.getValue();
+            if (entry.executable.isEmpty()) {
+                continue;
+            }
+            Long previous = started.get(entry.executable);
+            // The oldest is usually the main process (browsers and IDEs fork helpers from the same binary)
+            if (previous == null || entry.started < previous) {
+                started.put(entry.executable, entry.started);
+                index.put(entry.executable, process.getKey());
+            }
+        }
+        oldest = index;
+        lastRead = read;
+        return read;
+    }
+
+    /**
+     * Refresh, then find a running instance of an executable
+     * @param path Executable path as written in apps.json
+     * @return The instance's oldest process, if one is running
+     */
+    public synchronized Optional<ProcessHandle> find(String path) {
+        refresh();
+        String key = appKeys.computeIfAbsent(path, RunningProcesses::resolve);
+        ProcessHandle handle = oldest.get(key);
+        return handle != null && handle.isAlive() ? Optional.of(handle) : Optional.empty();
+    }
+
+    /**
+     * Number of processes in the last listing
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Number of commands read by the last refresh
+     */
+    public synchronized int getLastRead() {
+        return lastRead;
+    }
+
+    /**
+     * Key for an apps.json path: symbolic links resolved, as running processes report it
+     */
+    private static String resolve(String path) {
+        try {
+            return normalize(Paths.get(path).toRealPath().toString());
+        } catch (IOException | RuntimeException e) {
+            return normalize(path);
+        }
+    }
+
+    /**
+     * Same separators everywhere, and case-insensitive on Windows
+     */
+    static String normalize(String path) {
+        String normalized = path.replace('\\', '/');
+        return WINDOWS ? normalized.toLowerCase() : normalized;
+    }
+}
@@ -0,0 +1,274 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * ScheduleBenchmark - Measures the launch scheduler's timer wheel and its wakeups
+ * For each size, schedules that many launches spread over a day in a TimerWheel, cancels
+ * half of them, then advances a simulated clock minute by minute through the day, checking
+ * that every remaining launch expires in the minute it was due and none early. The same
+ * inserts and cancels on a PriorityQueue (what a plain ScheduledExecutorService keeps) are
+ * timed for comparison; its cancel is a linear search, so only a sample is timed. Then a
+ * real LaunchScheduler fires a batch of launches a few seconds out (lateness per launch),
+ * and is left idle, empty and with one launch an hour away, counting how often its thread
+ * woke. Also checks that daily launches said without am/pm ("every day at 9") settle on one
+ * fixed time whenever they are said, rather than on whichever half of the day comes next.
+ * Prints JSON and exits with status 1 if the idle scheduler woke at all, a daily launch
+ * landed at the wrong time, or a wheel insert+cancel took longer than the budget on average.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.ScheduleBenchmark [--sizes 1000,10000,100000]
+ *        [--fires 200] [--idle-ms 3000] [--budget-ns 1000]
+ */
+public class ScheduleBenchmark {
+
+    private static final long DAY_MILLIS = ScheduleTime.DAY_MILLIS;
+    // PriorityQueue cancels timed per size (each one scans the queue)
+    private static final int QUEUE_CANCEL_SAMPLE = 1000;
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--sizes", "1000,10000,100000",
+                "--fires", "200",
+                "--idle-ms", "3000",
+                "--budget-ns", "1000");
+        int fires = Integer.parseInt(options.get("--fires"));
+        long idleMs = Long.parseLong(options.get("--idle-ms"));
+        double budgetNs = Double.parseDouble(options.get("--budget-ns"));
+        PrintStream report = System.out;
+        JSONObject results = new JSONObject();
+        JSONArray sizes = new JSONArray();
+        double worstWheelNs = 0;
+        boolean allOnTime = true;
+
+        for (String size : options.get("--sizes").split(",")) {
+            int count = Integer.parseInt(size.trim());
+            // Warm up the JIT on the same work before measuring
+            measure(count, false);
+            JSONObject run = measure(count, true);
+            sizes.put(run);
+            worstWheelNs = Math.max(worstWheelNs, run.getDouble("wheelScheduleNs") + run.getDouble("wheelCancelNs"));
+            allOnTime &= run.getInt("expiredEarly") == 0 && run.getInt("expiredLate") == 0
+                    && run.getInt("expired") == count - count / 2;
+        }
+        results.put("sizes", sizes);
+        boolean dailyFixed = daily(results);
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ExecutionModel execution = new ExecutionModel();
+        long idleWakeups;
+        try {
+            results.put("live", live(fires, execution));
+            idleWakeups = idle(idleMs, execution, results);
+        } finally {
+            execution.shutdown(1000);
+            System.setOut(report);
+        }
+
+        boolean withinBudget = worstWheelNs <= budgetNs && idleWakeups == 0 && allOnTime && dailyFixed;
+        results.put("allOnTime", allOnTime);
+        results.put("budgetNs", budgetNs);
+        results.put("withinBudget", withinBudget);
+        report.println(results.toString(2));
+        if (!withinBudget) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Insert, cancel half and expire the rest in a wheel; insert and cancel in a priority queue
+     */
+    private static JSONObject measure(int count, boolean record) {
+        Random random = new Random(count);
+        long base = 1_800_000_000_000L;
+        long[] deadlines = new long[count];
+        for (int i = 0; i < count; i++) {
+            deadlines[i] = base + 1 + (long) (random.nextDouble() * DAY_MILLIS);
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, random);
+
+        TimerWheel<Long> wheel = new TimerWheel<>(1000, 4096, base);
+        List<TimerWheel.Timeout<Long>> timeouts = new ArrayList<>(count);
+        long start = System.nanoTime();
+        for (long deadline : deadlines) {
+            timeouts.add(wheel.schedule(deadline, deadline));
+        }
+        double scheduleNs = (System.nanoTime() - start) / (double) count;
+        start = System.nanoTime();
+        for (int i = 0; i < count / 2; i++) {
+            wheel.cancel(timeouts.get(order.get(i)));
+        }
+        double cancelNs = (System.nanoTime() - start) / (double) Math.max(1, count / 2);
+
+        // Step through the day a minute at a time; each launch must expire in its own minute
+        int expired = 0;
+        int early = 0;
+        int late = 0;
+        start = System.nanoTime();
+        for (long now = base + 60_000; now <= base + DAY_MILLIS + 60_000; now += 60_000) {
+            for (long deadline : wheel.advance(now)) {
+                expired++;
+                if (deadline > now) {
+                    early++;
+                } else if (deadline <= now - 60_000) {
+                    late++;
+                }
+            }
+            // As LaunchScheduler does before sleeping
+            wheel.getNextExpiry();
+        }
+        double advanceMs = (System.nanoTime() - start) / 1e6;
+
+        Comparator<long[]> byDeadline = Comparator.comparingLong(entry -> entry[0]);
+        PriorityQueue<long[]> queue = new PriorityQueue<>(byDeadline);
+        List<long[]> queued = new ArrayList<>(count);
+        start = System.nanoTime();
+        for (long deadline : deadlines) {
+            long[] entry = {deadline};
+            queue.add(entry);
+            queued.add(entry);
+        }
+        double queueScheduleNs = (System.nanoTime() - start) / (double) count;
+        int sample = Math.min(count / 2, QUEUE_CANCEL_SAMPLE);
+        start = System.nanoTime();
+        for (int i = 0; i < sample; i++) {
+            queue.remove(queued.get(order.get(i)));
+        }
+        double queueCancelNs = (System.nanoTime() - start) / (double) Math.max(1, sample);
+
+        JSONObject run = new JSONObject();
+        if (record) {
+            run.put("pending", count);
+            run.put("wheelScheduleNs", scheduleNs);
+            run.put("wheelCancelNs", cancelNs);
+            run.put("wheelAdvanceDayMs", advanceMs);
+            run.put("expired", expired);
+            run.put("expiredEarly", early);
+            run.put("expiredLate", late);
+            run.put("queueScheduleNs", queueScheduleNs);
+            run.put("queueCancelNs", queueCancelNs);
+        }
+        return run;
+    }
+
+    /**
+     * Parse daily phrases at several times of day and check the first and following launches
+     * all fall at the expected wall-clock time
+     */
+    private static boolean daily(JSONObject results) {
+        String[] phrases = {"every day at 9", "daily at nine thirty", "at 9 every day", "every day at 12",
+            "every evening at 7", "every day at 9 pm", "every day at 21:15"};
+        int[] expected = {9 * 60, 9 * 60 + 30, 9 * 60, 12 * 60, 19 * 60, 21 * 60, 21 * 60 + 15};
+        ZoneId zone = ZoneId.of("Asia/Kolkata");
+        LocalDate day = LocalDate.of(2027, 3, 1);
+        JSONArray wrong = new JSONArray();
+        for (int i = 0; i < phrases.length; i++) {
+            ScheduleTime time = ScheduleTime.parse(phrases[i]);
+            for (int saidAt = 0; saidAt < 24; saidAt++) {
+                long now = day.atTime(saidAt, 0).atZone(zone).toInstant().toEpochMilli();
+                long due = time == null ? now : time.firstDue(now, zone);
+                // The first launch and a week of repeats after it
+                for (int repeat = 0; repeat < 8; repeat++) {
+                    ZonedDateTime at = Instant.ofEpochMilli(due).atZone(zone);
+                    if (time == null || at.getHour() * 60 + at.getMinute() != expected[i]) {
+                        wrong.put(phrases[i] + " said at " + saidAt + ":00 ran at " + at.toLocalTime());
+                        break;
+                    }
+                    due = ScheduleTime.nextDue(due, time.getRepeatMillis(), due, zone);
+                }
+            }
+        }
+        results.put("dailyPhrases", phrases.length);
+        results.put("dailyWrong", wrong);
+        return wrong.length() == 0;
+    }
+
+    /**
+     * Fire launches through a running LaunchScheduler and report how late they were
+     */
+    private static JSONObject live(int fires, ExecutionModel execution) throws InterruptedException {
+        double[] lateMs = new double[fires];
+        int[] count = new int[1];
+        LaunchScheduler scheduler = new LaunchScheduler(null, execution, entry -> {
+            synchronized (lateMs) {
+                if (count[0] < lateMs.length) {
+                    lateMs[count[0]++] = System.currentTimeMillis() - entry.getDue();
+                }
+                lateMs.notifyAll();
+            }
+        });
+        scheduler.start();
+        Random random = new Random(7);
+        for (int i = 0; i < fires; i++) {
+            scheduler.schedule("app" + i, "benchmark", new ScheduleTime(500 + random.nextInt(2500), -1, false, 0));
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        synchronized (lateMs) {
+            while (count[0] < fires && System.currentTimeMillis() < deadline) {
+                lateMs.wait(100);
+            }
+        }
+        JSONObject live = new JSONObject();
+        live.put("scheduled", fires);
+        live.put("fired", count[0]);
+        live.put("wakeups", scheduler.getWakeups());
+        double[] sorted = Arrays.copyOf(lateMs, count[0]);
+        Arrays.sort(sorted);
+        if (sorted.length > 0) {
+            live.put("lateMsP50", ReplayBenchmark.percentile(sorted, 50));
+            live.put("lateMsMax", sorted[sorted.length - 1]);
+        }
+        scheduler.close();
+        return live;
+    }
+
+    /**
+     * Leave a scheduler idle (empty, then with one launch an hour away) and count its wakeups
+     */
+    private static long idle(long idleMs, ExecutionModel execution, JSONObject results) throws InterruptedException {
+        LaunchScheduler empty = new LaunchScheduler(null, execution, entry -> { });
+        empty.start();
+        Thread.sleep(idleMs);
+        long emptyWakeups = empty.getWakeups();
+        empty.close();
+
+        LaunchScheduler later = new LaunchScheduler(null, execution, entry -> { });
+        later.start();
+        later.schedule("app", "benchmark", new ScheduleTime(ScheduleTime.HOUR_MILLIS, -1, false, 0));
+        // Let the thread take in the new deadline (one wakeup) before counting
+        Thread.sleep(100);
+        long before = later.getWakeups();
+        Thread.sleep(idleMs);
+        long laterWakeups = later.getWakeups() - before;
+        later.close();
+
+        results.put("idleMs", idleMs);
+        results.put("idleWakeupsEmpty", emptyWakeups);
+        results.put("idleWakeupsOnePendingInAnHour", laterWakeups);
+        return emptyWakeups + laterWakeups;
+    }
+}
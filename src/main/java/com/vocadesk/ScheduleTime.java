@@ -0,0 +1,303 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ScheduleTime - When a scheduled launch should happen, parsed from the end of a spoken command
+ * Understands "in ten minutes", "after 2 hours", "in half an hour", "at 9", "at nine thirty pm",
+ * "at 21:15", "at noon", "every 30 minutes", "every hour", and "every day at 9" / "daily at 9"
+ * / "at 9 every day". Numbers may be spoken ("forty five") or digits. For a single launch an
+ * hour said without am/pm means whichever of the two comes first, so "at 9" at 10 pm is
+ * tomorrow morning. A daily launch needs one fixed time, so there a bare hour is the morning
+ * ("every day at 12" is noon) unless it was said "every evening".
+ */
+public class ScheduleTime {
+
+    public static final long MINUTE_MILLIS = 60_000;
+    public static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    // Repeat interval meaning "same wall-clock time each day" (DST-aware), not 24 hours
+    public static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private static final String[] UNITS = {
+        "zero", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine", "ten",
+        "eleven", "twelve", "thirteen", "fourteen", "fifteen", "sixteen", "seventeen", "eighteen", "nineteen"
+    };
+    private static final String[] TENS = {"", "", "twenty", "thirty", "forty", "fifty"};
+
+    // Where a schedule may start inside "open outlook in ten minutes"
+    private static final Pattern LEAD = Pattern.compile(" (?=(?:in|after|at|every|daily) )");
+    private static final Pattern RELATIVE =
+            Pattern.compile("(?:in|after) (?:(half an hour)|(.+?) (seconds?|minutes?|mins?|hours?))");
+    private static final Pattern INTERVAL = Pattern.compile("every (?:(.+?) )?(minutes?|hours?)");
+    private static final Pattern DAILY_AT =
+            Pattern.compile("(?:(every day|every morning|every evening|daily) at (.+)|at (.+?) (?:every day|daily))");
+    private static final Pattern AT = Pattern.compile("at (.+)");
+    private static final Pattern CLOCK = Pattern.compile("(\\d{1,2})(?::(\\d{2}))?");
+    private static final Pattern MERIDIEM =
+            Pattern.compile("(.+?) (am|a m|in the morning|pm|p m|in the evening|at night|tonight|o'clock|o clock)");
+
+    // "in ..." delay, or for "every ..." the first interval; 0 for "at ..."
+    private final long delayMillis;
+    // Minute of the day for "at ...", else -1
+    private final int minuteOfDay;
+    // Hour spoken without am/pm: the earlier of minuteOfDay and minuteOfDay + 12 h
+    private final boolean twelveHour;
+    // 0 for a single launch, DAY_MILLIS for daily, else a fixed interval
+    private final long repeatMillis;
+
+    ScheduleTime(long delayMillis, int minuteOfDay, boolean twelveHour, long repeatMillis) {
+        this.delayMillis = delayMillis;
+        this.minuteOfDay = minuteOfDay;
+        this.twelveHour = twelveHour;
+        this.repeatMillis = repeatMillis;
+    }
+
+    /**
+     * Find a schedule at the end of a command's argument
+     * @param argument Text after the launch verb, such as "outlook in ten minutes"
+     * @return Index where the schedule starts (the app name is everything before), or -1
+     */
+    public static int find(String argument) {
+        Matcher lead = LEAD.matcher(argument);
+        while (lead.find()) {
+            if (parse(argument.substring(lead.end())) != null) {
+                return lead.start();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parse a whole schedule phrase
+     * @param phrase Such as "in ten minutes" or "every day at 9"
+     * @return The schedule, or null if the phrase is not one
+     */
+    public static ScheduleTime parse(String phrase) {
+        phrase = phrase.trim();
+        Matcher relative = RELATIVE.matcher(phrase);
+        if (relative.matches()) {
+            if (relative.group(1) != null) {
+                return new ScheduleTime(30 * MINUTE_MILLIS, -1, false, 0);
+            }
+            long amount = parseNumber(relative.group(2));
+            return amount <= 0 ? null : new ScheduleTime(amount * unitMillis(relative.group(3)), -1, false, 0);
+        }
+        Matcher interval = INTERVAL.matcher(phrase);
+        if (interval.matches()) {
+            long amount = interval.group(1) == null ? 1 : parseNumber(interval.group(1));
+            long every = amount * unitMillis(interval.group(2));
+            return amount <= 0 || every >= DAY_MILLIS ? null : new ScheduleTime(every, -1, false, every);
+        }
+        Matcher daily = DAILY_AT.matcher(phrase);
+        if (daily.matches()) {
+            ScheduleTime at = parseClock(daily.group(2) != null ? daily.group(2) : daily.group(3));
+            if (at == null) {
+                return null;
+            }
+            int minuteOfDay = at.minuteOfDay;
+            if (at.twelveHour) {
+                // nextDue repeats the first occurrence, so settle on one half of the day here
+                boolean evening = "every evening".equals(daily.group(1));
+                if (evening ? minuteOfDay >= 60 : minuteOfDay < 60) {
+                    minuteOfDay += 12 * 60;
+                }
+            }
+            return new ScheduleTime(0, minuteOfDay, false, DAY_MILLIS);
+        }
+        Matcher at = AT.matcher(phrase);
+        return at.matches() ? parseClock(at.group(1)) : null;
+    }
+
+    /**
+     * Parse "nine", "nine thirty pm", "21:15", "noon"
+     */
+    private static ScheduleTime parseClock(String clock) {
+        if (clock.equals("noon") || clock.equals("midday")) {
+            return new ScheduleTime(0, 12 * 60, false, 0);
+        }
+        if (clock.equals("midnight")) {
+            return new ScheduleTime(0, 0, false, 0);
+        }
+        String meridiem = null;
+        Matcher suffix = MERIDIEM.matcher(clock);
+        if (suffix.matches()) {
+            clock = suffix.group(1);
+            meridiem = suffix.group(2);
+        }
+
+        int hour;
+        int minute;
+        Matcher digits = CLOCK.matcher(clock);
+        if (digits.matches()) {
+            hour = Integer.parseInt(digits.group(1));
+            minute = digits.group(2) == null ? 0 : Integer.parseInt(digits.group(2));
+        } else {
+            // "nine", "twenty one", "nine thirty", "nine o five", "ten forty five"
+            String[] words = clock.split(" ", 2);
+            long whole = parseNumber(clock);
+            hour = (int) (whole >= 0 && whole <= 23 ? whole : parseNumber(words[0]));
+            minute = 0;
+            if (words.length > 1 && whole != hour) {
+                String rest = words[1].startsWith("o ") ? words[1].substring(2) : words[1];
+                minute = (int) parseNumber(rest);
+            }
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+
+        boolean twelveHour = false;
+        if (meridiem != null && hour >= 1 && hour <= 12 && !meridiem.startsWith("o")) {
+            boolean afternoon = meridiem.startsWith("p") || meridiem.equals("in the evening")
+                    || meridiem.equals("at night") || meridiem.equals("tonight");
+            hour = hour % 12 + (afternoon ? 12 : 0);
+        } else if (hour >= 1 && hour <= 12) {
+            hour = hour % 12;
+            twelveHour = true;
+        }
+        return new ScheduleTime(0, hour * 60 + minute, twelveHour, 0);
+    }
+
+    /**
+     * Parse a spoken or written whole number up to 59 ("a", "forty five", "15")
+     * @return The number, or -1
+     */
+    static long parseNumber(String words) {
+        if (words.matches("\\d{1,4}")) {
+            return Long.parseLong(words);
+        }
+        if (words.equals("a") || words.equals("an")) {
+            return 1;
+        }
+        long total = -1;
+        for (String word : words.split(" ")) {
+            long value = -1;
+            for (int i = 0; i < UNITS.length; i++) {
+                if (word.equals(UNITS[i])) {
+                    value = i;
+                }
+            }
+            for (int i = 2; i < TENS.length; i++) {
+                if (word.equals(TENS[i])) {
+                    value = i * 10;
+                }
+            }
+            // Only "forty five" style pairs: a tens word followed by a single unit
+            if (value < 0 || (total >= 0 && (total % 10 != 0 || total < 20 || value >= 10))) {
+                return -1;
+            }
+            total = total < 0 ? value : total + value;
+        }
+        return total;
+    }
+
+    private static long unitMillis(String unit) {
+        if (unit.startsWith("hour")) {
+            return HOUR_MILLIS;
+        }
+        return unit.startsWith("min") ? MINUTE_MILLIS : 1000;
+    }
+
+    /**
+     * First time the launch is due
+     * @param nowMillis Current time
+     * @param zone Time zone that "at 9" refers to
+     * @return Epoch milliseconds, always after now for "at ..."
+     */
+    public long firstDue(long nowMillis, ZoneId zone) {
+        if (minuteOfDay < 0) {
+            return nowMillis + delayMillis;
+        }
+        ZonedDateTime now = Instant.ofEpochMilli(nowMillis).atZone(zone);
+        LocalDate today = now.toLocalDate();
+        long best = Long.MAX_VALUE;
+        for (int day = 0; day <= 1; day++) {
+            for (int half = 0; half <= (twelveHour ? 1 : 0); half++) {
+                int minute = minuteOfDay + half * 12 * 60;
+                long candidate = today.plusDays(day).atTime(minute / 60, minute % 60).atZone(zone)
+                        .toInstant().toEpochMilli();
+                if (candidate > nowMillis) {
+                    best = Math.min(best, candidate);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Next time a repeating launch is due after it fired (or was missed)
+     * @param due The occurrence that just passed
+     * @param repeatMillis The schedule's repeat, see getRepeatMillis
+     * @param nowMillis Current time
+     * @param zone Time zone for daily repeats
+     * @return First occurrence after now
+     */
+    public static long nextDue(long due, long repeatMillis, long nowMillis, ZoneId zone) {
+        if (repeatMillis == DAY_MILLIS) {
+            ZonedDateTime next = Instant.ofEpochMilli(due).atZone(zone);
+            while (next.toInstant().toEpochMilli() <= nowMillis) {
+                next = next.plusDays(1);
+            }
+            return next.toInstant().toEpochMilli();
+        }
+        long missed = (nowMillis - due) / repeatMillis + 1;
+        return due + Math.max(1, missed) * repeatMillis;
+    }
+
+    /**
+     * Get the repeat interval
+     * @return 0 for once, DAY_MILLIS for daily, else milliseconds between launches
+     */
+    public long getRepeatMillis() {
+        return repeatMillis;
+    }
+
+    /**
+     * Serialize for CommandIntent.toJson
+     */
+    JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("delayMs", delayMillis);
+        json.put("minuteOfDay", minuteOfDay);
+        json.put("twelveHour", twelveHour);
+        json.put("repeatMs", repeatMillis);
+        return json;
+    }
+
+    /**
+     * Rebuild a schedule serialized by toJson
+     */
+    static ScheduleTime fromJson(JSONObject json) {
+        return new ScheduleTime(json.getLong("delayMs"), json.getInt("minuteOfDay"),
+                json.getBoolean("twelveHour"), json.getLong("repeatMs"));
+    }
+
+    /**
+     * Describe a repeat interval for logs ("every day", "every 30 min")
+     */
+    public static String describeRepeat(long repeatMillis) {
+        if (repeatMillis == DAY_MILLIS) {
+            return "every day";
+        }
+        if (repeatMillis % HOUR_MILLIS == 0) {
+            return repeatMillis == HOUR_MILLIS ? "every hour" : "every " + repeatMillis / HOUR_MILLIS + " h";
+        }
+        return "every " + Math.max(1, repeatMillis / MINUTE_MILLIS) + " min";
+    }
+
+    @Override
+    public String toString() {
+        if (minuteOfDay >= 0) {
+            String at = String.format("at %d:%02d%s", minuteOfDay / 60, minuteOfDay % 60, twelveHour ? " (am/pm)" : "");
+            return repeatMillis == 0 ? at : describeRepeat(repeatMillis) + " " + at;
+        }
+        return repeatMillis == 0 ? "in " + delayMillis / 1000 + " s" : describeRepeat(repeatMillis);
+    }
+}
@@ -0,0 +1,287 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ScriptedSpeechEngine - A SpeechEngine ("scripted") that hears what a script says, for load tests
+ * The model path is a script file (or a directory holding script.json):
+ *
+ *   {"loop": true, "decodeMicros": 0,
+ *    "utterances": [{"text": "open chrome", "ms": 1200, "confidence": 0.9,
+ *                    "alternatives": ["open crome"]}, ...]}
+ *
+ * (a bare array of utterances also works). Each recognizer plays the script from the top,
+ * whatever audio it is given: once an utterance's "ms" of audio has been fed, acceptWaveForm
+ * returns true and getResult returns its text, with word timings spread over its length.
+ * Partial results grow word by word in between. With alternatives, the text is first and its
+ * posterior is "confidence"; without, every word has that confidence. A grammar keeps only the
+ * words it contains. "decodeMicros" spins that long in every acceptWaveForm, to stand in for
+ * decoding cost. Results depend only on the script and the amount of audio, so runs repeat
+ * exactly; nothing native is loaded.
+ */
+public class ScriptedSpeechEngine implements SpeechEngine {
+
+    private static final String SCRIPT_FILE = "script.json";
+
+    @Override
+    public String getName() {
+        return "scripted";
+    }
+
+    @Override
+    public SpeechModel loadModel(String path) throws IOException {
+        Path script = Paths.get(path);
+        if (Files.isDirectory(script)) {
+            script = script.resolve(SCRIPT_FILE);
+        }
+        String text = new String(Files.readAllBytes(script), StandardCharsets.UTF_8).trim();
+        try {
+            JSONObject json = text.startsWith("[")
+                    ? new JSONObject().put("utterances", new JSONArray(text))
+                    : new JSONObject(text);
+            return new Script(json);
+        } catch (Exception e) {
+            throw new IOException("Failed to parse speech script " + script + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One scripted utterance
+     */
+    private static final class Utterance {
+        final String text;
+        final int ms;
+        final double confidence;
+        final List<String> alternatives = new ArrayList<>();
+
+        Utterance(JSONObject json) {
+            text = json.getString("text").trim();
+            ms = json.optInt("ms", 1000);
+            confidence = json.optDouble("confidence", 1.0);
+            JSONArray others = json.optJSONArray("alternatives");
+            for (int i = 0; others != null && i < others.length(); i++) {
+                alternatives.add(others.getString(i).trim());
+            }
+        }
+    }
+
+    /**
+     * A loaded script, the "model"
+     */
+    private static final class Script implements SpeechModel {
+        final List<Utterance> utterances = new ArrayList<>();
+        final boolean loop;
+        final long decodeNanos;
+
+        Script(JSONObject json) {
+            JSONArray lines = json.getJSONArray("utterances");
+            for (int i = 0; i < lines.length(); i++) {
+                utterances.add(new Utterance(lines.getJSONObject(i)));
+            }
+            loop = json.optBoolean("loop", true);
+            decodeNanos = json.optLong("decodeMicros", 0) * 1000;
+        }
+
+        @Override
+        public SpeechRecognizer createRecognizer(float sampleRate) {
+            return new ScriptedRecognizer(this, sampleRate);
+        }
+
+        @Override
+        public SpeechRecognizer createRecognizer(float sampleRate, String grammar) {
+            ScriptedRecognizer recognizer = new ScriptedRecognizer(this, sampleRate);
+            recognizer.setGrammar(grammar);
+            return recognizer;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to free
+        }
+    }
+
+    /**
+     * Plays the script against the amount of audio fed to it
+     */
+    private static final class ScriptedRecognizer implements SpeechRecognizer {
+        private final Script script;
+        private final double bytesPerMs;
+        private int next;
+        private long fed;
+        // Utterance that ended in the last acceptWaveForm, until getResult
+        private Utterance ended;
+        private Set<String> vocabulary;
+        private int alternatives;
+        private boolean words;
+
+        ScriptedRecognizer(Script script, float sampleRate) {
+            this.script = script;
+            this.bytesPerMs = sampleRate * 2 / 1000.0;
+        }
+
+        private Utterance current() {
+            if (script.utterances.isEmpty() || (next >= script.utterances.size() && !script.loop)) {
+                return null;
+            }
+            return script.utterances.get(next % script.utterances.size());
+        }
+
+        private long lengthBytes(Utterance utterance) {
+            return Math.max(1, (long) (utterance.ms * bytesPerMs));
+        }
+
+        @Override
+        public boolean acceptWaveForm(byte[] data, int length) {
+            if (script.decodeNanos > 0) {
+                long until = System.nanoTime() + script.decodeNanos;
+                while (System.nanoTime() < until) {
+                    Thread.onSpinWait();
+                }
+            }
+            Utterance utterance = current();
+            if (utterance == null) {
+                return false;
+            }
+            fed += length;
+            if (fed < lengthBytes(utterance)) {
+                return false;
+            }
+            ended = utterance;
+            next++;
+            fed = 0;
+            return true;
+        }
+
+        @Override
+        public String getResult() {
+            Utterance utterance = ended;
+            ended = null;
+            return format(utterance);
+        }
+
+        @Override
+        public String getPartialResult() {
+            Utterance utterance = current();
+            if (utterance == null || fed == 0) {
+                return new JSONObject().put("partial", "").toString();
+            }
+            List<String> heard = heard(utterance.text);
+            int count = (int) (heard.size() * fed / lengthBytes(utterance));
+            return new JSONObject().put("partial", String.join(" ", heard.subList(0, count))).toString();
+        }
+
+        @Override
+        public String getFinalResult() {
+            if (ended != null) {
+                return getResult();
+            }
+            Utterance utterance = fed > 0 ? current() : null;
+            if (utterance != null) {
+                next++;
+                fed = 0;
+            }
+            return format(utterance);
+        }
+
+        /**
+         * The words of a line that the grammar allows (all of them without one)
+         */
+        private List<String> heard(String text) {
+            List<String> heard = new ArrayList<>();
+            for (String word : text.split("\\s+")) {
+                if (!word.isEmpty() && (vocabulary == null || vocabulary.contains(word))) {
+                    heard.add(word);
+                }
+            }
+            return heard;
+        }
+
+        private String format(Utterance utterance) {
+            List<String> heard = utterance == null ? Collections.emptyList() : heard(utterance.text);
+            String text = String.join(" ", heard);
+            JSONObject result = new JSONObject();
+            if (alternatives > 0) {
+                JSONArray list = new JSONArray();
+                if (utterance != null) {
+                    List<String> texts = new ArrayList<>();
+                    texts.add(text);
+                    for (String other : utterance.alternatives) {
+                        if (texts.size() < alternatives) {
+                            texts.add(String.join(" ", heard(other)));
+                        }
+                    }
+                    // Scores whose softmax gives the first text the scripted posterior
+                    double confidence = Math.min(Math.max(utterance.confidence, 1e-6), 1.0);
+                    double rest = texts.size() == 1 ? 0
+                            : Math.log((1 - confidence) / (texts.size() - 1) / confidence);
+                    for (int i = 0; i < texts.size(); i++) {
+                        list.put(new JSONObject().put("text", texts.get(i)).put("confidence", i == 0 ? 0.0 : rest));
+                    }
+                }
+                return result.put("alternatives", list).toString();
+            }
+            if (words && !heard.isEmpty()) {
+                JSONArray timed = new JSONArray();
+                double seconds = utterance.ms / 1000.0 / heard.size();
+                for (int i = 0; i < heard.size(); i++) {
+                    timed.put(new JSONObject()
+                            .put("word", heard.get(i))
+                            .put("conf", utterance.confidence)
+                            .put("start", i * seconds)
+                            .put("end", (i + 1) * seconds));
+                }
+                result.put("result", timed);
+            }
+            return result.put("text", text).toString();
+        }
+
+        @Override
+        public void setGrammar(String grammar) {
+            Set<String> allowed = new HashSet<>();
+            JSONArray phrases = new JSONArray(grammar);
+            for (int i = 0; i < phrases.length(); i++) {
+                allowed.addAll(Arrays.asList(phrases.getString(i).trim().split("\\s+")));
+            }
+            allowed.remove("[unk]");
+            vocabulary = allowed;
+        }
+
+        @Override
+        public void setMaxAlternatives(int alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        public void setWords(boolean words) {
+            this.words = words;
+        }
+
+        @Override
+        public void reset() {
+            // Vosk drops what it heard of the current utterance; so does the script
+            if (fed > 0) {
+                next++;
+            }
+            fed = 0;
+            ended = null;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to free
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.vocadesk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * SpeechEngine - Service interface for the speech recognizer Vocadesk decodes with
+ * Engines are found through ServiceLoader (listed in META-INF/services/com.vocadesk.SpeechEngine)
+ * and picked by name. "vosk" (VoskSpeechEngine) is the default; "scripted"
+ * (ScriptedSpeechEngine) plays back timed results from a script, so the whole pipeline can
+ * run without a model or the native library. An engine loads models, and a model creates
+ * streaming recognizers (see SpeechModel and SpeechRecognizer).
+ *
+ * Setting: vocadesk.engine (default vosk)
+ */
+public interface SpeechEngine {
+
+    /**
+     * Get the name the engine is chosen by
+     * @return Such as "vosk"
+     */
+    String getName();
+
+    /**
+     * Load a model
+     * @param path Model directory (or file) as the engine expects it
+     * @return The loaded model; close it when done
+     * @throws IOException if the model cannot be read
+     */
+    SpeechModel loadModel(String path) throws IOException;
+
+    /**
+     * Get the engine named by vocadesk.engine
+     */
+    static SpeechEngine fromConfig() {
+        return named(VocadeskConfig.getString("vocadesk.engine", "vosk"));
+    }
+
+    /**
+     * Find an installed engine by name
+     * @param name Engine name (case-insensitive)
+     * @return The engine
+     * @throws IllegalArgumentException if no installed engine has that name
+     */
+    static SpeechEngine named(String name) {
+        List<String> installed = new ArrayList<>();
+        for (SpeechEngine engine : ServiceLoader.load(SpeechEngine.class)) {
+            if (engine.getName().equalsIgnoreCase(name.trim())) {
+                return engine;
+            }
+            installed.add(engine.getName());
+        }
+        throw new IllegalArgumentException("Unknown speech engine: " + name + " (installed: "
+                + String.join(", ", installed) + ")");
+    }
+}
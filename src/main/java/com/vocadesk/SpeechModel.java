@@ -0,0 +1,30 @@
+package com.vocadesk;
+
+import java.io.IOException;
+
+/**
+ * SpeechModel - A loaded speech model, shared by any number of recognizers
+ * Closing it frees the model; recognizers created from it must be closed first.
+ */
+public interface SpeechModel extends AutoCloseable {
+
+    /**
+     * Create a recognizer for free speech
+     * @param sampleRate Sample rate of the 16-bit mono audio it will be given
+     * @return A new recognizer
+     * @throws IOException if the engine cannot create one
+     */
+    SpeechRecognizer createRecognizer(float sampleRate) throws IOException;
+
+    /**
+     * Create a recognizer limited to a grammar
+     * @param sampleRate Sample rate of the 16-bit mono audio it will be given
+     * @param grammar JSON array of phrases, such as ["open chrome", "[unk]"]
+     * @return A new recognizer
+     * @throws IOException if the engine cannot create one
+     */
+    SpeechRecognizer createRecognizer(float sampleRate, String grammar) throws IOException;
+
+    @Override
+    void close();
+}
@@ -0,0 +1,60 @@
+package com.vocadesk;
+
+/**
+ * SpeechRecognizer - Streaming recognizer created by a SpeechModel
+ * Audio goes in through acceptWaveForm in chunks of any size; results come out as Vosk-style
+ * JSON, which HypothesisRanker.parse reads: {"text": ..., "result": [{"word": ..., "conf": ...,
+ * "start": ..., "end": ...}]}, or with alternatives {"alternatives": [{"text": ...,
+ * "confidence": ...}]}, and partial results as {"partial": ...}. Not thread-safe: one thread
+ * feeds a recognizer at a time.
+ */
+public interface SpeechRecognizer extends AutoCloseable {
+
+    /**
+     * Feed audio
+     * @param data 16-bit little-endian mono PCM
+     * @param length Number of valid bytes in data
+     * @return true once an utterance has ended; getResult then returns it
+     */
+    boolean acceptWaveForm(byte[] data, int length);
+
+    /**
+     * Get the utterance that just ended (after acceptWaveForm returned true)
+     */
+    String getResult();
+
+    /**
+     * Get what has been heard so far of the current utterance
+     */
+    String getPartialResult();
+
+    /**
+     * End the current utterance now and get it, for example after trailing silence
+     */
+    String getFinalResult();
+
+    /**
+     * Limit recognition to a grammar
+     * @param grammar JSON array of phrases, such as ["open chrome", "[unk]"]
+     */
+    void setGrammar(String grammar);
+
+    /**
+     * Ask for N-best alternatives in results
+     * @param alternatives Number of alternatives (0 = top result with word confidences)
+     */
+    void setMaxAlternatives(int alternatives);
+
+    /**
+     * Include per-word timings and confidences in results
+     */
+    void setWords(boolean words);
+
+    /**
+     * Forget the current utterance
+     */
+    void reset();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,191 @@
+package com.vocadesk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TimerWheel - Hashed timing wheel holding many pending deadlines with O(1) insert and cancel
+ * A deadline lands in bucket (tick mod size) with the number of whole revolutions still to
+ * go; advancing visits each elapsed tick's bucket once, expiring entries with no revolutions
+ * left and counting down the rest. Nothing ticks on its own: the owner calls advance when it
+ * wakes, and sleeps until getNextExpiry in between, so an idle wheel costs no wakeups.
+ * The next expiry is cached; after it fires or is cancelled it is found again by walking
+ * the buckets ahead of the current tick to the first one with an entry due this revolution,
+ * and only if nothing is due within a revolution by looking at every entry.
+ * Not thread-safe; LaunchScheduler guards it with its own lock.
+ */
+public class TimerWheel<T> {
+
+    /**
+     * One pending deadline; keep it to cancel
+     */
+    public static final class Timeout<T> {
+        public final T value;
+        public final long deadline;
+        private long rounds;
+        private int bucket = -1;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Check if this deadline is still waiting in the wheel
+         */
+        public boolean isPending() {
+            return bucket >= 0;
+        }
+    }
+
+    private final long tickMillis;
+    private final Timeout<T>[] heads;
+    private final int mask;
+    private long currentTick;
+    private int size;
+    // Tick of the earliest pending deadline, or Long.MAX_VALUE; recomputed when not exact
+    private long nextTick = Long.MAX_VALUE;
+    private boolean nextTickExact = true;
+
+    /**
+     * Constructor - An empty wheel
+     * @param tickMillis Resolution of deadlines
+     * @param buckets Number of buckets, rounded up to a power of two
+     * @param nowMillis Current time; deadlines at or before it expire on the first advance
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, int buckets, long nowMillis) {
+        int length = Integer.highestOneBit(Math.max(2, buckets) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.heads = (Timeout<T>[]) new Timeout<?>[length];
+        this.mask = length - 1;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Add a deadline
+     * @param value What to hand back when it expires
+     * @param deadlineMillis When it is due
+     * @return Handle for cancel
+     */
+    public Timeout<T> schedule(T value, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(value, deadlineMillis);
+        // Round up: never expire early
+        long tick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        timeout.rounds = (tick - currentTick - 1) / heads.length;
+        int bucket = (int) (tick & mask);
+        timeout.bucket = bucket;
+        timeout.next = heads[bucket];
+        if (heads[bucket] != null) {
+            heads[bucket].previous = timeout;
+        }
+        heads[bucket] = timeout;
+        size++;
+        if (nextTickExact && tick < nextTick) {
+            nextTick = tick;
+        }
+        return timeout;
+    }
+
+    /**
+     * Remove a pending deadline
+     * @param timeout Handle from schedule
+     * @return false if it had already expired or been cancelled
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout.bucket < 0) {
+            return false;
+        }
+        unlink(timeout);
+        nextTickExact = false;
+        return true;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            heads[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+        size--;
+    }
+
+    /**
+     * Process every tick up to now
+     * @param nowMillis Current time
+     * @return Values whose deadline has passed, in bucket order
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long target = nowMillis / tickMillis;
+        while (currentTick < target && size > 0) {
+            currentTick++;
+            Timeout<T> timeout = heads[(int) (currentTick & mask)];
+            while (timeout != null) {
+                Timeout<T> following = timeout.next;
+                if (timeout.rounds == 0) {
+                    unlink(timeout);
+                    expired.add(timeout.value);
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = following;
+            }
+        }
+        // Nothing left to count down; jump straight to now
+        currentTick = Math.max(currentTick, target);
+        if (!expired.isEmpty()) {
+            nextTickExact = false;
+        }
+        return expired;
+    }
+
+    private long findNextTick() {
+        // An entry with no revolutions left k buckets ahead is due at currentTick + k
+        for (int ahead = 1; ahead <= heads.length; ahead++) {
+            for (Timeout<T> timeout = heads[(int) ((currentTick + ahead) & mask)]; timeout != null;
+                    timeout = timeout.next) {
+                if (timeout.rounds == 0) {
+                    return currentTick + ahead;
+                }
+            }
+        }
+        long earliest = Long.MAX_VALUE;
+        for (Timeout<T> head : heads) {
+            for (Timeout<T> timeout = head; timeout != null; timeout = timeout.next) {
+                earliest = Math.min(earliest, (timeout.deadline + tickMillis - 1) / tickMillis);
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * When the owner next needs to call advance: the earliest pending deadline rounded up to its tick
+     * @return Epoch milliseconds, or Long.MAX_VALUE if nothing is pending
+     */
+    public long getNextExpiry() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        if (!nextTickExact) {
+            nextTick = findNextTick();
+            nextTickExact = true;
+        }
+        return Math.max(nextTick, currentTick + 1) * tickMillis;
+    }
+
+    /**
+     * Number of pending deadlines
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,175 @@
+package com.vocadesk;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TranscriptReplay - High-rate replay of transcripts through the text command layer
+ * Runs the same normalize / correct / route / resolve stages as processCommand and
+ * dispatches through a dry-run launcher, then diffs the resolved apps against a
+ * file of expected results
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.TranscriptReplay --transcripts transcripts.txt
+ *        [--expected expected.txt] [--apps apps.json] [--registry-size 10000]
+ *        [--passes 5] [--out resolved.txt]
+ *
+ * transcripts.txt holds one utterance per line. expected.txt holds, line for line, the
+ * app each utterance should resolve to, or "none". Exits with status 1 on any mismatch.
+ */
+public class TranscriptReplay {
+
+    private static final String[] STAGES = {"normalize", "correct", "route", "resolve", "dispatch"};
+
+    private final CommandInterpreter interpreter;
+    private final RecordingAppLauncher appLauncher;
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final long[] stageNanos = new long[STAGES.length];
+    private final long[] stageBytes = new long[STAGES.length];
+
+    private TranscriptReplay(RecordingAppLauncher appLauncher) {
+        this.appLauncher = appLauncher;
+        this.interpreter = new CommandInterpreter(appLauncher);
+    }
+
+    /**
+     * Resolve one line without instrumentation (throughput pass)
+     */
+    private String resolveFast(String line) {
+        CommandIntent intent = interpreter.interpret(line);
+        if (intent.getResolvedApp() != null) {
+            appLauncher.launchApp(intent.getResolvedApp());
+        }
+        return intent.getResolvedApp();
+    }
+
+    /**
+     * Resolve one line, charging time and allocations to each stage
+     */
+    private String resolveInstrumented(String line) {
+        long threadId = Thread.currentThread().getId();
+        long t0 = System.nanoTime();
+        long a0 = threadBean.getThreadAllocatedBytes(threadId);
+        String normalized = interpreter.normalize(line);
+        long t1 = System.nanoTime();
+        long a1 = threadBean.getThreadAllocatedBytes(threadId);
+        String corrected = interpreter.correct(normalized);
+        long t2 = System.nanoTime();
+        long a2 = threadBean.getThreadAllocatedBytes(threadId);
+        CommandIntent intent = interpreter.route(corrected);
+        long t3 = System.nanoTime();
+        long a3 = threadBean.getThreadAllocatedBytes(threadId);
+        interpreter.resolve(intent);
+        long t4 = System.nanoTime();
+        long a4 = threadBean.getThreadAllocatedBytes(threadId);
+        if (intent.getResolvedApp() != null) {
+            appLauncher.launchApp(intent.getResolvedApp());
+        }
+        long t5 = System.nanoTime();
+        long a5 = threadBean.getThreadAllocatedBytes(threadId);
+
+        long[] times = {t0, t1, t2, t3, t4, t5};
+        long[] bytes = {a0, a1, a2, a3, a4, a5};
+        for (int i = 0; i < STAGES.length; i++) {
+            stageNanos[i] += times[i + 1] - times[i];
+            stageBytes[i] += bytes[i + 1] - bytes[i];
+        }
+        return intent.getResolvedApp();
+    }
+
+    /**
+     * Main entry point for the replay harness
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--apps", "apps.json",
+                "--registry-size", "0",
+                "--passes", "5");
+        CommandLineOptions.require(options, "--transcripts", "<file>");
+        PrintStream report = System.out;
+
+        List<String> transcripts = Files.readAllLines(Paths.get(options.get("--transcripts")));
+        List<String> expected = options.containsKey("--expected")
+                ? Files.readAllLines(Paths.get(options.get("--expected")))
+                : null;
+        int passes = Integer.parseInt(options.get("--passes"));
+
+        // Keep registry loading and dry-run launch chatter out of the report
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        RecordingAppLauncher appLauncher = new RecordingAppLauncher(options.get("--apps"));
+        appLauncher.padRegistry(Integer.parseInt(options.get("--registry-size")));
+        TranscriptReplay replay = new TranscriptReplay(appLauncher);
+
+        // Throughput passes (the first one doubles as JIT warm-up)
+        double bestRate = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            long start = System.nanoTime();
+            for (String line : transcripts) {
+                replay.resolveFast(line);
+            }
+            long elapsed = System.nanoTime() - start;
+            appLauncher.drainLaunches();
+            if (pass > 0 || passes == 1) {
+                bestRate = Math.max(bestRate, transcripts.size() / (elapsed / 1e9));
+            }
+        }
+
+        // Instrumented pass for per-stage time and allocations
+        List<String> resolved = new ArrayList<>(transcripts.size());
+        for (String line : transcripts) {
+            String app = replay.resolveInstrumented(line);
+            resolved.add(app == null ? "none" : app);
+        }
+        appLauncher.drainLaunches();
+        System.setOut(report);
+
+        report.println("========================================");
+        report.println("  VOcadesk - Transcript Replay");
+        report.println("========================================");
+        report.println("Utterances:        " + transcripts.size());
+        report.println("Registry size:     " + appLauncher.getAppCount());
+        report.printf("Throughput:        %.0f utterances/s%n", bestRate);
+        report.println("Per-stage cost (instrumented pass):");
+        for (int i = 0; i < STAGES.length; i++) {
+            report.printf("  %-10s %10.1f ns/utt %10.1f B/utt%n", STAGES[i],
+                    (double) replay.stageNanos[i] / Math.max(1, transcripts.size()),
+                    (double) replay.stageBytes[i] / Math.max(1, transcripts.size()));
+        }
+
+        if (options.containsKey("--out")) {
+            Files.write(Paths.get(options.get("--out")), resolved);
+        }
+
+        if (expected == null) {
+            for (int i = 0; i < transcripts.size(); i++) {
+                report.println(resolved.get(i) + "\t" + transcripts.get(i));
+            }
+            return;
+        }
+
+        int mismatches = 0;
+        for (int i = 0; i < transcripts.size(); i++) {
+            String want = i < expected.size() ? expected.get(i).trim().toLowerCase() : "<missing>";
+            if (!want.equals(resolved.get(i))) {
+                mismatches++;
+                report.println("@@ line " + (i + 1) + ": " + transcripts.get(i));
+                report.println("- " + want);
+                report.println("+ " + resolved.get(i));
+            }
+        }
+        report.println("Mismatches:        " + mismatches + " / " + transcripts.size());
+
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+}
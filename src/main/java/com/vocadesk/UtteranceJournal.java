@@ -0,0 +1,383 @@
+package com.vocadesk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * UtteranceJournal - Append-only binary record of what was heard, how it was read and what ran
+ * One record per utterance: timestamp, raw and corrected text, the resolved intent, per-stage
+ * latencies and, optionally, the utterance's PCM, so field problems can be replayed later
+ * (see JournalReader). The recognition thread only copies the record onto a lock-free queue
+ * and unparks the writer thread; when the queue is full the record is dropped and counted
+ * rather than waiting. The writer appends to memory-mapped segment files, rotates them at
+ * the segment size and deletes the oldest once the journal exceeds its cap. A record's
+ * length is written after its body, so a crash never leaves a half record visible.
+ *
+ * Segment: int MAGIC, then records [int length][body], a zero length marks the end
+ * Body: long timestamp, byte flags, float confidence, int[4] stage micros, strings raw,
+ *       corrected, intent type, argument, resolved app, then int PCM length and PCM bytes
+ *
+ * Settings: vocadesk.journal.enabled (default false), vocadesk.journal.dir (default "journal"),
+ *           vocadesk.journal.audio (default false), vocadesk.journal.segment-mb (default 16),
+ *           vocadesk.journal.max-mb (default 256)
+ */
+public class UtteranceJournal implements AutoCloseable {
+
+    public static final String[] STAGES = {"decode", "rank", "cascade", "dispatch"};
+
+    private static final int MAGIC = 0x56444A31;
+    private static final String SUFFIX = ".vdj";
+    private static final int QUEUE_LIMIT = 1024;
+    private static final int MAX_AUDIO_BYTES = 30 * 32000;
+    private static final byte FUZZY = 1;
+    private static final byte REJECTED = 2;
+    private static final byte AUDIO = 4;
+
+    /**
+     * One journaled utterance
+     */
+    public static class Entry {
+        public long timestamp;
+        public String raw;
+        public String corrected;
+        public String intentType;
+        public String argument;
+        public String resolvedApp;
+        public boolean fuzzy;
+        public boolean rejected;
+        public float confidence;
+        public final int[] stageMicros = new int[STAGES.length];
+        public byte[] pcm;
+    }
+
+    private final Path directory;
+    private final boolean captureAudio;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final Thread writer;
+    private volatile boolean closing;
+
+    // Utterance audio, recognition thread only
+    private byte[] audio = new byte[0];
+    private int audioLength;
+
+    // Current segment, writer thread only
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int written;
+    private int sequence;
+
+    /**
+     * Constructor - Journal into a directory, starting a new segment
+     * @param directory Journal directory (created if missing)
+     * @param captureAudio Whether to keep each utterance's PCM
+     * @param segmentBytes Size of each segment file
+     * @param maxBytes Total size after which the oldest segments are deleted
+     */
+    public UtteranceJournal(Path directory, boolean captureAudio, int segmentBytes, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.captureAudio = captureAudio;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        openSegment();
+
+        this.writer = ExecutionModel.newServiceThread("vocadesk-journal", this::drain);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    /**
+     * Create the journal described by vocadesk.journal.* settings
+     * @return The journal, or null when journaling is disabled or the directory is unusable
+     */
+    public static UtteranceJournal fromConfig() {
+        if (!VocadeskConfig.getBoolean("vocadesk.journal.enabled", false)) {
+            return null;
+        }
+        Path directory = Paths.get(VocadeskConfig.getString("vocadesk.journal.dir", "journal"));
+        try {
+            return new UtteranceJournal(directory,
+                    VocadeskConfig.getBoolean("vocadesk.journal.audio", false),
+                    VocadeskConfig.getInt("vocadesk.journal.segment-mb", 16) << 20,
+                    VocadeskConfig.getLong("vocadesk.journal.max-mb", 256) << 20);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Could not open journal in " + directory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Keep a chunk of the current utterance's audio (recognition thread, no-op without audio)
+     * Only the most recent 30 s are kept if no utterance ends for longer than that.
+     */
+    public void captureAudio(byte[] buffer, int length) {
+        if (!captureAudio || length > MAX_AUDIO_BYTES) {
+            return;
+        }
+        if (audioLength + length > MAX_AUDIO_BYTES) {
+            int keep = MAX_AUDIO_BYTES - length;
+            System.arraycopy(audio, audioLength - keep, audio, 0, keep);
+            audioLength = keep;
+        }
+        if (audioLength + length > audio.length) {
+            audio = Arrays.copyOf(audio, Math.min(MAX_AUDIO_BYTES, Math.max(audio.length * 2, audioLength + length)));
+        }
+        System.arraycopy(buffer, 0, audio, audioLength, length);
+        audioLength += length;
+    }
+
+    /**
+     * Forget the current utterance's audio (nothing was heard, or the recognizer was reset)
+     */
+    public void discardAudio() {
+        audioLength = 0;
+    }
+
+    /**
+     * Journal a completed utterance without blocking (recognition thread)
+     * @param raw The recognizer's top hypothesis
+     * @param ranking The interpretation that was acted on
+     * @param stageNanos Time per stage, in STAGES order
+     */
+    public void record(String raw, HypothesisRanker.Ranking ranking, long... stageNanos) {
+        Entry entry = new Entry();
+        entry.timestamp = System.currentTimeMillis();
+        entry.raw = raw;
+        entry.corrected = ranking.intent.text;
+        entry.intentType = ranking.intent.type.name();
+        entry.argument = ranking.intent.argument;
+        entry.resolvedApp = ranking.intent.getResolvedApp() == null ? "" : ranking.intent.getResolvedApp();
+        entry.fuzzy = ranking.intent.isFuzzy();
+        entry.rejected = ranking.rejected;
+        entry.confidence = (float) ranking.confidence;
+        for (int i = 0; i < STAGES.length && i < stageNanos.length; i++) {
+            entry.stageMicros[i] = (int) Math.min(Integer.MAX_VALUE, stageNanos[i] / 1000);
+        }
+        if (captureAudio && audioLength > 0) {
+            entry.pcm = Arrays.copyOf(audio, audioLength);
+        }
+        audioLength = 0;
+
+        if (queued.incrementAndGet() > QUEUE_LIMIT) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.offer(entry);
+        LockSupport.unpark(writer);
+    }
+
+    private void drain() {
+        while (true) {
+            Entry entry = queue.poll();
+            if (entry == null) {
+                if (closing) {
+                    return;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+            queued.decrementAndGet();
+            try {
+                append(entry);
+            } catch (IOException e) {
+                System.err.println("[ERROR] Journal write failed: " + e.getMessage());
+            } catch (RuntimeException e) {
+                // e.g. a record too large for a segment; lose it, keep the writer
+                dropped.incrementAndGet();
+                System.err.println("[WARNING] Journal record dropped: " + e);
+            }
+        }
+    }
+
+    private void append(Entry entry) throws IOException {
+        byte[][] strings = {
+            utf8(entry.raw), utf8(entry.corrected), utf8(entry.intentType), utf8(entry.argument), utf8(entry.resolvedApp)
+        };
+        byte[] pcm = entry.pcm;
+        int size = 8 + 1 + 4 + 4 * STAGES.length + 4;
+        for (byte[] string : strings) {
+            size += 4 + string.length;
+        }
+        // A record never spans segments; drop audio that could not fit in an empty one
+        if (pcm != null && size + pcm.length + 8 > segmentBytes) {
+            pcm = null;
+        }
+        size += pcm == null ? 0 : pcm.length;
+        if (written + 4 + size + 4 > segmentBytes) {
+            rotate();
+        }
+
+        int start = written;
+        segment.position(start + 4);
+        segment.putLong(entry.timestamp);
+        segment.put((byte) ((entry.fuzzy ? FUZZY : 0) | (entry.rejected ? REJECTED : 0) | (pcm != null ? AUDIO : 0)));
+        segment.putFloat(entry.confidence);
+        for (int micros : entry.stageMicros) {
+            segment.putInt(micros);
+        }
+        for (byte[] string : strings) {
+            segment.putInt(string.length);
+            segment.put(string);
+        }
+        segment.putInt(pcm == null ? 0 : pcm.length);
+        if (pcm != null) {
+            segment.put(pcm);
+        }
+        // Commit: the length goes in last
+        segment.putInt(start, size);
+        written = start + 4 + size;
+    }
+
+    private void openSegment() throws IOException {
+        Path file = directory.resolve(String.format("journal-%d-%04d%s", System.currentTimeMillis(), sequence++, SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segment.putInt(0, MAGIC);
+        written = 4;
+        enforceCap();
+    }
+
+    private void rotate() throws IOException {
+        closeSegment();
+        openSegment();
+    }
+
+    private void closeSegment() throws IOException {
+        segment.force();
+        channel.close();
+    }
+
+    /**
+     * Delete the oldest segments while the journal is over its cap
+     */
+    private void enforceCap() throws IOException {
+        List<Path> segments = listSegments(directory);
+        long total = 0;
+        for (Path file : segments) {
+            total += Files.size(file);
+        }
+        for (int i = 0; i < segments.size() - 1 && total > maxBytes; i++) {
+            total -= Files.size(segments.get(i));
+            Files.delete(segments.get(i));
+        }
+    }
+
+    /**
+     * Journal segments in a directory, oldest first
+     */
+    public static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().forEach(segments::add);
+            return segments;
+        }
+    }
+
+    /**
+     * Read every committed record of a segment
+     * @param file Segment file
+     * @return Records in write order
+     */
+    public static List<Entry> readSegment(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = reader.map(FileChannel.MapMode.READ_ONLY, 0, reader.size());
+            if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a journal segment: " + file);
+            }
+            while (buffer.remaining() >= 4) {
+                int size = buffer.getInt();
+                if (size <= 0 || size > buffer.remaining()) {
+                    break;
+                }
+                Entry entry = new Entry();
+                entry.timestamp = buffer.getLong();
+                byte flags = buffer.get();
+                entry.fuzzy = (flags & FUZZY) != 0;
+                entry.rejected = (flags & REJECTED) != 0;
+                entry.confidence = buffer.getFloat();
+                for (int i = 0; i < STAGES.length; i++) {
+                    entry.stageMicros[i] = buffer.getInt();
+                }
+                entry.raw = readString(buffer);
+                entry.corrected = readString(buffer);
+                entry.intentType = readString(buffer);
+                entry.argument = readString(buffer);
+                entry.resolvedApp = readString(buffer);
+                int pcmLength = buffer.getInt();
+                if ((flags & AUDIO) != 0) {
+                    entry.pcm = new byte[pcmLength];
+                    buffer.get(entry.pcm);
+                }
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] utf8(String text) {
+        return text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records dropped because the writer fell behind
+     */
+    public int getDropped() {
+        return dropped.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Write out everything queued and close the current segment
+     */
+    @Override
+    public void close() {
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(2000);
+            if (writer.isAlive()) {
+                // The segment is still being written; leave it to the writer rather than race it
+                System.err.println("[WARNING] Journal writer did not finish; last segment left open");
+            } else {
+                closeSegment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Could not close journal: " + e.getMessage());
+        }
+        if (dropped.get() > 0) {
+            System.err.println("[WARNING] Journal dropped " + dropped.get() + " records (writer fell behind)");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.vocadesk;
 
+import org.json.JSONObject;
+
 import javax.swing.*;
 
 /**
@@ -13,6 +15,13 @@ public class VOcadeskMain {
      * @param args Command line arguments (not used)
      */
     public static void main(String[] args) {
+        // Only one GUI: a second launch brings the running one to the front and exits
+        ControlServer control = ControlServer.startFromConfig();
+        if (control == null && VocadeskCtl.handOff(new JSONObject().put("op", "show")) != null) {
+            System.out.println("[INFO] VOcadesk is already running - brought its window to the front");
+            return;
+        }
+        
         // Set system look and feel for better native appearance
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -37,6 +46,9 @@ public class VOcadeskMain {
                 // Create and show GUI
                 System.out.println("[INFO] Initializing GUI...");
                 VocadeskGUI gui = new VocadeskGUI(appLauncher);
+                if (control != null) {
+                    gui.attachControl(control);
+                }
                 
                 System.out.println("[SUCCESS] VOcadesk GUI launched successfully");
                 System.out.println("[INFO] Click 'Start Voice Recognition' to begin");
@@ -0,0 +1,80 @@
+package com.vocadesk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * VocadeskConfig - Optional settings from vocadesk.properties in the project root
+ * Any key can be overridden with a JVM system property, e.g. -Dvocadesk.execution=platform
+ * Missing keys fall back to the defaults passed by the caller
+ */
+public final class VocadeskConfig {
+
+    private static final String CONFIG_FILE = "vocadesk.properties";
+    private static final Properties properties = load();
+
+    private VocadeskConfig() {
+    }
+
+    private static Properties load() {
+        Properties loaded = new Properties();
+        Path path = Paths.get(CONFIG_FILE);
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                loaded.load(in);
+            } catch (IOException e) {
+                System.err.println("[WARNING] Could not read " + CONFIG_FILE + ": " + e.getMessage());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Get a string setting
+     * @param key Setting name, e.g. "vocadesk.execution"
+     * @param defaultValue Value used when the key is not set
+     * @return The configured value
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = properties.getProperty(key);
+        }
+        return value == null ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getString(key, Integer.toString(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("[WARNING] Invalid number for " + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        try {
+            return Long.parseLong(getString(key, Long.toString(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("[WARNING] Invalid number for " + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static double getDouble(String key, double defaultValue) {
+        try {
+            return Double.parseDouble(getString(key, Double.toString(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("[WARNING] Invalid number for " + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getString(key, Boolean.toString(defaultValue)));
+    }
+}
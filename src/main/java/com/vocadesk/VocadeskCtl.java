@@ -0,0 +1,175 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * VocadeskCtl - Command-line client for a running instance's control socket (see ControlServer)
+ * Prints the instance's JSON answer. Exit status: 0 done, 1 the instance refused or did not
+ * understand the request, 2 no instance is running.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.VocadeskCtl open chrome
+ *   java -cp vocadesk.jar com.vocadesk.VocadeskCtl --status | --reload | --show
+ *        [--socket $XDG_RUNTIME_DIR/vocadesk.sock]
+ *
+ * Scripts and hotkey daemons can skip the JVM start and write to the socket directly:
+ *   echo '{"op":"command","text":"open chrome"}' | nc -U $XDG_RUNTIME_DIR/vocadesk.sock
+ * A socket that fails ControlServer.checkOwnership is never connected to.
+ */
+public class VocadeskCtl {
+
+    // How long a second launch waits for an instance that holds the lock but is still binding
+    private static final long HANDOFF_WAIT_MS = 2000;
+
+    /**
+     * Main entry point for the client
+     * @param args See class documentation
+     */
+    public static void main(String[] args) {
+        Path socket = ControlServer.configuredSocket();
+        JSONObject request = new JSONObject().put("op", "command");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--socket":
+                    if (i + 1 == args.length) {
+                        System.err.println("[ERROR] --socket needs a path");
+                        System.exit(1);
+                    }
+                    socket = Paths.get(args[++i]);
+                    break;
+                case "--status":
+                case "--reload":
+                case "--show":
+                    request.put("op", args[i].substring(2));
+                    break;
+                default:
+                    text.append(text.length() == 0 ? "" : " ").append(args[i]);
+            }
+        }
+        if (request.getString("op").equals("command")) {
+            if (text.length() == 0) {
+                System.err.println("[ERROR] Usage: VocadeskCtl <command text> | --status | --reload | --show");
+                System.exit(1);
+            }
+            request.put("text", text.toString());
+        }
+
+        try {
+            ControlServer.checkOwnership(socket, false);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Refusing control socket: " + e.getMessage());
+            System.exit(2);
+        }
+        JSONObject response = send(socket, request);
+        if (response == null) {
+            System.err.println("[ERROR] VOcadesk is not running (no instance on " + socket + ")");
+            System.exit(2);
+        }
+        System.out.println(response.toString(2));
+        System.exit(response.optBoolean("ok") ? 0 : 1);
+    }
+
+    /**
+     * Send one request and wait for the answer
+     * @param socket Control socket path
+     * @param request JSON request
+     * @return The answer, or null if no instance is listening there or the socket fails
+     *         ControlServer.checkOwnership
+     */
+    public static JSONObject send(Path socket, JSONObject request) {
+        if (!Files.exists(socket)) {
+            return null;
+        }
+        try {
+            ControlServer.checkOwnership(socket, false);
+        } catch (IOException e) {
+            return null;
+        }
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(request + "\n");
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            String line = reader.readLine();
+            return line == null ? null : new JSONObject(line);
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Called by a launch that could not take the control socket: pass the request to the
+     * instance that owns it, waiting briefly if that instance is still starting
+     * @param request Request for the running instance
+     * @return The running instance's answer, or null if there is none (start normally)
+     */
+    public static JSONObject handOff(JSONObject request) {
+        if (!VocadeskConfig.getBoolean("vocadesk.control.enabled", true)) {
+            return null;
+        }
+        Path socket = ControlServer.configuredSocket();
+        try {
+            ControlServer.checkOwnership(socket, false);
+        } catch (IOException e) {
+            System.err.println("[WARNING] Not handing off to control socket: " + e.getMessage());
+            return null;
+        }
+        long deadline = System.currentTimeMillis() + HANDOFF_WAIT_MS;
+        while (true) {
+            JSONObject response = send(socket, request);
+            if (response != null || !isOwned(socket) || System.currentTimeMillis() > deadline) {
+                return response;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Check whether some process holds the socket's lock file
+     */
+    private static boolean isOwned(Path socket) {
+        Path lockFile = ControlServer.lockFileFor(socket);
+        if (!Files.exists(lockFile)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                return true;
+            }
+            lock.release();
+            return false;
+        } catch (OverlappingFileLockException e) {
+            // Held by this JVM
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
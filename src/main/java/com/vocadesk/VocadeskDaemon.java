@@ -0,0 +1,131 @@
+package com.vocadesk;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.TargetDataLine;
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * VocadeskDaemon - Headless, low-footprint service mode of the console launcher
+ * Never initializes AWT/Swing, shuts down cleanly on SIGTERM (JVM shutdown hook), and
+ * can run from an AppCDS archive built with "mvn -Pcds package"
+ *
+ * Usage:
+ *   java -XX:SharedArchiveFile=target/vocadesk-daemon.jsa -Xms8m -Xmx48m -XX:+UseSerialGC
+ *        -cp target/vocadesk-1.0.0.jar com.vocadesk.VocadeskDaemon
+ *
+ *   --cds-training  exercise startup code paths without a microphone and exit
+ *                   (used by the cds build profile to record the archive)
+ *
+ * If an instance is already running, any other arguments are passed to it as a command
+ * (see ControlServer) and this process exits.
+ */
+public class VocadeskDaemon {
+
+    private static final String MODEL_PATH = "model";
+    private static final long SHUTDOWN_TIMEOUT_MS = 3000;
+
+    /**
+     * Main entry point for the daemon
+     * @param args Command line arguments (see class documentation)
+     */
+    public static void main(String[] args) throws Exception {
+        // Belt and braces: nothing on this path should touch AWT, and if something does
+        // it must not open a display connection
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length > 0 && args[0].equals("--cds-training")) {
+            trainingRun();
+            return;
+        }
+
+        // Bound before the model loads, so a second start finds this one straight away
+        ControlServer control = ControlServer.startFromConfig();
+        if (control == null && VoiceLauncher.handOff(args)) {
+            return;
+        }
+        
+        VoiceLauncher launcher;
+        try {
+            launcher = new VoiceLauncher();
+        } catch (RuntimeException e) {
+            System.err.println("[FATAL ERROR] " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (control != null) {
+            launcher.attachControl(control);
+        }
+
+        launcher.setOnListening(() -> System.out.println(
+                "[INFO] Listening " + millisSinceStart() + " ms after JVM start"));
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("[INFO] Shutdown requested, stopping listener...");
+            launcher.stop();
+            try {
+                if (!launcher.awaitStopped(SHUTDOWN_TIMEOUT_MS)) {
+                    System.err.println("[WARNING] Listener did not stop within " + SHUTDOWN_TIMEOUT_MS + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "vocadesk-shutdown"));
+
+        // Runs until "exit" is spoken or the process receives SIGTERM
+        launcher.startListening();
+    }
+
+    /**
+     * Load the classes the daemon needs before it reaches "listening", without a microphone
+     * Run under -XX:ArchiveClassesAtExit to record them into a CDS archive
+     */
+    private static void trainingRun() throws Exception {
+        long start = System.nanoTime();
+        ExecutionModel execution = new ExecutionModel();
+        AppLauncher appLauncher = new AppLauncher("apps.json");
+        CommandInterpreter interpreter = new CommandInterpreter(appLauncher);
+        LaunchHistory history = new LaunchHistory(null, execution);
+
+        String[] samples = {"open chrome", "open krome", "launch notepad", "list apps",
+                            "search india in chrome", "reload apps", "help", "exit"};
+        for (String sample : samples) {
+            CommandIntent intent = interpreter.interpret(sample);
+            if (intent.getResolvedApp() != null) {
+                history.getCount(intent.getResolvedApp());
+            }
+        }
+
+        // Audio classes used to open the microphone (the line itself is not opened)
+        AudioFormat format = new AudioFormat(48000, 16, 2, true, false);
+        new DataLine.Info(TargetDataLine.class, format);
+        PolyphaseResampler resampler = new PolyphaseResampler(48000, AudioCapture.TARGET_RATE, 2);
+        short[] frames = new short[9600];
+        resampler.process(frames, 0, frames.length / 2, new short[resampler.maxOutputSamples(4800)], 0);
+
+        if (new File(MODEL_PATH).isDirectory()) {
+            try (SpeechModel model = SpeechEngine.fromConfig().loadModel(MODEL_PATH);
+                 SpeechRecognizer recognizer = model.createRecognizer(16000)) {
+                byte[] silence = new byte[4096];
+                for (int i = 0; i < 8; i++) {
+                    recognizer.acceptWaveForm(silence, silence.length);
+                }
+                recognizer.getFinalResult();
+            }
+        } else {
+            System.out.println("[INFO] No model folder, training run skips Vosk classes");
+        }
+
+        execution.shutdown(1000);
+        System.out.println("[SUCCESS] CDS training run finished in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static long millisSinceStart() {
+        return ProcessHandle.current().info().startInstant()
+                .map(started -> Duration.between(started, Instant.now()).toMillis())
+                .orElse(-1L);
+    }
+}
@@ -0,0 +1,40 @@
+package com.vocadesk;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * VoiceFeedback - Receives visual feedback from the voice recognition controller
+ * Implemented by VocadeskGUI, and by headless stand-ins in benchmarks and tools
+ */
+public interface VoiceFeedback {
+
+    /**
+     * Append a log line (tagged with [INFO], [ERROR], [SUCCESS], ...)
+     * @param message The message to show
+     */
+    void appendLog(String message);
+
+    /**
+     * Show the most recently recognized command
+     * @param command The recognized text
+     */
+    void updateLastCommand(String command);
+
+    /**
+     * Show the current list of registered applications
+     * @param appNames Registered application names
+     */
+    void updateAppList(String[] appNames);
+
+    /**
+     * Show the files found by a "find" command; headless stand-ins just log them
+     * @param query The words searched for
+     * @param paths Matching files, best first ("open result 1" opens the first)
+     */
+    default void showSearchResults(String query, List<Path> paths) {
+        for (int i = 0; i < paths.size(); i++) {
+            appendLog(String.format("  %d. %s", i + 1, paths.get(i)));
+        }
+    }
+}
@@ -1,26 +1,36 @@
 package com.vocadesk;
 
-import org.vosk.Model;
-import org.vosk.Recognizer;
 import org.json.JSONObject;
 
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.DataLine;
-import javax.sound.sampled.TargetDataLine;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * VoiceLauncher - Console version of offline voice-controlled application launcher
  * Uses Vosk for fully offline speech recognition
  * No internet connection required!
+ * Never touches AWT/Swing, so it can run inside the headless VocadeskDaemon
+ * Chunking, line buffering and endpointing follow the current LatencyProfile
  */
 public class VoiceLauncher {
     
     private AppLauncher appLauncher;
-    private Model model;
-    private Recognizer recognizer;
-    private TargetDataLine microphone;
-    private boolean isRunning;
+    private CommandInterpreter interpreter;
+    private SpeechModel model;
+    private volatile AudioCapture microphone;
+    private volatile boolean isRunning;
+    private final ExecutionModel execution;
+    private final LaunchHistory launchHistory;
+    private final LearnedCorrections corrections;
+    private final CommandPipeline pipeline;
+    private final LaunchScheduler scheduler;
+    private final LaunchWarmup warmup;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile LatencyProfile profile;
+    private Runnable onListening = () -> { };
+    private FileIndex fileIndex;
+    private ControlServer control;
     
     // Path to Vosk model
     private static final String MODEL_PATH = "model";
@@ -31,10 +41,74 @@ public class VoiceLauncher {
     public VoiceLauncher() {
         // Initialize AppLauncher with apps.json in project root
         this.appLauncher = new AppLauncher("apps.json");
+        this.execution = new ExecutionModel();
+        this.corrections = new LearnedCorrections(execution);
+        this.interpreter = new CommandInterpreter(appLauncher, corrections);
         this.isRunning = true;
+        this.launchHistory = new LaunchHistory(execution);
+        this.profile = LatencyProfile.fromConfig();
+        this.pipeline = new CommandPipeline(appLauncher, interpreter, launchHistory, LaunchScheduler.configuredFile(),
+                profile, execution, consoleFeedback(), this::handleCommand);
+        this.scheduler = pipeline.getScheduler();
+        this.warmup = LaunchWarmup.fromConfig(appLauncher, launchHistory, interpreter);
+        pipeline.setWarmup(warmup);
         
         // Initialize Vosk speech recognizer
         initializeSpeechRecognizer();
+        
+        if (scheduler.size() > 0) {
+            System.out.println("[INFO] " + scheduler.size() + " scheduled launch(es) pending - say 'list schedules'");
+        }
+        scheduler.start();
+        if (warmup != null) {
+            System.out.println("[INFO] Warming up the most used apps in the background");
+            warmup.warmTop();
+        }
+    }
+    
+    /**
+     * Replay constructor - uses an already loaded model and no microphone
+     * Audio is pushed through processAudio by the caller (see ReplayBenchmark)
+     * @param appLauncher The application registry to launch from
+     * @param model Loaded speech model (not closed by this instance)
+     * @param execution Execution model for launches (not shut down by this instance)
+     */
+    VoiceLauncher(AppLauncher appLauncher, SpeechModel model, ExecutionModel execution) throws IOException {
+        this.appLauncher = appLauncher;
+        this.corrections = new LearnedCorrections(null, execution, 0);
+        this.interpreter = new CommandInterpreter(appLauncher, corrections);
+        this.isRunning = true;
+        this.execution = execution;
+        this.launchHistory = new LaunchHistory(null, execution);
+        this.profile = LatencyProfile.BALANCED;
+        this.pipeline = new CommandPipeline(appLauncher, interpreter, launchHistory, null, profile, execution,
+                consoleFeedback(), this::handleCommand);
+        this.scheduler = pipeline.getScheduler();
+        scheduler.start();
+        this.warmup = null;
+        this.model = model;
+        pipeline.setRecognizer(model.createRecognizer(16000));
+        configureRecognizer(HypothesisRanker.configuredAlternatives());
+    }
+    
+    /**
+     * Feedback for the console: log lines go to standard output, the rest has nowhere to show
+     */
+    private static VoiceFeedback consoleFeedback() {
+        return new VoiceFeedback() {
+            @Override
+            public void appendLog(String message) {
+                System.out.println(message);
+            }
+            
+            @Override
+            public void updateLastCommand(String command) {
+            }
+            
+            @Override
+            public void updateAppList(String[] appNames) {
+            }
+        };
     }
     
     /**
@@ -43,30 +117,38 @@ public class VoiceLauncher {
      */
     private void initializeSpeechRecognizer() {
         try {
-            System.out.println("[INFO] Initializing Vosk speech recognition...");
-            
-            // Load Vosk model from local directory
-            model = new Model(MODEL_PATH);
+            SpeechEngine engine = SpeechEngine.fromConfig();
+            System.out.println("[INFO] Initializing speech recognition (" + engine.getName() + ")...");
             
-            // Setup audio format (16kHz, 16-bit, mono)
-            AudioFormat format = new AudioFormat(16000, 16, 1, true, false);
-            DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
+            // Load the model from the local directory
+            model = engine.loadModel(MODEL_PATH);
             
-            // Get microphone
-            microphone = (TargetDataLine) AudioSystem.getLine(info);
-            microphone.open(format);
+            // Open the microphone at its native format; converted to 16 kHz mono in-process
+            microphone = AudioCapture.open(profile.getLineBufferBytes());
+            System.out.println("[INFO] Capture: " + microphone.describe());
+            System.out.println("[INFO] Latency profile: " + profile);
+            System.out.println("[INFO] Preprocessing: " + pipeline.getPreprocessor().describe());
             
             // Create recognizer
-            recognizer = new Recognizer(model, 16000);
+            pipeline.setRecognizer(model.createRecognizer(16000));
+            configureRecognizer(HypothesisRanker.configuredAlternatives());
+            pipeline.applyConfiguredDecoding(model);
+            
+            fileIndex = FileIndex.fromConfig(execution);
+            if (fileIndex != null) {
+                System.out.println("[INFO] Indexing " + fileIndex.getRoots() + " for 'find' commands");
+                fileIndex.start(VocadeskConfig.getBoolean("vocadesk.index.watch", true), System.out::println);
+            }
+            pipeline.setFileIndex(fileIndex);
             
             System.out.println("[SUCCESS] Speech recognition initialized (offline mode)");
-            System.out.println("[INFO] Using Vosk - High accuracy offline recognition");
+            System.out.println("[INFO] Speech engine: " + engine.getName());
             
         } catch (Exception e) {
             System.err.println("[ERROR] Failed to initialize speech recognizer: " + e.getMessage());
             System.err.println("[INFO] Make sure 'model' folder exists in project root");
             System.err.println("[INFO] Download model from: https://alphacephei.com/vosk/models");
-            System.exit(1);
+            throw new IllegalStateException("Failed to initialize speech recognizer", e);
         }
     }
     
@@ -87,28 +169,32 @@ public class VoiceLauncher {
         
         // Start microphone
         microphone.start();
+        onListening.run();
         
-        byte[] buffer = new byte[4096];
+        LatencyProfile active = profile;
+        byte[] buffer = new byte[active.getChunkBytes()];
         
         // Main listening loop
         while (isRunning) {
             try {
+                // Pick up a profile switch between reads; only the capture line is reopened
+                LatencyProfile requested = profile;
+                if (requested != active) {
+                    if (requested.getLineBufferBytes() != active.getLineBufferBytes()) {
+                        microphone.stop();
+                        microphone.close();
+                        microphone = AudioCapture.open(requested.getLineBufferBytes());
+                        microphone.start();
+                    }
+                    buffer = new byte[requested.getChunkBytes()];
+                    active = requested;
+                }
+                
                 // Read audio data from microphone
                 int bytesRead = microphone.read(buffer, 0, buffer.length);
                 
                 if (bytesRead > 0) {
-                    // Process audio with Vosk
-                    if (recognizer.acceptWaveForm(buffer, bytesRead)) {
-                        // Get final result
-                        String result = recognizer.getResult();
-                        JSONObject json = new JSONObject(result);
-                        String text = json.getString("text");
-                        
-                        if (!text.isEmpty()) {
-                            System.out.println("[HEARD] " + text);
-                            processCommand(text);
-                        }
-                    }
+                    processAudio(buffer, bytesRead);
                 }
                 
             } catch (Exception e) {
@@ -119,103 +205,234 @@ public class VoiceLauncher {
         // Stop microphone and cleanup
         microphone.stop();
         microphone.close();
+        scheduler.close();
+        if (warmup != null) {
+            warmup.close();
+        }
+        execution.shutdown(1000);
+        launchHistory.save();
+        corrections.save();
+        pipeline.closeStages();
+        if (fileIndex != null) {
+            fileIndex.close();
+        }
+        if (control != null) {
+            control.close();
+        }
+        pipeline.getRecognizer().close();
         model.close();
         
         System.out.println("\n[INFO] VOcadesk stopped. Goodbye!");
+        stopped.countDown();
     }
     
     /**
-     * Process voice commands and trigger appropriate actions
-     * @param command The recognized voice command
+     * Ask the listening loop to finish (safe to call from any thread, e.g. a shutdown hook)
      */
-    private void processCommand(String command) {
-        // Normalize command to lowercase for easier matching
-        String normalizedCommand = command.toLowerCase().trim();
-        
-        // Check for exit command
-        if (normalizedCommand.equals("exit") || 
-            normalizedCommand.equals("quit") || 
-            normalizedCommand.equals("close") ||
-            normalizedCommand.equals("stop")) {
-            
-            System.out.println("[ACTION] Exiting VOcadesk...");
-            isRunning = false;
-            return;
+    public void stop() {
+        isRunning = false;
+        if (microphone != null) {
+            // Unblocks a pending read so the loop sees the flag promptly
+            microphone.stop();
         }
-        
-        // Check for "open [app]" command
-        if (normalizedCommand.startsWith("open ")) {
-            // Extract app name after "open "
-            String appName = normalizedCommand.substring(5).trim();
-            
-            if (appName.isEmpty()) {
-                System.out.println("[ERROR] No application name specified");
+    }
+    
+    /**
+     * Wait for the listening loop to release the microphone and model
+     * @param timeoutMillis Maximum time to wait
+     * @return true if the loop finished, false on timeout
+     */
+    public boolean awaitStopped(long timeoutMillis) throws InterruptedException {
+        return stopped.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Set a callback run once the microphone is capturing
+     * @param onListening Callback, run on the listening thread
+     */
+    public void setOnListening(Runnable onListening) {
+        this.onListening = onListening;
+    }
+    
+    /**
+     * Switch latency profile; takes effect from the next read, without reloading the model
+     * @param newProfile The profile to use
+     */
+    public void setProfile(LatencyProfile newProfile) {
+        profile = newProfile;
+        pipeline.setProfile(newProfile);
+        System.out.println("[INFO] Latency profile: " + newProfile);
+    }
+    
+    public LatencyProfile getProfile() {
+        return profile;
+    }
+    
+    /**
+     * Gate the main recognizer behind a wake phrase, or pass null for continuous decoding
+     * @param gate Wake-word gate built on the same model (closed when listening stops)
+     */
+    void setWakeWordGate(WakeWordGate gate) {
+        pipeline.setWakeWordGate(gate);
+    }
+    
+    /**
+     * Re-decode poor results with a large model, or pass null to use this model alone
+     * @param cascade Cascade fed with every chunk this recognizer sees (closed with this instance)
+     */
+    void setCascade(ModelCascade cascade) {
+        pipeline.setCascade(cascade);
+    }
+    
+    /**
+     * Journal every utterance, or pass null to keep nothing
+     * @param journal Journal fed from the recognition thread (closed with this instance)
+     */
+    void setJournal(UtteranceJournal journal) {
+        pipeline.setJournal(journal);
+    }
+    
+    /**
+     * Decode several languages in parallel instead of the single recognizer, or pass null
+     * @param languages Decoder over the configured language models (closed with this instance)
+     */
+    void setLanguages(MultiLanguageDecoder languages) {
+        pipeline.setLanguages(languages);
+    }
+    
+    /**
+     * Feed captured 16 kHz mono PCM to Vosk and dispatch any completed utterance
+     * (see CommandPipeline.processAudio)
+     * @param buffer PCM bytes (16-bit little-endian)
+     * @param length Number of valid bytes in buffer
+     * @return true if a non-empty utterance was completed and dispatched
+     */
+    boolean processAudio(byte[] buffer, int length) {
+        return pipeline.processAudio(buffer, length);
+    }
+    
+    /**
+     * Ask the recognizer for N-best alternatives (0 = top result with word confidences)
+     * @param alternatives Number of alternatives
+     */
+    void configureRecognizer(int alternatives) {
+        pipeline.configureRecognizer(alternatives);
+    }
+    
+    /**
+     * Get the N-best ranker (its counters feed the replay reports)
+     */
+    HypothesisRanker getRanker() {
+        return pipeline.getRanker();
+    }
+    
+    /**
+     * Release a replay instance - its recognizer and scheduler thread
+     * The model and execution model belong to the caller and stay open
+     */
+    void closeReplay() {
+        scheduler.close();
+        pipeline.getRecognizer().close();
+    }
+    
+    /**
+     * Reset the recognizer between replayed utterances
+     */
+    void resetRecognizer() {
+        pipeline.resetRecognizer();
+    }
+    
+    /**
+     * Run the commands the pipeline leaves to the console
+     * @param intent The interpreted voice command
+     */
+    private void handleCommand(CommandIntent intent) {
+        switch (intent.type) {
+            case EXIT:
+                System.out.println("[ACTION] Exiting VOcadesk...");
+                isRunning = false;
                 return;
-            }
-            
-            // Try to launch the application
-            System.out.println("[ACTION] Attempting to open: " + appName);
-            boolean success = appLauncher.launchApp(appName);
-            
-            if (!success) {
-                System.out.println("[HINT] Available apps: " + String.join(", ", appLauncher.getAppNames()));
-            }
-            
-            return;
-        }
-        
-        // Check for "launch [app]" command (alternative)
-        if (normalizedCommand.startsWith("launch ")) {
-            String appName = normalizedCommand.substring(7).trim();
-            
-            if (!appName.isEmpty()) {
-                System.out.println("[ACTION] Attempting to launch: " + appName);
-                boolean success = appLauncher.launchApp(appName);
                 
-                if (!success) {
-                    System.out.println("[HINT] Available apps: " + String.join(", ", appLauncher.getAppNames()));
-                }
-            }
-            
-            return;
+            case SET_PROFILE:
+                setProfile(LatencyProfile.fromName(intent.argument));
+                return;
+                
+            case RELOAD_APPS:
+                System.out.println("[ACTION] Reloading applications from apps.json");
+                execution.runBlocking(appLauncher::reload);
+                return;
+                
+            case HELP:
+                System.out.println("[HELP] Available commands:");
+                System.out.println("  - 'open [app]' - Launch an application");
+                System.out.println("  - 'open [app] and [app]' - Launch several applications at once");
+                System.out.println("  - 'open [app] in 10 minutes / at 9 / every day at 9' - Schedule a launch");
+                System.out.println("  - 'list schedules' / 'cancel [app]' - Show or cancel scheduled launches");
+                System.out.println("  - 'list apps' - Show all available apps");
+                System.out.println("  - 'find [words]' - Search files in the indexed folders");
+                System.out.println("  - 'open result [number]' - Open a file from the last search");
+                System.out.println("  - 'low latency / balanced / low power mode' - Change responsiveness");
+                System.out.println("  - 'exit' - Close VOcadesk");
+                return;
+                
+            default:
+                // Unknown command
+                System.out.println("[WARNING] Command not recognized. Say 'help' for available commands.");
         }
-        
-        // Check for "start [app]" command (alternative)
-        if (normalizedCommand.startsWith("start ")) {
-            String appName = normalizedCommand.substring(6).trim();
+    }
+    
+    /**
+     * Answer control-socket requests from this instance (see ControlServer)
+     * @param control Server bound at startup (closed when listening ends)
+     */
+    void attachControl(ControlServer control) {
+        this.control = control;
+        control.setTarget(new ControlServer.Target() {
+            @Override
+            public CommandIntent command(String text) {
+                System.out.println("[CONTROL] " + text);
+                CommandIntent intent = interpreter.interpret(text);
+                pipeline.execute(intent);
+                return intent;
+            }
             
-            if (!appName.isEmpty()) {
-                System.out.println("[ACTION] Attempting to start: " + appName);
-                boolean success = appLauncher.launchApp(appName);
-                
-                if (!success) {
-                    System.out.println("[HINT] Available apps: " + String.join(", ", appLauncher.getAppNames()));
-                }
+            @Override
+            public void status(JSONObject status) {
+                status.put("frontend", "console");
+                status.put("state", isRunning ? "LISTENING" : "STOPPED");
+                status.put("apps", appLauncher.getAppCount());
+                status.put("scheduled", scheduler.size());
+                status.put("modelLoaded", model != null);
             }
             
-            return;
-        }
-        
-        // Check for "list apps" or "show apps" command
-        if (normalizedCommand.contains("list") || normalizedCommand.contains("show")) {
-            System.out.println("[INFO] Available applications:");
-            for (String appName : appLauncher.getAppNames()) {
-                System.out.println("  - " + appName);
+            @Override
+            public void reload() {
+                appLauncher.reload();
             }
-            return;
+        });
+        System.out.println("[INFO] Control socket: " + control.getSocketFile());
+    }
+    
+    /**
+     * Pass a second launch to the instance that is already running
+     * @param args Command words to run there; none just reports that it is running
+     * @return true if an instance answered (this launch should exit)
+     */
+    static boolean handOff(String[] args) {
+        JSONObject request = args.length == 0
+                ? new JSONObject().put("op", "status")
+                : new JSONObject().put("op", "command").put("text", String.join(" ", args));
+        JSONObject response = VocadeskCtl.handOff(request);
+        if (response == null) {
+            return false;
         }
-        
-        // Check for "help" command
-        if (normalizedCommand.contains("help")) {
-            System.out.println("[HELP] Available commands:");
-            System.out.println("  - 'open [app]' - Launch an application");
-            System.out.println("  - 'list apps' - Show all available apps");
-            System.out.println("  - 'exit' - Close VOcadesk");
-            return;
+        if (args.length == 0) {
+            System.out.println("[INFO] VOcadesk is already running (pid " + response.optLong("pid")
+                    + "); send it commands with VocadeskCtl");
+        } else {
+            System.out.println("[INFO] Passed to the running instance: " + response);
         }
-        
-        // Unknown command
-        System.out.println("[WARNING] Command not recognized. Say 'help' for available commands.");
+        return true;
     }
     
     /**
@@ -224,8 +441,17 @@ public class VoiceLauncher {
      */
     public static void main(String[] args) {
         try {
+            // A running instance takes the arguments as a command instead of a second copy starting
+            ControlServer control = ControlServer.startFromConfig();
+            if (control == null && handOff(args)) {
+                return;
+            }
+            
             // Create and start the voice launcher
             VoiceLauncher launcher = new VoiceLauncher();
+            if (control != null) {
+                launcher.attachControl(control);
+            }
             launcher.startListening();
             
         } catch (Exception e) {
@@ -1,57 +1,153 @@
 package com.vocadesk;
 
-import org.vosk.Model;
-import org.vosk.Recognizer;
 import org.json.JSONObject;
 
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.DataLine;
-import javax.sound.sampled.TargetDataLine;
-import java.awt.Desktop;
 import java.io.IOException;
-import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * VoiceRecognitionController - Simple, working version
+ * Decoding runs on a dedicated platform thread; launches, browser opens, reloads and
+ * history saves run on the ExecutionModel's blocking executor. Chunking, line buffering
+ * and endpointing follow the current LatencyProfile, which can change while listening.
+ * Start and stop move through ListeningState without waiting on the decode thread: a new
+ * session's thread joins the draining one before it reads, then swaps in a spare Recognizer
+ * that was reset in the background after the previous session.
+ *
+ * Setting: vocadesk.recognizer.spare (default true) - keep a second Recognizer ready
  */
 public class VoiceRecognitionController {
     
     private AppLauncher appLauncher;
-    private VocadeskGUI gui;
-    private Model model;
-    private Recognizer recognizer;
-    private TargetDataLine microphone;
-    private volatile boolean isRunning;
-    private Thread recognitionThread;
+    private CommandInterpreter interpreter;
+    private VoiceFeedback gui;
+    private SpeechModel model;
+    // Owns the main model in the GUI (null in worker mode and for replay instances)
+    private ModelResidency residency;
+    private volatile AudioCapture microphone;
+    private final AtomicReference<ListeningState> state = new AtomicReference<>(ListeningState.IDLE);
+    private volatile Thread recognitionThread;
+    private CompletableFuture<Void> sessionDone = CompletableFuture.completedFuture(null);
+    // Recognizer for the next session, reset off the decode thread (null: reset in place)
+    private CompletableFuture<SpeechRecognizer> spare;
+    private final ExecutionModel execution;
+    private final LaunchHistory launchHistory;
+    private final LearnedCorrections corrections;
+    // Decoding and the commands shared with the console launcher
+    private final CommandPipeline pipeline;
+    private final LaunchScheduler scheduler;
+    private final LaunchWarmup warmup;
+    private volatile LatencyProfile profile;
+    private RemoteRecognizer remote;
+    private FileIndex fileIndex;
+    private ControlServer control;
     
     private static final String MODEL_PATH = "model";
     
-    public VoiceRecognitionController(AppLauncher appLauncher, VocadeskGUI gui) {
+    public VoiceRecognitionController(AppLauncher appLauncher, VoiceFeedback gui) {
         this.appLauncher = appLauncher;
+        this.execution = new ExecutionModel();
+        this.corrections = new LearnedCorrections(execution);
+        this.interpreter = new CommandInterpreter(appLauncher, corrections);
         this.gui = gui;
-        this.isRunning = false;
+        this.launchHistory = new LaunchHistory(execution);
+        this.profile = LatencyProfile.fromConfig();
+        this.pipeline = new CommandPipeline(appLauncher, interpreter, launchHistory, LaunchScheduler.configuredFile(),
+                profile, execution, gui, this::handleCommand);
+        this.scheduler = pipeline.getScheduler();
+        this.warmup = LaunchWarmup.fromConfig(appLauncher, launchHistory, interpreter);
+        pipeline.setWarmup(warmup);
         
         initializeSpeechRecognizer();
         gui.updateAppList(appLauncher.getAppNames());
+        if (residency != null) {
+            residency.markIdle();
+        }
+        
+        this.fileIndex = FileIndex.fromConfig(execution);
+        if (fileIndex != null) {
+            gui.appendLog("[INFO] Indexing " + fileIndex.getRoots() + " for 'find' commands");
+            fileIndex.start(VocadeskConfig.getBoolean("vocadesk.index.watch", true), gui::appendLog);
+        }
+        pipeline.setFileIndex(fileIndex);
+        
+        if (scheduler.size() > 0) {
+            gui.appendLog("[INFO] " + scheduler.size() + " scheduled launch(es) pending - say 'list schedules'");
+        }
+        scheduler.start();
+        if (warmup != null) {
+            gui.appendLog("[INFO] Warming up the most used apps in the background");
+            warmup.warmTop();
+        }
+    }
+    
+    /**
+     * Replay constructor - uses an already loaded model and no microphone
+     * Audio is pushed through processAudio by the caller (see ReplayBenchmark);
+     * with a null model only text dispatch is available (see DispatchBurstBenchmark)
+     */
+    VoiceRecognitionController(AppLauncher appLauncher, VoiceFeedback gui, SpeechModel model,
+                               ExecutionModel execution) throws IOException {
+        this.appLauncher = appLauncher;
+        this.corrections = new LearnedCorrections(null, execution, 0);
+        this.interpreter = new CommandInterpreter(appLauncher, corrections);
+        this.gui = gui;
+        this.execution = execution;
+        this.launchHistory = new LaunchHistory(null, execution);
+        this.profile = LatencyProfile.BALANCED;
+        this.pipeline = new CommandPipeline(appLauncher, interpreter, launchHistory, null, profile, execution,
+                gui, this::handleCommand);
+        this.scheduler = pipeline.getScheduler();
+        scheduler.start();
+        this.warmup = null;
+        this.model = model;
+        if (model != null) {
+            pipeline.setRecognizer(model.createRecognizer(16000));
+            configureRecognizer(HypothesisRanker.configuredAlternatives());
+        }
     }
     
     private void initializeSpeechRecognizer() {
         try {
-            gui.appendLog("[INFO] Initializing Vosk speech recognition...");
+            String engine = SpeechEngine.fromConfig().getName();
+            gui.appendLog("[INFO] Initializing speech recognition (" + engine + ")...");
             
-            model = new Model(MODEL_PATH);
+            boolean worker = "worker".equals(VocadeskConfig.getString("vocadesk.recognizer", "in-process"));
+            if (!worker) {
+                residency = ModelResidency.fromConfig(MODEL_PATH, execution, gui);
+                residency.setOnIdle(this::releaseIdleModel);
+                model = residency.loadNow();
+            }
             
-            AudioFormat format = new AudioFormat(16000, 16, 1, true, false);
-            DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
+            // Open the microphone at its native format; converted to 16 kHz mono in-process
+            microphone = AudioCapture.open(profile.getLineBufferBytes());
+            gui.appendLog("[INFO] Capture: " + microphone.describe());
+            gui.appendLog("[INFO] Latency profile: " + profile);
+            gui.appendLog("[INFO] Preprocessing: " + pipeline.getPreprocessor().describe());
             
-            microphone = (TargetDataLine) AudioSystem.getLine(info);
-            microphone.open(format);
+            if (worker) {
+                // Vosk runs in a separate JVM; only capture and preprocessing stay here
+                // Resolved again here so learned corrections (kept by this process) apply
+                remote = new RemoteRecognizer(profile, gui, intent -> {
+                    interpreter.resolve(intent);
+                    pipeline.execute(intent);
+                });
+                remote.start();
+                gui.appendLog("[SUCCESS] Recognition worker starting (separate process)");
+                return;
+            }
             
-            recognizer = new Recognizer(model, 16000);
+            attachModel(model);
+            applyConfiguredDecoding();
             
             gui.appendLog("[SUCCESS] Speech recognition initialized (offline mode)");
-            gui.appendLog("[INFO] Using Vosk - High accuracy offline recognition");
+            gui.appendLog("[INFO] Speech engine: " + engine);
             
         } catch (Exception e) {
             gui.appendLog("[ERROR] Failed to initialize speech recognizer: " + e.getMessage());
@@ -59,213 +155,539 @@ public class VoiceRecognitionController {
         }
     }
     
+    /**
+     * Create the session recognizers on a loaded model
+     */
+    private void attachModel(SpeechModel loaded) throws IOException {
+        model = loaded;
+        pipeline.setRecognizer(model.createRecognizer(16000));
+        if (VocadeskConfig.getBoolean("vocadesk.recognizer.spare", true)) {
+            spare = CompletableFuture.completedFuture(model.createRecognizer(16000));
+        }
+        configureRecognizer(HypothesisRanker.configuredAlternatives());
+    }
+    
+    /**
+     * Attach the optional decoding stages named in vocadesk.properties (wake phrase,
+     * model cascade, parallel languages, utterance journal) to the loaded model
+     */
+    void applyConfiguredDecoding() throws IOException {
+        pipeline.applyConfiguredDecoding(model);
+    }
+    
+    /**
+     * Called by the residency once nothing has listened for the idle time: close everything
+     * built on the main model, then the model. Start reloads it (see reattachModel).
+     */
+    private synchronized void releaseIdleModel() {
+        if (state.get() != ListeningState.IDLE) {
+            return;
+        }
+        SpeechRecognizer recognizer = pipeline.getRecognizer();
+        if (recognizer != null) {
+            if (spare != null) {
+                spare.join().close();
+                spare = null;
+            }
+            recognizer.close();
+            pipeline.setRecognizer(null);
+        }
+        pipeline.releaseModelStages();
+        model = null;
+        residency.unload();
+    }
+    
+    /**
+     * After an idle unload, wait for the model to load again and rebuild what was closed
+     */
+    private void reattachModel() throws IOException {
+        if (residency == null || pipeline.getRecognizer() != null) {
+            return;
+        }
+        attachModel(residency.acquire().join());
+        pipeline.attachModelStages(model);
+    }
+    
+    /**
+     * A hint that listening may start soon (the window gained focus, the pointer is on Start):
+     * begin reloading an unloaded model now and restart the idle countdown
+     */
+    public void wake() {
+        if (residency == null || state.get() != ListeningState.IDLE) {
+            return;
+        }
+        residency.acquire();
+        residency.markBusy();
+        residency.markIdle();
+    }
+    
     public void startListening() {
-        if (isRunning) {
+        beginListening();
+    }
+    
+    /**
+     * Accept Start and hand the session to a new decode thread; returns at once
+     * @return Future completing once the microphone is running (exceptionally if it failed)
+     */
+    private synchronized CompletableFuture<Void> beginListening() {
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        ListeningState current = state.get();
+        if (current == ListeningState.STARTING || current == ListeningState.LISTENING) {
             gui.appendLog("[WARNING] Voice recognition is already running");
-            return;
+            started.complete(null);
+            return started;
+        }
+        if (current == ListeningState.STOPPED || !state.compareAndSet(current, ListeningState.STARTING)) {
+            started.completeExceptionally(new IllegalStateException("voice recognition has been shut down"));
+            return started;
+        }
+        if (residency != null) {
+            residency.markBusy();
+            // Start the reload now if the model was unloaded; the decode thread waits for it
+            residency.acquire();
+        }
+        if (warmup != null) {
+            // Launches usually follow soon after; apps read within the refresh interval are skipped
+            warmup.warmTop();
         }
         
-        isRunning = true;
-        microphone.start();
-        gui.appendLog("[INFO] Microphone activated - speak clearly");
-        
-        recognitionThread = new Thread(() -> {
-            byte[] buffer = new byte[4096];
-            
-            while (isRunning) {
-                try {
-                    int bytesRead = microphone.read(buffer, 0, buffer.length);
-                    
-                    if (bytesRead > 0 && isRunning) {
-                        if (recognizer.acceptWaveForm(buffer, bytesRead)) {
-                            String result = recognizer.getResult();
-                            JSONObject json = new JSONObject(result);
-                            String text = json.getString("text");
-                            
-                            if (!text.isEmpty()) {
-                                gui.updateLastCommand(text);
-                                gui.appendLog("[HEARD] " + text);
-                                processCommand(text);
-                            }
-                        }
-                    }
-                    
-                } catch (Exception e) {
-                    if (isRunning) {
-                        gui.appendLog("[ERROR] Error processing speech: " + e.getMessage());
-                    }
+        long requested = System.nanoTime();
+        // Still set if the last session is draining; the new thread waits for it
+        Thread predecessor = recognitionThread;
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        sessionDone = done;
+        recognitionThread = execution.newDecodeThread(() -> {
+            try {
+                if (predecessor != null) {
+                    predecessor.join();
+                }
+                reattachModel();
+                beginSession();
+                // Drop whatever the line buffered since the last session
+                microphone.flush();
+                microphone.start();
+                if (state.compareAndSet(ListeningState.STARTING, ListeningState.LISTENING)) {
+                    gui.appendLog(String.format("[INFO] Microphone activated in %.0f ms - speak clearly",
+                            (System.nanoTime() - requested) / 1e6));
+                    started.complete(null);
+                    listen();
+                } else {
+                    started.complete(null);
+                }
+            } catch (Exception e) {
+                state.compareAndSet(ListeningState.STARTING, ListeningState.IDLE);
+                started.completeExceptionally(e);
+            } finally {
+                // Leave the line running if a new session has already taken over
+                ListeningState ending = state.get();
+                if (state.compareAndSet(ListeningState.DRAINING, ListeningState.IDLE)
+                        || ending == ListeningState.STOPPED) {
+                    microphone.stop();
+                    gui.appendLog("[INFO] Voice recognition stopped");
+                }
+                if (residency != null && state.get() == ListeningState.IDLE) {
+                    residency.markIdle();
                 }
+                done.complete(null);
             }
-            
-            microphone.stop();
-            gui.appendLog("[INFO] Voice recognition stopped");
         });
         
-        recognitionThread.setDaemon(true);
         recognitionThread.start();
+        return started;
     }
     
-    public void stopListening() {
-        isRunning = false;
+    /**
+     * Read and decode until the session leaves LISTENING
+     */
+    private void listen() {
+        LatencyProfile active = profile;
+        byte[] buffer = new byte[active.getChunkBytes()];
         
-        if (recognitionThread != null && recognitionThread.isAlive()) {
-            recognitionThread.interrupt();
+        while (state.get() == ListeningState.LISTENING) {
+            try {
+                // Pick up a profile switch between reads, on the thread that owns the line
+                LatencyProfile requested = profile;
+                if (requested != active) {
+                    if (requested.getLineBufferBytes() != active.getLineBufferBytes()) {
+                        reopenMicrophone(requested.getLineBufferBytes());
+                    }
+                    buffer = new byte[requested.getChunkBytes()];
+                    active = requested;
+                }
+                
+                int bytesRead = microphone.read(buffer, 0, buffer.length);
+                
+                if (bytesRead > 0 && state.get() == ListeningState.LISTENING) {
+                    processAudio(buffer, bytesRead);
+                }
+                
+            } catch (Exception e) {
+                if (state.get() == ListeningState.LISTENING) {
+                    gui.appendLog("[ERROR] Error processing speech: " + e.getMessage());
+                }
+            }
         }
     }
     
-    private void processCommand(String command) {
-        String normalizedCommand = command.toLowerCase().trim();
-        
-        // Check for exit command
-        if (normalizedCommand.equals("exit") || normalizedCommand.equals("quit") || 
-            normalizedCommand.equals("close") || normalizedCommand.equals("stop")) {
-            gui.appendLog("[ACTION] Exit command received");
-            gui.appendLog("[INFO] Please use the GUI to exit the application");
+    /**
+     * Start a session from a clean slate: a recognizer with no audio in it, and no
+     * endpointer, preprocessor, wake-phrase or journal state left from the last session
+     */
+    private void beginSession() {
+        if (remote != null) {
+            remote.reset();
+            pipeline.getPreprocessor().reset();
             return;
         }
-        
-        // Check for browser search
-        if (normalizedCommand.contains("search") && 
-            (normalizedCommand.contains("chrome") || normalizedCommand.contains("edge") || normalizedCommand.contains("firefox"))) {
-            handleBrowserSearch(normalizedCommand);
-            return;
+        SpeechRecognizer used = pipeline.getRecognizer();
+        if (spare == null) {
+            if (used != null) {
+                used.reset();
+            }
+        } else {
+            pipeline.setRecognizer(spare.join());
+            try {
+                spare = CompletableFuture.supplyAsync(() -> {
+                    used.reset();
+                    return used;
+                }, execution.getBlockingExecutor());
+            } catch (RejectedExecutionException e) {
+                used.reset();
+                spare = CompletableFuture.completedFuture(used);
+            }
         }
-        
-        // Check for "open [app]" command
-        if (normalizedCommand.startsWith("open ")) {
-            String appName = normalizedCommand.substring(5).trim();
-            
-            if (appName.isEmpty()) {
-                gui.appendLog("[ERROR] No application name specified");
-                return;
+        pipeline.resetSession();
+    }
+    
+    /**
+     * Reopen the capture line with a different buffer size (the model stays loaded)
+     */
+    private void reopenMicrophone(int lineBufferBytes) throws Exception {
+        microphone.stop();
+        microphone.close();
+        microphone = AudioCapture.open(lineBufferBytes);
+        microphone.start();
+    }
+    
+    /**
+     * Switch latency profile; takes effect from the next read, without reloading the model
+     * @param newProfile The profile to use
+     */
+    public void setProfile(LatencyProfile newProfile) {
+        profile = newProfile;
+        pipeline.setProfile(newProfile);
+        if (remote != null) {
+            remote.setProfile(newProfile);
+        }
+        gui.appendLog("[INFO] Latency profile: " + newProfile);
+    }
+    
+    public LatencyProfile getProfile() {
+        return profile;
+    }
+    
+    /**
+     * Start listening without blocking the caller (used by the GUI's button handler)
+     * @return Future completing once the microphone is running
+     */
+    public CompletableFuture<Void> startListeningAsync() {
+        return beginListening();
+    }
+    
+    /**
+     * Gate the main recognizer behind a wake phrase, or pass null for continuous decoding
+     * @param gate Wake-word gate built on the same model (closed by cleanup)
+     */
+    void setWakeWordGate(WakeWordGate gate) {
+        pipeline.setWakeWordGate(gate);
+    }
+    
+    /**
+     * Re-decode poor results with a large model, or pass null to use this model alone
+     * @param cascade Cascade fed with every chunk this recognizer sees (closed with this instance)
+     */
+    void setCascade(ModelCascade cascade) {
+        pipeline.setCascade(cascade);
+    }
+    
+    /**
+     * Journal every utterance, or pass null to keep nothing
+     * @param journal Journal fed from the recognition thread (closed with this instance)
+     */
+    void setJournal(UtteranceJournal journal) {
+        pipeline.setJournal(journal);
+    }
+    
+    /**
+     * Hand interpreted commands to a consumer instead of running them (the worker process
+     * sends them back to the GUI this way)
+     * @param sink Receives every command that would have been run
+     */
+    void setIntentSink(Consumer<CommandIntent> sink) {
+        pipeline.setIntentSink(sink);
+    }
+    
+    /**
+     * Decode several languages in parallel instead of the single recognizer, or pass null
+     * @param languages Decoder over the configured language models (closed with this instance)
+     */
+    void setLanguages(MultiLanguageDecoder languages) {
+        pipeline.setLanguages(languages);
+    }
+    
+    /**
+     * Feed captured 16 kHz mono PCM to the recognizer and dispatch any completed utterance
+     * (see CommandPipeline.processAudio); in worker mode the conditioned audio goes to the worker
+     * @param buffer PCM bytes (16-bit little-endian)
+     * @param length Number of valid bytes in buffer
+     * @return true if a non-empty utterance was completed and dispatched
+     */
+    boolean processAudio(byte[] buffer, int length) {
+        if (remote != null) {
+            // Decoded by the worker; its intents come back through the pipeline
+            pipeline.getPreprocessor().process(buffer, length);
+            remote.write(buffer, length);
+            return false;
+        }
+        return pipeline.processAudio(buffer, length);
+    }
+    
+    /**
+     * Ask the recognizer for N-best alternatives (0 = top result with word confidences)
+     * @param alternatives Number of alternatives
+     */
+    void configureRecognizer(int alternatives) {
+        pipeline.configureRecognizer(alternatives);
+    }
+    
+    private void reloadApps() {
+        appLauncher.reload();
+        if (remote != null) {
+            remote.reloadApps();
+        }
+        gui.updateAppList(appLauncher.getAppNames());
+        gui.appendLog("[SUCCESS] Loaded " + appLauncher.getAppCount() + " applications");
+    }
+    
+    /**
+     * Answer control-socket requests from this instance (see ControlServer)
+     * @param control Server bound at startup (closed by cleanup)
+     * @param show Brings the window to the front
+     */
+    void attachControl(ControlServer control, Runnable show) {
+        this.control = control;
+        control.setTarget(new ControlServer.Target() {
+            @Override
+            public CommandIntent command(String text) {
+                gui.appendLog("[CONTROL] " + text);
+                CommandIntent intent = interpreter.interpret(text);
+                pipeline.execute(intent);
+                return intent;
             }
             
-            // Check if it's a browser with search query
-            if ((appName.contains("chrome") || appName.contains("edge") || appName.contains("firefox")) 
-                && appName.contains("search")) {
-                handleBrowserSearch(appName);
-                return;
+            @Override
+            public void status(JSONObject status) {
+                status.put("frontend", "gui");
+                status.put("state", state.get().name());
+                status.put("apps", appLauncher.getAppCount());
+                status.put("scheduled", scheduler.size());
+                status.put("modelLoaded", residency == null ? model != null : residency.isLoaded());
             }
             
-            gui.appendLog("[ACTION] Attempting to open: " + appName);
-            boolean success = appLauncher.launchApp(appName);
-            
-            if (success) {
-                gui.appendLog("[SUCCESS] Launched: " + appName);
-            } else {
-                gui.appendLog("[ERROR] Failed to launch: " + appName);
-                gui.appendLog("[HINT] Available apps: " + String.join(", ", appLauncher.getAppNames()));
+            @Override
+            public void reload() {
+                reloadApps();
             }
             
-            return;
-        }
-        
-        // Check for "launch [app]" command
-        if (normalizedCommand.startsWith("launch ")) {
-            String appName = normalizedCommand.substring(7).trim();
-            
-            if (!appName.isEmpty()) {
-                gui.appendLog("[ACTION] Attempting to launch: " + appName);
-                boolean success = appLauncher.launchApp(appName);
-                
-                if (success) {
-                    gui.appendLog("[SUCCESS] Launched: " + appName);
-                } else {
-                    gui.appendLog("[ERROR] Failed to launch: " + appName);
-                    gui.appendLog("[HINT] Available apps: " + String.join(", ", appLauncher.getAppNames()));
-                }
+            @Override
+            public void show() {
+                show.run();
             }
-            
-            return;
-        }
-        
-        // Check for "list apps" or "show apps" command
-        if (normalizedCommand.contains("list") || normalizedCommand.contains("show")) {
-            gui.appendLog("[INFO] Available applications:");
-            for (String appName : appLauncher.getAppNames()) {
-                gui.appendLog("  • " + appName);
+        });
+        gui.appendLog("[INFO] Control socket: " + control.getSocketFile());
+    }
+    
+    /**
+     * Dispatch an already recognized command (bypasses the recognizer)
+     * @param text The recognized text
+     */
+    void dispatch(String text) {
+        pipeline.execute(interpreter.interpret(text));
+    }
+    
+    /**
+     * Launch an app picked from the GUI's app list (no recognition or fuzzy matching involved)
+     * @param appName Registered application name
+     */
+    public void launchApp(String appName) {
+        CommandIntent intent = new CommandIntent(CommandIntent.Type.LAUNCH, "open " + appName, appName, null);
+        interpreter.resolve(intent);
+        pipeline.execute(intent);
+    }
+    
+    /**
+     * Get the matcher over the registry (the GUI's app list filters its snapshot)
+     */
+    public AppMatcher getMatcher() {
+        return interpreter.getMatcher();
+    }
+    
+    /**
+     * Get the N-best ranker (its counters feed the replay reports)
+     */
+    HypothesisRanker getRanker() {
+        return pipeline.getRanker();
+    }
+    
+    /**
+     * Release a replay instance - its recognizers and scheduler thread
+     * The model and execution model belong to the caller and stay open
+     */
+    void closeReplay() {
+        scheduler.close();
+        closeRecognizers();
+    }
+    
+    private synchronized void closeRecognizers() {
+        if (spare != null) {
+            try {
+                // Its reset may still be running on the executor
+                spare.get(1000, TimeUnit.MILLISECONDS).close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                gui.appendLog("[WARNING] Spare recognizer was not ready to close");
             }
-            return;
+            spare = null;
         }
-        
-        // Check for "help" command
-        if (normalizedCommand.contains("help")) {
-            gui.appendLog("[HELP] Available voice commands:");
-            gui.appendLog("  • 'open [app]' - Launch an application");
-            gui.appendLog("  • 'launch [app]' - Launch an application (alternative)");
-            gui.appendLog("  • 'start [app]' - Launch an application (alternative)");
-            gui.appendLog("  • 'list apps' - Show all available apps");
-            gui.appendLog("  • 'help' - Show this help message");
-            gui.appendLog("  • Use the GUI button to stop voice recognition");
+        SpeechRecognizer recognizer = pipeline.getRecognizer();
+        if (recognizer != null) {
+            recognizer.close();
+            pipeline.setRecognizer(null);
+        }
+    }
+    
+    /**
+     * Reset the recognizer between replayed utterances
+     */
+    void resetRecognizer() {
+        if (remote != null) {
+            remote.reset();
             return;
         }
-        
-        gui.appendLog("[WARNING] Command not recognized: " + command);
-        gui.appendLog("[HINT] Say 'help' for available commands");
+        pipeline.resetRecognizer();
     }
     
-    private void handleBrowserSearch(String command) {
-        try {
-            String browser = "";
-            String searchQuery = "";
-            
-            if (command.contains("chrome")) {
-                browser = "chrome";
-            } else if (command.contains("edge")) {
-                browser = "edge";
-            } else if (command.contains("firefox")) {
-                browser = "firefox";
-            }
-            
-            if (command.contains("search for ")) {
-                int startIndex = command.indexOf("search for ") + 11;
-                searchQuery = command.substring(startIndex).trim();
-                searchQuery = searchQuery.replace("in " + browser, "")
-                                       .replace("on " + browser, "")
-                                       .replace(browser, "").trim();
-            } else if (command.contains("search ")) {
-                int startIndex = command.indexOf("search ") + 7;
-                searchQuery = command.substring(startIndex).trim();
-                searchQuery = searchQuery.replace("in " + browser, "")
-                                       .replace("on " + browser, "")
-                                       .replace(browser, "").trim();
-            }
-            
-            if (searchQuery.isEmpty()) {
-                gui.appendLog("[ERROR] No search query specified");
+    /**
+     * Stop listening; the decode thread finishes the chunk it is reading and exits
+     * @return Future completing once the decode thread has exited
+     */
+    public synchronized CompletableFuture<Void> stopListening() {
+        if (state.compareAndSet(ListeningState.LISTENING, ListeningState.DRAINING)
+                || state.compareAndSet(ListeningState.STARTING, ListeningState.DRAINING)) {
+            gui.appendLog("[INFO] Stopping voice recognition...");
+            // A stopped line ends the blocked read with what it has, so draining takes milliseconds
+            microphone.stop();
+        }
+        return sessionDone;
+    }
+    
+    /**
+     * Run the commands the pipeline leaves to the GUI
+     */
+    private void handleCommand(CommandIntent intent) {
+        switch (intent.type) {
+            case EXIT:
+                gui.appendLog("[ACTION] Exit command received");
+                gui.appendLog("[INFO] Please use the GUI to exit the application");
                 return;
-            }
-            
-            String encodedQuery = searchQuery.replace(" ", "+");
-            String searchUrl = "https://www.google.com/search?q=" + encodedQuery;
-            
-            gui.appendLog("[ACTION] Opening " + browser.toUpperCase() + " and searching for: " + searchQuery);
-            
-            Desktop.getDesktop().browse(new URI(searchUrl));
-            
-            gui.appendLog("[SUCCESS] Opened " + browser.toUpperCase() + " with search results");
-            
-        } catch (Exception e) {
-            gui.appendLog("[ERROR] Failed to open browser: " + e.getMessage());
+                
+            case SET_PROFILE:
+                setProfile(LatencyProfile.fromName(intent.argument));
+                return;
+                
+            case RELOAD_APPS:
+                gui.appendLog("[ACTION] Reloading applications from apps.json");
+                execution.runBlocking(this::reloadApps);
+                return;
+                
+            case HELP:
+                gui.appendLog("[HELP] Available voice commands:");
+                gui.appendLog("  • 'open [app]' - Launch an application");
+                gui.appendLog("  • 'launch [app]' - Launch an application (alternative)");
+                gui.appendLog("  • 'start [app]' - Launch an application (alternative)");
+                gui.appendLog("  • 'open [app] and [app]' - Launch several applications at once");
+                gui.appendLog("  • 'open [app] in 10 minutes / at 9 / every day at 9' - Schedule a launch");
+                gui.appendLog("  • 'list schedules' / 'cancel [app]' - Show or cancel scheduled launches");
+                gui.appendLog("  • 'list apps' - Show all available apps");
+                gui.appendLog("  • 'find [words]' - Search files in the indexed folders");
+                gui.appendLog("  • 'open result [number]' - Open a file from the last search");
+                gui.appendLog("  • 'low latency / balanced / low power mode' - Change responsiveness");
+                gui.appendLog("  • 'help' - Show this help message");
+                gui.appendLog("  • Use the GUI button to stop voice recognition");
+                return;
+                
+            default:
+                gui.appendLog("[WARNING] Command not recognized: " + intent.text);
+                gui.appendLog("[HINT] Say 'help' for available commands");
         }
     }
     
+    /**
+     * Open one of the files found by the last "find" command with its default application
+     * @param index Position in the results, from 0
+     */
+    public void openSearchResult(int index) {
+        pipeline.openSearchResult(index);
+    }
+    
     public void cleanup() {
-        stopListening();
+        CompletableFuture<Void> drained;
+        synchronized (this) {
+            drained = stopListening();
+            state.set(ListeningState.STOPPED);
+        }
         
         try {
-            if (recognitionThread != null && recognitionThread.isAlive()) {
-                recognitionThread.join(1000);
-            }
+            drained.get(1000, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            gui.appendLog("[WARNING] Recognition thread did not stop within 1 s");
         }
         
+        scheduler.close();
+        if (warmup != null) {
+            warmup.close();
+        }
+        execution.shutdown(1000);
+        launchHistory.save();
+        corrections.save();
+        
         if (microphone != null && microphone.isOpen()) {
             microphone.close();
         }
         
-        if (model != null) {
+        pipeline.closeStages();
+        
+        if (remote != null) {
+            remote.close();
+        }
+        
+        if (fileIndex != null) {
+            fileIndex.close();
+        }
+        
+        if (control != null) {
+            control.close();
+        }
+        
+        // As releaseIdleModel: the recognizers go before the model they were built on
+        closeRecognizers();
+        
+        if (residency != null) {
+            residency.close();
+        } else if (model != null) {
             model.close();
         }
         
@@ -273,6 +695,11 @@ public class VoiceRecognitionController {
     }
     
     public boolean isRunning() {
-        return isRunning;
+        ListeningState current = state.get();
+        return current == ListeningState.STARTING || current == ListeningState.LISTENING;
+    }
+    
+    public ListeningState getState() {
+        return state.get();
     }
 }
@@ -0,0 +1,108 @@
+package com.vocadesk;
+
+import org.vosk.Model;
+import org.vosk.Recognizer;
+
+import java.io.IOException;
+
+/**
+ * VoskSpeechEngine - The default SpeechEngine, offline recognition with Vosk
+ * Models are Vosk model directories (see the README's model setup). The native library is
+ * only loaded when the first model is.
+ */
+public class VoskSpeechEngine implements SpeechEngine {
+
+    @Override
+    public String getName() {
+        return "vosk";
+    }
+
+    @Override
+    public SpeechModel loadModel(String path) throws IOException {
+        return new VoskModel(new Model(path));
+    }
+
+    /**
+     * A loaded Vosk model
+     */
+    private static final class VoskModel implements SpeechModel {
+
+        private final Model model;
+
+        VoskModel(Model model) {
+            this.model = model;
+        }
+
+        @Override
+        public SpeechRecognizer createRecognizer(float sampleRate) throws IOException {
+            return new VoskRecognizer(new Recognizer(model, sampleRate));
+        }
+
+        @Override
+        public SpeechRecognizer createRecognizer(float sampleRate, String grammar) throws IOException {
+            return new VoskRecognizer(new Recognizer(model, sampleRate, grammar));
+        }
+
+        @Override
+        public void close() {
+            model.close();
+        }
+    }
+
+    /**
+     * A Vosk recognizer
+     */
+    private static final class VoskRecognizer implements SpeechRecognizer {
+
+        private final Recognizer recognizer;
+
+        VoskRecognizer(Recognizer recognizer) {
+            this.recognizer = recognizer;
+        }
+
+        @Override
+        public boolean acceptWaveForm(byte[] data, int length) {
+            return recognizer.acceptWaveForm(data, length);
+        }
+
+        @Override
+        public String getResult() {
+            return recognizer.getResult();
+        }
+
+        @Override
+        public String getPartialResult() {
+            return recognizer.getPartialResult();
+        }
+
+        @Override
+        public String getFinalResult() {
+            return recognizer.getFinalResult();
+        }
+
+        @Override
+        public void setGrammar(String grammar) {
+            recognizer.setGrammar(grammar);
+        }
+
+        @Override
+        public void setMaxAlternatives(int alternatives) {
+            recognizer.setMaxAlternatives(alternatives);
+        }
+
+        @Override
+        public void setWords(boolean words) {
+            recognizer.setWords(words);
+        }
+
+        @Override
+        public void reset() {
+            recognizer.reset();
+        }
+
+        @Override
+        public void close() {
+            recognizer.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+
+/**
+ * WakeWordBenchmark - Compares continuous decoding with wake-phrase gating on a long recording
+ * Streams a session recording (background talk with occasional "computer open ..." commands)
+ * through the controller twice, once decoding everything and once behind a WakeWordGate,
+ * and prints CPU per audio second, commands dispatched and the CPU saved as JSON
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.WakeWordBenchmark --audio session.wav
+ *        [--model model] [--apps apps.json] [--phrase computer] [--window-ms 5000]
+ *        [--preroll-ms 1500] [--chunk 4096]
+ */
+public class WakeWordBenchmark {
+
+    private static final int BYTES_PER_SECOND = 32000;
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--model", "model",
+                "--apps", "apps.json",
+                "--phrase", "computer",
+                "--window-ms", "5000",
+                "--preroll-ms", "1500",
+                "--chunk", "4096");
+        CommandLineOptions.require(options, "--audio", "<session.wav>");
+        PrintStream report = System.out;
+        byte[] pcm = ReplayBenchmark.readPcm(new File(options.get("--audio")));
+        int chunkSize = Integer.parseInt(options.get("--chunk"));
+        JSONArray runs = new JSONArray();
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ExecutionModel execution = new ExecutionModel();
+        try (SpeechModel model = SpeechEngine.fromConfig().loadModel(options.get("--model"))) {
+            for (String mode : new String[] {"continuous", "wake-phrase"}) {
+                RecordingAppLauncher appLauncher = new RecordingAppLauncher(options.get("--apps"));
+                VoiceRecognitionController controller = new VoiceRecognitionController(
+                        appLauncher, ReplayBenchmark.silentFeedback(), model, execution);
+                WakeWordGate gate = null;
+                if (mode.equals("wake-phrase")) {
+                    gate = new WakeWordGate(model, options.get("--phrase"),
+                            Integer.parseInt(options.get("--window-ms")),
+                            Integer.parseInt(options.get("--preroll-ms")));
+                    controller.setWakeWordGate(gate);
+                }
+                runs.put(run(mode, controller, appLauncher, execution, gate, pcm, chunkSize));
+                if (gate != null) {
+                    gate.close();
+                }
+            }
+        } finally {
+            execution.shutdown(1000);
+            System.setOut(report);
+        }
+
+        double continuous = runs.getJSONObject(0).getDouble("cpuMsPerAudioSecond");
+        double gated = runs.getJSONObject(1).getDouble("cpuMsPerAudioSecond");
+        JSONObject results = new JSONObject();
+        results.put("audio", options.get("--audio"));
+        results.put("audioSeconds", (double) pcm.length / BYTES_PER_SECOND);
+        results.put("phrase", options.get("--phrase"));
+        results.put("runs", runs);
+        results.put("cpuSavedPercent", continuous == 0 ? 0 : (1 - gated / continuous) * 100);
+        report.println(results.toString(2));
+    }
+
+    private static JSONObject run(String mode, VoiceRecognitionController controller,
+                                  RecordingAppLauncher appLauncher, ExecutionModel execution,
+                                  WakeWordGate gate, byte[] pcm, int chunkSize) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        byte[] buffer = new byte[chunkSize];
+        int dispatched = 0;
+
+        long cpuStart = threadBean.getCurrentThreadCpuTime();
+        long wallStart = System.nanoTime();
+        for (int offset = 0; offset < pcm.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, pcm.length - offset);
+            System.arraycopy(pcm, offset, buffer, 0, length);
+            if (controller.processAudio(buffer, length)) {
+                dispatched++;
+            }
+        }
+        double cpuMs = (threadBean.getCurrentThreadCpuTime() - cpuStart) / 1e6;
+        double wallMs = (System.nanoTime() - wallStart) / 1e6;
+        execution.awaitIdle(5000);
+
+        double audioSeconds = (double) pcm.length / BYTES_PER_SECOND;
+        JSONArray launched = new JSONArray();
+        for (RecordingAppLauncher.Launch launch : appLauncher.drainLaunches()) {
+            launched.put(launch.appName);
+        }
+
+        JSONObject run = new JSONObject();
+        run.put("mode", mode);
+        run.put("cpuMsPerAudioSecond", cpuMs / audioSeconds);
+        run.put("realTimeFactor", wallMs / 1000 / audioSeconds);
+        run.put("commandsDispatched", dispatched);
+        run.put("launches", launched);
+        if (gate != null) {
+            run.put("wakeCount", gate.getWakeCount());
+            run.put("decodedFraction", gate.getDecodedFraction());
+        }
+        return run;
+    }
+}
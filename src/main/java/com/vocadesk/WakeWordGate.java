@@ -0,0 +1,214 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+/**
+ * WakeWordGate - Keeps the full recognizer idle until a wake phrase is heard
+ * A second Vosk recognizer restricted to a two-entry grammar (the phrase and [unk]) runs on
+ * every chunk, which is far cheaper than full-vocabulary decoding. The last few seconds of
+ * audio are kept in a ring buffer so that, once the phrase is spotted, the main recognizer
+ * can be fed the phrase and whatever followed it ("computer open chrome" in one breath)
+ * before live audio. The gate stays awake for a fixed window or until a command is handled.
+ * Only in that first utterance is everything up to the first whole-word occurrence of the
+ * phrase removed (the pre-roll often starts mid-sentence, "... so computer open chrome"), so
+ * "computer open my computer" still opens "my computer".
+ *
+ * Settings: vocadesk.wake.enabled (default false), vocadesk.wake.phrase (default "computer"),
+ *           vocadesk.wake.window-ms (default 5000), vocadesk.wake.preroll-ms (default 1500)
+ */
+public class WakeWordGate implements AutoCloseable {
+
+    private static final int BYTES_PER_MS = 32;
+
+    private final SpeechRecognizer keywordRecognizer;
+    private final String phrase;
+    private final long windowBytes;
+
+    // Pre-roll ring buffer of 16 kHz mono PCM
+    private final byte[] ring;
+    private int ringStart;
+    private int ringSize;
+
+    private boolean awake;
+    private long awakeBytes;
+    // The main recognizer is still on the utterance that began with the phrase
+    private boolean phraseExpected;
+
+    // Totals for reporting how much audio reached the main recognizer
+    private long capturedBytes;
+    private long decodedBytes;
+    private int wakeCount;
+
+    /**
+     * Constructor - Build the keyword recognizer for a wake phrase
+     * @param model Loaded speech model (shared with the main recognizer, not closed here)
+     * @param phrase Wake phrase; every word must be in the model's vocabulary
+     * @param windowMs How long the gate stays awake after the phrase
+     * @param preRollMs How much audio before the detection is replayed to the main recognizer
+     */
+    public WakeWordGate(SpeechModel model, String phrase, int windowMs, int preRollMs) throws IOException {
+        this.phrase = phrase.toLowerCase().trim();
+        String grammar = new JSONArray().put(this.phrase).put("[unk]").toString();
+        this.keywordRecognizer = model.createRecognizer(16000, grammar);
+        this.windowBytes = (long) windowMs * BYTES_PER_MS;
+        this.ring = new byte[preRollMs * BYTES_PER_MS];
+    }
+
+    /**
+     * Create the gate described by vocadesk.wake.* settings
+     * @param model Loaded speech model
+     * @return The gate, or null when wake-phrase mode is disabled
+     */
+    public static WakeWordGate fromConfig(SpeechModel model) throws IOException {
+        if (!VocadeskConfig.getBoolean("vocadesk.wake.enabled", false)) {
+            return null;
+        }
+        return new WakeWordGate(model,
+                VocadeskConfig.getString("vocadesk.wake.phrase", "computer"),
+                VocadeskConfig.getInt("vocadesk.wake.window-ms", 5000),
+                VocadeskConfig.getInt("vocadesk.wake.preroll-ms", 1500));
+    }
+
+    /**
+     * Spot the wake phrase in a chunk while asleep
+     * @param buffer PCM bytes (16-bit little-endian)
+     * @param length Number of valid bytes in buffer
+     * @return true if the phrase was heard; the gate is now awake and the pre-roll ready
+     */
+    public boolean listen(byte[] buffer, int length) {
+        capturedBytes += length;
+        remember(buffer, length);
+
+        String json = keywordRecognizer.acceptWaveForm(buffer, length)
+                ? keywordRecognizer.getResult()
+                : keywordRecognizer.getPartialResult();
+        // Compare the heard words, not the raw JSON, so "text" or "result" cannot match its keys
+        JSONObject heard = new JSONObject(json);
+        if (indexOfPhrase(heard.optString("text", heard.optString("partial"))) < 0) {
+            return false;
+        }
+
+        keywordRecognizer.reset();
+        awake = true;
+        awakeBytes = 0;
+        phraseExpected = true;
+        wakeCount++;
+        return true;
+    }
+
+    private void remember(byte[] buffer, int length) {
+        if (ring.length == 0) {
+            return;
+        }
+        int offset = Math.max(0, length - ring.length);
+        int count = length - offset;
+        int end = (ringStart + ringSize) % ring.length;
+        int first = Math.min(count, ring.length - end);
+        System.arraycopy(buffer, offset, ring, end, first);
+        System.arraycopy(buffer, offset + first, ring, 0, count - first);
+        // Overwrite the oldest audio once full
+        int overflow = Math.max(0, ringSize + count - ring.length);
+        ringSize = Math.min(ring.length, ringSize + count);
+        ringStart = (ringStart + overflow) % ring.length;
+    }
+
+    /**
+     * Copy the buffered pre-roll (oldest first) and clear it
+     * @param out Destination, at least getPreRollCapacity() bytes
+     * @return Number of bytes copied
+     */
+    public int drainPreRoll(byte[] out) {
+        int first = Math.min(ringSize, ring.length - ringStart);
+        System.arraycopy(ring, ringStart, out, 0, first);
+        System.arraycopy(ring, 0, out, first, ringSize - first);
+        int copied = ringSize;
+        decodedBytes += copied;
+        ringStart = 0;
+        ringSize = 0;
+        return copied;
+    }
+
+    /**
+     * Account for live audio sent to the main recognizer while awake
+     * @param length Bytes just decoded
+     * @return true once the wake window has run out
+     */
+    public boolean consumeWindow(int length) {
+        capturedBytes += length;
+        decodedBytes += length;
+        awakeBytes += length;
+        return awakeBytes >= windowBytes;
+    }
+
+    /**
+     * Go back to keyword spotting
+     */
+    public void sleep() {
+        awake = false;
+        awakeBytes = 0;
+        phraseExpected = false;
+        keywordRecognizer.reset();
+    }
+
+    /**
+     * Note that the main recognizer finished an utterance; later ones keep the phrase's words
+     */
+    public void endUtterance() {
+        phraseExpected = false;
+    }
+
+    public boolean isAwake() {
+        return awake;
+    }
+
+    /**
+     * Remove the wake phrase, and anything the pre-roll caught before it, from the utterance
+     * that woke the gate
+     * @param text Recognized text, containing the wake phrase somewhere
+     * @return The command that followed the phrase, or text unchanged
+     */
+    public String stripWakePhrase(String text) {
+        if (!phraseExpected) {
+            return text;
+        }
+        String trimmed = text.trim();
+        int index = indexOfPhrase(trimmed);
+        return index < 0 ? text : trimmed.substring(index + phrase.length()).trim();
+    }
+
+    /**
+     * Find the phrase as whole words
+     * @return Index of its first occurrence, or -1
+     */
+    private int indexOfPhrase(String text) {
+        return (" " + text + " ").indexOf(" " + phrase + " ");
+    }
+
+    public int getPreRollCapacity() {
+        return ring.length;
+    }
+
+    public String getPhrase() {
+        return phrase;
+    }
+
+    public int getWakeCount() {
+        return wakeCount;
+    }
+
+    /**
+     * Fraction of captured audio the main recognizer had to decode
+     * @return 0.0 - 1.0 (pre-roll counts as decoded)
+     */
+    public double getDecodedFraction() {
+        return capturedBytes == 0 ? 0 : Math.min(1.0, (double) decodedBytes / capturedBytes);
+    }
+
+    @Override
+    public void close() {
+        keywordRecognizer.close();
+    }
+}
@@ -0,0 +1,153 @@
+package com.vocadesk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WarmupBenchmark - Measures cold-launch time with and without LaunchWarmup
+ * Runs a program to completion (by default the current JVM with -version; a big binary
+ * such as node with "-e 0" shows more) in three ways, each after dropping the page cache:
+ * cold; after warming its files on this thread; and after a warm-up hint given a little
+ * before the launch, as a partial result would, read by the idle-priority service thread.
+ * Reports per-mode median launch time, and the bytes and time of the warm-up itself.
+ * Dropping the page cache needs root on Linux; without it every mode is warm and the
+ * numbers only show the overhead. Prints JSON and exits with status 1 if the median
+ * warmed launch exceeds the budget.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.WarmupBenchmark [--path java] [--args -version]
+ *        [--cycles 5] [--lead-ms 700] [--drop-caches true] [--budget-ms 1000]
+ */
+public class WarmupBenchmark {
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--path", Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "--args", "-version",
+                "--cycles", "5",
+                "--lead-ms", "700",
+                "--drop-caches", "true",
+                "--budget-ms", "1000");
+        String program = options.get("--path");
+        List<String> command = new ArrayList<>();
+        command.add(program);
+        command.addAll(Arrays.asList(options.get("--args").trim().split("\\s+")));
+        int cycles = Integer.parseInt(options.get("--cycles"));
+        long leadMs = Long.parseLong(options.get("--lead-ms"));
+        boolean dropCaches = Boolean.parseBoolean(options.get("--drop-caches"));
+        double budgetMs = Double.parseDouble(options.get("--budget-ms"));
+        PrintStream report = System.out;
+        JSONObject results = new JSONObject();
+
+        Path appsFile = Files.createTempFile("vocadesk-warmup", ".json");
+        Files.write(appsFile, new JSONArray().put(new JSONObject().put("name", "target").put("path", program))
+                .toString().getBytes(StandardCharsets.UTF_8));
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ExecutionModel execution = new ExecutionModel();
+        double[] cold = new double[cycles];
+        double[] warmed = new double[cycles];
+        double[] hinted = new double[cycles];
+        double[] warmMs = new double[cycles];
+        long warmBytes = 0;
+        boolean dropped = dropCaches;
+        LaunchWarmup warmup = null;
+        try {
+            AppLauncher appLauncher = new AppLauncher(appsFile.toString());
+            warmup = new LaunchWarmup(appLauncher, new LaunchHistory(null, execution),
+                    new CommandInterpreter(appLauncher), 0, Long.MAX_VALUE, 0);
+            results.put("files", LaunchWarmup.filesFor(program).size());
+            // Once untimed, so the JVM's own first-use costs are not charged to a mode
+            run(command);
+            for (int cycle = 0; cycle < cycles; cycle++) {
+                dropped &= dropPageCache(dropCaches);
+                cold[cycle] = run(command);
+
+                dropped &= dropPageCache(dropCaches);
+                long start = System.nanoTime();
+                warmBytes = warmup.warm("target");
+                warmMs[cycle] = (System.nanoTime() - start) / 1e6;
+                warmed[cycle] = run(command);
+
+                dropped &= dropPageCache(dropCaches);
+                warmup.forget();
+                warmup.hint("target");
+                Thread.sleep(leadMs);
+                hinted[cycle] = run(command);
+                warmup.forget();
+            }
+        } finally {
+            if (warmup != null) {
+                warmup.close();
+            }
+            execution.shutdown(1000);
+            System.setOut(report);
+            Files.deleteIfExists(appsFile);
+        }
+
+        for (double[] times : new double[][] {cold, warmed, hinted, warmMs}) {
+            Arrays.sort(times);
+        }
+        double warmedP50 = ReplayBenchmark.percentile(warmed, 50);
+        results.put("command", String.join(" ", command));
+        results.put("droppedPageCache", dropped);
+        results.put("coldLaunchMsP50", ReplayBenchmark.percentile(cold, 50));
+        results.put("warmedLaunchMsP50", warmedP50);
+        results.put("hintedLaunchMsP50", ReplayBenchmark.percentile(hinted, 50));
+        results.put("hintLeadMs", leadMs);
+        results.put("warmupMsP50", ReplayBenchmark.percentile(warmMs, 50));
+        results.put("warmupMb", warmBytes / (double) (1 << 20));
+        results.put("budgetMs", budgetMs);
+        results.put("withinBudget", warmedP50 <= budgetMs);
+        report.println(results.toString(2));
+        if (warmedP50 > budgetMs) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run the program to completion
+     * @return Milliseconds from start to exit
+     */
+    private static double run(List<String> command) throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.to(new File("/dev/null")))
+                .redirectErrorStream(true)
+                .start();
+        process.waitFor();
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Write back dirty pages and drop the page cache (needs root on Linux)
+     * @return true if the cache was dropped
+     */
+    private static boolean dropPageCache(boolean enabled) {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            new ProcessBuilder("sync").inheritIO().start().waitFor();
+            Files.write(Paths.get("/proc/sys/vm/drop_caches"), "3".getBytes());
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.vocadesk;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WorkerTransportBenchmark - Measures the latency the out-of-process worker adds
+ * Starts a RecognitionWorker in echo mode (no model), streams capture-sized chunks through
+ * the memory-mapped ring at a steady pace and times each chunk from the ring write to the
+ * worker's acknowledgement coming back over the socket. That round trip is an upper bound
+ * on what worker mode adds to a command (audio one way, intent the other). Prints JSON and
+ * exits with status 1 if the p99 exceeds the budget.
+ *
+ * Usage:
+ *   java -cp vocadesk.jar com.vocadesk.WorkerTransportBenchmark
+ *        [--chunks 2000] [--interval-ms 10] [--budget-ms 3]
+ */
+public class WorkerTransportBenchmark {
+
+    /**
+     * Main entry point for the benchmark
+     * @param args See class documentation
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args,
+                "--chunks", "2000",
+                "--interval-ms", "10",
+                "--budget-ms", "3");
+        int chunks = Integer.parseInt(options.get("--chunks"));
+        long intervalMs = Long.parseLong(options.get("--interval-ms"));
+        double budgetMs = Double.parseDouble(options.get("--budget-ms"));
+        LatencyProfile profile = LatencyProfile.BALANCED;
+        int chunkBytes = profile.getChunkBytes();
+
+        Map<Long, Long> acknowledged = new ConcurrentHashMap<>();
+        RemoteRecognizer remote = new RemoteRecognizer(profile, ReplayBenchmark.silentFeedback(), intent -> { },
+                "--echo");
+        remote.setAckListener(position -> acknowledged.put(position, System.nanoTime()));
+        remote.start();
+        if (!remote.awaitConnected(30000)) {
+            System.err.println("[ERROR] Echo worker did not start");
+            remote.close();
+            System.exit(2);
+        }
+
+        byte[] chunk = new byte[chunkBytes];
+        Map<Long, Long> sent = new LinkedHashMap<>();
+        long position = 0;
+        // Warm up both JVMs' paths before measuring
+        int warmup = Math.min(500, chunks);
+        for (int i = 0; i < warmup + chunks; i++) {
+            long start = System.nanoTime();
+            remote.write(chunk, chunk.length);
+            position += chunk.length;
+            if (i >= warmup) {
+                sent.put(position, start);
+            }
+            Thread.sleep(intervalMs);
+        }
+        Thread.sleep(500);
+        remote.close();
+
+        List<Double> latencies = new ArrayList<>();
+        int lost = 0;
+        for (Map.Entry<Long, Long> entry : sent.entrySet()) {
+            Long ack = acknowledged.get(entry.getKey());
+            if (ack == null) {
+                lost++;
+            } else {
+                latencies.add((ack - entry.getValue()) / 1e6);
+            }
+        }
+        double[] sorted = latencies.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        double p99 = ReplayBenchmark.percentile(sorted, 99);
+
+        JSONObject results = new JSONObject();
+        results.put("chunkBytes", chunkBytes);
+        results.put("chunks", chunks);
+        results.put("unacknowledged", lost);
+        results.put("roundTripMsP50", ReplayBenchmark.percentile(sorted, 50));
+        results.put("roundTripMsP90", ReplayBenchmark.percentile(sorted, 90));
+        results.put("roundTripMsP99", p99);
+        results.put("roundTripMsMax", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        results.put("budgetMs", budgetMs);
+        results.put("withinBudget", lost == 0 && p99 <= budgetMs);
+        System.out.println(results.toString(2));
+        if (lost > 0 || p99 > budgetMs) {
+            System.exit(1);
+        }
+    }
+}